@@ -95,11 +95,20 @@ public class ClienteService {
         // Verifica se o cliente está logado.
         if (tokenSessao == null) return new ArrayList<>();
         try {
-            // Constrói a requisição para consultar tarefas, enviando o token de sessão.
-            ConsultarStatusRequest request = ConsultarStatusRequest.newBuilder().setTokenSessao(tokenSessao).build();
-            // Realiza a chamada gRPC síncrona.
-            ConsultarStatusResponse response = tarefaStub.consultarStatusTarefas(request);
-            return response.getTarefasList();
+            List<TarefaInfo> tarefas = new ArrayList<>();
+            String cursor = "";
+            do {
+                // Constrói a requisição da página, enviando o token de sessão e o cursor da página anterior.
+                ConsultarStatusRequest request = ConsultarStatusRequest.newBuilder()
+                        .setTokenSessao(tokenSessao)
+                        .setCursor(cursor)
+                        .build();
+                // Realiza a chamada gRPC síncrona.
+                ConsultarStatusResponse response = tarefaStub.consultarStatusTarefas(request);
+                tarefas.addAll(response.getTarefasList());
+                cursor = response.getProximoCursor();
+            } while (!cursor.isEmpty());
+            return tarefas;
         } catch (StatusRuntimeException e) {
             System.err.println("Erro ao consultar tarefas: " + e.getStatus());
             return new ArrayList<>();
@@ -16,7 +16,9 @@ import io.grpc.StatusRuntimeException;
 // Importa a classe para o Health Checking do gRPC, usada para verificar se o servidor está ativo.
 import io.grpc.health.v1.HealthCheckRequest;
 import io.grpc.health.v1.HealthGrpc;
-// Importa a classe base para a implementação de callbacks assíncronos (streams).
+// Importa as classes base para a implementação de callbacks assíncronos (streams) e o controle de fluxo do lado do cliente.
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import io.grpc.stub.StreamObserver;
 // Importa classes do JavaFX para manipulação da interface gráfica.
 import javafx.application.Platform;
@@ -27,10 +29,16 @@ import javafx.stage.Stage;
 
 // Importa classes do Java para manipulação de listas, concorrência e agendamento de tarefas.
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -40,6 +48,11 @@ import java.util.function.Consumer;
  */
 public class ClienteService {
 
+    // Número máximo de tarefas enviadas em cada chamada (ou em cada bloco do stream) na submissão em lote.
+    private static final int TAMANHO_BLOCO_LOTE = 1000;
+    // Número de tarefas pedidas por página na consulta das tarefas do usuário.
+    private static final int TAMANHO_PAGINA_CONSULTA = 500;
+
     // Canal de comunicação gRPC com o servidor. Não é final para permitir a recriação em caso de falha.
     private ManagedChannel channel;
     // Stub de bloqueio (síncrono) para o serviço de autenticação.
@@ -53,6 +66,10 @@ public class ClienteService {
     private String tokenSessao;
     // Armazena o nome do usuário logado.
     private String usuarioLogado;
+    // Cópia local das tarefas do usuário, atualizada com as alterações desde a última consulta.
+    private final Map<String, TarefaInfo> tarefasEmCache = new LinkedHashMap<>();
+    // Versão do servidor até a qual a cópia local está atualizada (0 enquanto não houver cópia).
+    private long versaoTarefas = 0;
     // Relógio de Lamport para manter uma ordem causal de eventos no cliente.
     private final AtomicLong lamportClock = new AtomicLong(0);
 
@@ -120,6 +137,7 @@ public class ClienteService {
             // Armazena o token de sessão e o nome de usuário recebidos na resposta.
             this.tokenSessao = response.getTokenSessao();
             this.usuarioLogado = usuario;
+            descartarCacheTarefas();
 
             // Verifica se o token recebido é válido.
             if (this.tokenSessao != null && !this.tokenSessao.isEmpty()) {
@@ -141,9 +159,11 @@ public class ClienteService {
 
     /**
      * Busca no servidor a lista de tarefas pertencentes ao usuário logado.
+     * Na primeira chamada todas as tarefas são carregadas, página a página; nas seguintes, apenas as alteradas
+     * desde a última consulta são pedidas e aplicadas sobre a cópia local.
      * @return Uma lista de objetos TarefaInfo ou uma lista vazia em caso de erro.
      */
-    public List<TarefaInfo> getMinhasTarefas() {
+    public synchronized List<TarefaInfo> getMinhasTarefas() {
         // Verifica se o cliente está logado (possui um token de sessão).
         if (tokenSessao == null) {
             SimpleLogger.clienteError("Tentativa de consultar tarefas sem token de sessão");
@@ -151,26 +171,52 @@ public class ClienteService {
         }
 
         try {
-            // Constrói a requisição para consultar tarefas, enviando o token de sessão para autenticação.
-            ConsultarStatusRequest request = ConsultarStatusRequest.newBuilder()
-                    .setTokenSessao(tokenSessao)
-                    .build();
-
-            // Realiza a chamada gRPC síncrona para obter a lista de tarefas.
-            ConsultarStatusResponse response = tarefaStub.consultarStatusTarefas(request);
-            List<TarefaInfo> tarefas = response.getTarefasList();
+            String cursor = "";
+            int recebidas = 0;
+            ConsultarStatusResponse response;
+            do {
+                // Constrói a requisição da página, enviando o token de sessão e a versão da cópia local.
+                ConsultarStatusRequest request = ConsultarStatusRequest.newBuilder()
+                        .setTokenSessao(tokenSessao)
+                        .setTamanhoPagina(TAMANHO_PAGINA_CONSULTA)
+                        .setCursor(cursor)
+                        .setDesdeVersao(versaoTarefas)
+                        .build();
+
+                // Realiza a chamada gRPC síncrona para obter a página.
+                response = tarefaStub.consultarStatusTarefas(request);
+                // Uma resposta completa substitui a cópia local (ex: primeira carga ou troca de orquestrador).
+                if (response.getCompleto() && cursor.isEmpty()) {
+                    tarefasEmCache.clear();
+                }
+                response.getTarefasList().forEach(tarefa -> tarefasEmCache.put(tarefa.getId(), tarefa));
+                response.getTarefasRemovidasList().forEach(tarefasEmCache::remove);
+                recebidas += response.getTarefasCount();
+                cursor = response.getProximoCursor();
+            } while (!cursor.isEmpty());
+            versaoTarefas = response.getVersao();
 
-            SimpleLogger.clienteInfo(String.format("Carregadas %d tarefas do servidor", tarefas.size()));
-            return tarefas;
+            SimpleLogger.clienteInfo(String.format("Recebidas %d tarefas do servidor (%d no total)", recebidas, tarefasEmCache.size()));
+            return new ArrayList<>(tarefasEmCache.values());
 
         } catch (StatusRuntimeException e) {
             SimpleLogger.clienteError("Erro ao consultar tarefas: " + e.getStatus().getDescription());
+            // Uma consulta interrompida no meio deixa a cópia local incompleta; a próxima recarrega tudo.
+            descartarCacheTarefas();
             // Tenta restabelecer a conexão em caso de falha.
             conectarAoServidor();
             return new ArrayList<>();
         }
     }
 
+    /**
+     * Descarta a cópia local das tarefas, forçando uma carga completa na próxima consulta.
+     */
+    private synchronized void descartarCacheTarefas() {
+        tarefasEmCache.clear();
+        versaoTarefas = 0;
+    }
+
     /**
      * Inscreve a UI para receber atualizações de tarefas em tempo real.
      * @param onUpdate A função (callback) que será executada quando uma atualização for recebida.
@@ -320,7 +366,7 @@ public class ClienteService {
                     .submeterTarefa(request);
 
             // Formata a resposta para ser exibida na UI.
-            String resultado = "Tarefa " + response.getTarefaId().substring(0, 8) + "... -> " + response.getMensagemStatus();
+            String resultado = "Tarefa " + response.getTarefaId() + " -> " + response.getMensagemStatus();
             SimpleLogger.clienteSuccess("Tarefa submetida: " + titulo);
             return resultado;
 
@@ -331,6 +377,149 @@ public class ClienteService {
         }
     }
 
+    /**
+     * Submete várias tarefas ao orquestrador, em chamadas de até TAMANHO_BLOCO_LOTE tarefas cada.
+     * @param dadosTarefas Os dados de cada tarefa, no formato usado por submeterTarefa.
+     * @return Um resultado por tarefa, na mesma ordem da lista; os itens de um bloco que falhou na comunicação vêm recusados.
+     */
+    public List<ResultadoItemLote> submeterTarefasEmLote(List<String> dadosTarefas) {
+        List<ResultadoItemLote> resultados = new ArrayList<>(dadosTarefas.size());
+        if (tokenSessao == null) {
+            SimpleLogger.clienteError("Tentativa de submeter lote sem token de sessão");
+            return recusarItens(resultados, dadosTarefas.size(), "Faça login antes de submeter tarefas.");
+        }
+
+        SimpleLogger.clienteInfo("Submetendo lote de " + dadosTarefas.size() + " tarefas");
+        for (int inicio = 0; inicio < dadosTarefas.size(); inicio += TAMANHO_BLOCO_LOTE) {
+            List<String> bloco = dadosTarefas.subList(inicio, Math.min(inicio + TAMANHO_BLOCO_LOTE, dadosTarefas.size()));
+            try {
+                SubmeterTarefasEmLoteRequest request = SubmeterTarefasEmLoteRequest.newBuilder()
+                        .setTokenSessao(tokenSessao)
+                        .setLamportTimestamp(lamportClock.incrementAndGet())
+                        .addAllDadosTarefas(bloco)
+                        .build();
+                SubmeterTarefasEmLoteResponse response = tarefaStub
+                        .withDeadlineAfter(30, TimeUnit.SECONDS)
+                        .submeterTarefasEmLote(request);
+                // Os índices retornados são relativos ao bloco; convertidos para a posição na lista completa.
+                for (ResultadoItemLote resultado : response.getResultadosList()) {
+                    resultados.add(resultado.toBuilder().setIndice(inicio + resultado.getIndice()).build());
+                }
+            } catch (StatusRuntimeException e) {
+                SimpleLogger.clienteError("Falha ao submeter bloco do lote: " + e.getStatus().getDescription());
+                conectarAoServidor(); // Tenta reconectar para os próximos blocos.
+                for (int i = 0; i < bloco.size(); i++) {
+                    resultados.add(ResultadoItemLote.newBuilder()
+                            .setIndice(inicio + i)
+                            .setAceita(false)
+                            .setMensagem("Falha de comunicação: " + e.getStatus().getDescription())
+                            .build());
+                }
+            }
+        }
+        long aceitas = resultados.stream().filter(ResultadoItemLote::getAceita).count();
+        SimpleLogger.clienteSuccess(String.format("Lote submetido: %d de %d tarefas aceitas", aceitas, dadosTarefas.size()));
+        return resultados;
+    }
+
+    /**
+     * Submete uma sequência de tarefas de tamanho indefinido pelo stream de ingestão, em blocos de TAMANHO_BLOCO_LOTE.
+     * As tarefas são lidas do iterador sob demanda, sem precisar manter a sequência inteira em memória.
+     * @param dadosTarefas O iterador com os dados das tarefas.
+     * @return Os totais de tarefas aceitas e recusadas e a lista dos itens recusados.
+     * @throws StatusRuntimeException Se a comunicação com o servidor falhar.
+     */
+    public SubmeterTarefasEmLoteResponse submeterTarefasEmStream(Iterator<String> dadosTarefas) {
+        if (tokenSessao == null) {
+            throw Status.UNAUTHENTICATED.withDescription("Faça login antes de submeter tarefas.").asRuntimeException();
+        }
+
+        CompletableFuture<SubmeterTarefasEmLoteResponse> resultado = new CompletableFuture<>();
+        // Sinalizado pelo gRPC quando o transporte volta a aceitar mensagens (controle de fluxo).
+        Object pronto = new Object();
+        StreamObserver<SubmeterTarefasEmLoteRequest> envio = asyncTarefaStub.submeterTarefasEmStream(new ClientResponseObserver<SubmeterTarefasEmLoteRequest, SubmeterTarefasEmLoteResponse>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<SubmeterTarefasEmLoteRequest> requestStream) {
+                requestStream.setOnReadyHandler(() -> {
+                    synchronized (pronto) {
+                        pronto.notifyAll();
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(SubmeterTarefasEmLoteResponse response) {
+                resultado.complete(response);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                resultado.completeExceptionally(t);
+                synchronized (pronto) {
+                    pronto.notifyAll();
+                }
+            }
+
+            @Override
+            public void onCompleted() {
+                // O resumo já foi entregue em onNext.
+            }
+        });
+
+        try {
+            SubmeterTarefasEmLoteRequest.Builder bloco = SubmeterTarefasEmLoteRequest.newBuilder().setTokenSessao(tokenSessao);
+            while (dadosTarefas.hasNext() && !resultado.isDone()) {
+                bloco.addDadosTarefas(dadosTarefas.next());
+                if (bloco.getDadosTarefasCount() == TAMANHO_BLOCO_LOTE) {
+                    aguardarEnvioLiberado((ClientCallStreamObserver<SubmeterTarefasEmLoteRequest>) envio, pronto, resultado);
+                    envio.onNext(bloco.setLamportTimestamp(lamportClock.incrementAndGet()).build());
+                    bloco.clearDadosTarefas();
+                }
+            }
+            if (bloco.getDadosTarefasCount() > 0) {
+                envio.onNext(bloco.setLamportTimestamp(lamportClock.incrementAndGet()).build());
+            }
+            envio.onCompleted();
+
+            SubmeterTarefasEmLoteResponse response = resultado.get(60, TimeUnit.SECONDS);
+            SimpleLogger.clienteSuccess(String.format("Stream de tarefas submetido: %d aceitas, %d recusadas",
+                    response.getTotalAceitas(), response.getTotalRecusadas()));
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            envio.onError(e);
+            throw Status.CANCELLED.withDescription("Submissão interrompida.").asRuntimeException();
+        } catch (ExecutionException | TimeoutException e) {
+            Status status = Status.fromThrowable(e.getCause() != null ? e.getCause() : e);
+            SimpleLogger.clienteError("Falha ao submeter stream de tarefas: " + status.getDescription());
+            conectarAoServidor(); // Tenta reconectar.
+            throw status.asRuntimeException();
+        }
+    }
+
+    /**
+     * Bloqueia até que o transporte aceite mais mensagens, para não acumular em memória um stream de tamanho indefinido.
+     */
+    private void aguardarEnvioLiberado(ClientCallStreamObserver<SubmeterTarefasEmLoteRequest> envio, Object pronto,
+                                       CompletableFuture<?> resultado) throws InterruptedException {
+        synchronized (pronto) {
+            while (!envio.isReady() && !resultado.isDone()) {
+                // A espera tem limite para não depender de uma única notificação do gRPC.
+                pronto.wait(100);
+            }
+        }
+    }
+
+    /**
+     * Preenche a lista de resultados com itens recusados (usado quando o lote nem chega a ser enviado).
+     */
+    private List<ResultadoItemLote> recusarItens(List<ResultadoItemLote> resultados, int quantidade, String mensagem) {
+        for (int i = 0; i < quantidade; i++) {
+            resultados.add(ResultadoItemLote.newBuilder().setIndice(i).setAceita(false).setMensagem(mensagem).build());
+        }
+        return resultados;
+    }
+
     /**
      * Método utilitário para extrair um título curto da string de dados da tarefa para fins de log.
      * @param dadosTarefa A string completa dos dados da tarefa.
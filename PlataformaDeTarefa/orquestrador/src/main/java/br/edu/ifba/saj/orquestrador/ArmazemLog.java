@@ -0,0 +1,270 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes do Java para manipulação de arquivos e verificação de integridade.
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+// Importa classes de coleções e concorrência do Java.
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Armazenamento chave-valor estruturado em log, usado pelo motor em arquivo do repositório de tarefas.
+ * Cada gravação é acrescentada ao fim de um único arquivo (nunca há escrita no meio dele) e um índice em memória
+ * guarda, para cada chave, a posição e o tamanho do seu registro mais recente; a leitura é uma única leitura
+ * posicional. As versões substituídas ou apagadas viram lixo, e quando o lixo passa do limiar e da metade do arquivo
+ * os registros vivos são copiados para um arquivo novo, que toma o lugar do antigo (compactação).
+ * As gravações passam por um buffer em memória, esvaziado no arquivo quando enche; um registro ainda no buffer é
+ * lido de lá. O arquivo é temporário (criado vazio e apagado ao fechar): a durabilidade continua a cargo do journal.
+ *
+ * Formato de cada registro: [tamanho do valor: int][crc32: int][valor].
+ */
+final class ArmazemLog implements Closeable {
+
+    // Tamanho do cabeçalho de cada registro (tamanho e CRC32).
+    private static final int TAMANHO_CABECALHO = 8;
+    // Capacidade do buffer de gravação.
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    // Cada entrada do índice guarda a posição nos 40 bits altos e o tamanho do registro nos 24 bits baixos.
+    private static final int BITS_TAMANHO = 24;
+    private static final long MASCARA_TAMANHO = (1L << BITS_TAMANHO) - 1;
+
+    // Arquivo do log.
+    private final Path arquivo;
+    // Quantidade mínima de lixo, em bytes, para que a compactação seja considerada.
+    private final long limiarCompactacao;
+    // Índice: chave -> posição e tamanho do registro mais recente.
+    private final Map<String, Long> indice = new ConcurrentHashMap<>();
+    // Leituras concorrentes usam a trava de leitura; gravações, esvaziamento do buffer e compactação, a de escrita.
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    // Buffer das gravações ainda não escritas no arquivo.
+    private final ByteBuffer bufferGravacao = ByteBuffer.allocate(TAMANHO_BUFFER);
+    // Canal do arquivo atual (trocado pela compactação).
+    private FileChannel canal;
+    // Número de bytes já escritos no arquivo; o buffer continua a partir daqui.
+    private long descarregado = 0;
+    // Bytes ocupados por registros substituídos ou apagados.
+    private long bytesLixo = 0;
+
+    /**
+     * Cria o log, vazio, no arquivo informado.
+     * @param arquivo O arquivo do log (substituído se existir).
+     * @param limiarCompactacao A quantidade mínima de lixo, em bytes, para compactar o arquivo.
+     * @throws IOException Se o arquivo não puder ser criado.
+     */
+    ArmazemLog(Path arquivo, long limiarCompactacao) throws IOException {
+        this.arquivo = arquivo;
+        this.limiarCompactacao = limiarCompactacao;
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Grava o valor de uma chave, substituindo o anterior.
+     * @throws IOException Se o registro não puder ser escrito.
+     */
+    void gravar(String chave, byte[] valor) throws IOException {
+        int tamanhoRegistro = TAMANHO_CABECALHO + valor.length;
+        if (tamanhoRegistro > MASCARA_TAMANHO) {
+            throw new IOException("Registro de " + valor.length + " bytes excede o tamanho máximo do armazenamento.");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(valor);
+        trava.writeLock().lock();
+        try {
+            if (bufferGravacao.remaining() < tamanhoRegistro) {
+                descarregar();
+            }
+            long posicao = descarregado + bufferGravacao.position();
+            if (tamanhoRegistro <= bufferGravacao.capacity()) {
+                bufferGravacao.putInt(valor.length).putInt((int) crc.getValue()).put(valor);
+            } else {
+                // Registro maior que o buffer: vai direto para o arquivo (o buffer já foi esvaziado acima).
+                ByteBuffer registro = ByteBuffer.allocate(tamanhoRegistro).putInt(valor.length).putInt((int) crc.getValue()).put(valor).flip();
+                escreverTudo(canal, registro, posicao);
+                descarregado += tamanhoRegistro;
+            }
+            Long anterior = indice.put(chave, (posicao << BITS_TAMANHO) | tamanhoRegistro);
+            if (anterior != null) {
+                bytesLixo += anterior & MASCARA_TAMANHO;
+            }
+            compactarSeNecessario();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lê o valor de uma chave.
+     * @return O valor, ou null se a chave não existir.
+     * @throws IOException Se o registro não puder ser lido ou estiver corrompido.
+     */
+    byte[] ler(String chave) throws IOException {
+        trava.readLock().lock();
+        try {
+            Long entrada = indice.get(chave);
+            if (entrada == null) return null;
+            long posicao = entrada >>> BITS_TAMANHO;
+            ByteBuffer registro = lerRegistro(posicao, (int) (entrada & MASCARA_TAMANHO));
+            int tamanhoValor = registro.getInt();
+            int crcEsperado = registro.getInt();
+            if (tamanhoValor != registro.remaining()) {
+                throw new IOException("Registro da chave " + chave + " com tamanho inválido na posição " + posicao + ".");
+            }
+            byte[] valor = new byte[tamanhoValor];
+            registro.get(valor);
+            CRC32 crc = new CRC32();
+            crc.update(valor);
+            if ((int) crc.getValue() != crcEsperado) {
+                throw new IOException("Registro da chave " + chave + " corrompido na posição " + posicao + ".");
+            }
+            return valor;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apaga uma chave. O registro vira lixo, recuperado na próxima compactação.
+     * @return true se a chave existia.
+     */
+    boolean apagar(String chave) throws IOException {
+        trava.writeLock().lock();
+        try {
+            Long anterior = indice.remove(chave);
+            if (anterior == null) return false;
+            bytesLixo += anterior & MASCARA_TAMANHO;
+            compactarSeNecessario();
+            return true;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna uma visão (somente leitura) das chaves gravadas.
+     */
+    Set<String> chaves() {
+        return Collections.unmodifiableSet(indice.keySet());
+    }
+
+    /**
+     * Retorna o tamanho do arquivo, incluindo o lixo e o que ainda está no buffer.
+     */
+    long getTamanho() {
+        trava.readLock().lock();
+        try {
+            return descarregado + bufferGravacao.position();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fecha e apaga o arquivo do log.
+     */
+    @Override
+    public void close() throws IOException {
+        trava.writeLock().lock();
+        try {
+            indice.clear();
+            canal.close();
+            Files.deleteIfExists(arquivo);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // --- INTERNOS (chamados com a trava adquirida) ---
+
+    private ByteBuffer lerRegistro(long posicao, int tamanho) throws IOException {
+        ByteBuffer registro = ByteBuffer.allocate(tamanho);
+        if (posicao >= descarregado) {
+            // O registro ainda está no buffer de gravação.
+            int inicio = (int) (posicao - descarregado);
+            registro.put(bufferGravacao.duplicate().position(inicio).limit(inicio + tamanho));
+        } else {
+            while (registro.hasRemaining()) {
+                if (canal.read(registro, posicao + registro.position()) < 0) {
+                    throw new EOFException("Registro truncado na posição " + posicao + " de " + arquivo.getFileName() + ".");
+                }
+            }
+        }
+        return registro.flip();
+    }
+
+    private void descarregar() throws IOException {
+        if (bufferGravacao.position() == 0) return;
+        bufferGravacao.flip();
+        int tamanho = bufferGravacao.remaining();
+        escreverTudo(canal, bufferGravacao, descarregado);
+        descarregado += tamanho;
+        bufferGravacao.clear();
+    }
+
+    private void compactarSeNecessario() throws IOException {
+        if (bytesLixo >= limiarCompactacao && bytesLixo * 2 > descarregado + bufferGravacao.position()) {
+            compactar();
+        }
+    }
+
+    /**
+     * Copia os registros vivos para um arquivo novo, que substitui o atual. O índice só é atualizado depois que a
+     * cópia termina, de modo que uma falha no meio deixa o log antigo intacto.
+     */
+    private void compactar() throws IOException {
+        descarregar();
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".compactando");
+        FileChannel novoCanal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Map<String, Long> novasEntradas = new HashMap<>(indice.size() * 2);
+        long posicaoNova = 0;
+        try {
+            ByteBuffer saida = ByteBuffer.allocate(TAMANHO_BUFFER);
+            for (Map.Entry<String, Long> entrada : indice.entrySet()) {
+                int tamanho = (int) (entrada.getValue() & MASCARA_TAMANHO);
+                ByteBuffer registro = lerRegistro(entrada.getValue() >>> BITS_TAMANHO, tamanho);
+                if (saida.remaining() < tamanho) {
+                    escreverTudo(novoCanal, saida.flip(), posicaoNova - saida.remaining());
+                    saida.clear();
+                }
+                if (tamanho > saida.capacity()) {
+                    escreverTudo(novoCanal, registro, posicaoNova);
+                } else {
+                    saida.put(registro);
+                }
+                novasEntradas.put(entrada.getKey(), (posicaoNova << BITS_TAMANHO) | tamanho);
+                posicaoNova += tamanho;
+            }
+            escreverTudo(novoCanal, saida.flip(), posicaoNova - saida.remaining());
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            novoCanal.close();
+            Files.deleteIfExists(temporario);
+            throw e;
+        }
+        canal.close();
+        canal = novoCanal;
+        indice.putAll(novasEntradas);
+        descarregado = posicaoNova;
+        bytesLixo = 0;
+    }
+
+    private static void escreverTudo(FileChannel destino, ByteBuffer conteudo, long posicao) throws IOException {
+        while (conteudo.hasRemaining()) {
+            posicao += destino.write(conteudo, posicao);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes do Java para referências fracas.
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+// Importa classes de coleções e concorrência do Java.
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instâncias das tarefas carregadas por um motor que guarda as tarefas fora do heap (em arquivo ou em registros
+ * compactos). Garante que, enquanto uma tarefa estiver em uso, a mesma instância seja devolvida a todos (as
+ * transições sincronizam no próprio objeto). As referências são fracas, de modo que o coletor de lixo libera as
+ * instâncias que ninguém mais usa e a próxima leitura as reconstrói; o motor pode prender as que quer manter.
+ */
+final class CacheInstancias {
+
+    // Instâncias carregadas, indexadas pelo ID.
+    private final Map<String, Referencia> carregadas = new ConcurrentHashMap<>();
+    // Referências liberadas pelo coletor, para retirar do mapa acima.
+    private final ReferenceQueue<Tarefa> liberadas = new ReferenceQueue<>();
+
+    /**
+     * Retorna a instância em uso da tarefa, ou null se ela não estiver carregada.
+     */
+    Tarefa obter(String tarefaId) {
+        Referencia referencia = carregadas.get(tarefaId);
+        return referencia != null ? referencia.get() : null;
+    }
+
+    /**
+     * Publica uma instância recém-reconstruída, a menos que outra thread já tenha publicado uma ainda em uso.
+     * @return A instância que deve ser usada.
+     */
+    Tarefa publicar(Tarefa lida) {
+        Referencia publicada = carregadas.compute(lida.getId(), (id, atual) ->
+                atual != null && atual.get() != null ? atual : new Referencia(lida, false, liberadas));
+        Tarefa tarefa = publicada.get();
+        return tarefa != null ? tarefa : lida;
+    }
+
+    /**
+     * Guarda a instância de uma tarefa nova ou alterada, presa (não liberada pelo coletor) ou não.
+     */
+    void guardar(Tarefa tarefa, boolean presa) {
+        limparLiberadas();
+        Referencia atual = carregadas.get(tarefa.getId());
+        if (atual == null || atual.get() != tarefa || atual.isPresa() != presa) {
+            carregadas.put(tarefa.getId(), new Referencia(tarefa, presa, liberadas));
+        }
+    }
+
+    /**
+     * Retira a instância de uma tarefa excluída.
+     * @return false se a instância carregada não for a informada.
+     */
+    boolean retirar(String tarefaId, Tarefa tarefa) {
+        Referencia referencia = carregadas.get(tarefaId);
+        if (referencia == null || referencia.get() != tarefa) return false;
+        carregadas.remove(tarefaId, referencia);
+        return true;
+    }
+
+    /**
+     * Retira do mapa as referências cujas instâncias já foram liberadas pelo coletor.
+     */
+    private void limparLiberadas() {
+        Referencia liberada;
+        while ((liberada = (Referencia) liberadas.poll()) != null) {
+            carregadas.remove(liberada.tarefaId, liberada);
+        }
+    }
+
+    /**
+     * Referência a uma instância carregada. É sempre fraca, mas também guarda a instância de forma forte quando o
+     * motor a prende, o que impede o coletor de liberá-la.
+     */
+    private static final class Referencia extends WeakReference<Tarefa> {
+        private final String tarefaId;
+        private final Tarefa presa;
+
+        Referencia(Tarefa tarefa, boolean presa, ReferenceQueue<Tarefa> fila) {
+            super(tarefa, fila);
+            this.tarefaId = tarefa.getId();
+            this.presa = presa ? tarefa : null;
+        }
+
+        boolean isPresa() {
+            return presa != null;
+        }
+    }
+}
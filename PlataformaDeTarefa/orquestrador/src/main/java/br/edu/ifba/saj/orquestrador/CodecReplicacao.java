@@ -0,0 +1,285 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as mensagens de replicação geradas a partir do proto.
+import br.edu.ifba.saj.protocolo.OperacaoReplicacao;
+import br.edu.ifba.saj.protocolo.PacoteReplicacao;
+import br.edu.ifba.saj.protocolo.StatusTarefaReplicada;
+import br.edu.ifba.saj.protocolo.TarefaReplicada;
+import br.edu.ifba.saj.protocolo.TipoOperacaoReplicacao;
+
+// Importa classes do Java para manipulação de bytes e compressão.
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codifica as mensagens de replicação em protobuf binário, comprimindo com Deflate as que passam de um limiar.
+ * O primeiro byte da mensagem codificada indica o formato, de modo que o receptor aceita os dois.
+ * Mensagens pequenas (a maioria dos lotes) não compensam o custo da compressão e seguem sem ela.
+ * Nas mensagens de replicação e nos snapshots, as tarefas levam o usuário e o worker como códigos do DicionarioIds
+ * e cada mensagem leva o texto dos códigos que usa (PacoteReplicacao.dicionario), de modo que um ID repetido em
+ * milhares de tarefas é transmitido uma só vez por mensagem. O journal e o histórico, que não têm dicionário,
+ * continuam com os textos.
+ */
+final class CodecReplicacao {
+
+    private static final byte FORMATO_PROTOBUF = 0;
+    private static final byte FORMATO_PROTOBUF_DEFLATE = 1;
+    // Tamanho, em bytes, a partir do qual a mensagem é comprimida. Configurável com -Dorquestrador.replicacao.compressao.limiar.
+    private static final int LIMIAR_COMPRESSAO = Integer.getInteger("orquestrador.replicacao.compressao.limiar", 1024);
+    // Tamanho máximo aceito para uma mensagem descomprimida (protege o backup de uma mensagem malformada).
+    private static final int MAX_TAMANHO_DESCOMPRIMIDO = 256 * 1024 * 1024;
+
+    private CodecReplicacao() {}
+
+    /**
+     * Codifica a mensagem, comprimindo-a se passar do limiar.
+     */
+    static byte[] codificar(PacoteReplicacao pacote) {
+        byte[] protobuf = pacote.toByteArray();
+        if (protobuf.length < LIMIAR_COMPRESSAO) {
+            return comFormato(FORMATO_PROTOBUF, protobuf);
+        }
+        // Compressão rápida: o objetivo é reduzir os fragmentos transmitidos sem atrasar o ciclo de sincronização.
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(protobuf);
+            deflater.finish();
+            ByteArrayOutputStream comprimido = new ByteArrayOutputStream(protobuf.length / 2 + 64);
+            comprimido.write(FORMATO_PROTOBUF_DEFLATE);
+            byte[] bloco = new byte[8192];
+            while (!deflater.finished()) {
+                int tamanho = deflater.deflate(bloco);
+                comprimido.write(bloco, 0, tamanho);
+            }
+            return comprimido.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decodifica uma mensagem produzida por codificar(), lendo diretamente do buffer (que pode ser direto),
+     * sem copiá-lo para um array intermediário.
+     * @throws IOException Se a mensagem estiver malformada.
+     */
+    static PacoteReplicacao decodificar(ByteBuffer mensagem) throws IOException {
+        if (!mensagem.hasRemaining()) throw new IOException("Mensagem de replicação vazia.");
+        byte formato = mensagem.get();
+        switch (formato) {
+            case FORMATO_PROTOBUF:
+                return PacoteReplicacao.parseFrom(mensagem);
+            case FORMATO_PROTOBUF_DEFLATE:
+                return PacoteReplicacao.parseFrom(descomprimir(mensagem));
+            default:
+                throw new IOException("Formato de mensagem de replicação desconhecido: " + formato);
+        }
+    }
+
+    private static byte[] descomprimir(ByteBuffer comprimido) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(comprimido);
+            ByteArrayOutputStream descomprimido = new ByteArrayOutputStream(comprimido.remaining() * 4);
+            byte[] bloco = new byte[8192];
+            while (!inflater.finished()) {
+                int tamanho = inflater.inflate(bloco);
+                if (tamanho == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Mensagem de replicação comprimida truncada.");
+                }
+                descomprimido.write(bloco, 0, tamanho);
+                if (descomprimido.size() > MAX_TAMANHO_DESCOMPRIMIDO) {
+                    throw new IOException("Mensagem de replicação excede o tamanho máximo.");
+                }
+            }
+            return descomprimido.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Mensagem de replicação comprimida inválida: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Monta um snapshot do estado completo, com as tarefas na forma compacta e o dicionário dos códigos usados.
+     * A época e a sequência ficam a cargo de quem o transmite.
+     */
+    static PacoteReplicacao.Builder snapshot(Map<String, Long> workers, Collection<Tarefa> tarefas, Map<String, String> sessoes) {
+        PacoteReplicacao.Builder pacote = PacoteReplicacao.newBuilder()
+                .setSnapshot(true)
+                .putAllWorkers(workers)
+                .putAllSessoes(sessoes);
+        tarefas.forEach(tarefa -> pacote.addTarefas(paraProtoCompacto(tarefa)));
+        return comDicionario(pacote);
+    }
+
+    /**
+     * Acrescenta à mensagem o texto de cada código de usuário e de worker usado nas suas tarefas e operações.
+     */
+    static PacoteReplicacao.Builder comDicionario(PacoteReplicacao.Builder pacote) {
+        for (TarefaReplicada tarefa : pacote.getTarefasList()) {
+            incluirNoDicionario(pacote, tarefa);
+        }
+        for (OperacaoReplicacao operacao : pacote.getOperacoesList()) {
+            if (operacao.hasTarefa()) {
+                incluirNoDicionario(pacote, operacao.getTarefa());
+            }
+        }
+        return pacote;
+    }
+
+    private static void incluirNoDicionario(PacoteReplicacao.Builder pacote, TarefaReplicada tarefa) {
+        incluirNoDicionario(pacote, tarefa.getCodigoUsuario());
+        incluirNoDicionario(pacote, tarefa.getCodigoWorker());
+    }
+
+    private static void incluirNoDicionario(PacoteReplicacao.Builder pacote, int codigo) {
+        if (codigo != 0 && !pacote.containsDicionario(codigo)) {
+            pacote.putDicionario(codigo, DicionarioIds.global().nome(codigo - 1));
+        }
+    }
+
+    private static byte[] comFormato(byte formato, byte[] conteudo) {
+        byte[] mensagem = new byte[conteudo.length + 1];
+        mensagem[0] = formato;
+        System.arraycopy(conteudo, 0, mensagem, 1, conteudo.length);
+        return mensagem;
+    }
+
+    // --- CONVERSÃO DAS TAREFAS ---
+
+    /**
+     * Cria a operação que registra uma tarefa nova (com o seu estado completo).
+     * @param compacta true para usar os códigos do dicionário (mensagens que levam o dicionário junto).
+     */
+    static OperacaoReplicacao.Builder tarefaCriada(Tarefa tarefa, boolean compacta) {
+        return OperacaoReplicacao.newBuilder()
+                .setTipo(TipoOperacaoReplicacao.TAREFA_CRIADA)
+                .setTarefa(compacta ? paraProtoCompacto(tarefa) : paraProto(tarefa));
+    }
+
+    /**
+     * Cria a operação que registra a mudança de status e de worker de uma tarefa.
+     * @param compacta true para usar o código do worker no dicionário (mensagens que levam o dicionário junto).
+     */
+    static OperacaoReplicacao.Builder statusAlterado(Tarefa tarefa, boolean compacta) {
+        TarefaReplicada.Builder alterada = TarefaReplicada.newBuilder()
+                .setId(tarefa.getId())
+                .setStatus(paraProto(tarefa.getStatus()));
+        if (compacta) {
+            alterada.setCodigoWorker(tarefa.getCodigoWorker() + 1);
+        } else {
+            alterada.setWorkerId(tarefa.getWorkerIdAtual() != null ? tarefa.getWorkerIdAtual() : "");
+        }
+        return OperacaoReplicacao.newBuilder()
+                .setTipo(TipoOperacaoReplicacao.STATUS_ALTERADO)
+                .setTarefa(alterada);
+    }
+
+    /**
+     * Cria a operação que registra a saída de uma tarefa finalizada da memória para o histórico em disco.
+     */
+    static OperacaoReplicacao.Builder tarefaArquivada(Tarefa tarefa) {
+        return OperacaoReplicacao.newBuilder()
+                .setTipo(TipoOperacaoReplicacao.TAREFA_ARQUIVADA)
+                .setTarefa(TarefaReplicada.newBuilder().setId(tarefa.getId()));
+    }
+
+    /**
+     * Converte uma tarefa para a mensagem de replicação.
+     */
+    static TarefaReplicada paraProto(Tarefa tarefa) {
+        return TarefaReplicada.newBuilder()
+                .setId(tarefa.getId())
+                .setDados(tarefa.getDados())
+                .setUsuarioId(tarefa.getUsuarioId() != null ? tarefa.getUsuarioId() : "")
+                .setStatus(paraProto(tarefa.getStatus()))
+                .setWorkerId(tarefa.getWorkerIdAtual() != null ? tarefa.getWorkerIdAtual() : "")
+                .build();
+    }
+
+    /**
+     * Converte uma tarefa para a forma compacta, com os códigos do dicionário no lugar dos textos (mais 1, pois 0
+     * indica ausência). Vale apenas neste processo ou acompanhada do dicionário (comDicionario).
+     */
+    static TarefaReplicada paraProtoCompacto(Tarefa tarefa) {
+        return TarefaReplicada.newBuilder()
+                .setId(tarefa.getId())
+                .setDados(tarefa.getDados())
+                .setCodigoUsuario(tarefa.getCodigoUsuario() + 1)
+                .setStatus(paraProto(tarefa.getStatus()))
+                .setCodigoWorker(tarefa.getCodigoWorker() + 1)
+                .build();
+    }
+
+    /**
+     * Reconstrói uma tarefa a partir da mensagem de replicação sem dicionário (journal e histórico).
+     */
+    static Tarefa deProto(TarefaReplicada replicada) {
+        return deProto(replicada, Collections.emptyMap());
+    }
+
+    /**
+     * Reconstrói uma tarefa a partir da mensagem de replicação, resolvendo os códigos pelo dicionário da mensagem.
+     * @throws IllegalArgumentException Se um código não estiver no dicionário (mensagem malformada).
+     */
+    static Tarefa deProto(TarefaReplicada replicada, Map<Integer, String> dicionario) {
+        Tarefa tarefa = new Tarefa(replicada.getId(), replicada.getDados(), usuarioDe(replicada, dicionario));
+        tarefa.setStatus(deProto(replicada.getStatus()));
+        tarefa.setWorkerIdAtual(workerDe(replicada, dicionario));
+        return tarefa;
+    }
+
+    /**
+     * Reconstrói uma tarefa gravada na forma compacta por este mesmo processo (ex: motor em arquivo), usando os
+     * códigos diretamente.
+     */
+    static Tarefa deProtoCompacto(TarefaReplicada replicada) {
+        Tarefa tarefa = new Tarefa(replicada.getId(), replicada.getDados(), replicada.getCodigoUsuario() - 1);
+        tarefa.setStatus(deProto(replicada.getStatus()));
+        tarefa.setCodigoWorker(replicada.getCodigoWorker() - 1);
+        return tarefa;
+    }
+
+    /**
+     * Retorna o usuário da tarefa replicada (null para nenhum).
+     */
+    static String usuarioDe(TarefaReplicada replicada, Map<Integer, String> dicionario) {
+        return textoDe(replicada.getCodigoUsuario(), replicada.getUsuarioId(), dicionario);
+    }
+
+    /**
+     * Retorna o worker da tarefa replicada (null para nenhum).
+     */
+    static String workerDe(TarefaReplicada replicada, Map<Integer, String> dicionario) {
+        return textoDe(replicada.getCodigoWorker(), replicada.getWorkerId(), dicionario);
+    }
+
+    private static String textoDe(int codigo, String texto, Map<Integer, String> dicionario) {
+        if (codigo == 0) return vazioComoNulo(texto);
+        String nome = dicionario.get(codigo);
+        if (nome == null) {
+            throw new IllegalArgumentException("Código " + codigo + " ausente do dicionário da mensagem de replicação.");
+        }
+        return nome;
+    }
+
+    static StatusTarefaReplicada paraProto(StatusTarefa status) {
+        return StatusTarefaReplicada.valueOf(status.name());
+    }
+
+    static StatusTarefa deProto(StatusTarefaReplicada status) {
+        return StatusTarefa.valueOf(status.name());
+    }
+
+    static String vazioComoNulo(String valor) {
+        return valor.isEmpty() ? null : valor;
+    }
+}
@@ -0,0 +1,132 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores incrementais das tarefas, usados pelos agregados do dashboard.
+ * São contadores distribuídos (LongAdder) por status, por usuário e por worker, atualizados pelo
+ * RepositorioTarefas a cada inserção e transição. A leitura não depende do número de tarefas já executadas.
+ * Os contadores por usuário e por worker são indexados pelos códigos do DicionarioIds.
+ * Eles cobrem as tarefas em memória (a retenção e a replicação dependem disso); as leituras "ComHistorico", usadas
+ * pelo dashboard, somam os totais que o HistoricoTarefas mantém das tarefas arquivadas. Entre a gravação no histórico
+ * e a saída da memória, uma tarefa pode ser contada nas duas camadas por um instante.
+ */
+public class ContadoresTarefas {
+
+    // Total de tarefas no repositório.
+    private final LongAdder total = new LongAdder();
+    // Tarefas por status.
+    private final Map<StatusTarefa, LongAdder> porStatus = new EnumMap<>(StatusTarefa.class);
+    // Tarefas submetidas por cada usuário.
+    private final TabelaPorCodigo<LongAdder> porUsuario = new TabelaPorCodigo<>(LongAdder::new);
+    // Tarefas atribuídas a cada worker (em execução ou já concluídas).
+    private final TabelaPorCodigo<LongAdder> porWorker = new TabelaPorCodigo<>(LongAdder::new);
+    // Tarefas com status EXECUTANDO em cada worker.
+    private final TabelaPorCodigo<LongAdder> emExecucaoPorWorker = new TabelaPorCodigo<>(LongAdder::new);
+    // Histórico das tarefas arquivadas, somado nas leituras "ComHistorico" (null se a retenção estiver desativada).
+    private volatile HistoricoTarefas historico;
+
+    public ContadoresTarefas() {
+        for (StatusTarefa status : StatusTarefa.values()) {
+            porStatus.put(status, new LongAdder());
+        }
+    }
+
+    /**
+     * Define o histórico cujos totais são somados nas leituras "ComHistorico".
+     */
+    void setHistorico(HistoricoTarefas historico) {
+        this.historico = historico;
+    }
+
+    /**
+     * Contabiliza (delta = 1) ou descontabiliza (delta = -1) uma tarefa no total e no seu usuário.
+     */
+    void registrarTarefa(Tarefa tarefa, int delta) {
+        total.add(delta);
+        if (tarefa.getCodigoUsuario() != DicionarioIds.NENHUM) {
+            porUsuario.obterOuCriar(tarefa.getCodigoUsuario()).add(delta);
+        }
+    }
+
+    /**
+     * Contabiliza (delta = 1) ou descontabiliza (delta = -1) o estado atual de uma tarefa (status e worker).
+     */
+    void registrarEstado(Tarefa tarefa, int delta) {
+        porStatus.get(tarefa.getStatus()).add(delta);
+        int worker = tarefa.getCodigoWorker();
+        if (worker != DicionarioIds.NENHUM) {
+            porWorker.obterOuCriar(worker).add(delta);
+            if (tarefa.getStatus() == StatusTarefa.EXECUTANDO) {
+                emExecucaoPorWorker.obterOuCriar(worker).add(delta);
+            }
+        }
+    }
+
+    // --- LEITURAS ---
+
+    public int getTotal() {
+        return total.intValue();
+    }
+
+    public int getComStatus(StatusTarefa status) {
+        return porStatus.get(status).intValue();
+    }
+
+    public int getDoUsuario(String usuarioId) {
+        return ler(porUsuario.obter(DicionarioIds.global().codigoExistente(usuarioId)));
+    }
+
+    public int getDoWorker(String workerId) {
+        return ler(porWorker.obter(DicionarioIds.global().codigoExistente(workerId)));
+    }
+
+    public int getEmExecucaoNoWorker(String workerId) {
+        return ler(emExecucaoPorWorker.obter(DicionarioIds.global().codigoExistente(workerId)));
+    }
+
+    /**
+     * Retorna a contagem de tarefas de cada status.
+     */
+    public Map<StatusTarefa, Integer> getContagemPorStatus() {
+        Map<StatusTarefa, Integer> contagem = new EnumMap<>(StatusTarefa.class);
+        porStatus.forEach((status, contador) -> contagem.put(status, contador.intValue()));
+        return contagem;
+    }
+
+    /**
+     * Retorna o total de tarefas, incluindo as arquivadas no histórico.
+     */
+    public int getTotalComHistorico() {
+        HistoricoTarefas atual = historico;
+        return getTotal() + (atual != null ? atual.getTotal() : 0);
+    }
+
+    /**
+     * Retorna o número de tarefas submetidas por um usuário, incluindo as arquivadas no histórico.
+     */
+    public int getDoUsuarioComHistorico(String usuarioId) {
+        HistoricoTarefas atual = historico;
+        return getDoUsuario(usuarioId) + (atual != null ? atual.getDoUsuario(usuarioId) : 0);
+    }
+
+    /**
+     * Retorna a contagem de tarefas de cada status, incluindo as arquivadas no histórico.
+     */
+    public Map<StatusTarefa, Integer> getContagemPorStatusComHistorico() {
+        Map<StatusTarefa, Integer> contagem = getContagemPorStatus();
+        HistoricoTarefas atual = historico;
+        if (atual != null) {
+            contagem.replaceAll((status, total) -> total + atual.getComStatus(status));
+        }
+        return contagem;
+    }
+
+    private static int ler(LongAdder contador) {
+        return contador != null ? contador.intValue() : 0;
+    }
+}
@@ -0,0 +1,59 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes utilitárias do Java para codificação do cursor.
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor da consulta paginada de tarefas.
+ * Guarda a versão do repositório fixada na primeira página e a posição da última tarefa entregue: o ID, na consulta
+ * completa (em ordem de ID), ou a versão da alteração, na consulta incremental (em ordem de alteração).
+ * Para o cliente é uma string opaca, que ele apenas devolve para obter a página seguinte.
+ */
+final class CursorConsulta {
+
+    // Versão do repositório no início da consulta.
+    final long versao;
+    // Consulta incremental: versão da última alteração entregue; a próxima página começa depois dela (0 na completa).
+    final long ultimaAlteracao;
+    // Consulta completa: ID da última tarefa da página anterior; a próxima página começa depois dele.
+    final String ultimoId;
+
+    CursorConsulta(long versao, String ultimoId) {
+        this(versao, 0, ultimoId);
+    }
+
+    CursorConsulta(long versao, long ultimaAlteracao, String ultimoId) {
+        this.versao = versao;
+        this.ultimaAlteracao = ultimaAlteracao;
+        this.ultimoId = ultimoId;
+    }
+
+    /**
+     * Codifica o cursor como uma string opaca.
+     */
+    String codificar() {
+        String conteudo = versao + ":" + ultimaAlteracao + ":" + ultimoId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica um cursor recebido do cliente.
+     * @return O cursor, ou null se a string estiver vazia (primeira página).
+     * @throws IllegalArgumentException Se o cursor for inválido.
+     */
+    static CursorConsulta decodificar(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        try {
+            String conteudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = conteudo.indexOf(':');
+            int segundoSeparador = conteudo.indexOf(':', separador + 1);
+            return new CursorConsulta(Long.parseLong(conteudo.substring(0, separador)),
+                    Long.parseLong(conteudo.substring(separador + 1, segundoSeparador)),
+                    conteudo.substring(segundoSeparador + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de consulta inválido.");
+        }
+    }
+}
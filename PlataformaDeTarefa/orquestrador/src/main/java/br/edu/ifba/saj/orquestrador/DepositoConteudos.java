@@ -0,0 +1,81 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes do Java para manipulação de buffers.
+import java.nio.ByteBuffer;
+// Importa classes de coleções do Java.
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Depósito fora do heap dos conteúdos de tamanho variável (dados das tarefas) do motor compacto.
+ * Os conteúdos são acrescentados em sequência em blocos de memória direta (alocação por avanço de ponteiro, sem
+ * objetos por conteúdo) e identificados pela posição. Conteúdos liberados viram lixo; o motor compacto copia os
+ * vivos para um depósito novo quando o lixo passa da metade (compactação).
+ * Não é seguro para uso concorrente: o motor compacto o protege com a sua trava.
+ */
+final class DepositoConteudos {
+
+    // Bits da posição reservados para o deslocamento dentro do bloco.
+    private static final int BITS_DESLOCAMENTO = 32;
+
+    // Tamanho de cada bloco.
+    private final int tamanhoBloco;
+    // Blocos alocados, em ordem.
+    private final List<ByteBuffer> blocos = new ArrayList<>();
+    // Bloco atual, onde entram os próximos conteúdos.
+    private ByteBuffer atual;
+    // Bytes ocupados por conteúdos vivos e por conteúdos liberados.
+    private long bytesOcupados = 0;
+    private long bytesLixo = 0;
+
+    DepositoConteudos(int tamanhoBloco) {
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    /**
+     * Copia um conteúdo para o depósito.
+     * @return A posição do conteúdo.
+     */
+    long gravar(byte[] conteudo) {
+        if (atual == null || atual.remaining() < conteudo.length) {
+            // Um conteúdo maior que o bloco padrão ganha um bloco do seu tamanho.
+            atual = ByteBuffer.allocateDirect(Math.max(tamanhoBloco, conteudo.length));
+            blocos.add(atual);
+        }
+        long posicao = ((long) (blocos.size() - 1) << BITS_DESLOCAMENTO) | atual.position();
+        atual.put(conteudo);
+        bytesOcupados += conteudo.length;
+        return posicao;
+    }
+
+    /**
+     * Lê um conteúdo do depósito.
+     */
+    byte[] ler(long posicao, int tamanho) {
+        byte[] conteudo = new byte[tamanho];
+        blocos.get((int) (posicao >>> BITS_DESLOCAMENTO)).get((int) posicao, conteudo);
+        return conteudo;
+    }
+
+    /**
+     * Marca como lixo um conteúdo que deixou de ser usado.
+     */
+    void liberar(int tamanho) {
+        bytesLixo += tamanho;
+    }
+
+    /**
+     * Indica se o lixo passou do limiar e da metade do espaço ocupado.
+     */
+    boolean precisaCompactar(long limiar) {
+        return bytesLixo >= limiar && bytesLixo * 2 > bytesOcupados;
+    }
+
+    /**
+     * Retorna o espaço ocupado pelos conteúdos vivos.
+     */
+    long getBytesVivos() {
+        return bytesOcupados - bytesLixo;
+    }
+}
@@ -0,0 +1,115 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de concorrência e utilitários do Java.
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Estágio de despacho assíncrono das tarefas prontas.
+ * As tarefas entram na fila de prontas (indexada por prioridade) na submissão, após uma distribuição falha
+ * e quando o worker que as executava é removido. Uma thread dedicada drena a fila assim que há capacidade
+ * disponível nos workers, sem varreduras periódicas sobre o banco de tarefas.
+ */
+public class DespachanteTarefas {
+
+    // Tempo máximo de espera por um sinal de capacidade antes de tentar novamente (rede de segurança).
+    private static final long ESPERA_MAXIMA_CAPACIDADE_MS = 500;
+
+    // Fila de tarefas prontas, ordenada por prioridade.
+    private final FilaProntas fila = new FilaProntas();
+    // Função que tenta entregar a tarefa a um worker; retorna false se não foi possível.
+    private final Predicate<Tarefa> distribuidor;
+    // Sinal liberado sempre que um worker ganha capacidade (novo worker, tarefa concluída).
+    private final Semaphore sinalCapacidade = new Semaphore(0);
+    // Thread dedicada que consome a fila.
+    private final Thread thread;
+    // Callback para enviar logs para a interface gráfica.
+    private Consumer<String> logCallback = null;
+
+    /**
+     * Construtor da classe.
+     * @param distribuidor A função que entrega uma tarefa a um worker, retornando true em caso de sucesso.
+     */
+    public DespachanteTarefas(Predicate<Tarefa> distribuidor) {
+        this.distribuidor = distribuidor;
+        this.thread = new Thread(this::executar, "DespachanteTarefas-Thread");
+        this.thread.setDaemon(true); // Não impede o encerramento da JVM.
+    }
+
+    public void setLogCallback(Consumer<String> callback) { this.logCallback = callback; }
+    private void log(String msg) { if (logCallback != null) logCallback.accept(msg); }
+
+    /**
+     * Inicia a thread de despacho.
+     */
+    public void iniciar() {
+        thread.start();
+    }
+
+    /**
+     * Interrompe a thread de despacho. As tarefas pendentes permanecem no banco com status AGUARDANDO.
+     */
+    public void parar() {
+        thread.interrupt();
+    }
+
+    /**
+     * Coloca uma tarefa na fila de prontas. A operação não bloqueia e ignora tarefas já enfileiradas.
+     * @param tarefa A tarefa a ser despachada.
+     */
+    public void enfileirar(Tarefa tarefa) {
+        fila.adicionar(tarefa);
+    }
+
+    /**
+     * Informa ao despachante que algum worker ganhou capacidade, acordando-o se estiver aguardando.
+     */
+    public void sinalizarCapacidade() {
+        if (sinalCapacidade.availablePermits() == 0) {
+            sinalCapacidade.release();
+        }
+    }
+
+    /**
+     * Retorna o número de tarefas aguardando o despacho.
+     */
+    public int getTamanhoFila() {
+        return fila.tamanho();
+    }
+
+    /**
+     * Loop principal da thread: retira a tarefa de maior prioridade e tenta entregá-la.
+     * Se não houver worker disponível, devolve a tarefa à frente da fila e aguarda um sinal de capacidade.
+     */
+    private void executar() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Tarefa tarefa = fila.retirar(); // Bloqueia até que uma tarefa esteja disponível.
+                // Ignora tarefas que já foram distribuídas por outro caminho.
+                if (tarefa.getStatus() != StatusTarefa.AGUARDANDO) {
+                    continue;
+                }
+                if (!distribuidor.test(tarefa)) {
+                    fila.devolver(tarefa);
+                    aguardarCapacidade();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Uma falha em uma tarefa não deve derrubar a thread de despacho.
+                log("ERRO no despachante de tarefas: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Bloqueia até que algum worker sinalize capacidade, ou até o tempo máximo de espera.
+     */
+    private void aguardarCapacidade() throws InterruptedException {
+        sinalCapacidade.tryAcquire(ESPERA_MAXIMA_CAPACIDADE_MS, TimeUnit.MILLISECONDS);
+        sinalCapacidade.drainPermits();
+    }
+}
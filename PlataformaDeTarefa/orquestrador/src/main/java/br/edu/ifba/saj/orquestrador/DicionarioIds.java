@@ -0,0 +1,80 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dicionário que associa cada identificador textual (de usuário ou de worker) a um código inteiro pequeno e
+ * sequencial, para que as estruturas com muitas entradas guardem o código (4 bytes) em vez de uma String.
+ * Os códigos nunca são reaproveitados; o nome é recuperado pelo código em O(1).
+ * O dicionário global (global()) é usado pelas tarefas, índices e contadores do processo. Os códigos valem apenas
+ * dentro do processo: o que sai dele (replicação, snapshots) leva junto o texto de cada código usado.
+ */
+final class DicionarioIds {
+
+    // Dicionário dos usuários e workers do processo.
+    private static final DicionarioIds GLOBAL = new DicionarioIds();
+
+    // Código usado para a ausência de identificador (ex: tarefa sem worker).
+    static final int NENHUM = -1;
+
+    // Nome -> código.
+    private final Map<String, Integer> codigos = new ConcurrentHashMap<>();
+    // Código -> nome (publicado por cópia ao crescer, lido sem bloqueio).
+    private volatile String[] nomes = new String[64];
+    // Número de códigos atribuídos.
+    private int quantidade = 0;
+
+    /**
+     * Retorna o dicionário global do processo.
+     */
+    static DicionarioIds global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Retorna o código do identificador, atribuindo um novo se ele ainda não tiver.
+     * @return O código, ou NENHUM para null.
+     */
+    int codigo(String nome) {
+        if (nome == null) return NENHUM;
+        Integer codigo = codigos.get(nome);
+        return codigo != null ? codigo : atribuir(nome);
+    }
+
+    /**
+     * Retorna o código do identificador sem atribuir um novo.
+     * @return O código, ou NENHUM se o identificador for null ou desconhecido.
+     */
+    int codigoExistente(String nome) {
+        if (nome == null) return NENHUM;
+        Integer codigo = codigos.get(nome);
+        return codigo != null ? codigo : NENHUM;
+    }
+
+    /**
+     * Retorna o identificador de um código.
+     * @return O nome, ou null para NENHUM.
+     */
+    String nome(int codigo) {
+        return codigo == NENHUM ? null : nomes[codigo];
+    }
+
+    private synchronized int atribuir(String nome) {
+        Integer existente = codigos.get(nome);
+        if (existente != null) return existente;
+        int codigo = quantidade++;
+        String[] atuais = nomes;
+        if (codigo == atuais.length) {
+            atuais = Arrays.copyOf(atuais, atuais.length * 2);
+        }
+        atuais[codigo] = nome;
+        // Publica o vetor antes do código: quem recebe o código já enxerga o nome.
+        nomes = atuais;
+        codigos.put(nome, codigo);
+        return codigo;
+    }
+}
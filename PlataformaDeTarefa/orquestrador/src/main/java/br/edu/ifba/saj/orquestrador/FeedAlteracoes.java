@@ -0,0 +1,131 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Feed versionado de alterações de tarefas e workers, usado pelo stream de monitoramento e pelas consultas incrementais.
+ * Cada alteração recebe uma versão crescente. O feed guarda apenas a alteração mais recente de cada item,
+ * de modo que a consulta "o que mudou desde a versão V" percorre somente os itens alterados depois de V.
+ * As alterações de tarefas levam o código do usuário dono (DicionarioIds), para que a consulta incremental de um
+ * usuário descarte as dos demais sem buscar as tarefas.
+ * As versões começam no instante de criação do feed (em microssegundos), para que uma versão vinda
+ * de outro orquestrador (antes de um failover) seja reconhecida como não retomável.
+ * O feed guarda no máximo -Dorquestrador.feed.max itens (padrão 100000): as alterações mais antigas são descartadas
+ * e quem viu uma versão anterior a elas deixa de poder retomar (recebe o estado completo), de modo que o heap do
+ * feed não cresce com o número de tarefas.
+ */
+public class FeedAlteracoes {
+
+    /**
+     * Tipo do item alterado.
+     */
+    public enum TipoItem { TAREFA, WORKER }
+
+    // Número máximo de itens guardados no feed, configurável com -Dorquestrador.feed.max (no mínimo 1).
+    private static final int MAX_ITENS = Math.max(1, Integer.getInteger("orquestrador.feed.max", 100000));
+
+    // Primeira versão deste feed.
+    private final long versaoInicial = System.currentTimeMillis() * 1000;
+    // Última versão atribuída.
+    private long versaoAtual = versaoInicial;
+    // Menor versão a partir da qual ainda é possível retomar (sobe quando alterações antigas são descartadas).
+    private volatile long versaoRetomavel = versaoInicial;
+    // Alterações ordenadas pela versão (uma entrada por item).
+    private final ConcurrentSkipListMap<Long, Alteracao> porVersao = new ConcurrentSkipListMap<>();
+    // Versão da alteração mais recente de cada item, para descartar a entrada anterior.
+    private final Map<Alteracao, Long> versaoPorItem = new ConcurrentHashMap<>();
+
+    /**
+     * Registra uma alteração (inclusão, mudança ou remoção) de um item.
+     * @return A versão atribuída à alteração.
+     */
+    public long registrar(TipoItem tipo, String id) {
+        return registrar(tipo, id, DicionarioIds.NENHUM);
+    }
+
+    /**
+     * Registra uma alteração de um item que pertence a um usuário (uma tarefa).
+     * @param codigoUsuario O código do usuário dono do item no DicionarioIds.
+     * @return A versão atribuída à alteração.
+     */
+    public synchronized long registrar(TipoItem tipo, String id, int codigoUsuario) {
+        long versao = ++versaoAtual;
+        Alteracao alteracao = new Alteracao(tipo, id, codigoUsuario, versao);
+        Long anterior = versaoPorItem.put(alteracao, versao);
+        if (anterior != null) {
+            porVersao.remove(anterior);
+        }
+        porVersao.put(versao, alteracao);
+        while (versaoPorItem.size() > MAX_ITENS) {
+            Map.Entry<Long, Alteracao> maisAntiga = porVersao.pollFirstEntry();
+            versaoPorItem.remove(maisAntiga.getValue(), maisAntiga.getKey());
+            versaoRetomavel = maisAntiga.getKey();
+        }
+        return versao;
+    }
+
+    /**
+     * Retorna a versão mais recente do feed.
+     */
+    public synchronized long getVersaoAtual() {
+        return versaoAtual;
+    }
+
+    /**
+     * Indica se quem viu até a versão informada pode continuar a partir dela apenas com deltas.
+     */
+    public boolean podeRetomar(long versao) {
+        return versao >= versaoRetomavel && versao <= getVersaoAtual();
+    }
+
+    /**
+     * Retorna os itens alterados depois da versão informada, em ordem de versão. A coleção é uma visão do feed,
+     * percorrida sem cópia: um item alterado durante a leitura pode aparecer com a versão nova, e um descarte durante
+     * a leitura pode omitir itens (quem lê confirma com podeRetomar depois de percorrer).
+     * @param versao A última versão vista pelo monitor.
+     */
+    public Collection<Alteracao> alteradosDesde(long versao) {
+        return Collections.unmodifiableCollection(porVersao.tailMap(versao, false).values());
+    }
+
+    /**
+     * Item alterado (tipo e ID, que o identificam), com o usuário dono e a versão da alteração.
+     */
+    public static final class Alteracao {
+        private final TipoItem tipo;
+        private final String id;
+        private final int codigoUsuario;
+        private final long versao;
+
+        private Alteracao(TipoItem tipo, String id, int codigoUsuario, long versao) {
+            this.tipo = tipo;
+            this.id = id;
+            this.codigoUsuario = codigoUsuario;
+            this.versao = versao;
+        }
+
+        public TipoItem getTipo() { return tipo; }
+        public String getId() { return id; }
+        public int getCodigoUsuario() { return codigoUsuario; }
+        public long getVersao() { return versao; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Alteracao)) return false;
+            Alteracao outra = (Alteracao) o;
+            return tipo == outra.tipo && id.equals(outra.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tipo.hashCode() + id.hashCode();
+        }
+    }
+}
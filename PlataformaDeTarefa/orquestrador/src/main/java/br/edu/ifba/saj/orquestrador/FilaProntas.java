@@ -0,0 +1,120 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fila de tarefas prontas para distribuição, indexada por Prioridade.
+ * Mantém uma fila FIFO para cada nível de prioridade, e a retirada sempre escolhe a tarefa
+ * mais antiga do nível mais alto. Somente tarefas com status AGUARDANDO entram nesta fila,
+ * de modo que o custo de retirada não depende do número de tarefas históricas no banco.
+ */
+public class FilaProntas {
+
+    // Uma fila por nível de prioridade; o índice do array é o nível (Prioridade.getNivel()).
+    private final ArrayDeque<Tarefa>[] filasPorPrioridade;
+    // IDs das tarefas presentes na fila, para evitar que a mesma tarefa seja enfileirada duas vezes.
+    private final Set<String> idsNaFila = new HashSet<>();
+    // Lock e condição que protegem as filas e acordam o consumidor quando uma tarefa chega.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition naoVazia = lock.newCondition();
+    // Número total de tarefas na fila.
+    private int tamanho = 0;
+
+    /**
+     * Construtor da classe. Cria uma fila vazia para cada nível de prioridade.
+     */
+    @SuppressWarnings("unchecked")
+    public FilaProntas() {
+        int maiorNivel = 0;
+        for (Prioridade p : Prioridade.values()) {
+            maiorNivel = Math.max(maiorNivel, p.getNivel());
+        }
+        filasPorPrioridade = new ArrayDeque[maiorNivel + 1];
+        for (int i = 0; i < filasPorPrioridade.length; i++) {
+            filasPorPrioridade[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Adiciona uma tarefa ao final da fila do seu nível de prioridade.
+     * @param tarefa A tarefa pronta para distribuição.
+     * @return true se a tarefa foi adicionada, false se ela já estava na fila.
+     */
+    public boolean adicionar(Tarefa tarefa) {
+        return inserir(tarefa, false);
+    }
+
+    /**
+     * Devolve uma tarefa ao início da fila do seu nível, preservando a sua posição (ex: após uma distribuição falha).
+     * @param tarefa A tarefa que não pôde ser distribuída.
+     * @return true se a tarefa foi devolvida, false se ela já estava na fila.
+     */
+    public boolean devolver(Tarefa tarefa) {
+        return inserir(tarefa, true);
+    }
+
+    private boolean inserir(Tarefa tarefa, boolean naFrente) {
+        lock.lock();
+        try {
+            if (!idsNaFila.add(tarefa.getId())) {
+                return false;
+            }
+            ArrayDeque<Tarefa> fila = filasPorPrioridade[tarefa.getPrioridade().getNivel()];
+            if (naFrente) {
+                fila.addFirst(tarefa);
+            } else {
+                fila.addLast(tarefa);
+            }
+            tamanho++;
+            naoVazia.signal(); // Acorda o consumidor, se estiver aguardando.
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retira a tarefa de maior prioridade, bloqueando até que exista alguma.
+     * @return A próxima tarefa a ser distribuída.
+     * @throws InterruptedException Se a thread for interrompida enquanto aguarda.
+     */
+    public Tarefa retirar() throws InterruptedException {
+        lock.lock();
+        try {
+            while (tamanho == 0) {
+                naoVazia.await();
+            }
+            // Percorre os níveis do mais alto para o mais baixo.
+            for (int nivel = filasPorPrioridade.length - 1; nivel >= 0; nivel--) {
+                Tarefa tarefa = filasPorPrioridade[nivel].pollFirst();
+                if (tarefa != null) {
+                    idsNaFila.remove(tarefa.getId());
+                    tamanho--;
+                    return tarefa;
+                }
+            }
+            // Inalcançável: tamanho > 0 garante que alguma fila tem elementos.
+            throw new IllegalStateException("Fila de prontas inconsistente.");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retorna o número de tarefas aguardando distribuição.
+     */
+    public int tamanho() {
+        lock.lock();
+        try {
+            return tamanho;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
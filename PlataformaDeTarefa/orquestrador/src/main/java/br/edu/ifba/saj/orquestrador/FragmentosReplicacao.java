@@ -0,0 +1,216 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes do Java para manipulação de bytes, coleções e verificação de integridade.
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Divide as mensagens de replicação em fragmentos que cabem em um datagrama UDP e as remonta no destino.
+ * Cada fragmento carrega o ID da mensagem, o seu índice, o total de fragmentos e o CRC32 do seu conteúdo;
+ * fragmentos corrompidos são descartados e tratados como perdidos. O destino pede de volta, com um NACK,
+ * os índices que não chegaram; um NACK sem índices pede a mensagem inteira (nenhum fragmento dela chegou).
+ * Os datagramas são escritos e lidos diretamente em ByteBuffers reutilizados pelo transporte; o conteúdo só é
+ * copiado quando precisa sobreviver ao próximo datagrama (remontagem de mensagens com vários fragmentos).
+ *
+ * Formato do fragmento: [tipo=1][id da mensagem: long][índice: int][total: int][crc32: int][tamanho: int][conteúdo].
+ * Formato do NACK:      [tipo=2][id da mensagem: long][quantidade: int][índices: int...].
+ */
+final class FragmentosReplicacao {
+
+    static final byte TIPO_FRAGMENTO = 1;
+    static final byte TIPO_NACK = 2;
+    // Tamanho máximo do conteúdo de cada fragmento. Mantém cada datagrama pequeno para que a perda de um
+    // fragmento custe pouco a reenviar.
+    static final int TAMANHO_FRAGMENTO = 8192;
+    // Tamanho do cabeçalho de cada fragmento, em bytes.
+    static final int TAMANHO_CABECALHO = 1 + 8 + 4 + 4 + 4 + 4;
+    // Número máximo de índices em um NACK (mantém o NACK em um único datagrama).
+    private static final int MAX_INDICES_NACK = 4096;
+
+    private FragmentosReplicacao() {}
+
+    /**
+     * Retorna o número de fragmentos de uma mensagem.
+     */
+    static int totalFragmentos(int tamanhoMensagem) {
+        return Math.max(1, (tamanhoMensagem + TAMANHO_FRAGMENTO - 1) / TAMANHO_FRAGMENTO);
+    }
+
+    /**
+     * Escreve um fragmento de uma mensagem no buffer de destino, deixando-o pronto para envio.
+     * @param destino O buffer (com capacidade para TAMANHO_CABECALHO + TAMANHO_FRAGMENTO bytes).
+     * @param idMensagem O ID da mensagem, único no transmissor.
+     * @param mensagem Os bytes da mensagem completa.
+     * @param indice O índice do fragmento.
+     */
+    static void escreverFragmento(ByteBuffer destino, long idMensagem, byte[] mensagem, int indice) {
+        int inicio = indice * TAMANHO_FRAGMENTO;
+        int tamanho = Math.min(TAMANHO_FRAGMENTO, mensagem.length - inicio);
+        CRC32 crc = new CRC32();
+        crc.update(mensagem, inicio, tamanho);
+        destino.clear();
+        destino.put(TIPO_FRAGMENTO)
+                .putLong(idMensagem)
+                .putInt(indice)
+                .putInt(totalFragmentos(mensagem.length))
+                .putInt((int) crc.getValue())
+                .putInt(tamanho)
+                .put(mensagem, inicio, tamanho)
+                .flip();
+    }
+
+    /**
+     * Lê um fragmento de um datagrama (posicionado após o byte de tipo), verificando o CRC32.
+     * O conteúdo do fragmento é uma visão do próprio datagrama, sem cópia: só é válido até o buffer ser reutilizado.
+     * @return O fragmento, ou null se estiver malformado ou corrompido.
+     */
+    static Fragmento lerFragmento(ByteBuffer datagrama) {
+        if (datagrama.remaining() < TAMANHO_CABECALHO - 1) return null;
+        long idMensagem = datagrama.getLong();
+        int indice = datagrama.getInt();
+        int total = datagrama.getInt();
+        int crcEsperado = datagrama.getInt();
+        int tamanho = datagrama.getInt();
+        if (total <= 0 || indice < 0 || indice >= total || tamanho < 0 || tamanho != datagrama.remaining()) return null;
+        ByteBuffer conteudo = datagrama.slice();
+        CRC32 crc = new CRC32();
+        crc.update(datagrama);
+        if ((int) crc.getValue() != crcEsperado) return null;
+        return new Fragmento(idMensagem, indice, total, conteudo);
+    }
+
+    /**
+     * Escreve no buffer de destino um NACK pedindo os fragmentos informados de uma mensagem.
+     */
+    static void escreverNack(ByteBuffer destino, long idMensagem, List<Integer> indices) {
+        int quantidade = Math.min(indices.size(), MAX_INDICES_NACK);
+        destino.clear();
+        destino.put(TIPO_NACK)
+                .putLong(idMensagem)
+                .putInt(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            destino.putInt(indices.get(i));
+        }
+        destino.flip();
+    }
+
+    /**
+     * Lê um NACK de um datagrama (posicionado após o byte de tipo).
+     * @return Os índices pedidos, ou null se o NACK estiver malformado.
+     */
+    static Nack lerNack(ByteBuffer datagrama) {
+        if (datagrama.remaining() < 12) return null;
+        long idMensagem = datagrama.getLong();
+        int quantidade = datagrama.getInt();
+        if (quantidade < 0 || quantidade * 4 != datagrama.remaining()) return null;
+        List<Integer> indices = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            indices.add(datagrama.getInt());
+        }
+        return new Nack(idMensagem, indices);
+    }
+
+    /**
+     * Fragmento recebido e já verificado.
+     */
+    static final class Fragmento {
+        final long idMensagem;
+        final int indice;
+        final int total;
+        // Visão do conteúdo dentro do datagrama recebido.
+        final ByteBuffer conteudo;
+
+        private Fragmento(long idMensagem, int indice, int total, ByteBuffer conteudo) {
+            this.idMensagem = idMensagem;
+            this.indice = indice;
+            this.total = total;
+            this.conteudo = conteudo;
+        }
+    }
+
+    /**
+     * Pedido de reenvio de fragmentos.
+     */
+    static final class Nack {
+        final long idMensagem;
+        final List<Integer> indices;
+
+        private Nack(long idMensagem, List<Integer> indices) {
+            this.idMensagem = idMensagem;
+            this.indices = indices;
+        }
+    }
+
+    /**
+     * Remontagem de uma mensagem a partir dos seus fragmentos, em qualquer ordem. Uma mensagem da qual nenhum
+     * fragmento chegou ainda (detectada por um ID pulado) tem o total desconhecido até o primeiro fragmento.
+     */
+    static final class Remontagem {
+        final long idMensagem;
+        // Partes recebidas (null enquanto o total de fragmentos for desconhecido).
+        private byte[][] partes;
+        private int recebidas = 0;
+        private int tamanhoTotal = 0;
+        // Instante do último fragmento recebido ou do último NACK enviado, para decidir quando pedir o reenvio.
+        long ultimaAtividade = System.currentTimeMillis();
+        // Número de NACKs já enviados para esta mensagem.
+        int tentativas = 0;
+
+        Remontagem(long idMensagem, int total) {
+            this.idMensagem = idMensagem;
+            this.partes = new byte[total][];
+        }
+
+        /**
+         * Cria a remontagem de uma mensagem da qual nenhum fragmento chegou.
+         */
+        Remontagem(long idMensagem) {
+            this.idMensagem = idMensagem;
+        }
+
+        /**
+         * Copia e guarda um fragmento. Fragmentos repetidos ou de outro tamanho de mensagem são ignorados.
+         */
+        void adicionar(Fragmento fragmento) {
+            if (partes == null) partes = new byte[fragmento.total][];
+            if (fragmento.total != partes.length || partes[fragmento.indice] != null) return;
+            byte[] parte = new byte[fragmento.conteudo.remaining()];
+            fragmento.conteudo.get(parte);
+            partes[fragmento.indice] = parte;
+            tamanhoTotal += parte.length;
+            recebidas++;
+            ultimaAtividade = System.currentTimeMillis();
+        }
+
+        boolean isCompleta() {
+            return partes != null && recebidas == partes.length;
+        }
+
+        /**
+         * Retorna os índices dos fragmentos que ainda não chegaram (vazio se o total for desconhecido: a mensagem
+         * inteira falta).
+         */
+        List<Integer> faltantes() {
+            List<Integer> faltantes = new ArrayList<>();
+            if (partes == null) return faltantes;
+            for (int i = 0; i < partes.length; i++) {
+                if (partes[i] == null) faltantes.add(i);
+            }
+            return faltantes;
+        }
+
+        /**
+         * Junta os fragmentos na mensagem original. Só deve ser chamado com a remontagem completa.
+         */
+        ByteBuffer juntar() {
+            ByteBuffer mensagem = ByteBuffer.allocate(tamanhoTotal);
+            for (byte[] parte : partes) {
+                mensagem.put(parte);
+            }
+            return mensagem.flip();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes do Java para identificar o nó.
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Gerador de IDs de tarefa ordenados pelo tempo, no estilo Snowflake: um número de 64 bits com o instante de criação
+ * (42 bits, em milissegundos desde 2024-01-01, o que basta até 2163), o nó que o gerou (10 bits) e uma sequência
+ * dentro do mesmo milissegundo (12 bits, 4096 IDs por milissegundo).
+ * A forma textual tem sempre 11 caracteres em base 62 (0-9, A-Z, a-z, em ordem ASCII), de modo que a ordem das
+ * Strings é a ordem dos números: ordenar pelo ID é ordenar pela criação, e as listagens por usuário, a paginação e o
+ * histórico (todos em ordem de ID) saem em ordem cronológica sem outra chave.
+ *
+ * O nó é definido com -Dorquestrador.no (0 a 1023); sem ele, é derivado do nome da máquina e do PID. Os IDs de um
+ * mesmo nó são estritamente crescentes, mesmo que o relógio volte ou a sequência de um milissegundo se esgote (o
+ * gerador avança para o milissegundo seguinte em vez de esperar).
+ *
+ * O primário e o backup não podem gerar com o mesmo nó: tarefas criadas pelo primário e ainda não replicadas quando
+ * ele cai já têm IDs conhecidos pelos clientes. Por isso o repositório apresenta ao gerador cada tarefa que recebe
+ * (replicada, reaplicada do journal, reconciliada ou criada aqui) em observar(). Um ID do mesmo nó acima do último
+ * gerado por este processo só pode ser de outro processo, e faz o gerador trocar de nó, antes ou depois do primeiro
+ * ID. Um ID do mesmo nó que não passa do último gerado é tratado como próprio: para vir de outro processo, os dois
+ * teriam de gerar ao mesmo tempo, o que exige dois primários ativos (a replicação e o lock do journal impedem isso).
+ * Os IDs gerados depois ficam sempre acima dos observados, de modo que as tarefas criadas após um failover seguem as
+ * herdadas mesmo com o relógio do backup atrasado.
+ *
+ * IDs antigos no formato UUID (36 caracteres hexadecimais, sem o instante de criação) continuam aceitos, mas não
+ * seguem a ordem cronológica: na ordem das Strings, os IDs atuais começam por '0' até meados de 2030, então um UUID
+ * que começa por 1-9 ou a-f fica depois de todos eles, e um que começa por '0' é comparado pelos caracteres seguintes.
+ * A ordem continua total e estável (a paginação e o histórico não perdem nem repetem tarefas); apenas as tarefas com
+ * UUID aparecem fora da ordem de criação.
+ */
+final class GeradorIds {
+
+    // Início da contagem do tempo (2024-01-01T00:00:00Z).
+    private static final long EPOCA_MS = 1704067200000L;
+    // Tamanho da forma textual.
+    private static final int TAMANHO_TEXTO = 11;
+
+    private static final int BITS_NO = 10;
+    private static final int BITS_SEQUENCIA = 12;
+    private static final long MAX_NO = (1L << BITS_NO) - 1;
+    private static final long MAX_SEQUENCIA = (1L << BITS_SEQUENCIA) - 1;
+    private static final char[] DIGITOS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int BASE = DIGITOS.length;
+
+    // Gerador do processo, com o nó configurado em -Dorquestrador.no.
+    private static final GeradorIds GLOBAL = new GeradorIds(noConfigurado());
+
+    // Nó deste gerador, já deslocado para a sua posição no ID.
+    private long no;
+    // Último ID gerado por este gerador (-1 antes do primeiro); os IDs deste gerador nunca passam dele.
+    private long ultimoGerado = -1;
+    // Instante (relativo à época) e sequência do último ID gerado ou observado.
+    private long ultimoInstante = -1;
+    private long sequencia = 0;
+
+    GeradorIds(long no) {
+        if (no < 0 || no > MAX_NO) {
+            throw new IllegalArgumentException("O nó do gerador de IDs deve estar entre 0 e " + MAX_NO + ": " + no);
+        }
+        this.no = no << BITS_SEQUENCIA;
+    }
+
+    /**
+     * Retorna o gerador do processo.
+     */
+    static GeradorIds global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Gera um novo ID na forma textual.
+     */
+    String proximo() {
+        return formatar(proximoNumero());
+    }
+
+    /**
+     * Gera um novo ID na forma numérica.
+     */
+    synchronized long proximoNumero() {
+        long instante = System.currentTimeMillis() - EPOCA_MS;
+        if (instante > ultimoInstante) {
+            ultimoInstante = instante;
+            sequencia = 0;
+        } else if (++sequencia > MAX_SEQUENCIA) {
+            // Sequência esgotada (ou relógio atrasado): continua no milissegundo seguinte.
+            ultimoInstante++;
+            sequencia = 0;
+        }
+        ultimoGerado = (ultimoInstante << (BITS_NO + BITS_SEQUENCIA)) | no | sequencia;
+        return ultimoGerado;
+    }
+
+    /**
+     * Apresenta ao gerador o ID de uma tarefa adicionada ao repositório. Troca o nó se o ID é do mesmo nó e está acima
+     * do último gerado (é de outro processo), e garante que os próximos IDs fiquem acima do observado.
+     * IDs em outro formato (ex: UUID) são ignorados.
+     */
+    synchronized void observar(String id) {
+        long numero = interpretar(id);
+        if (numero < 0) return;
+        long noObservado = numero & (MAX_NO << BITS_SEQUENCIA);
+        if (noObservado == no && numero > ultimoGerado) {
+            no = (((no >> BITS_SEQUENCIA) + 1) & MAX_NO) << BITS_SEQUENCIA;
+        }
+        // No milissegundo do ID observado, a sequência seguinte só fica acima dele se o nó deste gerador não for menor;
+        // senão, o gerador continua no milissegundo seguinte, como se a sequência tivesse se esgotado.
+        long instante = numero >>> (BITS_NO + BITS_SEQUENCIA);
+        long sequenciaObservada = no >= noObservado ? numero & MAX_SEQUENCIA : MAX_SEQUENCIA;
+        if (instante > ultimoInstante || (instante == ultimoInstante && sequenciaObservada > sequencia)) {
+            ultimoInstante = instante;
+            sequencia = sequenciaObservada;
+        }
+    }
+
+    /**
+     * Retorna o nó em uso (0 a 1023).
+     */
+    synchronized long getNo() {
+        return no >> BITS_SEQUENCIA;
+    }
+
+    /**
+     * Converte um ID numérico para a forma textual (11 caracteres em base 62).
+     */
+    static String formatar(long id) {
+        char[] texto = new char[TAMANHO_TEXTO];
+        long resto = id;
+        for (int i = TAMANHO_TEXTO - 1; i >= 0; i--) {
+            texto[i] = DIGITOS[(int) (resto % BASE)];
+            resto /= BASE;
+        }
+        return new String(texto);
+    }
+
+    /**
+     * Converte um ID na forma textual para o número.
+     * @return O número, ou -1 se o texto não for um ID deste gerador na forma canônica.
+     */
+    static long interpretar(String texto) {
+        if (texto.length() != TAMANHO_TEXTO) return -1;
+        long id = 0;
+        for (int i = 0; i < TAMANHO_TEXTO; i++) {
+            int digito = valorDe(texto.charAt(i));
+            // Rejeita caracteres inválidos e valores acima de 63 bits (que não cabem em um long positivo).
+            if (digito < 0 || id > (Long.MAX_VALUE - digito) / BASE) return -1;
+            id = id * BASE + digito;
+        }
+        return id;
+    }
+
+    private static int valorDe(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 10;
+        if (c >= 'a' && c <= 'z') return c - 'a' + 36;
+        return -1;
+    }
+
+    private static long noConfigurado() {
+        Long configurado = Long.getLong("orquestrador.no");
+        if (configurado != null) return configurado;
+        String maquina;
+        try {
+            maquina = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            maquina = "";
+        }
+        return ((maquina.hashCode() * 31L + ProcessHandle.current().pid()) & 0x7FFFFFFF) % (MAX_NO + 1);
+    }
+}
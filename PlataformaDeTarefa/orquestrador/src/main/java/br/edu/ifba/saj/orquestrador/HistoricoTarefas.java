@@ -0,0 +1,501 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa a mensagem de replicação, reaproveitada como registro do histórico.
+import br.edu.ifba.saj.protocolo.TarefaReplicada;
+// Importa o leitor do protobuf, usado para extrair apenas o ID de um registro.
+import com.google.protobuf.CodedInputStream;
+
+// Importa classes do Java para manipulação de arquivos e verificação de integridade.
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+// Importa classes de coleções e utilitários do Java.
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Histórico em disco das tarefas finalizadas que a retenção (RetencaoTarefas) retirou da memória.
+ * As tarefas de cada usuário ficam em um arquivo próprio, só acrescentado, de modo que a listagem de um usuário lê
+ * apenas o seu histórico e nada do histórico fica no heap. Cada lote é sincronizado com o disco antes de as tarefas
+ * saírem da memória; se o orquestrador cair entre as duas coisas, a tarefa é arquivada de novo e a leitura descarta
+ * a repetição (vale o registro mais recente).
+ *
+ * Formato de cada registro: [tamanho: int][crc32: int][TarefaReplicada]. Um registro incompleto ou corrompido
+ * (gravação interrompida por uma queda) encerra a leitura do arquivo, e a próxima gravação o sobrescreve.
+ *
+ * Os registros ficam na ordem de arquivamento, não na de ID. Para que uma página não leia o arquivo inteiro, cada
+ * usuário consultado ganha um índice em memória (ID da tarefa -> posição do registro), montado em uma única leitura
+ * sequencial e mantido em dia pelas gravações; a página percorre o índice a partir do ID pedido e lê do disco apenas
+ * os registros que devolve. Só os índices dos usuários usados mais recentemente ficam em memória
+ * (-Dorquestrador.retencao.indices, padrão 256).
+ *
+ * O histórico também mantém os totais das tarefas arquivadas (por usuário e por status), somados aos contadores do
+ * dashboard. Uma tarefa gravada de novo conta uma só vez. Os totais ficam no arquivo totais.dat, reescrito a cada
+ * gravação junto com o tamanho contado de cada arquivo; se o arquivo de um usuário não tiver esse tamanho na abertura
+ * (queda entre a gravação e a atualização dos totais), os totais desse usuário são recontados a partir dele.
+ */
+public class HistoricoTarefas {
+
+    // Nome dos arquivos: usuario-<ID do usuário em hexadecimal>.hist (o ID pode ter qualquer caractere).
+    private static final String PREFIXO_ARQUIVO = "usuario-";
+    private static final String EXTENSAO_ARQUIVO = ".hist";
+    // Tamanho do buffer de leitura dos arquivos.
+    private static final int TAMANHO_BUFFER_LEITURA = 64 * 1024;
+    // Tamanho do cabeçalho de cada registro (tamanho e crc32).
+    private static final int TAMANHO_CABECALHO = 8;
+    // Tag do campo id (1, delimitado por tamanho) de TarefaReplicada.
+    private static final int TAG_ID = 10;
+    // Arquivo com os totais das tarefas arquivadas de cada usuário.
+    private static final String ARQUIVO_TOTAIS = "totais.dat";
+    // Número máximo de usuários com o índice em memória, configurável com -Dorquestrador.retencao.indices.
+    private static final int MAX_INDICES = Integer.getInteger("orquestrador.retencao.indices", 256);
+
+    // Diretório dos arquivos do histórico.
+    private final Path diretorio;
+    // Índices dos usuários usados recentemente, do menos para o mais recente (acesso sob o bloqueio do histórico).
+    private final Map<String, IndiceUsuario> indices = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IndiceUsuario> maisAntigo) {
+            return size() > MAX_INDICES;
+        }
+    };
+    // Totais das tarefas arquivadas de cada usuário (o usuário nulo fica sob "").
+    private final Map<String, TotaisUsuario> totais = new ConcurrentHashMap<>();
+    // Totais de todos os usuários por status, alterados sob o bloqueio do histórico.
+    private volatile int totalConcluidas;
+    private volatile int totalFalhas;
+    private Consumer<String> logCallback;
+
+    /**
+     * Abre o histórico no diretório informado, criando-o se preciso, e carrega os totais das tarefas arquivadas.
+     * @throws IOException Se o diretório não puder ser criado ou lido.
+     */
+    public HistoricoTarefas(Path diretorio) throws IOException {
+        this(diretorio, null);
+    }
+
+    /**
+     * Abre o histórico com um callback de log já definido, para registrar também os avisos da abertura.
+     */
+    public HistoricoTarefas(Path diretorio, Consumer<String> logCallback) throws IOException {
+        this.diretorio = diretorio;
+        this.logCallback = logCallback;
+        Files.createDirectories(diretorio);
+        carregarTotais();
+    }
+
+    public void setLogCallback(Consumer<String> callback) { this.logCallback = callback; }
+    private void log(String msg) { if (logCallback != null) logCallback.accept(msg); }
+
+    /**
+     * Acrescenta as tarefas ao histórico dos seus usuários e sincroniza os arquivos com o disco.
+     * @throws IOException Se algum arquivo não puder ser gravado.
+     */
+    public synchronized void gravar(Collection<Tarefa> tarefas) throws IOException {
+        Map<String, List<Tarefa>> porUsuario = new LinkedHashMap<>();
+        for (Tarefa tarefa : tarefas) {
+            porUsuario.computeIfAbsent(tarefa.getUsuarioId(), id -> new ArrayList<>()).add(tarefa);
+        }
+        for (Map.Entry<String, List<Tarefa>> usuario : porUsuario.entrySet()) {
+            IndiceUsuario indice = indiceDo(usuario.getKey());
+            TotaisUsuario totaisAntes = totaisDo(usuario.getKey());
+            int concluidas = totaisAntes.concluidas;
+            int falhas = totaisAntes.falhas;
+            List<Tarefa> gravadas = new ArrayList<>(usuario.getValue().size());
+            List<byte[]> registros = new ArrayList<>(usuario.getValue().size());
+            int tamanho = 0;
+            for (Tarefa tarefa : usuario.getValue()) {
+                // Uma tarefa já arquivada (gravada de novo após uma queda, ou que voltou a andar e terminou outra vez)
+                // só é regravada, e recontada, se o status final mudou.
+                StatusTarefa anterior = statusArquivado(usuario.getKey(), indice, tarefa.getId());
+                if (anterior == tarefa.getStatus()) continue;
+                if (anterior == StatusTarefa.CONCLUIDA) concluidas--;
+                if (anterior == StatusTarefa.FALHA) falhas--;
+                if (tarefa.getStatus() == StatusTarefa.CONCLUIDA) concluidas++;
+                if (tarefa.getStatus() == StatusTarefa.FALHA) falhas++;
+                byte[] registro = CodecReplicacao.paraProto(tarefa).toByteArray();
+                gravadas.add(tarefa);
+                registros.add(registro);
+                tamanho += TAMANHO_CABECALHO + registro.length;
+            }
+            if (registros.isEmpty()) continue;
+            ByteBuffer conteudo = ByteBuffer.allocate(tamanho);
+            CRC32 crc = new CRC32();
+            for (byte[] registro : registros) {
+                crc.reset();
+                crc.update(registro);
+                conteudo.putInt(registro.length).putInt((int) crc.getValue()).put(registro);
+            }
+            conteudo.flip();
+            try (FileChannel canal = FileChannel.open(arquivoDo(usuario.getKey()), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Descarta um final incompleto ou corrompido, que a leitura ignoraria junto com tudo o que viesse depois.
+                if (canal.size() > indice.fim) {
+                    log("⚠️ Histórico: descartando " + (canal.size() - indice.fim) + " bytes inválidos no fim de " + arquivoDo(usuario.getKey()).getFileName() + ".");
+                    canal.truncate(indice.fim);
+                }
+                long posicao = indice.fim;
+                while (conteudo.hasRemaining()) {
+                    posicao += canal.write(conteudo, posicao);
+                }
+                canal.force(false);
+            }
+            // Só depois de sincronizados os registros passam a ser visíveis pelo índice.
+            long posicao = indice.fim;
+            for (int i = 0; i < registros.size(); i++) {
+                indice.posicoes.put(gravadas.get(i).getId(), posicao);
+                posicao += TAMANHO_CABECALHO + registros.get(i).length;
+            }
+            indice.fim = posicao;
+            definirTotais(usuario.getKey(), new TotaisUsuario(posicao, concluidas, falhas));
+        }
+        gravarTotais();
+    }
+
+    /**
+     * Retorna o número de tarefas arquivadas.
+     */
+    public int getTotal() {
+        return totalConcluidas + totalFalhas;
+    }
+
+    /**
+     * Retorna o número de tarefas arquivadas com o status informado (só há tarefas finalizadas no histórico).
+     */
+    public int getComStatus(StatusTarefa status) {
+        return status == StatusTarefa.CONCLUIDA ? totalConcluidas : status == StatusTarefa.FALHA ? totalFalhas : 0;
+    }
+
+    /**
+     * Retorna o número de tarefas arquivadas de um usuário.
+     */
+    public int getDoUsuario(String usuarioId) {
+        TotaisUsuario doUsuario = totais.get(chave(usuarioId));
+        return doUsuario != null ? doUsuario.concluidas + doUsuario.falhas : 0;
+    }
+
+    /**
+     * Retorna uma página das tarefas arquivadas de um usuário, em ordem de ID. Lê do disco apenas os registros
+     * percorridos a partir de aposId (os devolvidos e os recusados pelo filtro).
+     * @param usuarioId O usuário.
+     * @param aposId O ID da última tarefa da página anterior (null para começar do início).
+     * @param limite O número máximo de tarefas retornadas.
+     * @param filtro A condição que as tarefas devem atender.
+     */
+    public List<Tarefa> paginaDoUsuario(String usuarioId, String aposId, int limite, Predicate<Tarefa> filtro) {
+        NavigableMap<String, Long> posicoes = indiceDo(usuarioId).posicoes;
+        List<Tarefa> pagina = new ArrayList<>();
+        if (posicoes.isEmpty()) return pagina;
+        Path arquivo = arquivoDo(usuarioId);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            for (long posicao : (aposId != null ? posicoes.tailMap(aposId, false) : posicoes).values()) {
+                Tarefa tarefa = lerRegistro(canal, posicao, arquivo);
+                if (tarefa != null && filtro.test(tarefa)) {
+                    pagina.add(tarefa);
+                    if (pagina.size() == limite) break;
+                }
+            }
+        } catch (IOException e) {
+            log("⚠️ Histórico: falha ao ler " + arquivo.getFileName() + ": " + e.getMessage());
+        }
+        return pagina;
+    }
+
+    /**
+     * Retorna a tarefa arquivada de um usuário com o ID informado, ou null se ela não estiver no histórico.
+     */
+    public Tarefa obter(String usuarioId, String tarefaId) {
+        Long posicao = indiceDo(usuarioId).posicoes.get(tarefaId);
+        if (posicao == null) return null;
+        Path arquivo = arquivoDo(usuarioId);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return lerRegistro(canal, posicao, arquivo);
+        } catch (IOException e) {
+            log("⚠️ Histórico: falha ao ler " + arquivo.getFileName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public Path getDiretorio() {
+        return diretorio;
+    }
+
+    /**
+     * Retorna o status com que a tarefa foi arquivada, ou null se ela não está no histórico do usuário.
+     */
+    private StatusTarefa statusArquivado(String usuarioId, IndiceUsuario indice, String tarefaId) throws IOException {
+        Long posicao = indice.posicoes.get(tarefaId);
+        if (posicao == null) return null;
+        Path arquivo = arquivoDo(usuarioId);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            Tarefa arquivada = lerRegistro(canal, posicao, arquivo);
+            return arquivada != null ? arquivada.getStatus() : null;
+        }
+    }
+
+    // --- TOTAIS ---
+
+    private TotaisUsuario totaisDo(String usuarioId) {
+        return totais.getOrDefault(chave(usuarioId), TotaisUsuario.VAZIO);
+    }
+
+    /**
+     * Substitui os totais de um usuário, ajustando os totais gerais. Chamado sob o bloqueio do histórico.
+     */
+    private void definirTotais(String usuarioId, TotaisUsuario novos) {
+        TotaisUsuario anteriores = totaisDo(usuarioId);
+        totais.put(chave(usuarioId), novos);
+        totalConcluidas += novos.concluidas - anteriores.concluidas;
+        totalFalhas += novos.falhas - anteriores.falhas;
+    }
+
+    /**
+     * Lê o arquivo de totais e reconta os usuários cujo arquivo não tem o tamanho contado.
+     * Um arquivo de totais ausente ou ilegível faz todos os usuários serem recontados.
+     */
+    private synchronized void carregarTotais() throws IOException {
+        Map<String, TotaisUsuario> lidos = new HashMap<>();
+        Path arquivoTotais = diretorio.resolve(ARQUIVO_TOTAIS);
+        try (DataInputStream dados = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivoTotais), TAMANHO_BUFFER_LEITURA))) {
+            int quantidade = dados.readInt();
+            for (int i = 0; i < quantidade; i++) {
+                lidos.put(dados.readUTF(), new TotaisUsuario(dados.readLong(), dados.readInt(), dados.readInt()));
+            }
+        } catch (NoSuchFileException e) {
+            // Histórico novo, ou anterior aos totais: todos os arquivos são contados abaixo.
+        } catch (IOException e) {
+            log("⚠️ Histórico: totais ilegíveis (" + e.getMessage() + "); recontando as tarefas arquivadas.");
+            lidos.clear();
+        }
+        boolean recontados = false;
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, PREFIXO_ARQUIVO + "*" + EXTENSAO_ARQUIVO)) {
+            for (Path arquivo : arquivos) {
+                String usuarioId = usuarioDoArquivo(arquivo.getFileName().toString());
+                if (usuarioId == null) continue;
+                TotaisUsuario doUsuario = lidos.get(usuarioId);
+                if (doUsuario == null || doUsuario.fim != Files.size(arquivo)) {
+                    doUsuario = recontar(usuarioId);
+                    recontados = true;
+                }
+                definirTotais(usuarioId, doUsuario);
+            }
+        }
+        if (recontados) {
+            gravarTotais();
+        }
+    }
+
+    /**
+     * Conta as tarefas arquivadas de um usuário lendo o seu arquivo inteiro (o índice guarda só o registro mais
+     * recente de cada ID).
+     */
+    private TotaisUsuario recontar(String usuarioId) {
+        IndiceUsuario indice = indiceDo(usuarioId);
+        int concluidas = 0, falhas = 0;
+        for (Tarefa tarefa : paginaDoUsuario(usuarioId, null, Integer.MAX_VALUE, tarefa -> true)) {
+            if (tarefa.getStatus() == StatusTarefa.CONCLUIDA) concluidas++;
+            if (tarefa.getStatus() == StatusTarefa.FALHA) falhas++;
+        }
+        return new TotaisUsuario(indice.fim, concluidas, falhas);
+    }
+
+    /**
+     * Reescreve o arquivo de totais (em um arquivo temporário, trocado de uma só vez pelo anterior).
+     */
+    private synchronized void gravarTotais() throws IOException {
+        Path temporario = diretorio.resolve(ARQUIVO_TOTAIS + ".tmp");
+        try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporario)))) {
+            saida.writeInt(totais.size());
+            for (Map.Entry<String, TotaisUsuario> usuario : totais.entrySet()) {
+                saida.writeUTF(usuario.getKey());
+                saida.writeLong(usuario.getValue().fim);
+                saida.writeInt(usuario.getValue().concluidas);
+                saida.writeInt(usuario.getValue().falhas);
+            }
+        }
+        try {
+            Files.move(temporario, diretorio.resolve(ARQUIVO_TOTAIS), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporario, diretorio.resolve(ARQUIVO_TOTAIS), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Retorna o índice de um usuário, montando-o a partir do arquivo se ele não estiver em memória.
+     */
+    private synchronized IndiceUsuario indiceDo(String usuarioId) {
+        IndiceUsuario indice = indices.get(usuarioId);
+        if (indice == null) {
+            indice = indexar(usuarioId);
+            indices.put(usuarioId, indice);
+        }
+        return indice;
+    }
+
+    /**
+     * Lê o histórico de um usuário em sequência, anotando a posição de cada registro pelo ID (vale o mais recente).
+     * Em caso de erro, o índice termina no último registro válido.
+     */
+    private IndiceUsuario indexar(String usuarioId) {
+        IndiceUsuario indice = new IndiceUsuario();
+        Path arquivo = arquivoDo(usuarioId);
+        try (InputStream entrada = Files.newInputStream(arquivo);
+             DataInputStream dados = new DataInputStream(new BufferedInputStream(entrada, TAMANHO_BUFFER_LEITURA))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int tamanho;
+                try {
+                    tamanho = dados.readInt();
+                } catch (EOFException e) {
+                    break; // Fim do arquivo.
+                }
+                int crcEsperado = dados.readInt();
+                if (tamanho < 0) {
+                    log("⚠️ Histórico: registro inválido em " + arquivo.getFileName() + "; o restante do arquivo é ignorado.");
+                    break;
+                }
+                byte[] registro = new byte[tamanho];
+                dados.readFully(registro);
+                crc.reset();
+                crc.update(registro);
+                if ((int) crc.getValue() != crcEsperado) {
+                    log("⚠️ Histórico: registro corrompido em " + arquivo.getFileName() + "; o restante do arquivo é ignorado.");
+                    break;
+                }
+                indice.posicoes.put(idDo(registro), indice.fim);
+                indice.fim += TAMANHO_CABECALHO + tamanho;
+            }
+        } catch (NoSuchFileException e) {
+            // Usuário sem tarefas arquivadas.
+        } catch (EOFException e) {
+            log("⚠️ Histórico: registro truncado em " + arquivo.getFileName() + "; o restante do arquivo é ignorado.");
+        } catch (IOException e) {
+            log("⚠️ Histórico: falha ao ler " + arquivo.getFileName() + ": " + e.getMessage());
+        }
+        return indice;
+    }
+
+    /**
+     * Lê o registro que começa na posição informada.
+     * @return A tarefa, ou null se o registro estiver corrompido.
+     */
+    private Tarefa lerRegistro(FileChannel canal, long posicao, Path arquivo) throws IOException {
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+        lerCompleto(canal, cabecalho, posicao);
+        int tamanho = cabecalho.getInt(0);
+        int crcEsperado = cabecalho.getInt(4);
+        ByteBuffer registro = ByteBuffer.allocate(tamanho);
+        lerCompleto(canal, registro, posicao + TAMANHO_CABECALHO);
+        CRC32 crc = new CRC32();
+        crc.update(registro.array());
+        if ((int) crc.getValue() != crcEsperado) {
+            log("⚠️ Histórico: registro corrompido em " + arquivo.getFileName() + " (posição " + posicao + "); ignorado.");
+            return null;
+        }
+        return CodecReplicacao.deProto(TarefaReplicada.parseFrom(registro.array()));
+    }
+
+    private static void lerCompleto(FileChannel canal, ByteBuffer destino, long posicao) throws IOException {
+        while (destino.hasRemaining()) {
+            if (canal.read(destino, posicao + destino.position()) < 0) {
+                throw new EOFException("Fim inesperado do arquivo na posição " + (posicao + destino.position()));
+            }
+        }
+    }
+
+    /**
+     * Extrai o ID da tarefa de um registro sem decodificar os demais campos.
+     */
+    private static String idDo(byte[] registro) throws IOException {
+        CodedInputStream entrada = CodedInputStream.newInstance(registro);
+        int tag;
+        while ((tag = entrada.readTag()) != 0) {
+            if (tag == TAG_ID) {
+                return entrada.readString();
+            }
+            entrada.skipField(tag);
+        }
+        return "";
+    }
+
+    private static String chave(String usuarioId) {
+        return usuarioId != null ? usuarioId : "";
+    }
+
+    /**
+     * Retorna o usuário de um arquivo do histórico a partir do seu nome, ou null se o nome não for de um histórico.
+     */
+    private static String usuarioDoArquivo(String nome) {
+        String hexadecimal = nome.substring(PREFIXO_ARQUIVO.length(), nome.length() - EXTENSAO_ARQUIVO.length());
+        if (hexadecimal.length() % 2 != 0) return null;
+        byte[] bytes = new byte[hexadecimal.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int alto = Character.digit(hexadecimal.charAt(2 * i), 16);
+            int baixo = Character.digit(hexadecimal.charAt(2 * i + 1), 16);
+            if (alto < 0 || baixo < 0) return null;
+            bytes[i] = (byte) ((alto << 4) | baixo);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Path arquivoDo(String usuarioId) {
+        StringBuilder nome = new StringBuilder(PREFIXO_ARQUIVO);
+        if (usuarioId != null) {
+            for (byte b : usuarioId.getBytes(StandardCharsets.UTF_8)) {
+                nome.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+        }
+        return diretorio.resolve(nome.append(EXTENSAO_ARQUIVO).toString());
+    }
+
+    /**
+     * Índice do histórico de um usuário: a posição do registro de cada tarefa e o fim do último registro válido.
+     */
+    private static final class IndiceUsuario {
+        // Posição do registro de cada tarefa no arquivo, em ordem de ID.
+        private final NavigableMap<String, Long> posicoes = new ConcurrentSkipListMap<>();
+        // Fim do último registro válido, onde começa a próxima gravação (alterado sob o bloqueio do histórico).
+        private long fim;
+    }
+
+    /**
+     * Totais das tarefas arquivadas de um usuário e o tamanho do arquivo a que correspondem.
+     */
+    private static final class TotaisUsuario {
+        private static final TotaisUsuario VAZIO = new TotaisUsuario(0, 0, 0);
+
+        private final long fim;
+        private final int concluidas;
+        private final int falhas;
+
+        private TotaisUsuario(long fim, int concluidas, int falhas) {
+            this.fim = fim;
+            this.concluidas = concluidas;
+            this.falhas = falhas;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Índices secundários em conjuntos concorrentes de IDs no heap, usados pelos motores em memória e em arquivo.
+ * Os índices por usuário e por worker são indexados pelos códigos do DicionarioIds.
+ */
+final class IndicesEmMemoria implements IndicesTarefas {
+
+    // Índice: worker -> IDs das tarefas com status EXECUTANDO nele.
+    private final TabelaPorCodigo<Set<String>> emExecucaoPorWorker = new TabelaPorCodigo<>(ConcurrentHashMap::newKeySet);
+    // Índice: usuário -> IDs das tarefas que ele submeteu, ordenados pelo ID (base da consulta paginada).
+    private final TabelaPorCodigo<NavigableSet<String>> porUsuario = new TabelaPorCodigo<>(ConcurrentSkipListSet::new);
+    // Índice: status -> IDs das tarefas nesse status.
+    private final Map<StatusTarefa, Set<String>> porStatus = new EnumMap<>(StatusTarefa.class);
+
+    IndicesEmMemoria() {
+        for (StatusTarefa status : StatusTarefa.values()) {
+            porStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    @Override
+    public void indexar(Tarefa tarefa) {
+        if (tarefa.getCodigoUsuario() != DicionarioIds.NENHUM) {
+            porUsuario.obterOuCriar(tarefa.getCodigoUsuario()).add(tarefa.getId());
+        }
+        indexarEstado(tarefa);
+    }
+
+    @Override
+    public void desindexar(Tarefa tarefa) {
+        remover(porUsuario, tarefa.getCodigoUsuario(), tarefa.getId());
+        desindexarEstado(tarefa);
+    }
+
+    @Override
+    public void indexarEstado(Tarefa tarefa) {
+        porStatus.get(tarefa.getStatus()).add(tarefa.getId());
+        int worker = tarefa.getCodigoWorker();
+        if (worker != DicionarioIds.NENHUM && tarefa.getStatus() == StatusTarefa.EXECUTANDO) {
+            emExecucaoPorWorker.obterOuCriar(worker).add(tarefa.getId());
+        }
+    }
+
+    @Override
+    public void desindexarEstado(Tarefa tarefa) {
+        porStatus.get(tarefa.getStatus()).remove(tarefa.getId());
+        remover(emExecucaoPorWorker, tarefa.getCodigoWorker(), tarefa.getId());
+    }
+
+    @Override
+    public Iterable<String> doUsuario(String usuarioId, String aposId) {
+        NavigableSet<String> ids = porUsuario.obter(DicionarioIds.global().codigoExistente(usuarioId));
+        if (ids == null) return Collections.emptySet();
+        return aposId != null ? ids.tailSet(aposId, false) : ids;
+    }
+
+    @Override
+    public Collection<String> emExecucaoNoWorker(String workerId) {
+        Set<String> ids = emExecucaoPorWorker.obter(DicionarioIds.global().codigoExistente(workerId));
+        return ids != null ? ids : Collections.emptySet();
+    }
+
+    @Override
+    public Collection<String> comStatus(StatusTarefa status) {
+        return porStatus.get(status);
+    }
+
+    private static void remover(TabelaPorCodigo<? extends Set<String>> indice, int codigo, String tarefaId) {
+        Set<String> ids = indice.obter(codigo);
+        if (ids != null) {
+            ids.remove(tarefaId);
+        }
+    }
+}
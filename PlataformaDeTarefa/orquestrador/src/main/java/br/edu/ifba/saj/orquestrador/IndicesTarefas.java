@@ -0,0 +1,50 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções do Java.
+import java.util.Collection;
+
+/**
+ * Índices secundários do repositório de tarefas (por usuário, por status e das tarefas em execução em cada worker),
+ * mantidos pelo RepositorioTarefasIndexado junto com cada inclusão, transição e remoção.
+ * Os motores comuns usam IndicesEmMemoria; um motor pode fornecer índices próprios, guardados no mesmo formato
+ * das suas tarefas (ex: o motor compacto, fora do heap).
+ */
+interface IndicesTarefas {
+
+    /**
+     * Indexa uma tarefa nova (usuário e estado). Chamado com a tarefa bloqueada, depois de ela ser armazenada.
+     */
+    void indexar(Tarefa tarefa);
+
+    /**
+     * Retira uma tarefa de todos os índices. Chamado com a tarefa bloqueada, depois de ela ser excluída.
+     */
+    void desindexar(Tarefa tarefa);
+
+    /**
+     * Indexa as partes mutáveis da tarefa (status e worker).
+     */
+    void indexarEstado(Tarefa tarefa);
+
+    /**
+     * Retira dos índices as partes mutáveis da tarefa, antes de elas mudarem.
+     */
+    void desindexarEstado(Tarefa tarefa);
+
+    /**
+     * Retorna os IDs das tarefas de um usuário, em ordem de ID, a partir do ponto indicado.
+     * @param aposId O ID a partir do qual (exclusive) a listagem começa (null para o início).
+     */
+    Iterable<String> doUsuario(String usuarioId, String aposId);
+
+    /**
+     * Retorna os IDs das tarefas com status EXECUTANDO em um worker.
+     */
+    Collection<String> emExecucaoNoWorker(String workerId);
+
+    /**
+     * Retorna os IDs das tarefas com o status informado.
+     */
+    Collection<String> comStatus(StatusTarefa status);
+}
@@ -0,0 +1,524 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as mensagens de replicação, reaproveitadas como registros do journal.
+import br.edu.ifba.saj.protocolo.OperacaoReplicacao;
+
+// Importa classes do Java para manipulação de arquivos mapeados em memória.
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+// Importa classes de coleções, concorrência e utilitários do Java.
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal (log de escrita antecipada) das tarefas do orquestrador primário, gravado em disco para que as tarefas
+ * sobrevivam à queda dos dois orquestradores. Cada tarefa criada, transição de status e arquivamento vira um registro
+ * (a mesma OperacaoReplicacao enviada ao backup), acrescentado ao fim de segmentos de arquivo mapeados em memória;
+ * a entrada e a saída dos workers e as novas sessões chegam pelo LogReplicacao e também são gravadas.
+ * Periodicamente o estado completo é gravado em um snapshot (SnapshotEstado) e os segmentos anteriores a ele são
+ * apagados; ao iniciar a frio, o primário carrega o snapshot e reproduz apenas os segmentos seguintes.
+ *
+ * A gravação não bloqueia quem altera as tarefas: os registros entram em uma fila sem bloqueio e uma thread
+ * dedicada os copia em lote para o segmento mapeado (sem chamadas ao sistema por registro). Ao fim de cada lote
+ * (group commit) o trecho gravado é sincronizado com o disco conforme a política de fsync:
+ * LOTE (cada lote, e a submissão só é confirmada depois), INTERVALO (no máximo a cada N ms) ou NENHUMA (o sistema
+ * operacional decide quando gravar as páginas).
+ *
+ * Formato de cada registro: [tamanho: int][crc32: int][OperacaoReplicacao]. Um tamanho zero marca o fim do segmento;
+ * um registro com CRC inválido (gravação interrompida por uma queda) encerra a leitura do segmento.
+ *
+ * O diretório pertence a um único journal por vez: o construtor toma um FileLock exclusivo sobre o arquivo
+ * journal.lock e falha se outro processo (ou outro journal deste processo) já o detém. O lock é liberado por
+ * fechar() ou, se o processo cair, pelo sistema operacional, e só então outro orquestrador pode assumir o diretório.
+ */
+public class JournalTarefas implements RepositorioTarefas.Ouvinte {
+
+    /**
+     * Política de sincronização dos segmentos com o disco.
+     */
+    public enum PoliticaFsync { LOTE, INTERVALO, NENHUMA }
+
+    // Política de fsync, configurável com -Dorquestrador.journal.fsync=lote|intervalo|nenhuma (padrão: lote).
+    private static final PoliticaFsync POLITICA_FSYNC = PoliticaFsync.valueOf(System.getProperty("orquestrador.journal.fsync", "lote").toUpperCase());
+    // Intervalo máximo entre sincronizações na política INTERVALO, configurável com -Dorquestrador.journal.fsync.ms.
+    private static final long INTERVALO_FSYNC_MS = Long.getLong("orquestrador.journal.fsync.ms", 1000);
+    // Tamanho de cada segmento, configurável com -Dorquestrador.journal.segmento.mb.
+    private static final int TAMANHO_SEGMENTO = Integer.getInteger("orquestrador.journal.segmento.mb", 64) * 1024 * 1024;
+    // Nome dos arquivos de segmento: journal-<número com 20 dígitos>.seg, para que a ordem alfabética seja a de gravação.
+    private static final String PREFIXO_SEGMENTO = "journal-";
+    private static final String EXTENSAO_SEGMENTO = ".seg";
+    // Arquivo cujo lock exclusivo marca o dono do diretório.
+    private static final String ARQUIVO_LOCK = "journal.lock";
+    // Tamanho do cabeçalho de cada registro (tamanho e CRC32).
+    private static final int TAMANHO_CABECALHO = 8;
+    // Número máximo de registros por lote, para que uma rajada contínua não adie a sincronização indefinidamente.
+    private static final int MAX_REGISTROS_LOTE = 8192;
+    // Marca colocada na fila para pedir a troca de segmento (comparada por identidade).
+    private static final byte[] MARCA_ROTACAO = new byte[0];
+    // Espera máxima da thread de gravação sem registros novos.
+    private static final long ESPERA_OCIOSA_NS = TimeUnit.SECONDS.toNanos(1);
+
+    // Diretório dos segmentos.
+    private final Path diretorio;
+    // Lock exclusivo do diretório, mantido até fechar().
+    private final FileChannel canalLock;
+    private final FileLock lock;
+    // Registros já codificados aguardando a thread de gravação.
+    private final ConcurrentLinkedQueue<byte[]> fila = new ConcurrentLinkedQueue<>();
+    // Número de registros colocados na fila.
+    private final AtomicLong registrados = new AtomicLong();
+    // Pedidos de troca de segmento ainda não atendidos, na ordem das marcas na fila.
+    private final ConcurrentLinkedQueue<CompletableFuture<Long>> rotacoesPendentes = new ConcurrentLinkedQueue<>();
+    // Número de registros já sincronizados com o disco (protegido por monitorDurabilidade).
+    private long duraveis = 0;
+    private final Object monitorDurabilidade = new Object();
+    // Thread de gravação e indicação de que ela está parada à espera de registros.
+    private final Thread escritor;
+    private volatile boolean escritorOcioso = false;
+    private volatile boolean aberto = true;
+    // Erro de gravação que desativou o journal (null enquanto ele funciona).
+    private volatile IOException falha;
+
+    // Estado usado apenas pela thread de gravação (ou antes de ela iniciar).
+    private MappedByteBuffer segmentoAtual;
+    private long numeroSegmentoAtual;
+    private int posicaoDuravel = 0;
+    private long gravados = 0;
+    private long ultimoFsync = System.currentTimeMillis();
+    private final CRC32 crc = new CRC32();
+
+    // Callback para enviar logs para a interface gráfica.
+    private Consumer<String> logCallback;
+
+    /**
+     * Construtor da classe. Cria o diretório, se necessário, e toma o lock exclusivo dele; os segmentos existentes
+     * não são alterados.
+     * @param diretorio O diretório dos segmentos.
+     * @throws IOException Se o diretório não puder ser criado ou lido, ou se já estiver em uso por outro journal.
+     */
+    public JournalTarefas(Path diretorio) throws IOException {
+        this.diretorio = diretorio;
+        Files.createDirectories(diretorio);
+        this.canalLock = FileChannel.open(diretorio.resolve(ARQUIVO_LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock obtido;
+        try {
+            obtido = canalLock.tryLock();
+        } catch (OverlappingFileLockException e) {
+            obtido = null; // Já detido por outro journal deste processo.
+        }
+        if (obtido == null) {
+            canalLock.close();
+            throw new IOException("O diretório " + diretorio + " já está em uso por outro journal.");
+        }
+        this.lock = obtido;
+        List<Path> existentes = listarSegmentos();
+        this.numeroSegmentoAtual = existentes.isEmpty() ? 0 : numeroDo(existentes.get(existentes.size() - 1));
+        this.escritor = new Thread(this::executarEscritor, "JournalTarefas-Thread");
+        this.escritor.setDaemon(true);
+    }
+
+    public void setLogCallback(Consumer<String> callback) { this.logCallback = callback; }
+    private void log(String msg) { if (logCallback != null) logCallback.accept(msg); }
+
+    /**
+     * Reproduz, em ordem, os segmentos a partir do informado (o do snapshot carregado, ou 0 para todos).
+     * Deve ser chamado antes de iniciar().
+     * @param bancoDeTarefas O repositório de tarefas.
+     * @param workers O mapa de workers ativos.
+     * @param sessoes O mapa de sessões ativas.
+     * @param desdeSegmento O primeiro segmento a reproduzir.
+     * @return O número de registros aplicados.
+     * @throws IOException Se um segmento não puder ser lido.
+     */
+    public int reproduzir(RepositorioTarefas bancoDeTarefas, Map<String, Long> workers, Map<String, String> sessoes, long desdeSegmento) throws IOException {
+        int aplicados = 0;
+        int ignorados = 0;
+        for (Path segmento : listarSegmentos()) {
+            if (numeroDo(segmento) < desdeSegmento) continue; // Já coberto pelo snapshot.
+            try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ)) {
+                MappedByteBuffer dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+                while (dados.remaining() >= TAMANHO_CABECALHO) {
+                    int tamanho = dados.getInt();
+                    int crcEsperado = dados.getInt();
+                    if (tamanho == 0) break; // Fim dos registros do segmento.
+                    if (tamanho < 0 || tamanho > dados.remaining()) {
+                        log("⚠️ Journal: registro truncado em " + segmento.getFileName() + "; o restante do segmento é ignorado.");
+                        break;
+                    }
+                    ByteBuffer registro = dados.slice(dados.position(), tamanho);
+                    crc.reset();
+                    crc.update(registro.duplicate());
+                    if ((int) crc.getValue() != crcEsperado) {
+                        log("⚠️ Journal: registro corrompido em " + segmento.getFileName() + "; o restante do segmento é ignorado.");
+                        break;
+                    }
+                    dados.position(dados.position() + tamanho);
+                    if (aplicar(OperacaoReplicacao.parseFrom(registro), bancoDeTarefas, workers, sessoes)) {
+                        aplicados++;
+                    } else {
+                        ignorados++;
+                    }
+                }
+            }
+        }
+        if (ignorados > 0) {
+            log("⚠️ Journal: " + ignorados + " transições sobre tarefas desconhecidas foram ignoradas.");
+        }
+        return aplicados;
+    }
+
+    /**
+     * Abre um segmento novo e inicia a thread de gravação.
+     * @return O número do segmento aberto (os registros feitos a partir de agora começam nele).
+     * @throws IOException Se o segmento não puder ser criado.
+     */
+    public long iniciar() throws IOException {
+        abrirSegmento(TAMANHO_SEGMENTO);
+        escritor.start();
+        return numeroSegmentoAtual;
+    }
+
+    /**
+     * Pede à thread de gravação que passe para um segmento novo, depois de gravar tudo o que já está na fila.
+     * Um estado copiado depois que o pedido é atendido contém todas as alterações dos segmentos anteriores.
+     * @return O número do segmento novo, quando ele for aberto.
+     */
+    public CompletableFuture<Long> rodarSegmento() {
+        CompletableFuture<Long> pedido = new CompletableFuture<>();
+        rotacoesPendentes.offer(pedido);
+        fila.offer(MARCA_ROTACAO);
+        LockSupport.unpark(escritor);
+        return pedido;
+    }
+
+    /**
+     * Apaga os segmentos anteriores ao informado (já cobertos por um snapshot).
+     * @return O número de segmentos apagados.
+     */
+    public int apagarSegmentosAnteriores(long segmento) throws IOException {
+        int apagados = 0;
+        for (Path arquivo : listarSegmentos()) {
+            if (numeroDo(arquivo) < segmento && Files.deleteIfExists(arquivo)) {
+                apagados++;
+            }
+        }
+        return apagados;
+    }
+
+    /**
+     * Grava os registros pendentes, sincroniza o segmento com o disco, encerra a thread de gravação e libera o
+     * lock do diretório.
+     */
+    public void fechar() {
+        aberto = false;
+        LockSupport.unpark(escritor);
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (lock.isValid()) {
+                lock.release();
+            }
+            canalLock.close();
+        } catch (IOException e) {
+            log("⚠️ Journal: lock do diretório não liberado: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        registrar(CodecReplicacao.tarefaCriada(tarefa, false).build().toByteArray());
+    }
+
+    @Override
+    public void tarefaTransicionada(Tarefa tarefa) {
+        registrar(CodecReplicacao.statusAlterado(tarefa, false).build().toByteArray());
+    }
+
+    @Override
+    public void tarefaArquivada(Tarefa tarefa) {
+        registrar(CodecReplicacao.tarefaArquivada(tarefa).build().toByteArray());
+    }
+
+    /**
+     * Grava uma operação que não passa pelo repositório de tarefas (entrada e saída de workers, novas sessões).
+     */
+    public void registrarOperacao(OperacaoReplicacao operacao) {
+        registrar(operacao.toByteArray());
+    }
+
+    /**
+     * Retorna o número de registros feitos desde a abertura do journal.
+     */
+    public long getRegistrados() {
+        return registrados.get();
+    }
+
+    public Path getDiretorio() {
+        return diretorio;
+    }
+
+    /**
+     * Aguarda até que todos os registros feitos até agora estejam sincronizados com o disco. Só espera na política
+     * LOTE; várias submissões concorrentes são confirmadas pela mesma sincronização.
+     * @throws IOException Se o journal foi desativado por um erro de gravação (em qualquer política): os registros
+     *                     não estão, nem serão, gravados em disco.
+     */
+    public void aguardarDurabilidade() throws IOException {
+        verificarFalha();
+        if (POLITICA_FSYNC != PoliticaFsync.LOTE) return;
+        long alvo = registrados.get();
+        synchronized (monitorDurabilidade) {
+            while (duraveis < alvo && aberto) {
+                try {
+                    monitorDurabilidade.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        verificarFalha();
+    }
+
+
+    public PoliticaFsync getPoliticaFsync() {
+        return POLITICA_FSYNC;
+    }
+
+    private void verificarFalha() throws IOException {
+        IOException atual = falha;
+        if (atual != null) {
+            throw new IOException("Journal de tarefas desativado após erro de gravação: " + atual.getMessage(), atual);
+        }
+    }
+
+    /**
+     * Coloca um registro na fila da thread de gravação, acordando-a se estiver parada. Depois do encerramento ou de
+     * uma falha de gravação o registro é descartado; a falha é informada por aguardarDurabilidade().
+     */
+    private void registrar(byte[] registro) {
+        if (!aberto) return;
+        fila.offer(registro);
+        registrados.incrementAndGet();
+        if (escritorOcioso) {
+            LockSupport.unpark(escritor);
+        }
+    }
+
+    /**
+     * Laço da thread de gravação: drena a fila para o segmento mapeado e conclui cada lote conforme a política de fsync.
+     */
+    private void executarEscritor() {
+        try {
+            while (true) {
+                long lote = 0;
+                byte[] registro;
+                while (lote < MAX_REGISTROS_LOTE && (registro = fila.poll()) != null) {
+                    if (registro == MARCA_ROTACAO) {
+                        rodar();
+                        continue;
+                    }
+                    gravar(registro);
+                    lote++;
+                }
+                gravados += lote;
+                concluirLote();
+                if (!aberto && fila.isEmpty()) break;
+                if (lote == MAX_REGISTROS_LOTE) continue; // Ainda há registros na fila.
+                // Marca-se ociosa e confere a fila de novo antes de parar, para não perder o aviso de um registro novo.
+                escritorOcioso = true;
+                if (fila.isEmpty() && aberto) {
+                    LockSupport.parkNanos(this, tempoDeEspera());
+                }
+                escritorOcioso = false;
+            }
+            sincronizar();
+            publicarDuraveis(gravados);
+        } catch (IOException e) {
+            falha = e;
+            aberto = false;
+            log("💥 Journal de tarefas desativado após erro de gravação: " + e.getMessage());
+            CompletableFuture<Long> pedido;
+            while ((pedido = rotacoesPendentes.poll()) != null) {
+                pedido.completeExceptionally(e);
+            }
+        } finally {
+            // Libera quem ainda aguarda a durabilidade.
+            synchronized (monitorDurabilidade) {
+                monitorDurabilidade.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Conclui o lote gravado: sincroniza com o disco se a política pedir e libera quem aguarda a durabilidade.
+     */
+    private void concluirLote() {
+        if (gravados == duraveisAtuais()) return;
+        switch (POLITICA_FSYNC) {
+            case LOTE:
+                sincronizar();
+                publicarDuraveis(gravados);
+                break;
+            case INTERVALO:
+                if (System.currentTimeMillis() - ultimoFsync >= INTERVALO_FSYNC_MS) {
+                    sincronizar();
+                    publicarDuraveis(gravados);
+                }
+                break;
+            default:
+                publicarDuraveis(gravados);
+        }
+    }
+
+    /**
+     * Tempo que a thread de gravação pode ficar parada: na política INTERVALO, até a próxima sincronização devida.
+     */
+    private long tempoDeEspera() {
+        if (POLITICA_FSYNC == PoliticaFsync.INTERVALO && gravados > duraveisAtuais()) {
+            long restanteMs = INTERVALO_FSYNC_MS - (System.currentTimeMillis() - ultimoFsync);
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(1, restanteMs));
+        }
+        return ESPERA_OCIOSA_NS;
+    }
+
+    /**
+     * Atende um pedido de troca de segmento: encerra o atual e abre o próximo.
+     */
+    private void rodar() throws IOException {
+        if (POLITICA_FSYNC != PoliticaFsync.NENHUMA) sincronizar();
+        abrirSegmento(TAMANHO_SEGMENTO);
+        CompletableFuture<Long> pedido = rotacoesPendentes.poll();
+        if (pedido != null) {
+            pedido.complete(numeroSegmentoAtual);
+        }
+    }
+
+    /**
+     * Copia um registro para o segmento atual, abrindo um novo segmento quando o atual não tem espaço.
+     */
+    private void gravar(byte[] registro) throws IOException {
+        int necessario = TAMANHO_CABECALHO + registro.length;
+        if (segmentoAtual.remaining() < necessario) {
+            // O segmento que se encerra é sincronizado por inteiro, exceto na política NENHUMA.
+            if (POLITICA_FSYNC != PoliticaFsync.NENHUMA) sincronizar();
+            abrirSegmento(Math.max(TAMANHO_SEGMENTO, necessario));
+        }
+        crc.reset();
+        crc.update(registro);
+        segmentoAtual.putInt(registro.length)
+                .putInt((int) crc.getValue())
+                .put(registro);
+    }
+
+    /**
+     * Sincroniza com o disco o trecho do segmento atual gravado desde a última sincronização.
+     */
+    private void sincronizar() {
+        int posicao = segmentoAtual.position();
+        if (posicao > posicaoDuravel) {
+            segmentoAtual.force(posicaoDuravel, posicao - posicaoDuravel);
+            posicaoDuravel = posicao;
+        }
+        ultimoFsync = System.currentTimeMillis();
+    }
+
+    /**
+     * Cria e mapeia o próximo segmento. O arquivo nasce com o tamanho final e preenchido com zeros.
+     */
+    private void abrirSegmento(int tamanho) throws IOException {
+        numeroSegmentoAtual++;
+        Path arquivo = diretorio.resolve(String.format("%s%020d%s", PREFIXO_SEGMENTO, numeroSegmentoAtual, EXTENSAO_SEGMENTO));
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // O mapeamento continua válido depois que o canal é fechado.
+            segmentoAtual = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+        }
+        posicaoDuravel = 0;
+    }
+
+    private long duraveisAtuais() {
+        synchronized (monitorDurabilidade) {
+            return duraveis;
+        }
+    }
+
+    private void publicarDuraveis(long total) {
+        synchronized (monitorDurabilidade) {
+            duraveis = total;
+            monitorDurabilidade.notifyAll();
+        }
+    }
+
+    /**
+     * Aplica um registro do journal ao estado.
+     * @return false se o registro se refere a uma tarefa desconhecida.
+     */
+    private static boolean aplicar(OperacaoReplicacao operacao, RepositorioTarefas bancoDeTarefas, Map<String, Long> workers, Map<String, String> sessoes) {
+        switch (operacao.getTipo()) {
+            case TAREFA_CRIADA:
+                bancoDeTarefas.adicionar(CodecReplicacao.deProto(operacao.getTarefa()));
+                return true;
+            case STATUS_ALTERADO:
+                Tarefa tarefa = bancoDeTarefas.obter(operacao.getTarefa().getId());
+                if (tarefa == null) return false;
+                bancoDeTarefas.transicionar(tarefa, CodecReplicacao.deProto(operacao.getTarefa().getStatus()),
+                        CodecReplicacao.vazioComoNulo(operacao.getTarefa().getWorkerId()));
+                return true;
+            case TAREFA_ARQUIVADA:
+                // A tarefa já está no histórico: gravado antes deste registro.
+                bancoDeTarefas.arquivar(operacao.getTarefa().getId());
+                return true;
+            case WORKER_ENTROU:
+                workers.put(operacao.getWorkerId(), operacao.getTimestamp());
+                return true;
+            case WORKER_SAIU:
+                workers.remove(operacao.getWorkerId());
+                return true;
+            case SESSAO_ADICIONADA:
+                sessoes.put(operacao.getTokenSessao(), operacao.getUsuarioId());
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Lista os segmentos do diretório em ordem de gravação.
+     */
+    private List<Path> listarSegmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                    .filter(arquivo -> {
+                        String nome = arquivo.getFileName().toString();
+                        return nome.startsWith(PREFIXO_SEGMENTO) && nome.endsWith(EXTENSAO_SEGMENTO);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long numeroDo(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO_SEGMENTO.length(), nome.length() - EXTENSAO_SEGMENTO.length()));
+    }
+}
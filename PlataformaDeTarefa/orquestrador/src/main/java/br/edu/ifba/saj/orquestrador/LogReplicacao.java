@@ -0,0 +1,116 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as mensagens de replicação geradas a partir do proto.
+import br.edu.ifba.saj.protocolo.OperacaoReplicacao;
+import br.edu.ifba.saj.protocolo.TipoOperacaoReplicacao;
+
+// Importa classes de coleções do Java.
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Log ordenado das alterações de estado do orquestrador primário, replicado para o backup.
+ * Cada operação (tarefa criada, status alterado ou arquivada, worker entrou ou saiu, sessão adicionada) recebe um número
+ * de sequência. O transmissor retira periodicamente as operações pendentes e as envia em ordem; um snapshot
+ * completo é enviado de tempos em tempos apenas como ponto de ressincronização.
+ * As operações carregam o estado resultante (e não a diferença), de modo que reaplicá-las é inofensivo.
+ * As operações já são guardadas como mensagens protobuf, prontas para a transmissão, com o usuário e o worker das
+ * tarefas na forma compacta (códigos do DicionarioIds); o transmissor acrescenta o texto dos códigos a cada mensagem.
+ */
+public class LogReplicacao implements RepositorioTarefas.Ouvinte {
+
+    // Identifica esta instância do log; um backup que vê outra época precisa de um novo snapshot.
+    private final long epoca = System.currentTimeMillis();
+    // Número de sequência da última operação registrada.
+    private long ultimaSequencia = 0;
+    // Operações registradas e ainda não transmitidas, em ordem de sequência.
+    private List<OperacaoReplicacao> pendentes = new ArrayList<>();
+    // Journal em disco que também recebe as operações de workers e sessões (as de tarefas chegam pelo repositório).
+    private volatile JournalTarefas journal;
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        registrar(CodecReplicacao.tarefaCriada(tarefa, true));
+    }
+
+    @Override
+    public void tarefaTransicionada(Tarefa tarefa) {
+        registrar(CodecReplicacao.statusAlterado(tarefa, true));
+    }
+
+    @Override
+    public void tarefaArquivada(Tarefa tarefa) {
+        registrar(CodecReplicacao.tarefaArquivada(tarefa));
+    }
+
+    /**
+     * Registra a entrada de um worker na lista de workers ativos.
+     */
+    public void workerEntrou(String workerId, long timestamp) {
+        gravarNoJournal(registrar(OperacaoReplicacao.newBuilder()
+                .setTipo(TipoOperacaoReplicacao.WORKER_ENTROU)
+                .setWorkerId(workerId)
+                .setTimestamp(timestamp)));
+    }
+
+    /**
+     * Registra a saída de um worker da lista de workers ativos.
+     */
+    public void workerSaiu(String workerId) {
+        gravarNoJournal(registrar(OperacaoReplicacao.newBuilder()
+                .setTipo(TipoOperacaoReplicacao.WORKER_SAIU)
+                .setWorkerId(workerId)));
+    }
+
+    /**
+     * Registra uma nova sessão de usuário.
+     */
+    public void sessaoAdicionada(String token, String usuarioId) {
+        gravarNoJournal(registrar(OperacaoReplicacao.newBuilder()
+                .setTipo(TipoOperacaoReplicacao.SESSAO_ADICIONADA)
+                .setTokenSessao(token)
+                .setUsuarioId(usuarioId)));
+    }
+
+    /**
+     * Define o journal em disco que também recebe as operações de workers e sessões (null para nenhum).
+     */
+    public void setJournal(JournalTarefas journal) {
+        this.journal = journal;
+    }
+
+    private synchronized OperacaoReplicacao registrar(OperacaoReplicacao.Builder operacao) {
+        OperacaoReplicacao registrada = operacao.setSequencia(++ultimaSequencia).build();
+        pendentes.add(registrada);
+        return registrada;
+    }
+
+    private void gravarNoJournal(OperacaoReplicacao operacao) {
+        JournalTarefas atual = journal;
+        if (atual != null) {
+            atual.registrarOperacao(operacao);
+        }
+    }
+
+    /**
+     * Retira as operações ainda não transmitidas, em ordem de sequência.
+     */
+    public synchronized List<OperacaoReplicacao> retirarPendentes() {
+        List<OperacaoReplicacao> retiradas = pendentes;
+        pendentes = new ArrayList<>();
+        return retiradas;
+    }
+
+    /**
+     * Retorna o número de sequência da última operação registrada.
+     * Um snapshot copiado depois desta leitura já contém todas as operações até esse número.
+     */
+    public synchronized long getUltimaSequencia() {
+        return ultimaSequencia;
+    }
+
+    public long getEpoca() {
+        return epoca;
+    }
+}
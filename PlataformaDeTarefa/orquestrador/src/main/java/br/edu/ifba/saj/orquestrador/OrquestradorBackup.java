@@ -15,7 +15,8 @@ import javafx.scene.Parent; // Nó raiz da cena.
 import javafx.scene.Scene; // Cena da aplicação.
 import javafx.stage.Stage; // Janela principal da aplicação.
 
-// Importa classes do Java para manipulação de coleções concorrentes e operações atômicas.
+// Importa classes do Java para caminhos de arquivo, coleções concorrentes e operações atômicas.
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -30,7 +31,7 @@ public class OrquestradorBackup extends Application {
 
     // Estruturas de dados estáticas e concorrentes para armazenar o estado do sistema, que é recebido do orquestrador primário.
     private static final Map<String, Long> estadoWorkers = new ConcurrentHashMap<>();
-    private static final Map<String, Tarefa> bancoDeTarefas = new ConcurrentHashMap<>();
+    private static final RepositorioTarefas bancoDeTarefas = RepositorioTarefas.criar();
     private static final Map<String, String> estadoSessoes = new ConcurrentHashMap<>();
     private static final AtomicLong lamportClock = new AtomicLong(0); // O relógio de Lamport também é sincronizado.
     // Constantes que definem a política de detecção de falhas.
@@ -82,6 +83,10 @@ public class OrquestradorBackup extends Application {
             sinc = new SincronizadorEstado(estadoWorkers, bancoDeTarefas, estadoSessoes);
             sinc.setLogCallback(this::log);
             sinc.setSyncCallback(this::dispararAnimacaoSyncNaUI); // Callback para animação (usado após failover).
+            // Um snapshot no diretório do journal do próprio backup (de uma promoção anterior, ou uma cópia do diretório do
+            // primário feita pelo operador) adianta o estado antes da primeira sincronização. O diretório do primário
+            // nunca é usado: ele continua sendo do primário, que pode não ter caído.
+            sinc.semearComSnapshotLocal(Paths.get(OrquestradorCore.DIRETORIO_JOURNAL_BACKUP));
             sinc.start();
 
             int contadorFalhas = 0;
@@ -123,13 +128,18 @@ public class OrquestradorBackup extends Application {
     private void executarFailover() {
         log("INICIANDO PROCESSO DE FAILOVER...");
         try {
-            // Inicia o núcleo do orquestrador (OrquestradorCore) com o último estado válido que foi sincronizado.
-            boolean sucesso = OrquestradorCore.tentarIniciarModoPrimario(estadoWorkers, bancoDeTarefas, estadoSessoes, lamportClock);
+            // Os sinais de vida dos workers não são replicados (apenas a entrada e a saída), então o prazo
+            // de cada worker herdado recomeça agora, dando-lhe tempo para se reconectar ao novo primário.
+            long agora = System.currentTimeMillis();
+            estadoWorkers.replaceAll((workerId, ultimoSinal) -> agora);
+            // Inicia o núcleo do orquestrador (OrquestradorCore) com o último estado válido que foi sincronizado, gravando
+            // o journal e o histórico nos diretórios do backup.
+            boolean sucesso = OrquestradorCore.tentarIniciarModoPrimario(estadoWorkers, bancoDeTarefas, estadoSessoes, lamportClock, true);
 
             if (sucesso) {
                 log("Servidor gRPC iniciado em modo primário.");
                 log("Workers sincronizados: " + estadoWorkers.size());
-                log("Tarefas sincronizadas: " + bancoDeTarefas.size());
+                log("Tarefas sincronizadas: " + bancoDeTarefas.tamanho());
                 log("Sessões sincronizadas: " + estadoSessoes.size());
                 // Após o núcleo estar ativo, agenda o lançamento da interface gráfica na thread do JavaFX.
                 Platform.runLater(this::launchFailoverUI);
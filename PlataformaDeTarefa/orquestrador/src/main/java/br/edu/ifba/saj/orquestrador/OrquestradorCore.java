@@ -4,9 +4,14 @@ package br.edu.ifba.saj.orquestrador;
 // Importa as classes do gRPC para a criação do servidor.
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+// Importa a tabela de carga e a SPI das políticas de seleção de worker.
+import br.edu.ifba.saj.orquestrador.balanceamento.PoliticaSelecaoWorker;
+import br.edu.ifba.saj.orquestrador.balanceamento.TabelaCargaWorkers;
 // Importa classes do Java para manipulação de I/O, coleções e concorrência.
 import java.io.IOException;
-import java.util.Comparator;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -24,6 +29,24 @@ public class OrquestradorCore {
     // Constantes estáticas que definem a porta do servidor gRPC e o timeout para considerar um worker inativo.
     private static final int GRPC_PORT = 50050;
     private static final long TIMEOUT_WORKER_MS = 15000; // 15 segundos.
+    // Nome da política de seleção de worker, configurável com -Dorquestrador.politica (padrão: menor-carga).
+    private static final String POLITICA_SELECAO = System.getProperty("orquestrador.politica", "menor-carga");
+    // Intervalo entre os snapshots completos enviados ao backup como ponto de ressincronização, configurável com -Dorquestrador.replicacao.snapshot.ms.
+    private static final long INTERVALO_SNAPSHOT_MS = Long.getLong("orquestrador.replicacao.snapshot.ms", 30000);
+    // Journal das tarefas em disco: ativo por padrão (-Dorquestrador.journal=false desativa), no diretório -Dorquestrador.journal.dir
+    // no primário e -Dorquestrador.backup.journal.dir no backup promovido, para que os dois nunca compactem o mesmo journal.
+    private static final boolean JOURNAL_ATIVO = Boolean.parseBoolean(System.getProperty("orquestrador.journal", "true"));
+    static final String DIRETORIO_JOURNAL = System.getProperty("orquestrador.journal.dir", "dados/journal");
+    static final String DIRETORIO_JOURNAL_BACKUP = System.getProperty("orquestrador.backup.journal.dir", "dados/backup/journal");
+    // Intervalo entre os snapshots do estado em disco, que compactam o journal, configurável com -Dorquestrador.journal.snapshot.ms.
+    private static final long INTERVALO_SNAPSHOT_JOURNAL_MS = Long.getLong("orquestrador.journal.snapshot.ms", 60000);
+    // Retenção das tarefas finalizadas: ativa por padrão (-Dorquestrador.retencao=false desativa), com o histórico no diretório
+    // -Dorquestrador.retencao.dir no primário e -Dorquestrador.backup.retencao.dir no backup promovido.
+    private static final boolean RETENCAO_ATIVA = Boolean.parseBoolean(System.getProperty("orquestrador.retencao", "true"));
+    private static final String DIRETORIO_HISTORICO = System.getProperty("orquestrador.retencao.dir", "dados/historico");
+    private static final String DIRETORIO_HISTORICO_BACKUP = System.getProperty("orquestrador.backup.retencao.dir", "dados/backup/historico");
+    // Intervalo entre as execuções da retenção, configurável com -Dorquestrador.retencao.intervalo.ms.
+    private static final long INTERVALO_RETENCAO_MS = Long.getLong("orquestrador.retencao.intervalo.ms", 10000);
     // Callbacks estáticos para permitir a comunicação do núcleo com a interface gráfica (UI).
     private static Runnable syncCallback = null; // Para animação de sincronização.
     private static Consumer<String> logCallback = null; // Para enviar logs para a UI.
@@ -35,6 +58,10 @@ public class OrquestradorCore {
     // São mantidas para permitir a reconexão dos callbacks da UI em um cenário de failover.
     private static OrquestradorServidor.GerenciadorTarefasImpl servicoTarefasGlobal;
     private static OrquestradorServidor.MonitoramentoImpl servicoMonitorGlobal;
+    // Log das alterações de estado replicadas para o backup.
+    private static LogReplicacao logReplicacaoGlobal;
+    // Journal das tarefas em disco (null se desativado).
+    private static JournalTarefas journalGlobal;
 
     /**
      * Define o callback que será chamado para registrar uma mensagem de log.
@@ -95,31 +122,70 @@ public class OrquestradorCore {
     /**
      * Inicia todos os serviços do orquestrador. Este é o ponto de entrada principal para a lógica do servidor.
      * @param workersAtivos O mapa de workers (pode estar vazio ou herdado).
-     * @param bancoDeTarefas O mapa de tarefas (pode estar vazio ou herdado).
+     * @param bancoDeTarefas O repositório de tarefas (pode estar vazio ou herdado).
      * @param sessoesAtivas O mapa de sessões de usuário (pode estar vazio ou herdado).
      * @param lamportClock O relógio de Lamport (pode ser novo ou herdado).
      * @return true se o servidor for iniciado com sucesso, false caso contrário.
      */
-    public static boolean tentarIniciarModoPrimario(Map<String, Long> workersAtivos, Map<String, Tarefa> bancoDeTarefas, Map<String, String> sessoesAtivas, AtomicLong lamportClock) {
+    public static boolean tentarIniciarModoPrimario(Map<String, Long> workersAtivos, RepositorioTarefas bancoDeTarefas, Map<String, String> sessoesAtivas, AtomicLong lamportClock) {
+        return tentarIniciarModoPrimario(workersAtivos, bancoDeTarefas, sessoesAtivas, lamportClock, false);
+    }
+
+    /**
+     * Inicia todos os serviços do orquestrador, gravando o journal e o histórico nos diretórios do papel informado.
+     * O backup promovido usa os seus próprios diretórios: o primário que caiu pode voltar (ou nem ter caído, se só a
+     * rede falhou) e continua dono dos dele; o lock do journal recusa, de qualquer modo, um segundo dono do diretório.
+     * @param backupPromovido true se quem inicia é o backup, no failover.
+     * @return true se o servidor for iniciado com sucesso, false caso contrário.
+     */
+    public static boolean tentarIniciarModoPrimario(Map<String, Long> workersAtivos, RepositorioTarefas bancoDeTarefas, Map<String, String> sessoesAtivas,
+                                                    AtomicLong lamportClock, boolean backupPromovido) {
         log("ATIVANDO MODO PRIMÁRIO...");
         try {
+            log("Motor do repositório de tarefas: " + bancoDeTarefas.getNome());
+            // Recupera o estado do disco (início a frio) e passa a gravar as alterações no journal.
+            journalGlobal = abrirJournal(Paths.get(backupPromovido ? DIRETORIO_JOURNAL_BACKUP : DIRETORIO_JOURNAL),
+                    workersAtivos, bancoDeTarefas, sessoesAtivas);
+
             // Carrega as sessões de usuário herdadas no serviço de autenticação.
             OrquestradorServidor.AutenticacaoImpl.carregarSessoes(sessoesAtivas);
 
+            // Cria o log de replicação, alimentado pelas alterações das tarefas, dos workers e das sessões.
+            logReplicacaoGlobal = new LogReplicacao();
+            logReplicacaoGlobal.setJournal(journalGlobal);
+            bancoDeTarefas.adicionarOuvinte(logReplicacaoGlobal);
+            OrquestradorServidor.AutenticacaoImpl.setLogReplicacao(logReplicacaoGlobal);
+
+            // Passa a mover as tarefas finalizadas antigas para o histórico em disco (depois do journal e do log de
+            // replicação, que precisam ver o arquivamento).
+            iniciarRetencao(Paths.get(backupPromovido ? DIRETORIO_HISTORICO_BACKUP : DIRETORIO_HISTORICO), bancoDeTarefas);
+
+            // Cria a tabela de carga e a política de seleção configurada. A tabela começa vazia: os workers herdados
+            // continuam ativos até o prazo de heartbeat, mas só voltam a receber tarefas ao reabrir a sessão.
+            TabelaCargaWorkers tabelaCarga = new TabelaCargaWorkers();
+            PoliticaSelecaoWorker politica = PoliticaSelecaoWorker.porNome(POLITICA_SELECAO);
+            log("Política de seleção de workers: " + politica.getNome());
+
             // Cria e armazena as instâncias dos serviços gRPC, passando o estado do sistema.
-            servicoTarefasGlobal = new OrquestradorServidor.GerenciadorTarefasImpl(workersAtivos, bancoDeTarefas, lamportClock);
+            servicoTarefasGlobal = new OrquestradorServidor.GerenciadorTarefasImpl(workersAtivos, bancoDeTarefas, lamportClock,
+                    tabelaCarga, politica);
             servicoMonitorGlobal = new OrquestradorServidor.MonitoramentoImpl(workersAtivos, bancoDeTarefas);
 
             // Garante que os serviços usem o método de log desta classe Core.
             servicoTarefasGlobal.setLogCallback(OrquestradorCore::log);
             servicoMonitorGlobal.setLogCallback(OrquestradorCore::log);
+            servicoTarefasGlobal.setLogReplicacao(logReplicacaoGlobal);
+            servicoTarefasGlobal.setJournal(journalGlobal);
 
             // Inicia o servidor gRPC e todas as tarefas agendadas em background.
             iniciarServidorGrpc(servicoTarefasGlobal, servicoMonitorGlobal);
-            iniciarVerificadorDeSaude(workersAtivos, bancoDeTarefas, lamportClock);
-            iniciarTransmissaoDeEstado(workersAtivos, bancoDeTarefas);
+            iniciarVerificadorDeSaude(workersAtivos, servicoTarefasGlobal);
+            iniciarTransmissaoDeEstado(workersAtivos, bancoDeTarefas, logReplicacaoGlobal);
+            if (journalGlobal != null) {
+                iniciarCompactacaoDoJournal(journalGlobal, workersAtivos, bancoDeTarefas);
+            }
             iniciarTransmissorDeMonitoramento(servicoMonitorGlobal);
-            iniciarReagendadorDeTarefas(bancoDeTarefas, servicoTarefasGlobal);
+            enfileirarTarefasPendentes(bancoDeTarefas, servicoTarefasGlobal);
 
             return true;
         } catch (IOException e) {
@@ -132,6 +198,10 @@ public class OrquestradorCore {
      * Para o servidor gRPC de forma limpa.
      */
     public static void pararServidorGrpc() {
+        // Interrompe o despacho de tarefas antes de desligar o servidor.
+        if (servicoTarefasGlobal != null) {
+            servicoTarefasGlobal.pararDespachante();
+        }
         if (grpcServer != null && !grpcServer.isShutdown()) {
             try {
                 log("Desligando o servidor gRPC...");
@@ -142,6 +212,130 @@ public class OrquestradorCore {
                 grpcServer.shutdownNow();
             }
         }
+        // Grava os registros pendentes do journal.
+        if (journalGlobal != null) {
+            journalGlobal.fechar();
+        }
+    }
+
+    /**
+     * Abre o journal das tarefas. Com o repositório vazio (início a frio), o estado é recuperado do disco: o snapshot
+     * mais recente e, em seguida, apenas os segmentos do journal gravados depois dele. Com um estado herdado do
+     * primário anterior (failover), que é mais recente que o que está em disco, esse estado vira o snapshot inicial.
+     * Em seguida o journal passa a receber as alterações do repositório.
+     * @param diretorio O diretório do journal e dos snapshots.
+     * @return O journal, ou null se estiver desativado ou não puder ser aberto (inclusive se outro processo o detém).
+     */
+    private static JournalTarefas abrirJournal(Path diretorio, Map<String, Long> workersAtivos, RepositorioTarefas bancoDeTarefas, Map<String, String> sessoesAtivas) {
+        if (!JOURNAL_ATIVO) return null;
+        JournalTarefas journal = null;
+        try {
+            journal = new JournalTarefas(diretorio);
+            journal.setLogCallback(OrquestradorCore::log);
+            boolean inicioAFrio = bancoDeTarefas.tamanho() == 0;
+            if (inicioAFrio) {
+                long inicio = System.currentTimeMillis();
+                SnapshotEstado.Carregado snapshot = SnapshotEstado.carregarUltimo(journal.getDiretorio());
+                long desdeSegmento = 0;
+                if (snapshot != null) {
+                    SincronizadorEstado.aplicarEstado(snapshot.pacote, workersAtivos, bancoDeTarefas, sessoesAtivas);
+                    desdeSegmento = snapshot.segmento;
+                }
+                int aplicados = journal.reproduzir(bancoDeTarefas, workersAtivos, sessoesAtivas, desdeSegmento);
+                // Os workers recuperados ganham um prazo novo para se reconectarem, como no failover.
+                long agora = System.currentTimeMillis();
+                workersAtivos.replaceAll((workerId, ultimoSinal) -> agora);
+                log("Estado recuperado do disco em " + (agora - inicio) + " ms: " + (snapshot != null ? "snapshot + " : "")
+                        + aplicados + " registros do journal, " + bancoDeTarefas.tamanho() + " tarefas.");
+            }
+            long segmento = journal.iniciar();
+            if (!inicioAFrio) {
+                gravarSnapshot(journal, segmento, workersAtivos, bancoDeTarefas, sessoesAtivas);
+                log("Journal reiniciado com o estado herdado (" + bancoDeTarefas.tamanho() + " tarefas).");
+            }
+            bancoDeTarefas.adicionarOuvinte(journal);
+            log("Journal de tarefas ativo em " + diretorio + " (fsync: " + journal.getPoliticaFsync() + ").");
+            return journal;
+        } catch (IOException e) {
+            log("⚠️ Journal de tarefas desativado: " + e.getMessage());
+            if (journal != null) {
+                journal.fechar(); // Libera o diretório.
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Inicia a tarefa agendada que grava um snapshot do estado a cada INTERVALO_SNAPSHOT_JOURNAL_MS e apaga os
+     * segmentos do journal cobertos por ele, mantendo o tempo de recuperação independente do tempo de execução.
+     */
+    private static void iniciarCompactacaoDoJournal(JournalTarefas journal, Map<String, Long> workersAtivos, RepositorioTarefas bancoDeTarefas) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        // Número de registros do journal no último snapshot; sem registros novos, não há o que compactar.
+        AtomicLong registradosNoSnapshot = new AtomicLong(journal.getRegistrados());
+        scheduler.scheduleWithFixedDelay(() -> {
+            long registrados = journal.getRegistrados();
+            if (registrados == registradosNoSnapshot.get()) return;
+            try {
+                long inicio = System.currentTimeMillis();
+                // O estado é copiado depois da troca de segmento: contém tudo o que foi gravado nos anteriores.
+                long segmento = journal.rodarSegmento().get(10, TimeUnit.SECONDS);
+                int apagados = gravarSnapshot(journal, segmento, workersAtivos, bancoDeTarefas, OrquestradorServidor.AutenticacaoImpl.sessoesAtivas);
+                registradosNoSnapshot.set(registrados);
+                log("Snapshot do estado gravado em " + (System.currentTimeMillis() - inicio) + " ms ("
+                        + bancoDeTarefas.tamanho() + " tarefas); " + apagados + " segmentos do journal compactados.");
+            } catch (Exception e) {
+                log("⚠️ Falha ao gravar o snapshot do estado: " + e.getMessage());
+            }
+        }, INTERVALO_SNAPSHOT_JOURNAL_MS, INTERVALO_SNAPSHOT_JOURNAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre o histórico em disco, liga-o às consultas do repositório e inicia a tarefa agendada que move para ele,
+     * a cada INTERVALO_RETENCAO_MS, as tarefas finalizadas que passaram do prazo de retenção.
+     * @param diretorio O diretório do histórico.
+     */
+    private static void iniciarRetencao(Path diretorio, RepositorioTarefas bancoDeTarefas) {
+        if (!RETENCAO_ATIVA) return;
+        HistoricoTarefas historico;
+        try {
+            historico = new HistoricoTarefas(diretorio, OrquestradorCore::log);
+        } catch (IOException e) {
+            log("⚠️ Retenção de tarefas desativada: " + e.getMessage());
+            return;
+        }
+        bancoDeTarefas.setHistorico(historico);
+        RetencaoTarefas retencao = new RetencaoTarefas(bancoDeTarefas, historico);
+        bancoDeTarefas.adicionarOuvinte(retencao);
+        retencao.registrarExistentes();
+        log("Retenção de tarefas ativa, com histórico em " + diretorio + ".");
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                long inicio = System.currentTimeMillis();
+                int arquivadas = retencao.arquivarVencidas();
+                if (arquivadas > 0) {
+                    log(arquivadas + " tarefas finalizadas movidas para o histórico em " + (System.currentTimeMillis() - inicio)
+                            + " ms (" + bancoDeTarefas.tamanho() + " tarefas em memória).");
+                }
+            } catch (Exception e) {
+                log("⚠️ Falha ao mover tarefas para o histórico: " + e.getMessage());
+            }
+        }, INTERVALO_RETENCAO_MS, INTERVALO_RETENCAO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Grava o snapshot do estado que antecede o segmento informado e apaga os segmentos e snapshots anteriores.
+     * @return O número de segmentos apagados.
+     */
+    private static int gravarSnapshot(JournalTarefas journal, long segmento, Map<String, Long> workersAtivos,
+                                      RepositorioTarefas bancoDeTarefas, Map<String, String> sessoesAtivas) throws IOException {
+        SnapshotEstado.gravar(journal.getDiretorio(), segmento,
+                CodecReplicacao.snapshot(workersAtivos, bancoDeTarefas.todas(), sessoesAtivas).build());
+        int apagados = journal.apagarSegmentosAnteriores(segmento);
+        SnapshotEstado.apagarAnteriores(journal.getDiretorio(), segmento);
+        return apagados;
     }
 
     /**
@@ -152,6 +346,12 @@ public class OrquestradorCore {
      */
     private static void iniciarServidorGrpc(OrquestradorServidor.GerenciadorTarefasImpl servicoTarefas, OrquestradorServidor.MonitoramentoImpl servicoMonitor) throws IOException {
         grpcServer = ServerBuilder.forPort(GRPC_PORT)
+                // Keepalive do HTTP/2: detecta em poucos segundos uma sessão de worker cuja conexão morreu sem aviso.
+                .keepAliveTime(10, TimeUnit.SECONDS)
+                .keepAliveTimeout(5, TimeUnit.SECONDS)
+                // Permite que os workers enviem os seus próprios pings de keepalive na sessão.
+                .permitKeepAliveTime(5, TimeUnit.SECONDS)
+                .permitKeepAliveWithoutCalls(true)
                 .addService(servicoTarefas)
                 .addService(new OrquestradorServidor.AutenticacaoImpl())
                 .addService(servicoMonitor)
@@ -180,9 +380,10 @@ public class OrquestradorCore {
 
     /**
      * Inicia a tarefa agendada de verificação de saúde (health check) dos workers.
-     * Esta tarefa é responsável por detectar workers inativos.
+     * Esta tarefa detecta os workers sem sessão cujo heartbeat expirou; workers com sessão são
+     * removidos pelo próprio serviço assim que o stream cai.
      */
-    private static void iniciarVerificadorDeSaude(Map<String, Long> workersAtivos, Map<String, Tarefa> bancoDeTarefas, AtomicLong lamportClock) {
+    private static void iniciarVerificadorDeSaude(Map<String, Long> workersAtivos, OrquestradorServidor.GerenciadorTarefasImpl servico) {
         ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
         // A cada 5 segundos, executa a verificação.
         scheduler.scheduleAtFixedRate(() -> {
@@ -191,37 +392,38 @@ public class OrquestradorCore {
                 healthCheckCallback.run();
             }
             long agora = System.currentTimeMillis();
-            // Remove do mapa de workers ativos qualquer worker cujo último heartbeat tenha excedido o timeout.
-            workersAtivos.entrySet().removeIf(entry -> {
-                boolean inativo = agora - entry.getValue() > TIMEOUT_WORKER_MS;
-                if (inativo) {
-                    String workerIdFalho = entry.getKey();
-                    log("Worker " + workerIdFalho + " considerado inativo. Removendo...");
-                    // Se um worker falhar, encontra todas as tarefas que estavam em execução nele...
-                    bancoDeTarefas.values().stream()
-                            .filter(t -> workerIdFalho.equals(t.getWorkerIdAtual()) && t.getStatus() == StatusTarefa.EXECUTANDO)
-                            // ...e as marca como "AGUARDANDO" para que possam ser reagendadas.
-                            .forEach(t -> {
-                                log("Reagendando tarefa " + t.getId() + " do worker falho.");
-                                t.setStatus(StatusTarefa.AGUARDANDO);
-                                t.setWorkerIdAtual(null);
-                            });
-                }
-                return inativo;
-            });
+            // Coleta os workers cujo último heartbeat tenha excedido o timeout (a vivacidade dos workers com sessão vem do stream).
+            List<String> inativos = workersAtivos.entrySet().stream()
+                    .filter(entry -> agora - entry.getValue() > TIMEOUT_WORKER_MS && !servico.possuiSessao(entry.getKey()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            // Remove cada worker inativo, devolvendo as suas tarefas em execução à fila de prontas.
+            inativos.forEach(workerIdFalho -> servico.removerWorker(workerIdFalho, "considerado inativo (heartbeat expirado)"));
         }, 5, 5, TimeUnit.SECONDS);
     }
 
     /**
-     * Inicia a tarefa agendada que transmite o estado atual do sistema (via UDP multicast) para o orquestrador de backup.
+     * Inicia a tarefa agendada que transmite as alterações de estado (via UDP multicast) para o orquestrador de backup.
+     * O primeiro envio é um snapshot completo; os seguintes levam apenas as operações do log, com um novo snapshot
+     * a cada INTERVALO_SNAPSHOT_MS.
      */
-    private static void iniciarTransmissaoDeEstado(Map<String, Long> workersAtivos, Map<String, Tarefa> bancoDeTarefas) {
+    private static void iniciarTransmissaoDeEstado(Map<String, Long> workersAtivos, RepositorioTarefas bancoDeTarefas, LogReplicacao logReplicacao) {
         // Cria uma instância do SincronizadorEstado para atuar como transmissor.
         SincronizadorEstado transmissor = new SincronizadorEstado(null, null, null);
+        transmissor.setLogCallback(OrquestradorCore::log);
+        transmissor.iniciarTransmissor();
         ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        // A cada 2 segundos, transmite o estado atual.
+        // Instante do próximo snapshot (0: imediatamente).
+        AtomicLong proximoSnapshot = new AtomicLong(0);
+        // A cada 2 segundos, transmite as alterações (ou o snapshot, quando for a hora).
         scheduler.scheduleAtFixedRate(() -> {
-            transmissor.transmitirEstado(workersAtivos, bancoDeTarefas, OrquestradorServidor.AutenticacaoImpl.sessoesAtivas);
+            long agora = System.currentTimeMillis();
+            if (agora >= proximoSnapshot.get()) {
+                transmissor.transmitirSnapshot(logReplicacao, workersAtivos, bancoDeTarefas.todas(), OrquestradorServidor.AutenticacaoImpl.sessoesAtivas);
+                proximoSnapshot.set(agora + INTERVALO_SNAPSHOT_MS);
+            } else {
+                transmissor.transmitirAlteracoes(logReplicacao);
+            }
             // Dispara o callback para a animação na UI, se estiver conectado.
             if (syncCallback != null) {
                 syncCallback.run();
@@ -230,16 +432,14 @@ public class OrquestradorCore {
     }
 
     /**
-     * Inicia uma tarefa agendada que periodicamente tenta distribuir tarefas que estão na fila (status AGUARDANDO).
+     * Coloca na fila de prontas as tarefas pendentes (status AGUARDANDO) já existentes no banco, como as herdadas num failover,
+     * e concede as tarefas herdadas em execução aos seus workers.
+     * Executado uma única vez na ativação; a partir daí as tarefas entram na fila por eventos.
      */
-    private static void iniciarReagendadorDeTarefas(Map<String, Tarefa> bancoDeTarefas, OrquestradorServidor.GerenciadorTarefasImpl servico) {
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-        // A cada 15 segundos, executa o reagendamento.
-        scheduler.scheduleAtFixedRate(() -> {
-            bancoDeTarefas.values().stream()
-                    .filter(tarefa -> tarefa.getStatus() == StatusTarefa.AGUARDANDO) // Filtra apenas as tarefas pendentes.
-                    .sorted(Comparator.comparing((Tarefa t) -> t.getPrioridade().getNivel()).reversed()) // Ordena por prioridade (maior primeiro).
-                    .forEach(tarefa -> servico.distribuirTarefa(tarefa, null)); // Tenta distribuir cada tarefa.
-        }, 15, 15, TimeUnit.SECONDS);
+    private static void enfileirarTarefasPendentes(RepositorioTarefas bancoDeTarefas, OrquestradorServidor.GerenciadorTarefasImpl servico) {
+        // O índice por status entrega as tarefas pendentes e em execução sem varrer o histórico de concluídas.
+        bancoDeTarefas.comStatus(StatusTarefa.AGUARDANDO).forEach(servico::enfileirar); // A fila se encarrega da ordenação por prioridade.
+        // Tarefas herdadas em execução recebem uma concessão: voltam para a fila se o worker não a renovar.
+        bancoDeTarefas.comStatus(StatusTarefa.EXECUTANDO).forEach(servico::concederConcessao);
     }
 }
\ No newline at end of file
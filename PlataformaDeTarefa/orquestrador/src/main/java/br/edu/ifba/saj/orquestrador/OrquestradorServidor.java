@@ -3,26 +3,27 @@ package br.edu.ifba.saj.orquestrador;
 
 // Importa as classes geradas pelo gRPC para comunicação (protocolo).
 import br.edu.ifba.saj.protocolo.*;
-// Importa a classe Empty do Protobuf, usada para requisições sem parâmetros.
-import com.google.protobuf.Empty;
-// Importa as classes do gRPC para gerenciamento de canais, status e tratamento de erros.
-import io.grpc.ManagedChannel;
-import io.grpc.ManagedChannelBuilder;
+// Importa as classes do gRPC para status e tratamento de erros.
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 // Importa as classes para o serviço de Health Check padrão do gRPC.
 import io.grpc.health.v1.HealthCheckResponse;
 import io.grpc.health.v1.HealthGrpc;
-// Importa a classe base para a implementação de callbacks assíncronos (streams).
+// Importa as classes para a implementação de callbacks assíncronos (streams) e o seu controle de fluxo.
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
-// Importa classes de coleções do Java, concorrência e utilitários.
+// Importa a tabela de carga e a SPI das políticas de seleção de worker.
+import br.edu.ifba.saj.orquestrador.balanceamento.PoliticaSelecaoWorker;
+import br.edu.ifba.saj.orquestrador.balanceamento.TabelaCargaWorkers;
+// Importa o controle de concessões (leases) das tarefas em execução.
+import br.edu.ifba.saj.orquestrador.concessao.GerenciadorConcessoes;
+// Importa classes de E/S, coleções do Java, concorrência e utilitários.
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Classe que contém as implementações dos serviços gRPC expostos pelo orquestrador.
@@ -32,7 +33,7 @@ public class OrquestradorServidor {
 
     // Declarações de estado globais que foram movidas para OrquestradorCore, mas podem ser resquícios em versões antigas.
     private static final Map<String, Long> workersAtivos = new ConcurrentHashMap<>();
-    private static final Map<String, Tarefa> bancoDeTarefas = new ConcurrentHashMap<>();
+    private static final RepositorioTarefas bancoDeTarefas = RepositorioTarefas.criar();
     private static final AtomicLong lamportClock = new AtomicLong(0);
 
     /**
@@ -60,7 +61,11 @@ public class OrquestradorServidor {
         // Callback para enviar logs para a interface gráfica.
         private static Consumer<String> logCallback = null;
 
+        // Log de replicação que recebe as novas sessões (definido no modo primário).
+        private static volatile LogReplicacao logReplicacao = null;
+
         public static void setLogCallback(Consumer<String> callback) { logCallback = callback; }
+        public static void setLogReplicacao(LogReplicacao log) { logReplicacao = log; }
         private static void log(String msg) { if (logCallback != null) logCallback.accept(msg); System.out.println(msg); }
 
         /**
@@ -69,8 +74,8 @@ public class OrquestradorServidor {
          */
         public static void carregarSessoes(Map<String, String> sessoesHerdadas) {
             if (sessoesHerdadas != null) {
-                sessoesAtivas.clear();
-                sessoesAtivas.putAll(sessoesHerdadas);
+                // Reconcilia no lugar: as sessões presentes nos dois mapas nunca deixam de ser válidas.
+                SincronizadorEstado.reconciliar(sessoesAtivas, sessoesHerdadas);
                 log("Sessões de utilizador restauradas após failover: " + sessoesAtivas.size());
             }
         }
@@ -108,6 +113,9 @@ public class OrquestradorServidor {
                 // Gera um token de sessão único.
                 String token = UUID.randomUUID().toString();
                 sessoesAtivas.put(token, usuario); // Associa o token ao usuário.
+                if (logReplicacao != null) {
+                    logReplicacao.sessaoAdicionada(token, usuario);
+                }
                 log("Login bem-sucedido - Usuário: " + usuario + " | Token: " + token.substring(0, 8) + "...");
                 LoginResponse response = LoginResponse.newBuilder().setTokenSessao(token).build();
                 responseObserver.onNext(response);
@@ -132,16 +140,21 @@ public class OrquestradorServidor {
     /**
      * Implementação do serviço de Monitoramento.
      * Permite que aplicações externas (como o MonitorApp) se inscrevam para receber o estado geral do sistema em tempo real.
+     * Cada monitor recebe um snapshot ao se inscrever e, a partir daí, apenas as alterações (deltas) do feed versionado.
      */
     public static class MonitoramentoImpl extends MonitoramentoGrpc.MonitoramentoImplBase {
-        // Lista sincronizada de observadores (monitores) conectados.
-        private final List<StreamObserver<EstadoGeral>> monitorObservers = Collections.synchronizedList(new ArrayList<>());
+        // Identificação do orquestrador enviada aos monitores.
+        private static final String ORQUESTRADOR_ATIVO_ID = "Principal (localhost:50050)";
+        // Monitores conectados e a última versão enviada a cada um.
+        private final Map<StreamObserver<EstadoGeral>, Long> monitores = new ConcurrentHashMap<>();
+        // Número de tarefas em execução em cada worker na última publicação, para detectar alterações nos workers.
+        private final Map<String, Integer> workersPublicados = new HashMap<>();
         // Referências para os mapas de estado do sistema.
         private final Map<String, Long> workersAtivos;
-        private final Map<String, Tarefa> bancoDeTarefas;
+        private final RepositorioTarefas bancoDeTarefas;
         private static Consumer<String> logCallback = null;
 
-        public MonitoramentoImpl(Map<String, Long> workersAtivos, Map<String, Tarefa> bancoDeTarefas) {
+        public MonitoramentoImpl(Map<String, Long> workersAtivos, RepositorioTarefas bancoDeTarefas) {
             this.workersAtivos = workersAtivos;
             this.bancoDeTarefas = bancoDeTarefas;
         }
@@ -150,79 +163,261 @@ public class OrquestradorServidor {
         private void log(String msg) { if (logCallback != null) logCallback.accept(msg); System.out.println(msg); }
 
         /**
-         * Chamado quando uma nova aplicação de monitoramento se conecta.
+         * Chamado quando uma aplicação de monitoramento se conecta. Se a versão informada puder ser retomada,
+         * o monitor recebe apenas o que mudou desde ela; caso contrário, recebe um snapshot completo.
          */
         @Override
-        public void inscreverParaEstadoGeral(Empty request, StreamObserver<EstadoGeral> responseObserver) {
-            log("Novo monitor conectado ao sistema");
-            monitorObservers.add(responseObserver);
+        public void inscreverParaEstadoGeral(InscricaoMonitorRequest request, StreamObserver<EstadoGeral> responseObserver) {
+            FeedAlteracoes feed = bancoDeTarefas.getAlteracoes();
+            long desde = request.getDesdeVersao();
+            try {
+                synchronized (this) {
+                    if (desde != 0 && feed.podeRetomar(desde)) {
+                        log("Monitor reconectado a partir da versão " + desde);
+                        monitores.put(responseObserver, enviarDelta(responseObserver, feed, desde));
+                    } else {
+                        log("Novo monitor conectado ao sistema");
+                        monitores.put(responseObserver, enviarSnapshot(responseObserver, feed));
+                    }
+                }
+            } catch (Exception e) {
+                log("Monitor desconectado: " + e.getMessage());
+            }
         }
 
         /**
-         * Constrói o estado geral do sistema e o envia para todos os monitores inscritos.
+         * Publica as alterações ocorridas desde a última atualização para cada monitor inscrito.
+         * Apenas os workers e tarefas alterados são enviados; se nada mudou, nenhum dado é enviado.
          */
-        public void enviarAtualizacaoGeral() {
-            if (monitorObservers.isEmpty()) return;
-
-            // Usa um Builder para construir o objeto de estado geral.
-            EstadoGeral.Builder estadoBuilder = EstadoGeral.newBuilder();
-            // Adiciona informações sobre cada worker ativo.
-            workersAtivos.forEach((id, timestamp) -> {
-                long tarefasNoWorker = bancoDeTarefas.values().stream()
-                        .filter(t -> id.equals(t.getWorkerIdAtual()) && t.getStatus() == StatusTarefa.EXECUTANDO)
-                        .count();
-                estadoBuilder.addWorkers(WorkerInfo.newBuilder()
-                        .setWorkerId(id).setStatus("ATIVO")
-                        .setTarefasExecutando((int) tarefasNoWorker).build());
-            });
+        public synchronized void enviarAtualizacaoGeral() {
+            FeedAlteracoes feed = bancoDeTarefas.getAlteracoes();
+            registrarAlteracoesWorkers(feed);
+            if (monitores.isEmpty()) return;
 
-            // Adiciona informações sobre cada tarefa no sistema.
-            bancoDeTarefas.values().forEach(tarefa -> {
-                estadoBuilder.addTarefas(TarefaInfo.newBuilder()
-                        .setId(tarefa.getId())
-                        .setDescricao(tarefa.getDados())
-                        .setStatus(tarefa.getStatus().toString())
-                        .setWorkerId(tarefa.getWorkerIdAtual() != null ? tarefa.getWorkerIdAtual() : "N/A")
-                        .build());
-            });
-
-            estadoBuilder.setOrquestradorAtivoId("Principal (localhost:50050)");
-
-            // Envia o estado construído para cada observador.
-            new ArrayList<>(monitorObservers).forEach(observer -> {
+            monitores.forEach((observer, ultimaVersao) -> {
                 try {
-                    observer.onNext(estadoBuilder.build());
+                    // Um feed que não permite retomar (ex: estado substituído) exige um novo snapshot.
+                    long versao = feed.podeRetomar(ultimaVersao)
+                            ? enviarDelta(observer, feed, ultimaVersao)
+                            : enviarSnapshot(observer, feed);
+                    monitores.put(observer, versao);
                 } catch (Exception e) {
                     // Remove observadores que não estão mais conectados.
-                    monitorObservers.remove(observer);
+                    monitores.remove(observer);
                     log("Monitor desconectado: " + e.getMessage());
                 }
             });
         }
+
+        /**
+         * Compara os workers ativos com os da última publicação e registra no feed os que entraram, saíram
+         * ou tiveram a contagem de tarefas em execução alterada.
+         */
+        private void registrarAlteracoesWorkers(FeedAlteracoes feed) {
+            Set<String> removidos = new HashSet<>(workersPublicados.keySet());
+            workersAtivos.keySet().forEach(id -> {
+                removidos.remove(id);
+                int tarefasNoWorker = bancoDeTarefas.contarEmExecucaoNoWorker(id);
+                Integer anterior = workersPublicados.put(id, tarefasNoWorker);
+                if (anterior == null || anterior != tarefasNoWorker) {
+                    feed.registrar(FeedAlteracoes.TipoItem.WORKER, id);
+                }
+            });
+            removidos.forEach(id -> {
+                workersPublicados.remove(id);
+                feed.registrar(FeedAlteracoes.TipoItem.WORKER, id);
+            });
+        }
+
+        /**
+         * Envia o estado completo ao monitor.
+         * @return A versão enviada.
+         */
+        private long enviarSnapshot(StreamObserver<EstadoGeral> observer, FeedAlteracoes feed) {
+            long versao = feed.getVersaoAtual();
+            EstadoGeral.Builder estadoBuilder = EstadoGeral.newBuilder()
+                    .setOrquestradorAtivoId(ORQUESTRADOR_ATIVO_ID)
+                    .setCompleto(true)
+                    .setVersao(versao);
+            workersAtivos.keySet().forEach(id -> estadoBuilder.addWorkers(criarWorkerInfo(id)));
+            bancoDeTarefas.todas().forEach(tarefa -> estadoBuilder.addTarefas(criarTarefaInfo(tarefa)));
+            observer.onNext(estadoBuilder.build());
+            return versao;
+        }
+
+        /**
+         * Envia ao monitor os itens alterados depois da versão informada, se houver algum.
+         * @return A versão até a qual o monitor está atualizado.
+         */
+        private long enviarDelta(StreamObserver<EstadoGeral> observer, FeedAlteracoes feed, long desde) {
+            // A versão é lida antes da consulta: alterações posteriores serão reenviadas no próximo ciclo, sem perda.
+            long versao = feed.getVersaoAtual();
+            if (versao == desde) return versao;
+
+            EstadoGeral.Builder estadoBuilder = EstadoGeral.newBuilder()
+                    .setOrquestradorAtivoId(ORQUESTRADOR_ATIVO_ID)
+                    .setVersao(versao);
+            for (FeedAlteracoes.Alteracao alteracao : feed.alteradosDesde(desde)) {
+                String id = alteracao.getId();
+                if (alteracao.getTipo() == FeedAlteracoes.TipoItem.WORKER) {
+                    if (workersAtivos.containsKey(id)) {
+                        estadoBuilder.addWorkers(criarWorkerInfo(id));
+                    } else {
+                        estadoBuilder.addWorkersRemovidos(id);
+                    }
+                } else {
+                    Tarefa tarefa = bancoDeTarefas.obter(id);
+                    if (tarefa != null) {
+                        estadoBuilder.addTarefas(criarTarefaInfo(tarefa));
+                    } else {
+                        estadoBuilder.addTarefasRemovidas(id);
+                    }
+                }
+            }
+            // Se o feed descartou alterações posteriores a "desde" durante a leitura, o delta pode estar incompleto.
+            if (!feed.podeRetomar(desde)) {
+                return enviarSnapshot(observer, feed);
+            }
+            observer.onNext(estadoBuilder.build());
+            return versao;
+        }
+
+        private WorkerInfo criarWorkerInfo(String workerId) {
+            // Consulta o contador de tarefas em execução por worker, sem varrer o banco.
+            return WorkerInfo.newBuilder()
+                    .setWorkerId(workerId).setStatus("ATIVO")
+                    .setTarefasExecutando(bancoDeTarefas.contarEmExecucaoNoWorker(workerId))
+                    .build();
+        }
+
+        private TarefaInfo criarTarefaInfo(Tarefa tarefa) {
+            return TarefaInfo.newBuilder()
+                    .setId(tarefa.getId())
+                    .setDescricao(tarefa.getDados())
+                    .setStatus(tarefa.getStatus().toString())
+                    .setWorkerId(tarefa.getWorkerIdAtual() != null ? tarefa.getWorkerIdAtual() : "N/A")
+                    .build();
+        }
     }
 
     /**
      * Implementação do serviço principal de Gerenciamento de Tarefas.
-     * Lida com a submissão, distribuição, finalização e consulta de tarefas, além dos heartbeats dos workers.
+     * Lida com a submissão, distribuição, finalização e consulta de tarefas, além das sessões e heartbeats dos workers.
      */
     public static class GerenciadorTarefasImpl extends GerenciadorTarefasGrpc.GerenciadorTarefasImplBase {
+        // Modo de submissão: por padrão a submissão é confirmada ao cliente assim que a tarefa é enfileirada.
+        // Com -Dorquestrador.submissao.sincrona=true, a resposta só é enviada após a entrega ao worker (comportamento antigo).
+        private static final boolean SUBMISSAO_SINCRONA = Boolean.getBoolean("orquestrador.submissao.sincrona");
+        // Número de tentativas de seleção quando a reserva de crédito perde a corrida para outro despacho.
+        private static final int MAX_TENTATIVAS_SELECAO = 3;
+        // Duração da concessão (lease) de cada tarefa em execução, renovada pelos heartbeats e pelo progresso do worker.
+        private static final long DURACAO_CONCESSAO_MS = Long.getLong("orquestrador.concessao.ms", 15000);
+        // Tamanho de página usado quando o cliente não informa um, e o máximo aceito (mantém as respostas bem abaixo do limite de mensagem do gRPC).
+        private static final int TAMANHO_PAGINA_PADRAO = 500;
+        private static final int TAMANHO_PAGINA_MAXIMO = 2000;
         // Referências para os mapas de estado do sistema.
         private final Map<String, Long> workersAtivos;
-        private final Map<String, Tarefa> bancoDeTarefas;
+        private final RepositorioTarefas bancoDeTarefas;
         private final AtomicLong lamportClock;
-        // Índice para a política de balanceamento de carga Round Robin.
-        private final AtomicInteger proximoWorkerIndex = new AtomicInteger(0);
+        // Sessões (streams bidirecionais) abertas pelos workers, indexadas pelo ID do worker.
+        private final Map<String, SessaoWorker> sessoesPorWorker = new ConcurrentHashMap<>();
+        // Estágio de despacho que drena a fila de prontas (por prioridade) e entrega as tarefas aos workers.
+        private final DespachanteTarefas despachante;
+        // Concessões das tarefas em execução; uma concessão expirada devolve a tarefa à fila de prontas.
+        private final GerenciadorConcessoes concessoes;
+        // Tabela viva de carga por worker e a política que a utiliza para escolher o destino de cada tarefa.
+        private final TabelaCargaWorkers tabelaCarga;
+        private final PoliticaSelecaoWorker politicaSelecao;
         // Mapa para armazenar os observadores de cada cliente, permitindo o envio de notificações em tempo real.
         private final Map<String, StreamObserver<TarefaInfo>> inscritosPorUsuario = new ConcurrentHashMap<>();
+        // Log de replicação que recebe a entrada e a saída dos workers (definido no modo primário).
+        private volatile LogReplicacao logReplicacao;
+        // Journal em disco das tarefas; a submissão só é confirmada depois que a tarefa está gravada (se a política exigir).
+        private volatile JournalTarefas journal;
         private static Consumer<String> logCallback = null;
 
-        public GerenciadorTarefasImpl(Map<String, Long> workersAtivos, Map<String, Tarefa> bancoDeTarefas, AtomicLong lamportClock) {
+        public GerenciadorTarefasImpl(Map<String, Long> workersAtivos, RepositorioTarefas bancoDeTarefas, AtomicLong lamportClock,
+                                      TabelaCargaWorkers tabelaCarga, PoliticaSelecaoWorker politicaSelecao) {
             this.workersAtivos = workersAtivos;
             this.bancoDeTarefas = bancoDeTarefas;
             this.lamportClock = lamportClock;
+            this.tabelaCarga = tabelaCarga;
+            this.politicaSelecao = politicaSelecao;
+            this.despachante = new DespachanteTarefas(tarefa -> distribuirTarefa(tarefa, null));
+            this.despachante.iniciar();
+            this.concessoes = new GerenciadorConcessoes(DURACAO_CONCESSAO_MS, this::expirarConcessao);
+            this.concessoes.iniciar();
+        }
+
+        public void setLogCallback(Consumer<String> callback) {
+            logCallback = callback;
+            despachante.setLogCallback(callback);
+        }
+
+        /**
+         * Define o log de replicação para o backup, que passa a receber a entrada e a saída dos workers.
+         */
+        public void setLogReplicacao(LogReplicacao logReplicacao) {
+            this.logReplicacao = logReplicacao;
+        }
+
+        /**
+         * Define o journal das tarefas, aguardado antes de confirmar cada submissão.
+         */
+        public void setJournal(JournalTarefas journal) {
+            this.journal = journal;
+        }
+
+        /**
+         * Interrompe o estágio de despacho e a expiração das concessões. Usado no encerramento do servidor.
+         */
+        public void pararDespachante() {
+            despachante.parar();
+            concessoes.parar();
+        }
+
+        /**
+         * Concede uma tarefa em execução ao seu worker. Usado para as tarefas herdadas após um failover,
+         * que voltam para a fila se o worker não renovar a concessão.
+         * @param tarefa A tarefa com status EXECUTANDO.
+         */
+        public void concederConcessao(Tarefa tarefa) {
+            if (tarefa.getStatus() == StatusTarefa.EXECUTANDO && tarefa.getWorkerIdAtual() != null) {
+                concessoes.conceder(tarefa.getId(), tarefa.getWorkerIdAtual());
+            }
+        }
+
+        /**
+         * Chamado quando a concessão de uma tarefa expira: o worker parou de renová-la, então a tarefa
+         * volta para a fila de prontas e o crédito reservado no worker é devolvido.
+         */
+        private void expirarConcessao(GerenciadorConcessoes.ConcessaoTarefa concessao) {
+            Tarefa tarefa = bancoDeTarefas.obter(concessao.getTarefaId());
+            if (tarefa == null || !bancoDeTarefas.transicionarSe(tarefa, StatusTarefa.EXECUTANDO, concessao.getWorkerId(), StatusTarefa.AGUARDANDO, null)) {
+                return;
+            }
+            log("Concessão da tarefa " + tarefa.getId() + " no worker " + concessao.getWorkerId() + " expirou. Reagendando...");
+            notificarCliente(tarefa);
+            tabelaCarga.registrarConclusao(concessao.getWorkerId());
+            despachante.enfileirar(tarefa);
+        }
+
+        /**
+         * Coloca uma tarefa com status AGUARDANDO na fila de prontas para ser distribuída assim que houver capacidade.
+         * @param tarefa A tarefa pendente (nova, herdada ou vinda de um worker removido).
+         */
+        public void enfileirar(Tarefa tarefa) {
+            despachante.enfileirar(tarefa);
+        }
+
+        /**
+         * Indica se o worker está conectado por uma sessão ativa. A vivacidade desses workers é dada pelo próprio stream.
+         */
+        public boolean possuiSessao(String workerId) {
+            SessaoWorker sessao = sessoesPorWorker.get(workerId);
+            return sessao != null && sessao.isAtiva();
         }
 
-        public void setLogCallback(Consumer<String> callback) { logCallback = callback; }
         private void log(String msg) { if (logCallback != null) logCallback.accept(msg); }
 
         /**
@@ -265,7 +460,9 @@ public class OrquestradorServidor {
         }
 
         /**
-         * Retorna a lista de todas as tarefas pertencentes a um usuário.
+         * Retorna uma página das tarefas pertencentes a um usuário, com filtros opcionais de status e prioridade.
+         * Com desde_versao, retorna apenas as tarefas alteradas depois daquela versão, lidas do feed de alterações
+         * (em ordem de alteração), e os IDs das que foram removidas ou deixaram de atender aos filtros.
          */
         @Override
         public void consultarStatusTarefas(ConsultarStatusRequest request, StreamObserver<ConsultarStatusResponse> responseObserver) {
@@ -275,27 +472,122 @@ public class OrquestradorServidor {
                 return;
             }
 
-            // Filtra o banco de tarefas para encontrar apenas as do usuário solicitante.
-            List<TarefaInfo> tarefasDoUsuario = bancoDeTarefas.values().stream()
-                    .filter(tarefa -> usuario.equals(tarefa.getUsuarioId()))
-                    .map(tarefa -> TarefaInfo.newBuilder()
-                            .setId(tarefa.getId())
-                            .setDescricao(tarefa.getDados())
-                            .setStatus(tarefa.getStatus().toString())
-                            .setWorkerId(tarefa.getWorkerIdAtual() != null ? tarefa.getWorkerIdAtual() : "N/A")
-                            .build())
-                    .collect(Collectors.toList());
+            // Interpreta o cursor e os filtros da consulta.
+            CursorConsulta cursor;
+            Set<StatusTarefa> filtroStatus;
+            Set<Prioridade> filtroPrioridades;
+            try {
+                cursor = CursorConsulta.decodificar(request.getCursor());
+                filtroStatus = converterFiltro(request.getStatusList(), StatusTarefa.class);
+                filtroPrioridades = converterFiltro(request.getPrioridadesList(), Prioridade.class);
+            } catch (IllegalArgumentException e) {
+                responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+                return;
+            }
+            int tamanhoPagina = request.getTamanhoPagina() > 0
+                    ? Math.min(request.getTamanhoPagina(), TAMANHO_PAGINA_MAXIMO)
+                    : TAMANHO_PAGINA_PADRAO;
 
-            ConsultarStatusResponse response = ConsultarStatusResponse.newBuilder()
-                    .addAllTarefas(tarefasDoUsuario)
-                    .build();
+            // A versão é fixada na primeira página e carregada pelo cursor, para que todas as páginas informem a mesma.
+            FeedAlteracoes feed = bancoDeTarefas.getAlteracoes();
+            long versao = cursor != null ? cursor.versao : feed.getVersaoAtual();
+            long desde = request.getDesdeVersao();
+            // Uma página seguinte da consulta incremental continua da última alteração entregue, e não de "desde".
+            boolean completo = cursor != null ? cursor.ultimaAlteracao == 0 : desde == 0 || !feed.podeRetomar(desde);
+            long inicio = cursor != null ? cursor.ultimaAlteracao : desde;
+            if (!completo && !feed.podeRetomar(inicio)) {
+                // O feed descartou alterações entre as páginas: o cliente deve recomeçar com uma consulta completa.
+                responseObserver.onError(Status.ABORTED.withDescription("Alterações descartadas durante a consulta; recomece.").asRuntimeException());
+                return;
+            }
+            Predicate<Tarefa> filtro = tarefa -> (filtroStatus.isEmpty() || filtroStatus.contains(tarefa.getStatus()))
+                    && (filtroPrioridades.isEmpty() || filtroPrioridades.contains(tarefa.getPrioridade()));
 
-            responseObserver.onNext(response);
+            ConsultarStatusResponse.Builder response = ConsultarStatusResponse.newBuilder()
+                    .setVersao(versao)
+                    .setCompleto(completo);
+            if (completo) {
+                // Percorre o índice por usuário a partir do cursor, aplicando os filtros.
+                // Uma tarefa a mais é buscada apenas para saber se existe uma próxima página.
+                List<Tarefa> pagina = bancoDeTarefas.paginaDoUsuario(usuario, cursor != null ? cursor.ultimoId : null, tamanhoPagina + 1, filtro);
+                boolean haProximaPagina = pagina.size() > tamanhoPagina;
+                if (haProximaPagina) {
+                    pagina = pagina.subList(0, tamanhoPagina);
+                }
+                for (Tarefa tarefa : pagina) {
+                    response.addTarefas(paraTarefaInfo(tarefa));
+                }
+                if (haProximaPagina) {
+                    response.setProximoCursor(new CursorConsulta(versao, pagina.get(pagina.size() - 1).getId()).codificar());
+                }
+            } else {
+                // Atualização incremental: percorre apenas as alterações do feed posteriores à versão vista (ou à última
+                // alteração entregue na página anterior), descartando pelo código do dono as tarefas de outros usuários.
+                int codigoUsuario = DicionarioIds.global().codigoExistente(usuario);
+                long ultimaAlteracao = inicio;
+                int entregues = 0;
+                boolean haProximaPagina = false;
+                for (FeedAlteracoes.Alteracao alteracao : feed.alteradosDesde(ultimaAlteracao)) {
+                    if (alteracao.getTipo() != FeedAlteracoes.TipoItem.TAREFA || codigoUsuario == DicionarioIds.NENHUM
+                            || alteracao.getCodigoUsuario() != codigoUsuario) {
+                        continue;
+                    }
+                    if (entregues == tamanhoPagina) {
+                        haProximaPagina = true;
+                        break;
+                    }
+                    // Uma tarefa arquivada continua visível pelo histórico; as removidas ou fora dos filtros saem da cópia do cliente.
+                    Tarefa tarefa = bancoDeTarefas.obterDoUsuario(usuario, alteracao.getId());
+                    if (tarefa != null && filtro.test(tarefa)) {
+                        response.addTarefas(paraTarefaInfo(tarefa));
+                    } else {
+                        response.addTarefasRemovidas(alteracao.getId());
+                    }
+                    entregues++;
+                    ultimaAlteracao = alteracao.getVersao();
+                }
+                if (!feed.podeRetomar(inicio)) {
+                    // Alterações descartadas durante a leitura podem ter ficado de fora desta página.
+                    responseObserver.onError(Status.ABORTED.withDescription("Alterações descartadas durante a consulta; recomece.").asRuntimeException());
+                    return;
+                }
+                if (haProximaPagina) {
+                    response.setProximoCursor(new CursorConsulta(versao, ultimaAlteracao, "").codificar());
+                }
+            }
+
+            responseObserver.onNext(response.build());
             responseObserver.onCompleted();
         }
 
+        private static TarefaInfo paraTarefaInfo(Tarefa tarefa) {
+            return TarefaInfo.newBuilder()
+                    .setId(tarefa.getId())
+                    .setDescricao(tarefa.getDados())
+                    .setStatus(tarefa.getStatus().toString())
+                    .setWorkerId(tarefa.getWorkerIdAtual() != null ? tarefa.getWorkerIdAtual() : "N/A")
+                    .build();
+        }
+
+        /**
+         * Converte os nomes recebidos em um filtro de valores do enum informado.
+         * @throws IllegalArgumentException Se algum nome não corresponder a um valor do enum.
+         */
+        private static <E extends Enum<E>> Set<E> converterFiltro(List<String> nomes, Class<E> tipo) {
+            Set<E> filtro = EnumSet.noneOf(tipo);
+            for (String nome : nomes) {
+                try {
+                    filtro.add(Enum.valueOf(tipo, nome.trim().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Valor de filtro inválido: " + nome);
+                }
+            }
+            return filtro;
+        }
+
         /**
-         * Processa um heartbeat recebido de um worker.
+         * Processa um heartbeat recebido de um worker que não usa sessão (chamada unária). O heartbeat mantém o worker
+         * ativo e aplica as conclusões informadas, mas o worker só volta a receber tarefas quando abrir uma sessão.
          */
         @Override
         public void enviarHeartbeat(HeartbeatRequest request, StreamObserver<HeartbeatResponse> responseObserver) {
@@ -303,16 +595,214 @@ public class OrquestradorServidor {
             lamportClock.updateAndGet(current -> Math.max(current, request.getLamportTimestamp()) + 1);
             String workerId = request.getWorkerId();
 
+            // Aplica primeiro as conclusões que vieram junto com o heartbeat, para que a carga informada já as considere.
+            if (request.getTarefasConcluidasCount() > 0) {
+                concluirTarefas(request.getTarefasConcluidasList(), workerId);
+            }
+            registrarAtividadeWorker(workerId, request.getTarefasEmExecucao(), request.getCapacidade());
+            renovarConcessoes(workerId, request);
+
+            responseObserver.onNext(HeartbeatResponse.newBuilder().setRecebido(true).build());
+            responseObserver.onCompleted();
+        }
+
+        /**
+         * Registra um sinal de vida do worker (heartbeat unário, registro ou heartbeat na sessão).
+         * Só os workers com sessão entram na tabela de carga: as atribuições seguem pelo stream da sessão, então um
+         * worker sem ela (recuperado do disco, herdado no failover ou que só envia heartbeats unários) não é escolhido.
+         */
+        private void registrarAtividadeWorker(String workerId, int tarefasEmExecucao, int capacidade) {
             // Adiciona ou atualiza o timestamp do worker no mapa de workers ativos.
-            boolean novoWorker = !workersAtivos.containsKey(workerId);
-            workersAtivos.put(workerId, System.currentTimeMillis());
+            long agora = System.currentTimeMillis();
+            boolean novoWorker = workersAtivos.put(workerId, agora) == null;
+            if (possuiSessao(workerId)) {
+                // Atualiza a tabela de carga com a capacidade anunciada, as tarefas em execução informadas pelo worker
+                // e as que o orquestrador atribuiu a ele (inclusive as ainda a caminho).
+                tabelaCarga.atualizarPorHeartbeat(workerId, tarefasEmExecucao, capacidade, bancoDeTarefas.contarEmExecucaoNoWorker(workerId));
+            }
 
             if (novoWorker) {
                 log("[Clock: " + lamportClock.get() + "] NOVO WORKER conectado: " + workerId);
+                // Apenas a entrada e a saída do worker são replicadas; os sinais de vida ficam locais.
+                if (logReplicacao != null) {
+                    logReplicacao.workerEntrou(workerId, agora);
+                }
             }
+            // Um novo worker ou uma capacidade anunciada maior podem liberar créditos para as tarefas em espera.
+            despachante.sinalizarCapacidade();
+        }
 
-            responseObserver.onNext(HeartbeatResponse.newBuilder().setRecebido(true).build());
-            responseObserver.onCompleted();
+        /**
+         * Renova as concessões das tarefas que o worker informou no heartbeat estarem em execução. As tarefas que ele
+         * deixou de informar (perdidas ou nunca recebidas) não são renovadas e voltam à fila quando a concessão expira.
+         * Um worker antigo, que informa apenas a contagem, renova todas as concessões que detém.
+         */
+        private void renovarConcessoes(String workerId, HeartbeatRequest heartbeat) {
+            if (heartbeat.getTarefasEmExecucaoIdsCount() > 0 || heartbeat.getTarefasEmExecucao() == 0) {
+                concessoes.renovar(workerId, heartbeat.getTarefasEmExecucaoIdsList());
+            } else {
+                concessoes.renovarDoWorker(workerId);
+            }
+        }
+
+        /**
+         * Abre a sessão bidirecional de um worker. A primeira mensagem deve ser o registro do worker;
+         * as seguintes trazem heartbeats, acks, progresso e conclusões. O encerramento ou a falha do stream
+         * remove o worker imediatamente e devolve as suas tarefas à fila de prontas.
+         */
+        @Override
+        public StreamObserver<MensagemWorker> sessaoWorker(StreamObserver<MensagemOrquestrador> responseObserver) {
+            // Sinalizado pelo gRPC quando o transporte volta a aceitar mensagens (controle de fluxo dos envios da sessão).
+            Object pronto = new Object();
+            if (responseObserver instanceof ServerCallStreamObserver) {
+                ((ServerCallStreamObserver<MensagemOrquestrador>) responseObserver).setOnReadyHandler(() -> {
+                    synchronized (pronto) {
+                        pronto.notifyAll();
+                    }
+                });
+            }
+            return new StreamObserver<>() {
+                // Sessão associada a este stream, criada ao receber a mensagem de registro.
+                private SessaoWorker sessao;
+                // Indica se o stream já foi encerrado antes do registro (mensagem fora de ordem ou fim do stream).
+                private boolean encerradoSemSessao;
+
+                @Override
+                public void onNext(MensagemWorker mensagem) {
+                    if (encerradoSemSessao) return;
+                    lamportClock.updateAndGet(current -> Math.max(current, mensagem.getLamportTimestamp()) + 1);
+                    if (mensagem.getConteudoCase() == MensagemWorker.ConteudoCase.REGISTRO) {
+                        // Um novo registro no mesmo stream é ignorado: a sessão já está aberta.
+                        if (sessao == null) {
+                            sessao = abrirSessao(mensagem.getRegistro(), responseObserver, pronto);
+                        }
+                        return;
+                    }
+                    if (sessao == null) {
+                        // Mensagens anteriores ao registro não podem ser associadas a nenhum worker.
+                        encerradoSemSessao = true;
+                        responseObserver.onError(Status.FAILED_PRECONDITION.withDescription("A sessão deve começar com o registro do worker.").asRuntimeException());
+                        return;
+                    }
+                    String workerId = sessao.getWorkerId();
+                    switch (mensagem.getConteudoCase()) {
+                        case HEARTBEAT:
+                            HeartbeatRequest heartbeat = mensagem.getHeartbeat();
+                            if (heartbeat.getTarefasConcluidasCount() > 0) {
+                                concluirTarefas(heartbeat.getTarefasConcluidasList(), workerId);
+                            }
+                            registrarAtividadeWorker(workerId, heartbeat.getTarefasEmExecucao(), heartbeat.getCapacidade());
+                            renovarConcessoes(workerId, heartbeat);
+                            break;
+                        case ACK:
+                            processarAck(workerId, mensagem.getAck());
+                            break;
+                        case PROGRESSO:
+                            // O progresso também conta como sinal de vida do worker e renova a concessão da tarefa.
+                            // Só atualiza um worker ainda ativo: um worker já removido volta pelo registro ou heartbeat.
+                            workersAtivos.computeIfPresent(workerId, (id, ultimo) -> System.currentTimeMillis());
+                            concessoes.renovar(workerId, Collections.singletonList(mensagem.getProgresso().getTarefaId()));
+                            break;
+                        case CONCLUSAO:
+                            concluirTarefa(mensagem.getConclusao().getTarefaId(), workerId);
+                            break;
+                        case CONCLUSOES:
+                            concluirTarefas(mensagem.getConclusoes().getTarefaIdsList(), workerId);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    encerrarSessao(sessao, "stream interrompido (" + Status.fromThrowable(t).getCode() + ")");
+                }
+
+                @Override
+                public void onCompleted() {
+                    if (sessao != null) {
+                        // Fecha o lado do orquestrador pela sessão, serializado com os envios em andamento.
+                        sessao.encerrar();
+                        encerrarSessao(sessao, "sessão encerrada pelo worker");
+                    } else if (!encerradoSemSessao) {
+                        encerradoSemSessao = true;
+                        responseObserver.onCompleted();
+                    }
+                }
+            };
+        }
+
+        /**
+         * Registra a sessão de um worker, substituindo uma sessão anterior do mesmo worker (ex: reconexão).
+         */
+        private SessaoWorker abrirSessao(RegistroWorker registro, StreamObserver<MensagemOrquestrador> saida, Object pronto) {
+            String workerId = registro.getWorkerId();
+            SessaoWorker sessao = new SessaoWorker(workerId, saida, pronto);
+            SessaoWorker anterior = sessoesPorWorker.put(workerId, sessao);
+            if (anterior != null) {
+                anterior.encerrar();
+            }
+            log("Sessão aberta pelo worker " + workerId + " (capacidade: " + registro.getCapacidade() + ")");
+            registrarAtividadeWorker(workerId, 0, registro.getCapacidade());
+            return sessao;
+        }
+
+        /**
+         * Encerra a sessão de um worker e o remove, desde que ela ainda seja a sessão corrente do worker.
+         */
+        private void encerrarSessao(SessaoWorker sessao, String motivo) {
+            if (sessao == null) return;
+            sessao.marcarEncerrada();
+            if (sessoesPorWorker.remove(sessao.getWorkerId(), sessao)) {
+                removerWorker(sessao.getWorkerId(), motivo);
+            }
+        }
+
+        /**
+         * Trata a confirmação de uma atribuição. Se o worker recusou a tarefa, ela volta para a fila de prontas.
+         */
+        private void processarAck(String workerId, AckTarefa ack) {
+            if (ack.getAceita()) return;
+            Tarefa tarefa = bancoDeTarefas.obter(ack.getTarefaId());
+            if (tarefa == null || !bancoDeTarefas.transicionarSe(tarefa, StatusTarefa.EXECUTANDO, workerId, StatusTarefa.AGUARDANDO, null)) {
+                return;
+            }
+            log("Worker " + workerId + " recusou a tarefa " + tarefa.getId() + " (" + ack.getMotivo() + ") - ficará em espera");
+            concessoes.liberar(tarefa.getId());
+            notificarCliente(tarefa);
+            // Devolve o crédito reservado e alinha a contagem do worker, que está sem slots livres.
+            tabelaCarga.registrarConclusao(workerId);
+            tabelaCarga.esgotarCreditos(workerId);
+            despachante.enfileirar(tarefa);
+        }
+
+        /**
+         * Remove um worker do sistema e devolve à fila de prontas as tarefas que estavam em execução nele.
+         * Chamado quando a sessão do worker cai ou quando o seu heartbeat expira.
+         * @param workerId O ID do worker.
+         * @param motivo A causa da remoção, para o log.
+         */
+        public void removerWorker(String workerId, String motivo) {
+            if (workersAtivos.remove(workerId) == null) return;
+            log("Worker " + workerId + " removido: " + motivo);
+            if (logReplicacao != null) {
+                logReplicacao.workerSaiu(workerId);
+            }
+            tabelaCarga.remover(workerId);
+            SessaoWorker sessao = sessoesPorWorker.remove(workerId);
+            if (sessao != null) {
+                sessao.encerrar();
+            }
+            concessoes.revogarDoWorker(workerId);
+            // O índice de tarefas em execução por worker indica diretamente as tarefas a devolver à fila de prontas,
+            // sem varrer o banco de tarefas.
+            for (Tarefa t : bancoDeTarefas.emExecucaoNoWorker(workerId)) {
+                if (!bancoDeTarefas.transicionarSe(t, StatusTarefa.EXECUTANDO, workerId, StatusTarefa.AGUARDANDO, null)) continue;
+                log("Reagendando tarefa " + t.getId() + " do worker " + workerId + ".");
+                notificarCliente(t);
+                despachante.enfileirar(t);
+            }
         }
 
         /**
@@ -329,117 +819,355 @@ public class OrquestradorServidor {
             lamportClock.updateAndGet(current -> Math.max(current, request.getLamportTimestamp()) + 1);
 
             // Cria uma nova tarefa com um ID único.
-            String tarefaId = UUID.randomUUID().toString();
-            Tarefa novaTarefa = new Tarefa(tarefaId, request.getDadosTarefa(), usuario);
-            bancoDeTarefas.put(tarefaId, novaTarefa);
+            Tarefa novaTarefa = registrarNovaTarefa(request.getDadosTarefa(), usuario);
+            String tarefaId = novaTarefa.getId();
+            if (!aguardarJournal(responseObserver)) {
+                // A tarefa já está no repositório: segue para a fila, ainda que sem a garantia de durabilidade.
+                despachante.enfileirar(novaTarefa);
+                return;
+            }
 
             log("[Clock: " + lamportClock.get() + "] NOVA TAREFA recebida de " + usuario);
             log("  ↳ ID: " + tarefaId);
             log("  ↳ Descrição: " + request.getDadosTarefa());
             log("  ↳ Status: AGUARDANDO");
 
+            if (SUBMISSAO_SINCRONA) {
+                // Modo síncrono: tenta distribuir a tarefa imediatamente, respondendo somente após o worker aceitá-la.
+                // Se a distribuição falhar, a tarefa segue para a fila de prontas.
+                if (!distribuirTarefa(novaTarefa, responseObserver)) {
+                    despachante.enfileirar(novaTarefa);
+                }
+                return;
+            }
+
+            // Modo rápido: a tarefa já está registrada no banco (e será replicada), então a submissão é confirmada agora.
+            responseObserver.onNext(SubmeterTarefaResponse.newBuilder()
+                    .setTarefaId(tarefaId)
+                    .setMensagemStatus("Tarefa recebida e enfileirada para distribuição")
+                    .build());
+            responseObserver.onCompleted();
+            // A entrega ao worker ocorre no despachante; o progresso chega ao cliente via InscreverParaAtualizacoes.
+            despachante.enfileirar(novaTarefa);
+        }
+
+        /**
+         * Recebe um lote de tarefas em uma única chamada: uma validação de token e uma atualização
+         * do relógio de Lamport para o lote inteiro, com um resultado por item.
+         */
+        @Override
+        public void submeterTarefasEmLote(SubmeterTarefasEmLoteRequest request, StreamObserver<SubmeterTarefasEmLoteResponse> responseObserver) {
+            String usuario = AutenticacaoImpl.validarToken(request.getTokenSessao());
+            if (usuario == null) {
+                responseObserver.onError(Status.UNAUTHENTICATED.withDescription("Token de sessão inválido.").asRuntimeException());
+                return;
+            }
+            lamportClock.updateAndGet(current -> Math.max(current, request.getLamportTimestamp()) + 1);
+
+            SubmeterTarefasEmLoteResponse.Builder resposta = SubmeterTarefasEmLoteResponse.newBuilder();
+            registrarLote(request.getDadosTarefasList(), 0, usuario, resposta, true);
+            // Uma única espera confirma o lote inteiro.
+            if (!aguardarJournal(responseObserver)) return;
+            log("[Clock: " + lamportClock.get() + "] LOTE de " + request.getDadosTarefasCount() + " tarefas recebido de " + usuario
+                    + " (" + resposta.getTotalAceitas() + " aceitas, " + resposta.getTotalRecusadas() + " recusadas)");
+
+            responseObserver.onNext(resposta.build());
+            responseObserver.onCompleted();
+        }
+
+        /**
+         * Recebe um lote de tamanho indefinido como um stream de blocos. O token é validado no primeiro bloco;
+         * ao fim do stream o cliente recebe os totais e os itens recusados.
+         */
+        @Override
+        public StreamObserver<SubmeterTarefasEmLoteRequest> submeterTarefasEmStream(StreamObserver<SubmeterTarefasEmLoteResponse> responseObserver) {
+            return new StreamObserver<>() {
+                // Usuário autenticado no primeiro bloco do stream.
+                private String usuario;
+                // Posição global do próximo item, para que os índices dos resultados sejam relativos ao stream inteiro.
+                private int proximoIndice = 0;
+                // Resultado acumulado (apenas os itens recusados são listados).
+                private final SubmeterTarefasEmLoteResponse.Builder resposta = SubmeterTarefasEmLoteResponse.newBuilder();
+                // Indica que o stream já foi encerrado com erro.
+                private boolean falhou = false;
+
+                @Override
+                public void onNext(SubmeterTarefasEmLoteRequest bloco) {
+                    if (falhou) return;
+                    if (usuario == null) {
+                        usuario = AutenticacaoImpl.validarToken(bloco.getTokenSessao());
+                        if (usuario == null) {
+                            falhou = true;
+                            responseObserver.onError(Status.UNAUTHENTICATED.withDescription("Token de sessão inválido.").asRuntimeException());
+                            return;
+                        }
+                    }
+                    lamportClock.updateAndGet(current -> Math.max(current, bloco.getLamportTimestamp()) + 1);
+                    registrarLote(bloco.getDadosTarefasList(), proximoIndice, usuario, resposta, false);
+                    proximoIndice += bloco.getDadosTarefasCount();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    // O cliente cancelou o envio; as tarefas dos blocos já recebidos permanecem registradas.
+                    if (usuario != null) {
+                        log("Stream de submissão de " + usuario + " interrompido após " + proximoIndice + " tarefas.");
+                    }
+                }
+
+                @Override
+                public void onCompleted() {
+                    if (falhou || !aguardarJournal(responseObserver)) return;
+                    log("[Clock: " + lamportClock.get() + "] STREAM de " + proximoIndice + " tarefas recebido de " + usuario
+                            + " (" + resposta.getTotalAceitas() + " aceitas, " + resposta.getTotalRecusadas() + " recusadas)");
+                    responseObserver.onNext(resposta.build());
+                    responseObserver.onCompleted();
+                }
+            };
+        }
+
+        /**
+         * Registra e enfileira os itens de um lote, acumulando os resultados na resposta.
+         * @param dadosTarefas Os dados de cada tarefa do lote.
+         * @param indiceInicial A posição do primeiro item (usada nos resultados).
+         * @param usuario O usuário dono das tarefas.
+         * @param resposta O builder onde os totais e os resultados são acumulados.
+         * @param listarAceitas Se true, inclui também os itens aceitos na lista de resultados.
+         */
+        private void registrarLote(List<String> dadosTarefas, int indiceInicial, String usuario,
+                                   SubmeterTarefasEmLoteResponse.Builder resposta, boolean listarAceitas) {
+            for (int i = 0; i < dadosTarefas.size(); i++) {
+                String dados = dadosTarefas.get(i);
+                int indice = indiceInicial + i;
+                if (dados == null || dados.trim().isEmpty()) {
+                    resposta.setTotalRecusadas(resposta.getTotalRecusadas() + 1);
+                    resposta.addResultados(ResultadoItemLote.newBuilder()
+                            .setIndice(indice)
+                            .setAceita(false)
+                            .setMensagem("A descrição da tarefa não pode estar vazia."));
+                    continue;
+                }
+                Tarefa novaTarefa = registrarNovaTarefa(dados, usuario);
+                despachante.enfileirar(novaTarefa);
+                resposta.setTotalAceitas(resposta.getTotalAceitas() + 1);
+                if (listarAceitas) {
+                    resposta.addResultados(ResultadoItemLote.newBuilder()
+                            .setIndice(indice)
+                            .setTarefaId(novaTarefa.getId())
+                            .setAceita(true)
+                            .setMensagem("Tarefa recebida e enfileirada para distribuição"));
+                }
+            }
+        }
+
+        /**
+         * Aguarda até que as tarefas registradas estejam gravadas no journal (conforme a sua política de fsync).
+         * Submissões concorrentes são confirmadas pela mesma gravação (group commit).
+         * Se o journal foi desativado por um erro de gravação, encerra a chamada com UNAVAILABLE: as tarefas seguem
+         * registradas em memória (e no backup), mas a submissão não pode ser confirmada como durável.
+         * @return true se as tarefas estão gravadas, false se a chamada já foi encerrada com erro.
+         */
+        private boolean aguardarJournal(StreamObserver<?> responseObserver) {
+            JournalTarefas atual = journal;
+            if (atual == null) return true;
+            try {
+                atual.aguardarDurabilidade();
+                return true;
+            } catch (IOException e) {
+                responseObserver.onError(Status.UNAVAILABLE
+                        .withDescription("O journal em disco está indisponível; a submissão não foi confirmada como durável.")
+                        .withCause(e)
+                        .asRuntimeException());
+                return false;
+            }
+        }
+
+        /**
+         * Cria uma tarefa com um ID único e ordenado pelo tempo (GeradorIds), registra-a no banco e notifica o
+         * cliente que ela está aguardando.
+         */
+        private Tarefa registrarNovaTarefa(String dadosTarefa, String usuario) {
+            Tarefa novaTarefa = new Tarefa(GeradorIds.global().proximo(), dadosTarefa, usuario);
+            bancoDeTarefas.adicionar(novaTarefa);
             // Notifica o cliente que a tarefa foi recebida e está aguardando.
             notificarCliente(novaTarefa);
-            // Tenta distribuir a tarefa imediatamente.
-            distribuirTarefa(novaTarefa, responseObserver);
+            return novaTarefa;
         }
 
         /**
-         * Processa a notificação de que um worker finalizou uma tarefa.
+         * Processa a notificação (unária) de que um worker finalizou uma tarefa.
          */
         @Override
         public void finalizarTarefa(FinalizarTarefaRequest request, StreamObserver<FinalizarTarefaResponse> responseObserver) {
             lamportClock.updateAndGet(current -> Math.max(current, request.getLamportTimestamp()) + 1);
-            Tarefa tarefa = bancoDeTarefas.get(request.getTarefaId());
-
-            // Atualiza o status da tarefa para CONCLUIDA.
-            if (tarefa != null && tarefa.getStatus() != StatusTarefa.CONCLUIDA) {
-                tarefa.setWorkerIdAtual(request.getWorkerId());
-                tarefa.setStatus(StatusTarefa.CONCLUIDA);
-                log("[Clock: " + lamportClock.get() + "] TAREFA CONCLUÍDA: " + tarefa.getId() + " pelo worker " + request.getWorkerId());
-                log("  ↳ Descrição: " + tarefa.getDados());
-                log("  ↳ Usuário: " + tarefa.getUsuarioId());
-                // Notifica o cliente sobre a conclusão.
-                notificarCliente(tarefa);
-            }
+            concluirTarefa(request.getTarefaId(), request.getWorkerId());
 
             responseObserver.onNext(FinalizarTarefaResponse.newBuilder().setSucesso(true).build());
             responseObserver.onCompleted();
         }
 
+        /**
+         * Processa um lote de conclusões enviado por um worker em uma única chamada.
+         */
+        @Override
+        public void finalizarTarefas(FinalizarTarefasRequest request, StreamObserver<FinalizarTarefaResponse> responseObserver) {
+            lamportClock.updateAndGet(current -> Math.max(current, request.getLamportTimestamp()) + 1);
+            concluirTarefas(request.getTarefaIdsList(), request.getWorkerId());
+
+            responseObserver.onNext(FinalizarTarefaResponse.newBuilder().setSucesso(true).build());
+            responseObserver.onCompleted();
+        }
+
+        /**
+         * Marca uma tarefa como CONCLUIDA e libera o crédito do worker. Usado pela chamada unária e pela sessão.
+         */
+        private void concluirTarefa(String tarefaId, String workerId) {
+            concluirTarefas(Collections.singletonList(tarefaId), workerId);
+        }
+
+        /**
+         * Aplica um lote de conclusões de um worker em uma única passada, despertando o despachante uma só vez.
+         */
+        private void concluirTarefas(List<String> tarefaIds, String workerId) {
+            int concluidas = 0;
+            for (String tarefaId : tarefaIds) {
+                if (aplicarConclusao(tarefaId, workerId)) {
+                    concluidas++;
+                }
+            }
+            if (concluidas > 0) {
+                if (tarefaIds.size() > 1) {
+                    log("  ↳ Lote de " + concluidas + " conclusões do worker " + workerId);
+                }
+                // As conclusões liberam capacidade no worker para as tarefas em espera.
+                despachante.sinalizarCapacidade();
+            }
+        }
+
+        /**
+         * Atualiza o status da tarefa para CONCLUIDA, devolve o crédito do worker e notifica o cliente.
+         * Só o worker que detém a tarefa pode concluí-la: uma conclusão repetida, ou de um worker que perdeu a tarefa
+         * (concessão expirada, recusa ou remoção), é ignorada, pois o crédito correspondente já foi devolvido.
+         * @return true se a tarefa foi concluída agora, false se não existe ou não estava em execução no worker.
+         */
+        private boolean aplicarConclusao(String tarefaId, String workerId) {
+            Tarefa tarefa = bancoDeTarefas.obter(tarefaId);
+            if (tarefa == null || !bancoDeTarefas.transicionarSe(tarefa, StatusTarefa.EXECUTANDO, workerId, StatusTarefa.CONCLUIDA, workerId)) {
+                return false;
+            }
+            concessoes.liberar(tarefaId);
+            tabelaCarga.registrarConclusao(workerId);
+            log("[Clock: " + lamportClock.get() + "] TAREFA CONCLUÍDA: " + tarefa.getId() + " pelo worker " + workerId);
+            log("  ↳ Descrição: " + tarefa.getDados());
+            log("  ↳ Usuário: " + tarefa.getUsuarioId());
+            // Notifica o cliente sobre a conclusão.
+            notificarCliente(tarefa);
+            return true;
+        }
+
         /**
          * Lógica para distribuir ou redistribuir uma tarefa para um worker disponível.
+         * A tarefa só é atribuída se ainda estiver AGUARDANDO; se outro caminho já a distribuiu ou finalizou,
+         * o crédito reservado é devolvido e ela não volta para a fila. A atribuição segue pela sessão do worker.
+         * @return true se a tarefa foi enviada a um worker (ou já não estava aguardando), false se continua com status AGUARDANDO.
          */
-        public void distribuirTarefa(Tarefa tarefa, StreamObserver<SubmeterTarefaResponse> responseObserver) {
-            // Seleciona o próximo worker a receber uma tarefa.
+        public boolean distribuirTarefa(Tarefa tarefa, StreamObserver<SubmeterTarefaResponse> responseObserver) {
+            // Seleciona o próximo worker a receber uma tarefa, já reservando um crédito nele.
             String workerSelecionado = selecionarProximoWorker();
             if (workerSelecionado == null) {
-                log("NENHUM WORKER DISPONÍVEL para a tarefa " + tarefa.getId() + " - ficará em espera");
+                log("NENHUM WORKER COM CAPACIDADE LIVRE para a tarefa " + tarefa.getId() + " - ficará em espera");
                 if (responseObserver != null) {
                     responseObserver.onError(new StatusRuntimeException(Status.UNAVAILABLE.withDescription("Nenhum worker disponível. A tarefa foi enfileirada.")));
                 }
-                return;
+                return false;
+            }
+
+            SessaoWorker sessao = sessoesPorWorker.get(workerSelecionado);
+            if (sessao == null) {
+                // A sessão caiu entre a seleção e o envio: o worker sai da tabela e a tarefa continua aguardando.
+                tabelaCarga.remover(workerSelecionado);
+                if (responseObserver != null) {
+                    responseObserver.onError(Status.UNAVAILABLE.withDescription("Worker indisponível. A tarefa foi enfileirada.").asRuntimeException());
+                }
+                return false;
+            }
+
+            // Atualiza o estado da tarefa somente se ela ainda estiver aguardando (ex: não foi despachada por outro caminho).
+            if (!bancoDeTarefas.transicionarSe(tarefa, StatusTarefa.AGUARDANDO, null, StatusTarefa.EXECUTANDO, workerSelecionado)) {
+                tabelaCarga.registrarConclusao(workerSelecionado);
+                if (responseObserver != null) {
+                    responseObserver.onNext(SubmeterTarefaResponse.newBuilder()
+                            .setTarefaId(tarefa.getId())
+                            .setMensagemStatus("Tarefa recebida e já distribuída")
+                            .build());
+                    responseObserver.onCompleted();
+                }
+                return true;
             }
 
             long timestamp = lamportClock.incrementAndGet();
             log("[Clock: " + timestamp + "] DISTRIBUINDO tarefa " + tarefa.getId() + " para worker: " + workerSelecionado);
 
-            // Atualiza o estado da tarefa e notifica o cliente.
-            tarefa.setStatus(StatusTarefa.EXECUTANDO);
-            tarefa.setWorkerIdAtual(workerSelecionado);
+            // Concede a tarefa ao worker e notifica o cliente.
+            concessoes.conceder(tarefa.getId(), workerSelecionado);
             notificarCliente(tarefa);
+            return atribuirPorSessao(tarefa, sessao, timestamp, responseObserver);
+        }
 
-            // Cria um canal de comunicação temporário para enviar a tarefa ao worker selecionado.
-            ManagedChannel channel = ManagedChannelBuilder.forTarget(workerSelecionado).usePlaintext().build();
-            try {
-                GerenciadorTarefasGrpc.GerenciadorTarefasBlockingStub workerStub = GerenciadorTarefasGrpc.newBlockingStub(channel)
-                        .withDeadlineAfter(30, TimeUnit.SECONDS);
-
-                SubmeterTarefaRequest requestParaWorker = SubmeterTarefaRequest.newBuilder()
-                        .setDadosTarefa(tarefa.getDados())
-                        .setTarefaId(tarefa.getId())
-                        .setLamportTimestamp(timestamp)
-                        .build();
-
-                // Envia a tarefa para o worker.
-                workerStub.submeterTarefa(requestParaWorker);
-                log("Tarefa " + tarefa.getId() + " ENVIADA com sucesso para " + workerSelecionado);
+        /**
+         * Envia a atribuição de uma tarefa pela sessão do worker. O envio não bloqueia: a recusa, se houver,
+         * chega depois como um AckTarefa e devolve a tarefa à fila.
+         * @return true se a atribuição foi colocada no stream, false se a sessão já estava encerrada.
+         */
+        private boolean atribuirPorSessao(Tarefa tarefa, SessaoWorker sessao, long timestamp, StreamObserver<SubmeterTarefaResponse> responseObserver) {
+            MensagemOrquestrador atribuicao = MensagemOrquestrador.newBuilder()
+                    .setLamportTimestamp(timestamp)
+                    .setAtribuicao(AtribuicaoTarefa.newBuilder()
+                            .setTarefaId(tarefa.getId())
+                            .setDadosTarefa(tarefa.getDados()))
+                    .build();
 
-                // Se houver um observador de resposta (no caso de uma submissão inicial), envia a resposta de sucesso.
+            if (sessao.enviar(atribuicao)) {
+                log("Tarefa " + tarefa.getId() + " ENVIADA com sucesso para " + sessao.getWorkerId());
                 if (responseObserver != null) {
-                    SubmeterTarefaResponse response = SubmeterTarefaResponse.newBuilder()
+                    responseObserver.onNext(SubmeterTarefaResponse.newBuilder()
                             .setTarefaId(tarefa.getId())
-                            .setMensagemStatus("Tarefa enviada com sucesso para o worker " + workerSelecionado)
-                            .build();
-                    responseObserver.onNext(response);
+                            .setMensagemStatus("Tarefa enviada com sucesso para o worker " + sessao.getWorkerId())
+                            .build());
                     responseObserver.onCompleted();
                 }
-            } catch (Exception e) {
-                // Em caso de falha ao contatar o worker, reverte o estado da tarefa e remove o worker da lista de ativos.
-                log("ERRO ao enviar tarefa " + tarefa.getId() + " para " + workerSelecionado + " - " + e.getMessage());
-                tarefa.setStatus(StatusTarefa.AGUARDANDO);
-                tarefa.setWorkerIdAtual(null);
-                notificarCliente(tarefa);
-                workersAtivos.remove(workerSelecionado);
+                return true;
+            }
 
-                if (responseObserver != null) {
-                    responseObserver.onError(e);
-                }
-            } finally {
-                // Garante que o canal temporário para o worker seja sempre fechado.
-                channel.shutdown();
+            // O stream caiu entre a seleção e o envio: reverte a tarefa e remove o worker.
+            log("ERRO ao enviar tarefa " + tarefa.getId() + " para " + sessao.getWorkerId() + " - sessão encerrada");
+            concessoes.liberar(tarefa.getId());
+            if (bancoDeTarefas.transicionarSe(tarefa, StatusTarefa.EXECUTANDO, sessao.getWorkerId(), StatusTarefa.AGUARDANDO, null)) {
+                notificarCliente(tarefa);
             }
+            encerrarSessao(sessao, "falha ao enviar atribuição");
+            if (responseObserver != null) {
+                responseObserver.onError(Status.UNAVAILABLE.withDescription("Worker indisponível. A tarefa foi enfileirada.").asRuntimeException());
+            }
+            return false;
         }
 
         /**
-         * Implementa a política de balanceamento de carga Round Robin.
-         * @return O ID do próximo worker a receber uma tarefa.
+         * Delega a escolha do worker à política de seleção configurada e reserva um crédito no worker escolhido.
+         * Se outro despacho consumir o último crédito entre a escolha e a reserva, a seleção é repetida.
+         * @return O ID do worker com o crédito reservado, ou null se nenhum worker tiver capacidade livre.
          */
         private String selecionarProximoWorker() {
-            List<String> workerIds = new ArrayList<>(workersAtivos.keySet());
-            if (workerIds.isEmpty()) return null;
-            // Usa um contador atômico para selecionar o próximo worker da lista de forma circular e thread-safe.
-            return workerIds.get(proximoWorkerIndex.getAndIncrement() % workerIds.size());
+            for (int tentativa = 0; tentativa < MAX_TENTATIVAS_SELECAO; tentativa++) {
+                String workerId = politicaSelecao.selecionar(tabelaCarga);
+                if (workerId == null) {
+                    return null;
+                }
+                if (tabelaCarga.reservarCredito(workerId)) {
+                    return workerId;
+                }
+            }
+            return null;
         }
     }
 }
\ No newline at end of file
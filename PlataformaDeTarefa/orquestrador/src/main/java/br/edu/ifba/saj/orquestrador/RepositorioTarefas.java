@@ -0,0 +1,192 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções e utilitários do Java.
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Repositório (banco) de tarefas do orquestrador.
+ * É o único dono do estado das tarefas: toda inclusão, mudança de status ou de worker e remoção passa por ele,
+ * que mantém junto os índices secundários (por worker, usuário e status), os contadores do dashboard
+ * (ContadoresTarefas), o feed de alterações do monitoramento e os ouvintes (replicação, journal e retenção).
+ * As tarefas finalizadas antigas podem sair da memória para um histórico em disco (HistoricoTarefas), que as
+ * listagens por usuário continuam lendo.
+ * Os serviços gRPC, o núcleo e a sincronização com o backup só enxergam esta interface, de modo que o motor de
+ * armazenamento pode ser trocado sem alterá-los. O motor é escolhido na inicialização com
+ * -Dorquestrador.repositorio=memoria|arquivo|compacto (padrão: memoria).
+ */
+public interface RepositorioTarefas {
+
+    /**
+     * Adiciona uma tarefa ao repositório, indexando-a.
+     * @param tarefa A tarefa a ser adicionada.
+     */
+    void adicionar(Tarefa tarefa);
+
+    /**
+     * Retorna a tarefa com o ID informado, ou null se não existir.
+     */
+    Tarefa obter(String tarefaId);
+
+    /**
+     * Retorna a tarefa de um usuário com o ID informado, procurando também no histórico em disco.
+     * @return A tarefa, ou null se ela não existir ou pertencer a outro usuário.
+     */
+    Tarefa obterDoUsuario(String usuarioId, String tarefaId);
+
+    /**
+     * Altera o status e o worker de uma tarefa, atualizando os índices na mesma operação.
+     * @param tarefa A tarefa.
+     * @param novoStatus O novo status.
+     * @param novoWorkerId O worker associado à tarefa após a transição (null para nenhum).
+     * @return O status anterior da tarefa.
+     */
+    StatusTarefa transicionar(Tarefa tarefa, StatusTarefa novoStatus, String novoWorkerId);
+
+    /**
+     * Altera o status e o worker de uma tarefa somente se ela estiver no status e no worker esperados.
+     * A verificação e a alteração são feitas de forma atômica.
+     * @return true se a transição foi feita, false se a tarefa estava em outro estado.
+     */
+    boolean transicionarSe(Tarefa tarefa, StatusTarefa statusEsperado, String workerEsperado, StatusTarefa novoStatus, String novoWorkerId);
+
+    /**
+     * Adiciona um ouvinte das alterações do repositório.
+     */
+    void adicionarOuvinte(Ouvinte ouvinte);
+
+    /**
+     * Remove uma tarefa do repositório e dos índices. Os ouvintes não são notificados: a remoção só ocorre na
+     * reconciliação com o estado recebido de outro orquestrador.
+     * @return A tarefa removida, ou null se não existir.
+     */
+    Tarefa remover(String tarefaId);
+
+    /**
+     * Retira da memória uma tarefa que já foi gravada no histórico em disco (retenção). Diferente de remover(),
+     * os ouvintes são notificados, para que o backup e o journal também a retirem.
+     * @return A tarefa retirada, ou null se não existir.
+     */
+    Tarefa arquivar(String tarefaId);
+
+    /**
+     * Arquiva a tarefa somente se ela atender à condição, verificada com a tarefa bloqueada. Usado pela retenção para
+     * confirmar, depois de gravar a tarefa no histórico, que ela continua finalizada.
+     * @return A tarefa retirada, ou null se não existir ou não atender à condição.
+     */
+    Tarefa arquivarSe(String tarefaId, Predicate<Tarefa> condicao);
+
+    /**
+     * Define o histórico em disco lido junto com a memória nas listagens por usuário (null para nenhum).
+     */
+    void setHistorico(HistoricoTarefas historico);
+
+    /**
+     * Torna o conteúdo do repositório igual ao recebido (ex: snapshot do orquestrador primário), aplicando no lugar
+     * apenas as diferenças: tarefas novas são adicionadas, as que mudaram de status ou de worker são transicionadas
+     * e as ausentes são removidas.
+     * @param recebidas As tarefas recebidas, indexadas pelo ID.
+     * @return O número de tarefas adicionadas, alteradas ou removidas.
+     */
+    int reconciliar(Map<String, Tarefa> recebidas);
+
+    // --- CONSULTAS ---
+
+    /**
+     * Retorna todas as tarefas (somente leitura), usada na replicação e nos snapshots do estado.
+     */
+    Collection<Tarefa> todas();
+
+    int tamanho();
+
+    /**
+     * Retorna o feed versionado de alterações das tarefas.
+     */
+    FeedAlteracoes getAlteracoes();
+
+    /**
+     * Retorna os contadores incrementais das tarefas (leitura em O(1), para o dashboard). Os contadores comuns cobrem
+     * as tarefas em memória; as leituras "ComHistorico" somam também as tarefas arquivadas.
+     */
+    ContadoresTarefas getContadores();
+
+    /**
+     * Retorna uma página das tarefas de um usuário, em ordem de ID, incluindo as do histórico em disco.
+     * @param usuarioId O usuário.
+     * @param aposId O ID da última tarefa da página anterior (null para começar do início).
+     * @param limite O número máximo de tarefas retornadas.
+     * @param filtro A condição que as tarefas devem atender.
+     */
+    List<Tarefa> paginaDoUsuario(String usuarioId, String aposId, int limite, Predicate<Tarefa> filtro);
+
+    /**
+     * Retorna as tarefas com status EXECUTANDO em um worker.
+     */
+    List<Tarefa> emExecucaoNoWorker(String workerId);
+
+    /**
+     * Retorna as tarefas com o status informado.
+     */
+    List<Tarefa> comStatus(StatusTarefa status);
+
+    /**
+     * Retorna o número de tarefas (em execução ou já concluídas) atribuídas a um worker.
+     */
+    int contarDoWorker(String workerId);
+
+    /**
+     * Retorna o número de tarefas com status EXECUTANDO em um worker.
+     */
+    int contarEmExecucaoNoWorker(String workerId);
+
+    /**
+     * Retorna o número de tarefas submetidas por um usuário.
+     */
+    int contarDoUsuario(String usuarioId);
+
+    /**
+     * Retorna o número de tarefas com o status informado.
+     */
+    int contarComStatus(StatusTarefa status);
+
+    /**
+     * Retorna o nome do motor de armazenamento, usado na configuração e nos logs.
+     */
+    String getNome();
+
+    /**
+     * Recebe as alterações feitas no repositório.
+     * Os métodos são chamados com a tarefa bloqueada, logo na mesma ordem em que as alterações de cada tarefa ocorrem.
+     */
+    interface Ouvinte {
+        void tarefaAdicionada(Tarefa tarefa);
+        void tarefaTransicionada(Tarefa tarefa);
+        void tarefaArquivada(Tarefa tarefa);
+    }
+
+    /**
+     * Cria o repositório com o motor configurado em -Dorquestrador.repositorio.
+     */
+    static RepositorioTarefas criar() {
+        return porNome(System.getProperty("orquestrador.repositorio"));
+    }
+
+    /**
+     * Cria o repositório correspondente ao nome do motor informado.
+     * @param nome O nome do motor (ex: "arquivo"). Nomes desconhecidos ou nulos resultam no motor em memória.
+     * @return A instância do repositório.
+     */
+    static RepositorioTarefas porNome(String nome) {
+        String motor = nome != null ? nome.trim().toLowerCase() : "";
+        if (RepositorioTarefasArquivo.NOME.equals(motor)) {
+            return new RepositorioTarefasArquivo();
+        }
+        if (RepositorioTarefasCompacto.NOME.equals(motor)) {
+            return new RepositorioTarefasCompacto();
+        }
+        return new RepositorioTarefasMemoria();
+    }
+}
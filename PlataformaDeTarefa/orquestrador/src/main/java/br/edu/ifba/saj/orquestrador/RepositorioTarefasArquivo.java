@@ -0,0 +1,168 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa a mensagem de replicação, reaproveitada como registro do armazenamento.
+import br.edu.ifba.saj.protocolo.TarefaReplicada;
+
+// Importa classes do Java para manipulação de arquivos.
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+// Importa classes de coleções e concorrência do Java.
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Motor do repositório de tarefas em arquivo: cada tarefa é gravada (como TarefaReplicada compacta, com os códigos
+ * do DicionarioIds, que valem enquanto o processo e o arquivo existirem) em um ArmazemLog,
+ * estruturado em log, e o heap guarda apenas os IDs nos índices e as tarefas em uso.
+ * As tarefas AGUARDANDO e EXECUTANDO ficam presas em memória; as finalizadas ficam apenas no CacheInstancias,
+ * de modo que o coletor de lixo as libera quando ninguém mais as usa e a próxima leitura as relê do arquivo.
+ * O arquivo de cada processo é criado vazio em -Dorquestrador.repositorio.dir (padrão: dados/repositorio) e
+ * apagado ao sair; o estado sobrevive às quedas pelo journal e pelos snapshots, como no motor em memória.
+ */
+class RepositorioTarefasArquivo extends RepositorioTarefasIndexado {
+
+    public static final String NOME = "arquivo";
+
+    // Diretório dos arquivos do motor, configurável com -Dorquestrador.repositorio.dir.
+    private static final String DIRETORIO = System.getProperty("orquestrador.repositorio.dir", "dados/repositorio");
+    // Lixo mínimo para compactar o arquivo, configurável com -Dorquestrador.repositorio.compactacao.mb.
+    private static final long LIMIAR_COMPACTACAO = Long.getLong("orquestrador.repositorio.compactacao.mb", 64) * 1024 * 1024;
+    // Nome dos arquivos: tarefas-<pid>-<instância>.log, para que processos e repositórios diferentes não colidam.
+    private static final String PREFIXO_ARQUIVO = "tarefas-";
+    private static final String EXTENSAO_ARQUIVO = ".log";
+    // Número de repositórios em arquivo criados neste processo.
+    private static final AtomicInteger instancias = new AtomicInteger();
+
+    // Armazenamento das tarefas (ID -> TarefaReplicada).
+    private final ArmazemLog armazem;
+    // Tarefas já carregadas: presas se estiverem em andamento, fracas se estiverem finalizadas.
+    private final CacheInstancias carregadas = new CacheInstancias();
+
+    RepositorioTarefasArquivo() {
+        this(Paths.get(DIRETORIO));
+    }
+
+    RepositorioTarefasArquivo(Path diretorio) {
+        try {
+            Files.createDirectories(diretorio);
+            apagarArquivosOrfaos(diretorio);
+            long pid = ProcessHandle.current().pid();
+            Path arquivo = diretorio.resolve(PREFIXO_ARQUIVO + pid + "-" + instancias.incrementAndGet() + EXTENSAO_ARQUIVO);
+            this.armazem = new ArmazemLog(arquivo, LIMIAR_COMPACTACAO);
+            arquivo.toFile().deleteOnExit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar o armazenamento de tarefas em " + diretorio, e);
+        }
+    }
+
+    @Override
+    protected Tarefa armazenar(Tarefa tarefa) {
+        Tarefa anterior = buscar(tarefa.getId());
+        gravar(tarefa);
+        carregadas.guardar(tarefa, emAndamento(tarefa));
+        return anterior;
+    }
+
+    @Override
+    protected Tarefa buscar(String tarefaId) {
+        Tarefa tarefa = carregadas.obter(tarefaId);
+        if (tarefa != null) return tarefa;
+        TarefaReplicada registro = ler(tarefaId);
+        return registro != null ? carregadas.publicar(CodecReplicacao.deProtoCompacto(registro)) : null;
+    }
+
+    @Override
+    protected boolean excluir(String tarefaId, Tarefa tarefa) {
+        if (!carregadas.retirar(tarefaId, tarefa)) return false;
+        try {
+            armazem.apagar(tarefaId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao apagar a tarefa " + tarefaId + " do armazenamento", e);
+        }
+        return true;
+    }
+
+    @Override
+    protected void estadoAlterado(Tarefa tarefa) {
+        gravar(tarefa);
+        // Prende ou solta a tarefa conforme ela entra ou sai de andamento.
+        carregadas.guardar(tarefa, emAndamento(tarefa));
+    }
+
+    @Override
+    protected Set<String> ids() {
+        return armazem.chaves();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Neste motor as tarefas finalizadas que não estão em memória são relidas do arquivo.
+     */
+    @Override
+    public Collection<Tarefa> todas() {
+        Set<String> ids = armazem.chaves();
+        List<Tarefa> tarefas = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Tarefa tarefa = buscar(id);
+            if (tarefa != null) {
+                tarefas.add(tarefa);
+            }
+        }
+        return Collections.unmodifiableList(tarefas);
+    }
+
+    @Override
+    public String getNome() {
+        return NOME;
+    }
+
+    private void gravar(Tarefa tarefa) {
+        try {
+            armazem.gravar(tarefa.getId(), CodecReplicacao.paraProtoCompacto(tarefa).toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar a tarefa " + tarefa.getId() + " no armazenamento", e);
+        }
+    }
+
+    private TarefaReplicada ler(String tarefaId) {
+        try {
+            byte[] registro = armazem.ler(tarefaId);
+            return registro != null ? TarefaReplicada.parseFrom(registro) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao ler a tarefa " + tarefaId + " do armazenamento", e);
+        }
+    }
+
+    private static boolean emAndamento(Tarefa tarefa) {
+        return tarefa.getStatus() == StatusTarefa.AGUARDANDO || tarefa.getStatus() == StatusTarefa.EXECUTANDO;
+    }
+
+    /**
+     * Apaga os arquivos deixados por processos que terminaram sem apagá-los (ex: encerrados à força).
+     */
+    private static void apagarArquivosOrfaos(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos::iterator) {
+                String nome = arquivo.getFileName().toString();
+                if (!nome.startsWith(PREFIXO_ARQUIVO) || !nome.contains(EXTENSAO_ARQUIVO)) continue;
+                String[] partes = nome.substring(PREFIXO_ARQUIVO.length()).split("-", 2);
+                try {
+                    long pid = Long.parseLong(partes[0]);
+                    if (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) continue;
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                Files.deleteIfExists(arquivo);
+            }
+        }
+    }
+}
@@ -0,0 +1,609 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes do Java para manipulação de buffers e texto.
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+// Importa classes de coleções, concorrência e utilitários do Java.
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Motor compacto do repositório de tarefas, para milhões de tarefas: cada tarefa ocupa um registro de tamanho fixo
+ * (64 bytes) fora do heap, e os dados (de tamanho variável) ficam separados em um DepositoConteudos, também fora
+ * do heap. O heap guarda apenas as tarefas em uso (CacheInstancias), as em andamento (presas, como no motor em
+ * arquivo) e o índice das tarefas em execução em cada worker, limitado pelo número de tarefas em execução.
+ *
+ * Registro (posição: conteúdo):
+ *  0: tipo (livre, ID gerado, ID no formato UUID ou ID em texto)   1: status   2: prioridade
+ *  4: código do usuário   8: código do worker (-1 para nenhum)   12/16: registro anterior/próximo do mesmo usuário
+ *  20: tamanho do conteúdo   24/32: ID (128 bits)   40: criada em   48: alterada em   56: posição do conteúdo
+ *
+ * Os IDs do GeradorIds (o formato atual) e os no formato UUID são guardados pelos seus bits e reconstruídos deles;
+ * os demais, por um hash de 128 bits, com o texto no início do conteúdo (comparado na busca). Uma tabela hash fora do heap (endereçamento aberto) leva do ID ao
+ * registro; os usuários e workers são guardados como códigos do DicionarioIds global; as tarefas de cada usuário formam
+ * uma lista ligada pelos próprios registros.
+ * Escolhido com -Dorquestrador.repositorio=compacto. A memória direta usada é limitada por -XX:MaxDirectMemorySize.
+ */
+class RepositorioTarefasCompacto extends RepositorioTarefasIndexado {
+
+    public static final String NOME = "compacto";
+
+    // Tamanho dos blocos de conteúdo, configurável com -Dorquestrador.repositorio.compacto.bloco.mb.
+    private static final int TAMANHO_BLOCO_CONTEUDOS = Integer.getInteger("orquestrador.repositorio.compacto.bloco.mb", 16) * 1024 * 1024;
+    // Lixo mínimo para compactar os conteúdos, configurável com -Dorquestrador.repositorio.compactacao.mb.
+    private static final long LIMIAR_COMPACTACAO = Long.getLong("orquestrador.repositorio.compactacao.mb", 64) * 1024 * 1024;
+
+    // Formato dos registros.
+    private static final int TAMANHO_REGISTRO = 64;
+    private static final int BITS_REGISTROS_POR_BLOCO = 16;
+    private static final int REGISTROS_POR_BLOCO = 1 << BITS_REGISTROS_POR_BLOCO;
+    private static final int POS_TIPO = 0;
+    private static final int POS_STATUS = 1;
+    private static final int POS_PRIORIDADE = 2;
+    private static final int POS_USUARIO = 4;
+    private static final int POS_WORKER = 8;
+    private static final int POS_ANTERIOR_DO_USUARIO = 12;
+    private static final int POS_PROXIMO_DO_USUARIO = 16;
+    private static final int POS_TAMANHO_CONTEUDO = 20;
+    private static final int POS_ID_ALTO = 24;
+    private static final int POS_ID_BAIXO = 32;
+    private static final int POS_CRIADA_EM = 40;
+    private static final int POS_ALTERADA_EM = 48;
+    private static final int POS_CONTEUDO = 56;
+    // Tipos de registro.
+    private static final byte LIVRE = 0;
+    private static final byte ID_UUID = 1;
+    private static final byte ID_TEXTO = 2;
+    private static final byte ID_GERADO = 3;
+    // Registro inexistente (fim de lista).
+    private static final int NENHUM = -1;
+    // Capacidade inicial da tabela hash (potência de 2).
+    private static final int CAPACIDADE_INICIAL_TABELA = 1024;
+    private static final StatusTarefa[] STATUS = StatusTarefa.values();
+
+    // Protege os registros, a tabela hash e os conteúdos.
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    // Blocos de registros (memória direta).
+    private ByteBuffer[] blocos = new ByteBuffer[0];
+    // Primeiro registro nunca usado e registros liberados para reuso.
+    private int proximoRegistro = 0;
+    private int[] livres = new int[64];
+    private int quantidadeLivres = 0;
+    // Tabela hash ID -> registro + 1 (0 para posição vazia), com sondagem linear.
+    private IntBuffer tabela = novaTabela(CAPACIDADE_INICIAL_TABELA);
+    private int quantidade = 0;
+    // Conteúdos (ID em texto, se houver, e dados) das tarefas.
+    private DepositoConteudos conteudos = new DepositoConteudos(TAMANHO_BLOCO_CONTEUDOS);
+    // Primeiro e último registro de cada usuário, pelo código.
+    private int[] primeiroDoUsuario = new int[0];
+    private int[] ultimoDoUsuario = new int[0];
+    // Tarefas já carregadas: presas se estiverem em andamento, fracas se estiverem finalizadas.
+    private final CacheInstancias carregadas = new CacheInstancias();
+
+    RepositorioTarefasCompacto() {
+        this(new IndicesCompactos());
+    }
+
+    private RepositorioTarefasCompacto(IndicesCompactos indices) {
+        super(indices);
+        indices.repositorio = this;
+    }
+
+    @Override
+    protected Tarefa armazenar(Tarefa tarefa) {
+        Chave chave = Chave.de(tarefa.getId());
+        trava.writeLock().lock();
+        try {
+            Tarefa anterior = null;
+            int posicao = localizar(chave);
+            if (posicao >= 0) {
+                int registro = tabela.get(posicao) - 1;
+                anterior = carregar(registro, tarefa.getId());
+                liberar(registro, posicao);
+            }
+            inserir(tarefa, chave);
+            carregadas.guardar(tarefa, emAndamento(tarefa));
+            return anterior;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected Tarefa buscar(String tarefaId) {
+        Tarefa tarefa = carregadas.obter(tarefaId);
+        if (tarefa != null) return tarefa;
+        Chave chave = Chave.de(tarefaId);
+        trava.readLock().lock();
+        try {
+            int posicao = localizar(chave);
+            // Publica sob a trava, para que uma exclusão concorrente não deixe a instância no cache.
+            return posicao >= 0 ? carregar(tabela.get(posicao) - 1, tarefaId) : null;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected boolean excluir(String tarefaId, Tarefa tarefa) {
+        Chave chave = Chave.de(tarefaId);
+        trava.writeLock().lock();
+        try {
+            int posicao = localizar(chave);
+            if (posicao < 0 || !carregadas.retirar(tarefaId, tarefa)) return false;
+            liberar(tabela.get(posicao) - 1, posicao);
+            return true;
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void estadoAlterado(Tarefa tarefa) {
+        Chave chave = Chave.de(tarefa.getId());
+        trava.writeLock().lock();
+        try {
+            int posicao = localizar(chave);
+            if (posicao >= 0) {
+                int registro = tabela.get(posicao) - 1;
+                ByteBuffer bloco = bloco(registro);
+                int base = base(registro);
+                bloco.put(base + POS_STATUS, (byte) tarefa.getStatus().ordinal());
+                bloco.putInt(base + POS_WORKER, tarefa.getCodigoWorker());
+                bloco.putLong(base + POS_ALTERADA_EM, System.currentTimeMillis());
+            }
+            // Prende ou solta a tarefa conforme ela entra ou sai de andamento.
+            carregadas.guardar(tarefa, emAndamento(tarefa));
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected Set<String> ids() {
+        trava.readLock().lock();
+        try {
+            Set<String> ids = new HashSet<>(quantidade * 2);
+            for (int registro = 0; registro < proximoRegistro; registro++) {
+                if (ocupado(registro)) {
+                    ids.add(idDe(registro));
+                }
+            }
+            return ids;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Neste motor as tarefas que não estão em uso são reconstruídas a partir dos registros.
+     */
+    @Override
+    public Collection<Tarefa> todas() {
+        List<Tarefa> tarefas = new ArrayList<>();
+        for (String id : ids()) {
+            Tarefa tarefa = buscar(id);
+            if (tarefa != null) {
+                tarefas.add(tarefa);
+            }
+        }
+        return Collections.unmodifiableList(tarefas);
+    }
+
+    @Override
+    public String getNome() {
+        return NOME;
+    }
+
+    // --- ÍNDICES NOS REGISTROS ---
+
+    /**
+     * Retorna os IDs das tarefas de um usuário, em ordem de ID, percorrendo a lista ligada dos seus registros.
+     */
+    private List<String> idsDoUsuario(String usuarioId, String aposId) {
+        List<String> ids = new ArrayList<>();
+        trava.readLock().lock();
+        try {
+            int usuario = DicionarioIds.global().codigoExistente(usuarioId);
+            int registro = usuario != DicionarioIds.NENHUM && usuario < primeiroDoUsuario.length ? primeiroDoUsuario[usuario] : NENHUM;
+            while (registro != NENHUM) {
+                String id = idDe(registro);
+                if (aposId == null || id.compareTo(aposId) > 0) {
+                    ids.add(id);
+                }
+                registro = bloco(registro).getInt(base(registro) + POS_PROXIMO_DO_USUARIO);
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Retorna os IDs das tarefas com o status informado, varrendo os registros (usado apenas na inicialização).
+     */
+    private List<String> idsComStatus(StatusTarefa status) {
+        List<String> ids = new ArrayList<>();
+        trava.readLock().lock();
+        try {
+            for (int registro = 0; registro < proximoRegistro; registro++) {
+                if (ocupado(registro) && bloco(registro).get(base(registro) + POS_STATUS) == status.ordinal()) {
+                    ids.add(idDe(registro));
+                }
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+        return ids;
+    }
+
+    // --- REGISTROS (chamados com a trava) ---
+
+    /**
+     * Grava uma tarefa em um registro livre e a inclui na tabela hash e na lista do seu usuário.
+     */
+    private void inserir(Tarefa tarefa, Chave chave) {
+        if ((quantidade + 1) * 2 > tabela.capacity()) {
+            redimensionarTabela(tabela.capacity() * 2);
+        }
+        byte[] dados = tarefa.getDados() != null ? tarefa.getDados().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        byte[] conteudo = dados;
+        if (chave.texto != null) {
+            conteudo = ByteBuffer.allocate(4 + chave.texto.length + dados.length)
+                    .putInt(chave.texto.length).put(chave.texto).put(dados).array();
+        }
+        int registro = novoRegistro();
+        ByteBuffer bloco = bloco(registro);
+        int base = base(registro);
+        long agora = System.currentTimeMillis();
+        int usuario = tarefa.getCodigoUsuario();
+        bloco.put(base + POS_TIPO, chave.tipo);
+        bloco.put(base + POS_STATUS, (byte) tarefa.getStatus().ordinal());
+        bloco.put(base + POS_PRIORIDADE, (byte) tarefa.getPrioridade().ordinal());
+        bloco.putInt(base + POS_USUARIO, usuario);
+        bloco.putInt(base + POS_WORKER, tarefa.getCodigoWorker());
+        bloco.putInt(base + POS_TAMANHO_CONTEUDO, conteudo.length);
+        bloco.putLong(base + POS_ID_ALTO, chave.alto);
+        bloco.putLong(base + POS_ID_BAIXO, chave.baixo);
+        bloco.putLong(base + POS_CRIADA_EM, agora);
+        bloco.putLong(base + POS_ALTERADA_EM, agora);
+        bloco.putLong(base + POS_CONTEUDO, conteudos.gravar(conteudo));
+        ligarAoUsuario(registro, usuario);
+        tabela.put(-localizar(chave) - 1, registro + 1);
+        quantidade++;
+    }
+
+    /**
+     * Libera o registro de uma tarefa excluída ou substituída.
+     * @param posicao A posição do registro na tabela hash.
+     */
+    private void liberar(int registro, int posicao) {
+        ByteBuffer bloco = bloco(registro);
+        int base = base(registro);
+        desligarDoUsuario(registro);
+        conteudos.liberar(bloco.getInt(base + POS_TAMANHO_CONTEUDO));
+        removerDaTabela(posicao);
+        bloco.put(base + POS_TIPO, LIVRE);
+        if (quantidadeLivres == livres.length) {
+            livres = Arrays.copyOf(livres, livres.length * 2);
+        }
+        livres[quantidadeLivres++] = registro;
+        quantidade--;
+        if (conteudos.precisaCompactar(LIMIAR_COMPACTACAO)) {
+            compactarConteudos();
+        }
+    }
+
+    private int novoRegistro() {
+        if (quantidadeLivres > 0) {
+            return livres[--quantidadeLivres];
+        }
+        if (proximoRegistro == blocos.length * REGISTROS_POR_BLOCO) {
+            blocos = Arrays.copyOf(blocos, blocos.length + 1);
+            blocos[blocos.length - 1] = ByteBuffer.allocateDirect(REGISTROS_POR_BLOCO * TAMANHO_REGISTRO);
+        }
+        return proximoRegistro++;
+    }
+
+    private void ligarAoUsuario(int registro, int usuario) {
+        ByteBuffer bloco = bloco(registro);
+        int base = base(registro);
+        bloco.putInt(base + POS_PROXIMO_DO_USUARIO, NENHUM);
+        if (usuario == DicionarioIds.NENHUM) {
+            bloco.putInt(base + POS_ANTERIOR_DO_USUARIO, NENHUM);
+            return;
+        }
+        if (usuario >= primeiroDoUsuario.length) {
+            int tamanho = Math.max(usuario + 1, primeiroDoUsuario.length * 2);
+            int antigo = primeiroDoUsuario.length;
+            primeiroDoUsuario = Arrays.copyOf(primeiroDoUsuario, tamanho);
+            ultimoDoUsuario = Arrays.copyOf(ultimoDoUsuario, tamanho);
+            Arrays.fill(primeiroDoUsuario, antigo, tamanho, NENHUM);
+            Arrays.fill(ultimoDoUsuario, antigo, tamanho, NENHUM);
+        }
+        int ultimo = ultimoDoUsuario[usuario];
+        bloco.putInt(base + POS_ANTERIOR_DO_USUARIO, ultimo);
+        if (ultimo != NENHUM) {
+            bloco(ultimo).putInt(base(ultimo) + POS_PROXIMO_DO_USUARIO, registro);
+        } else {
+            primeiroDoUsuario[usuario] = registro;
+        }
+        ultimoDoUsuario[usuario] = registro;
+    }
+
+    private void desligarDoUsuario(int registro) {
+        ByteBuffer bloco = bloco(registro);
+        int base = base(registro);
+        int usuario = bloco.getInt(base + POS_USUARIO);
+        if (usuario == DicionarioIds.NENHUM) return;
+        int anterior = bloco.getInt(base + POS_ANTERIOR_DO_USUARIO);
+        int proximo = bloco.getInt(base + POS_PROXIMO_DO_USUARIO);
+        if (anterior != NENHUM) {
+            bloco(anterior).putInt(base(anterior) + POS_PROXIMO_DO_USUARIO, proximo);
+        } else {
+            primeiroDoUsuario[usuario] = proximo;
+        }
+        if (proximo != NENHUM) {
+            bloco(proximo).putInt(base(proximo) + POS_ANTERIOR_DO_USUARIO, anterior);
+        } else {
+            ultimoDoUsuario[usuario] = anterior;
+        }
+    }
+
+    /**
+     * Copia os conteúdos vivos para um depósito novo, descartando o lixo deixado pelas tarefas excluídas.
+     */
+    private void compactarConteudos() {
+        DepositoConteudos novo = new DepositoConteudos(TAMANHO_BLOCO_CONTEUDOS);
+        for (int registro = 0; registro < proximoRegistro; registro++) {
+            if (!ocupado(registro)) continue;
+            ByteBuffer bloco = bloco(registro);
+            int base = base(registro);
+            byte[] conteudo = conteudos.ler(bloco.getLong(base + POS_CONTEUDO), bloco.getInt(base + POS_TAMANHO_CONTEUDO));
+            bloco.putLong(base + POS_CONTEUDO, novo.gravar(conteudo));
+        }
+        conteudos = novo;
+    }
+
+    /**
+     * Reconstrói a tarefa de um registro, ou devolve a instância em uso, se houver.
+     */
+    private Tarefa carregar(int registro, String tarefaId) {
+        Tarefa carregada = carregadas.obter(tarefaId);
+        if (carregada != null) return carregada;
+        ByteBuffer bloco = bloco(registro);
+        int base = base(registro);
+        byte[] conteudo = conteudos.ler(bloco.getLong(base + POS_CONTEUDO), bloco.getInt(base + POS_TAMANHO_CONTEUDO));
+        int inicioDados = bloco.get(base + POS_TIPO) == ID_TEXTO ? 4 + ByteBuffer.wrap(conteudo).getInt() : 0;
+        Tarefa tarefa = new Tarefa(tarefaId, new String(conteudo, inicioDados, conteudo.length - inicioDados, StandardCharsets.UTF_8),
+                bloco.getInt(base + POS_USUARIO));
+        tarefa.setStatus(STATUS[bloco.get(base + POS_STATUS)]);
+        tarefa.setCodigoWorker(bloco.getInt(base + POS_WORKER));
+        return carregadas.publicar(tarefa);
+    }
+
+    private String idDe(int registro) {
+        ByteBuffer bloco = bloco(registro);
+        int base = base(registro);
+        byte tipo = bloco.get(base + POS_TIPO);
+        if (tipo == ID_GERADO) {
+            return GeradorIds.formatar(bloco.getLong(base + POS_ID_BAIXO));
+        }
+        if (tipo == ID_UUID) {
+            return new UUID(bloco.getLong(base + POS_ID_ALTO), bloco.getLong(base + POS_ID_BAIXO)).toString();
+        }
+        return new String(textoDoId(registro), StandardCharsets.UTF_8);
+    }
+
+    private byte[] textoDoId(int registro) {
+        ByteBuffer bloco = bloco(registro);
+        int base = base(registro);
+        long posicao = bloco.getLong(base + POS_CONTEUDO);
+        int tamanho = ByteBuffer.wrap(conteudos.ler(posicao, 4)).getInt();
+        return Arrays.copyOfRange(conteudos.ler(posicao, 4 + tamanho), 4, 4 + tamanho);
+    }
+
+    private boolean ocupado(int registro) {
+        return bloco(registro).get(base(registro) + POS_TIPO) != LIVRE;
+    }
+
+    private ByteBuffer bloco(int registro) {
+        return blocos[registro >>> BITS_REGISTROS_POR_BLOCO];
+    }
+
+    private static int base(int registro) {
+        return (registro & (REGISTROS_POR_BLOCO - 1)) * TAMANHO_REGISTRO;
+    }
+
+    private static boolean emAndamento(Tarefa tarefa) {
+        return tarefa.getStatus() == StatusTarefa.AGUARDANDO || tarefa.getStatus() == StatusTarefa.EXECUTANDO;
+    }
+
+    // --- TABELA HASH (chamados com a trava) ---
+
+    /**
+     * Procura o ID na tabela hash.
+     * @return A posição da entrada do ID, ou (-posição livre - 1) se ele não estiver na tabela.
+     */
+    private int localizar(Chave chave) {
+        int mascara = tabela.capacity() - 1;
+        int posicao = espalhar(chave.alto, chave.baixo) & mascara;
+        while (true) {
+            int entrada = tabela.get(posicao);
+            if (entrada == 0) return -posicao - 1;
+            if (mesmaChave(entrada - 1, chave)) return posicao;
+            posicao = (posicao + 1) & mascara;
+        }
+    }
+
+    private boolean mesmaChave(int registro, Chave chave) {
+        ByteBuffer bloco = bloco(registro);
+        int base = base(registro);
+        if (bloco.getLong(base + POS_ID_ALTO) != chave.alto || bloco.getLong(base + POS_ID_BAIXO) != chave.baixo) return false;
+        if (bloco.get(base + POS_TIPO) != chave.tipo) return false;
+        return chave.texto == null || Arrays.equals(textoDoId(registro), chave.texto);
+    }
+
+    /**
+     * Retira uma entrada da tabela, deslocando para trás as entradas seguintes que dependiam dela na sondagem.
+     */
+    private void removerDaTabela(int posicao) {
+        int mascara = tabela.capacity() - 1;
+        int vazia = posicao;
+        int atual = posicao;
+        while (true) {
+            atual = (atual + 1) & mascara;
+            int entrada = tabela.get(atual);
+            if (entrada == 0) break;
+            int registro = entrada - 1;
+            int origem = espalhar(bloco(registro).getLong(base(registro) + POS_ID_ALTO), bloco(registro).getLong(base(registro) + POS_ID_BAIXO)) & mascara;
+            // A entrada pode ocupar a posição vazia se a sua origem não estiver entre a vazia e ela (em ciclo).
+            boolean mover = vazia <= atual ? (origem <= vazia || origem > atual) : (origem <= vazia && origem > atual);
+            if (mover) {
+                tabela.put(vazia, entrada);
+                vazia = atual;
+            }
+        }
+        tabela.put(vazia, 0);
+    }
+
+    private void redimensionarTabela(int capacidade) {
+        IntBuffer nova = novaTabela(capacidade);
+        int mascara = capacidade - 1;
+        for (int registro = 0; registro < proximoRegistro; registro++) {
+            if (!ocupado(registro)) continue;
+            int posicao = espalhar(bloco(registro).getLong(base(registro) + POS_ID_ALTO), bloco(registro).getLong(base(registro) + POS_ID_BAIXO)) & mascara;
+            while (nova.get(posicao) != 0) {
+                posicao = (posicao + 1) & mascara;
+            }
+            nova.put(posicao, registro + 1);
+        }
+        tabela = nova;
+    }
+
+    private static IntBuffer novaTabela(int capacidade) {
+        return ByteBuffer.allocateDirect(capacidade * 4).asIntBuffer();
+    }
+
+    private static int espalhar(long alto, long baixo) {
+        long h = alto * 0x9E3779B97F4A7C15L ^ baixo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * ID de 128 bits de uma tarefa: o número do GeradorIds, os bits do UUID, ou um hash do texto (guardado para a
+     * comparação).
+     */
+    private static final class Chave {
+        private final long alto;
+        private final long baixo;
+        private final byte tipo;
+        private final byte[] texto;
+
+        private Chave(long alto, long baixo, byte tipo, byte[] texto) {
+            this.alto = alto;
+            this.baixo = baixo;
+            this.tipo = tipo;
+            this.texto = texto;
+        }
+
+        static Chave de(String id) {
+            // Caminho rápido: o formato do GeradorIds, interpretado sem alocação.
+            long gerado = GeradorIds.interpretar(id);
+            if (gerado >= 0) {
+                return new Chave(0, gerado, ID_GERADO, null);
+            }
+            if (id.length() == 36 && id.charAt(8) == '-' && id.charAt(13) == '-' && id.charAt(18) == '-' && id.charAt(23) == '-') {
+                try {
+                    UUID uuid = UUID.fromString(id);
+                    // Só vale a forma canônica, que é a reconstruída a partir dos bits.
+                    if (uuid.toString().equals(id)) {
+                        return new Chave(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), ID_UUID, null);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Não é um UUID: usa o hash do texto.
+                }
+            }
+            byte[] texto = id.getBytes(StandardCharsets.UTF_8);
+            return new Chave(hash(texto, 0xCBF29CE484222325L), hash(texto, 0x84222325CBF29CE4L), ID_TEXTO, texto);
+        }
+
+        private static long hash(byte[] texto, long semente) {
+            long h = semente;
+            for (byte b : texto) {
+                h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+
+    /**
+     * Índices do motor compacto: as tarefas de cada usuário e por status são lidas dos próprios registros;
+     * só as tarefas em execução em cada worker ficam no heap.
+     */
+    private static final class IndicesCompactos implements IndicesTarefas {
+
+        private RepositorioTarefasCompacto repositorio;
+        // IDs das tarefas EXECUTANDO em cada worker, pelo código do worker.
+        private final TabelaPorCodigo<Set<String>> emExecucaoPorWorker = new TabelaPorCodigo<>(ConcurrentHashMap::newKeySet);
+
+        @Override
+        public void indexar(Tarefa tarefa) {
+            indexarEstado(tarefa);
+        }
+
+        @Override
+        public void desindexar(Tarefa tarefa) {
+            desindexarEstado(tarefa);
+        }
+
+        @Override
+        public void indexarEstado(Tarefa tarefa) {
+            if (tarefa.getStatus() == StatusTarefa.EXECUTANDO && tarefa.getCodigoWorker() != DicionarioIds.NENHUM) {
+                emExecucaoPorWorker.obterOuCriar(tarefa.getCodigoWorker()).add(tarefa.getId());
+            }
+        }
+
+        @Override
+        public void desindexarEstado(Tarefa tarefa) {
+            Set<String> ids = emExecucaoPorWorker.obter(tarefa.getCodigoWorker());
+            if (ids != null) {
+                ids.remove(tarefa.getId());
+            }
+        }
+
+        @Override
+        public Iterable<String> doUsuario(String usuarioId, String aposId) {
+            return repositorio.idsDoUsuario(usuarioId, aposId);
+        }
+
+        @Override
+        public Collection<String> emExecucaoNoWorker(String workerId) {
+            Set<String> ids = emExecucaoPorWorker.obter(DicionarioIds.global().codigoExistente(workerId));
+            return ids != null ? new ArrayList<>(ids) : Collections.emptyList();
+        }
+
+        @Override
+        public Collection<String> comStatus(StatusTarefa status) {
+            return repositorio.idsComStatus(status);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Parte comum aos motores do repositório de tarefas: transições, índices, contadores, feed e ouvintes.
+ * Os índices secundários (IndicesTarefas: por usuário, por status e das tarefas em execução em cada worker)
+ * guardam apenas IDs e são atualizados junto com cada transição de estado, de modo que as consultas por worker,
+ * usuário ou status não precisam varrer todas as tarefas. Os mesmos pontos mantêm os contadores incrementais
+ * (ContadoresTarefas) lidos pelo dashboard.
+ * Cada motor decide onde a tarefa fica guardada (armazenar, buscar, excluir e estadoAlterado) e pode fornecer
+ * índices próprios; os demais usam IndicesEmMemoria.
+ * O conteúdo nunca é esvaziado para ser substituído: reconciliar() aplica no lugar apenas as diferenças em
+ * relação ao estado recebido, de modo que as leituras concorrentes não bloqueiam nem veem o repositório vazio.
+ */
+abstract class RepositorioTarefasIndexado implements RepositorioTarefas {
+
+    // Índices secundários (IDs por usuário, por status e em execução por worker).
+    private final IndicesTarefas indices;
+    // Contadores por status, usuário e worker, atualizados junto com os índices.
+    private final ContadoresTarefas contadores = new ContadoresTarefas();
+    // Feed versionado de alterações, consumido pelo stream de monitoramento.
+    private final FeedAlteracoes alteracoes = new FeedAlteracoes();
+    // Ouvintes das alterações (no primário, o log de replicação para o backup, o journal em disco e a retenção).
+    private final List<Ouvinte> ouvintes = new CopyOnWriteArrayList<>();
+    // Histórico em disco das tarefas retiradas da memória (null se a retenção estiver desativada).
+    private volatile HistoricoTarefas historico;
+
+    protected RepositorioTarefasIndexado() {
+        this.indices = new IndicesEmMemoria();
+    }
+
+    /**
+     * Cria o repositório com índices fornecidos pelo motor.
+     */
+    protected RepositorioTarefasIndexado(IndicesTarefas indices) {
+        this.indices = indices;
+    }
+
+    // --- ARMAZENAMENTO (definido por cada motor) ---
+
+    /**
+     * Guarda uma tarefa nova, ou outra instância de uma tarefa já existente, no lugar da anterior.
+     * Chamado com a tarefa bloqueada.
+     * @return A tarefa guardada antes com o mesmo ID, ou null se não havia.
+     */
+    protected abstract Tarefa armazenar(Tarefa tarefa);
+
+    /**
+     * Retorna a tarefa guardada com o ID informado, ou null se não existir.
+     * Enquanto houver referências a uma tarefa, o motor deve devolver sempre a mesma instância, pois as transições
+     * sincronizam no próprio objeto.
+     */
+    protected abstract Tarefa buscar(String tarefaId);
+
+    /**
+     * Exclui a tarefa guardada com o ID informado, se ela ainda for a instância informada.
+     * Chamado com a tarefa bloqueada.
+     * @return true se a tarefa foi excluída.
+     */
+    protected abstract boolean excluir(String tarefaId, Tarefa tarefa);
+
+    /**
+     * Avisa o motor de que o status ou o worker de uma tarefa mudou. Chamado com a tarefa bloqueada.
+     */
+    protected abstract void estadoAlterado(Tarefa tarefa);
+
+    /**
+     * Retorna os IDs de todas as tarefas guardadas.
+     */
+    protected abstract Set<String> ids();
+
+    // --- OPERAÇÕES ---
+
+    @Override
+    public void adicionar(Tarefa tarefa) {
+        synchronized (tarefa) {
+            Tarefa anterior = armazenar(tarefa);
+            if (anterior == tarefa) {
+                return; // Já indexada.
+            }
+            if (anterior != null) {
+                desindexar(anterior);
+            }
+            indexar(tarefa);
+            alteracoes.registrar(FeedAlteracoes.TipoItem.TAREFA, tarefa.getId(), tarefa.getCodigoUsuario());
+            // Os IDs gerados depois (ex: após um failover) ficam acima dos já conhecidos e não reutilizam o nó de outro processo.
+            GeradorIds.global().observar(tarefa.getId());
+            for (Ouvinte ouvinte : ouvintes) {
+                ouvinte.tarefaAdicionada(tarefa);
+            }
+        }
+    }
+
+    @Override
+    public Tarefa obter(String tarefaId) {
+        return buscar(tarefaId);
+    }
+
+    @Override
+    public Tarefa obterDoUsuario(String usuarioId, String tarefaId) {
+        Tarefa tarefa = buscar(tarefaId);
+        if (tarefa != null) {
+            return Objects.equals(tarefa.getUsuarioId(), usuarioId) ? tarefa : null;
+        }
+        HistoricoTarefas atual = historico;
+        return atual != null ? atual.obter(usuarioId, tarefaId) : null;
+    }
+
+    @Override
+    public StatusTarefa transicionar(Tarefa tarefa, StatusTarefa novoStatus, String novoWorkerId) {
+        synchronized (tarefa) {
+            StatusTarefa statusAnterior = tarefa.getStatus();
+            contadores.registrarEstado(tarefa, -1);
+            indices.desindexarEstado(tarefa);
+            tarefa.setStatus(novoStatus);
+            tarefa.setWorkerIdAtual(novoWorkerId);
+            estadoAlterado(tarefa);
+            contadores.registrarEstado(tarefa, 1);
+            indices.indexarEstado(tarefa);
+            alteracoes.registrar(FeedAlteracoes.TipoItem.TAREFA, tarefa.getId(), tarefa.getCodigoUsuario());
+            for (Ouvinte ouvinte : ouvintes) {
+                ouvinte.tarefaTransicionada(tarefa);
+            }
+            return statusAnterior;
+        }
+    }
+
+    @Override
+    public boolean transicionarSe(Tarefa tarefa, StatusTarefa statusEsperado, String workerEsperado, StatusTarefa novoStatus, String novoWorkerId) {
+        synchronized (tarefa) {
+            if (tarefa.getStatus() != statusEsperado || (workerEsperado != null && !doWorker(tarefa, workerEsperado))) {
+                return false;
+            }
+            transicionar(tarefa, novoStatus, novoWorkerId);
+            return true;
+        }
+    }
+
+    @Override
+    public void adicionarOuvinte(Ouvinte ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    @Override
+    public Tarefa remover(String tarefaId) {
+        return retirar(tarefaId, false, null);
+    }
+
+    @Override
+    public Tarefa arquivar(String tarefaId) {
+        return retirar(tarefaId, true, null);
+    }
+
+    @Override
+    public Tarefa arquivarSe(String tarefaId, Predicate<Tarefa> condicao) {
+        return retirar(tarefaId, true, condicao);
+    }
+
+    @Override
+    public void setHistorico(HistoricoTarefas historico) {
+        this.historico = historico;
+        contadores.setHistorico(historico);
+    }
+
+    private Tarefa retirar(String tarefaId, boolean arquivada, Predicate<Tarefa> condicao) {
+        Tarefa tarefa = buscar(tarefaId);
+        if (tarefa == null) return null;
+        synchronized (tarefa) {
+            if (condicao != null && !condicao.test(tarefa)) return null;
+            if (!excluir(tarefaId, tarefa)) return null;
+            desindexar(tarefa);
+            alteracoes.registrar(FeedAlteracoes.TipoItem.TAREFA, tarefaId, tarefa.getCodigoUsuario());
+            if (arquivada) {
+                for (Ouvinte ouvinte : ouvintes) {
+                    ouvinte.tarefaArquivada(tarefa);
+                }
+            }
+            return tarefa;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Cada tarefa muda de uma só vez, sob o seu bloqueio, como em uma operação comum; as leituras concorrentes
+     * nunca veem o repositório vazio nem uma tarefa pela metade.
+     */
+    @Override
+    public synchronized int reconciliar(Map<String, Tarefa> recebidas) {
+        int diferencas = 0;
+        // Inclusões e alterações primeiro, para que nenhuma tarefa presente nos dois estados deixe de ser visível.
+        for (Tarefa recebida : recebidas.values()) {
+            Tarefa atual = buscar(recebida.getId());
+            if (atual == null) {
+                adicionar(recebida);
+                diferencas++;
+            } else if (atual.getStatus() != recebida.getStatus() || atual.getCodigoWorker() != recebida.getCodigoWorker()) {
+                transicionar(atual, recebida.getStatus(), recebida.getWorkerIdAtual());
+                diferencas++;
+            }
+        }
+        for (String tarefaId : ids()) {
+            if (!recebidas.containsKey(tarefaId) && remover(tarefaId) != null) {
+                diferencas++;
+            }
+        }
+        return diferencas;
+    }
+
+    // --- CONSULTAS ---
+
+    @Override
+    public int tamanho() {
+        return contadores.getTotal();
+    }
+
+    @Override
+    public FeedAlteracoes getAlteracoes() {
+        return alteracoes;
+    }
+
+    @Override
+    public ContadoresTarefas getContadores() {
+        return contadores;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Percorre o índice por usuário a partir do ponto indicado e junta o resultado, em ordem de ID, com a página
+     * equivalente do histórico em disco.
+     */
+    @Override
+    public List<Tarefa> paginaDoUsuario(String usuarioId, String aposId, int limite, Predicate<Tarefa> filtro) {
+        List<Tarefa> pagina = new ArrayList<>();
+        for (String id : indices.doUsuario(usuarioId, aposId)) {
+            Tarefa tarefa = buscar(id);
+            if (tarefa != null && filtro.test(tarefa)) {
+                pagina.add(tarefa);
+                if (pagina.size() == limite) break;
+            }
+        }
+        HistoricoTarefas atual = historico;
+        return atual != null ? juntar(pagina, atual.paginaDoUsuario(usuarioId, aposId, limite, filtro), limite) : pagina;
+    }
+
+    @Override
+    public List<Tarefa> emExecucaoNoWorker(String workerId) {
+        return resolver(indices.emExecucaoNoWorker(workerId));
+    }
+
+    @Override
+    public List<Tarefa> comStatus(StatusTarefa status) {
+        return resolver(indices.comStatus(status));
+    }
+
+    @Override
+    public int contarDoWorker(String workerId) {
+        return contadores.getDoWorker(workerId);
+    }
+
+    @Override
+    public int contarEmExecucaoNoWorker(String workerId) {
+        return contadores.getEmExecucaoNoWorker(workerId);
+    }
+
+    @Override
+    public int contarDoUsuario(String usuarioId) {
+        return contadores.getDoUsuario(usuarioId);
+    }
+
+    @Override
+    public int contarComStatus(StatusTarefa status) {
+        return contadores.getComStatus(status);
+    }
+
+    // --- MANUTENÇÃO DOS ÍNDICES ---
+
+    private void indexar(Tarefa tarefa) {
+        contadores.registrarTarefa(tarefa, 1);
+        contadores.registrarEstado(tarefa, 1);
+        indices.indexar(tarefa);
+    }
+
+    private void desindexar(Tarefa tarefa) {
+        contadores.registrarTarefa(tarefa, -1);
+        contadores.registrarEstado(tarefa, -1);
+        indices.desindexar(tarefa);
+    }
+
+    /**
+     * Indica se a tarefa está associada ao worker informado, comparando os códigos do DicionarioIds.
+     */
+    private static boolean doWorker(Tarefa tarefa, String workerId) {
+        int codigo = DicionarioIds.global().codigoExistente(workerId);
+        return codigo != DicionarioIds.NENHUM && codigo == tarefa.getCodigoWorker();
+    }
+
+    /**
+     * Junta duas listas de tarefas em ordem de ID, até o limite. Uma tarefa presente nas duas (arquivada enquanto
+     * a consulta era feita) aparece uma só vez, com a versão da memória.
+     */
+    private static List<Tarefa> juntar(List<Tarefa> emMemoria, List<Tarefa> arquivadas, int limite) {
+        if (arquivadas.isEmpty()) return emMemoria;
+        List<Tarefa> resultado = new ArrayList<>(Math.min(limite, emMemoria.size() + arquivadas.size()));
+        int i = 0, j = 0;
+        while (resultado.size() < limite && (i < emMemoria.size() || j < arquivadas.size())) {
+            int comparacao = i == emMemoria.size() ? 1
+                    : j == arquivadas.size() ? -1
+                    : emMemoria.get(i).getId().compareTo(arquivadas.get(j).getId());
+            if (comparacao <= 0) {
+                resultado.add(emMemoria.get(i++));
+                if (comparacao == 0) j++;
+            } else {
+                resultado.add(arquivadas.get(j++));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Resolve um conjunto de IDs nas tarefas correspondentes, ignorando as que já não existem.
+     */
+    private List<Tarefa> resolver(Iterable<String> ids) {
+        List<Tarefa> resultado = new ArrayList<>();
+        for (String id : ids) {
+            Tarefa tarefa = buscar(id);
+            if (tarefa != null) {
+                resultado.add(tarefa);
+            }
+        }
+        return resultado;
+    }
+}
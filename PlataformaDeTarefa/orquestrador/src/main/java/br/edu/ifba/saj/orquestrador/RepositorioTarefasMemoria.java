@@ -0,0 +1,60 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor do repositório de tarefas em memória: todas as tarefas ficam em um mapa concorrente (ID -> tarefa) no heap.
+ * É o motor padrão e o mais rápido, limitado apenas pela memória do processo.
+ */
+class RepositorioTarefasMemoria extends RepositorioTarefasIndexado {
+
+    public static final String NOME = "memoria";
+
+    // Mapa principal de tarefas, indexado pelo ID.
+    private final Map<String, Tarefa> tarefas = new ConcurrentHashMap<>();
+
+    @Override
+    protected Tarefa armazenar(Tarefa tarefa) {
+        return tarefas.put(tarefa.getId(), tarefa);
+    }
+
+    @Override
+    protected Tarefa buscar(String tarefaId) {
+        return tarefas.get(tarefaId);
+    }
+
+    @Override
+    protected boolean excluir(String tarefaId, Tarefa tarefa) {
+        return tarefas.remove(tarefaId, tarefa);
+    }
+
+    @Override
+    protected void estadoAlterado(Tarefa tarefa) {
+        // A própria instância no mapa já foi alterada.
+    }
+
+    @Override
+    protected Set<String> ids() {
+        return tarefas.keySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Neste motor é uma visão do mapa principal, sem cópia.
+     */
+    @Override
+    public Collection<Tarefa> todas() {
+        return Collections.unmodifiableCollection(tarefas.values());
+    }
+
+    @Override
+    public String getNome() {
+        return NOME;
+    }
+}
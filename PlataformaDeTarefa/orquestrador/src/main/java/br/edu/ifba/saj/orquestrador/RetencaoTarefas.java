@@ -0,0 +1,133 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de coleções, concorrência e utilitários do Java.
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Política de retenção das tarefas finalizadas (CONCLUIDA ou FALHA): mantém em memória as tarefas em andamento e as
+ * finalizadas recentes e move para o histórico em disco (HistoricoTarefas) as finalizadas há mais de N minutos
+ * (-Dorquestrador.retencao.minutos, padrão 30) ou além das M mais recentes (-Dorquestrador.retencao.max,
+ * padrão 10000). Assim o heap, os snapshots replicados para o backup e o dashboard ficam limitados ao conjunto de
+ * trabalho, e não ao tempo de execução; as listagens por usuário continuam lendo as duas camadas.
+ *
+ * As tarefas entram em uma fila na ordem em que são finalizadas (a ordem de idade), de modo que cada execução
+ * percorre apenas as que vão sair. Cada lote é gravado no histórico antes de as tarefas serem retiradas do
+ * repositório, o que notifica o journal e o backup.
+ */
+public class RetencaoTarefas implements RepositorioTarefas.Ouvinte {
+
+    // Idade máxima de uma tarefa finalizada em memória, configurável com -Dorquestrador.retencao.minutos.
+    private static final long IDADE_MAXIMA_MS = Long.getLong("orquestrador.retencao.minutos", 30) * 60 * 1000;
+    // Número máximo de tarefas finalizadas em memória, configurável com -Dorquestrador.retencao.max.
+    private static final int MAX_FINALIZADAS = Integer.getInteger("orquestrador.retencao.max", 10000);
+    // Número máximo de tarefas gravadas no histórico de uma vez (uma sincronização com o disco por lote).
+    private static final int TAMANHO_LOTE = 1024;
+
+    private final RepositorioTarefas repositorio;
+    private final HistoricoTarefas historico;
+    // Tarefas finalizadas, da mais antiga para a mais recente. Pode haver IDs repetidos ou já arquivados.
+    private final ConcurrentLinkedDeque<Finalizada> finalizadas = new ConcurrentLinkedDeque<>();
+
+    public RetencaoTarefas(RepositorioTarefas repositorio, HistoricoTarefas historico) {
+        this.repositorio = repositorio;
+        this.historico = historico;
+    }
+
+    @Override
+    public void tarefaAdicionada(Tarefa tarefa) {
+        registrarSeFinalizada(tarefa);
+    }
+
+    @Override
+    public void tarefaTransicionada(Tarefa tarefa) {
+        registrarSeFinalizada(tarefa);
+    }
+
+    @Override
+    public void tarefaArquivada(Tarefa tarefa) {
+        // A entrada na fila é descartada quando chegar a sua vez.
+    }
+
+    /**
+     * Registra as tarefas finalizadas que já estavam no repositório (herdadas ou recuperadas do disco),
+     * contando a idade a partir de agora.
+     */
+    public void registrarExistentes() {
+        repositorio.comStatus(StatusTarefa.CONCLUIDA).forEach(this::registrarSeFinalizada);
+        repositorio.comStatus(StatusTarefa.FALHA).forEach(this::registrarSeFinalizada);
+    }
+
+    /**
+     * Move para o histórico as tarefas finalizadas que passaram da idade máxima ou excedem o máximo em memória.
+     * @return O número de tarefas arquivadas.
+     * @throws IOException Se o histórico não puder ser gravado (as tarefas do lote continuam em memória).
+     */
+    public int arquivarVencidas() throws IOException {
+        int arquivadas = 0;
+        while (true) {
+            long limite = System.currentTimeMillis() - IDADE_MAXIMA_MS;
+            int excedentes = repositorio.contarComStatus(StatusTarefa.CONCLUIDA) + repositorio.contarComStatus(StatusTarefa.FALHA) - MAX_FINALIZADAS;
+            List<Finalizada> retiradas = new ArrayList<>();
+            Map<String, Tarefa> lote = new LinkedHashMap<>();
+            Finalizada primeira;
+            while (lote.size() < TAMANHO_LOTE && (primeira = finalizadas.peekFirst()) != null
+                    && (primeira.instante <= limite || lote.size() < excedentes)) {
+                retiradas.add(finalizadas.pollFirst());
+                Tarefa tarefa = repositorio.obter(primeira.tarefaId);
+                // Ignora as entradas de tarefas já arquivadas ou que voltaram a andar.
+                if (tarefa != null && finalizada(tarefa)) {
+                    lote.put(tarefa.getId(), tarefa);
+                }
+            }
+            if (lote.isEmpty()) {
+                if (retiradas.isEmpty()) return arquivadas;
+                continue;
+            }
+            try {
+                historico.gravar(lote.values());
+            } catch (IOException e) {
+                // Devolve as entradas à frente da fila, na ordem original, para a próxima tentativa.
+                for (int i = retiradas.size() - 1; i >= 0; i--) {
+                    finalizadas.offerFirst(retiradas.get(i));
+                }
+                throw e;
+            }
+            for (String tarefaId : lote.keySet()) {
+                // A tarefa pode ter voltado a andar durante a gravação: nesse caso fica em memória, e a próxima
+                // finalização a registra de novo na fila.
+                if (repositorio.arquivarSe(tarefaId, RetencaoTarefas::finalizada) != null) {
+                    arquivadas++;
+                }
+            }
+        }
+    }
+
+    private void registrarSeFinalizada(Tarefa tarefa) {
+        if (finalizada(tarefa)) {
+            finalizadas.offerLast(new Finalizada(tarefa.getId(), System.currentTimeMillis()));
+        }
+    }
+
+    private static boolean finalizada(Tarefa tarefa) {
+        return tarefa.getStatus() == StatusTarefa.CONCLUIDA || tarefa.getStatus() == StatusTarefa.FALHA;
+    }
+
+    /**
+     * Tarefa finalizada e o instante em que isso foi registrado.
+     */
+    private static final class Finalizada {
+        private final String tarefaId;
+        private final long instante;
+
+        private Finalizada(String tarefaId, long instante) {
+            this.tarefaId = tarefaId;
+            this.instante = instante;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes geradas pelo gRPC para comunicação (protocolo).
+import br.edu.ifba.saj.protocolo.MensagemOrquestrador;
+// Importa as classes do gRPC para o status e o controle de fluxo do stream.
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+// Importa a classe base para a implementação de callbacks assíncronos (streams).
+import io.grpc.stub.StreamObserver;
+// Importa a unidade de tempo do Java.
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Representa a sessão (stream bidirecional SessaoWorker) aberta por um worker com o orquestrador.
+ * Pela sessão o orquestrador envia as atribuições de tarefas, sem precisar abrir uma conexão reversa com o worker.
+ * O StreamObserver do gRPC não é thread-safe, por isso todo envio e o encerramento são serializados nesta classe.
+ * Antes de cada envio a sessão aguarda o transporte aceitar mais mensagens (isReady), para não acumular em memória
+ * as atribuições de um worker que parou de ler o stream.
+ */
+public class SessaoWorker {
+
+    // Prazo para o stream voltar a aceitar mensagens, configurável com -Dorquestrador.sessao.envio.ms; esgotado o prazo,
+    // a sessão é encerrada com erro e o worker precisa se reconectar.
+    private static final long PRAZO_ENVIO_MS = Long.getLong("orquestrador.sessao.envio.ms", 5000);
+    // Intervalo máximo entre as verificações de prontidão do stream.
+    private static final long INTERVALO_ESPERA_MS = 100;
+
+    private final String workerId;
+    // Lado de envio do stream (orquestrador -> worker).
+    private final StreamObserver<MensagemOrquestrador> saida;
+    // Sinalizado pelo onReadyHandler do stream quando o transporte volta a aceitar mensagens.
+    private final Object pronto;
+    // Indica se a sessão ainda está aberta.
+    private volatile boolean ativa = true;
+
+    /**
+     * @param pronto Objeto notificado (notifyAll) pelo onReadyHandler do stream, registrado ao abrir a chamada.
+     */
+    public SessaoWorker(String workerId, StreamObserver<MensagemOrquestrador> saida, Object pronto) {
+        this.workerId = workerId;
+        this.saida = saida;
+        this.pronto = pronto;
+    }
+
+    /**
+     * Envia uma mensagem ao worker pelo stream, aguardando até PRAZO_ENVIO_MS que o transporte aceite mais mensagens.
+     * @param mensagem A mensagem a ser enviada.
+     * @return true se a mensagem foi entregue ao stream, false se a sessão já estava encerrada, falhou ou travou.
+     */
+    public synchronized boolean enviar(MensagemOrquestrador mensagem) {
+        if (!ativa) {
+            return false;
+        }
+        try {
+            if (!aguardarEnvioLiberado()) {
+                if (ativa) {
+                    // O worker não consumiu o stream dentro do prazo: encerra a sessão para que ele se reconecte.
+                    ativa = false;
+                    saida.onError(Status.UNAVAILABLE.withDescription("O worker não consumiu as mensagens da sessão a tempo.").asRuntimeException());
+                }
+                return false;
+            }
+            saida.onNext(mensagem);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            // Uma falha no envio indica que o stream foi cancelado pelo transporte.
+            ativa = false;
+            return false;
+        }
+    }
+
+    /**
+     * Bloqueia até que o transporte aceite mais mensagens, a sessão seja encerrada ou o prazo termine.
+     * @return true se o envio está liberado.
+     */
+    private boolean aguardarEnvioLiberado() throws InterruptedException {
+        if (!(saida instanceof ServerCallStreamObserver)) {
+            return true;
+        }
+        ServerCallStreamObserver<MensagemOrquestrador> stream = (ServerCallStreamObserver<MensagemOrquestrador>) saida;
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PRAZO_ENVIO_MS);
+        synchronized (pronto) {
+            while (!stream.isReady() && ativa) {
+                long restanteMs = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+                if (restanteMs <= 0) {
+                    return false;
+                }
+                // A espera tem limite para não depender de uma única notificação do gRPC.
+                pronto.wait(Math.min(restanteMs, INTERVALO_ESPERA_MS));
+            }
+        }
+        return ativa;
+    }
+
+    /**
+     * Encerra a sessão do lado do orquestrador, completando o stream uma única vez.
+     */
+    public synchronized void encerrar() {
+        if (ativa) {
+            ativa = false;
+            try {
+                saida.onCompleted();
+            } catch (Exception e) {
+                // O stream já pode ter sido cancelado pelo transporte; não há nada a fazer.
+            }
+        }
+    }
+
+    /**
+     * Marca a sessão como encerrada sem tentar fechar o stream (usado quando o próprio stream falhou).
+     */
+    public void marcarEncerrada() {
+        ativa = false;
+    }
+
+    public String getWorkerId() { return workerId; }
+    public boolean isAtiva() { return ativa; }
+}
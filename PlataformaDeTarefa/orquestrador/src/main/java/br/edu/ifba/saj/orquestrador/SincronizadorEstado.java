@@ -1,41 +1,104 @@
 // Define o pacote ao qual esta classe pertence.
 package br.edu.ifba.saj.orquestrador;
 
-// Importa a biblioteca Gson para serializar (converter para JSON) e desserializar (converter de JSON) objetos Java.
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+// Importa as mensagens de replicação geradas a partir do proto.
+import br.edu.ifba.saj.protocolo.OperacaoReplicacao;
+import br.edu.ifba.saj.protocolo.PacoteReplicacao;
 
 // Importa classes do Java para manipulação de I/O (Input/Output) e rede.
 import java.io.IOException;
-import java.lang.reflect.Type;
-import java.net.DatagramPacket;
 import java.net.InetAddress;
-import java.net.MulticastSocket;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.file.Path;
 // Importa classes de coleções do Java, concorrência e utilitários.
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.TreeMap;
 import java.util.function.Consumer;
 
 /**
  * Classe responsável pela sincronização de estado entre o orquestrador primário e o de backup.
  * Ela opera em uma thread separada e pode tanto transmitir o estado (no primário) quanto recebê-lo (no backup).
  * A comunicação é feita via UDP Multicast, que é eficiente para enviar dados para um grupo de nós.
+ * O primário transmite as operações do LogReplicacao (apenas o que mudou), numeradas em sequência; o backup
+ * as aplica de forma incremental e detecta pacotes perdidos por lacunas na numeração. Um snapshot completo
+ * é transmitido periodicamente como ponto de ressincronização.
+ * As mensagens são codificadas em protobuf (CodecReplicacao), com compressão Deflate acima de um limiar.
+ * Cada mensagem é dividida em fragmentos numerados e verificados por CRC32 (FragmentosReplicacao), de modo
+ * que um snapshot pode ser maior que um datagrama UDP. O backup remonta as mensagens e pede ao primário,
+ * com um NACK, os fragmentos que não chegaram; o primário guarda as mensagens recentes para reenviá-los.
+ * Os IDs das mensagens são consecutivos: um ID pulado revela uma mensagem perdida por inteiro, que o backup pede
+ * de volta com um NACK sem índices. As mensagens são processadas na ordem dos IDs; as que chegam depois de uma
+ * lacuna esperam o reenvio da que falta (ou que ela seja abandonada) para não serem descartadas como fora de sequência.
+ * O transporte usa DatagramChannels (NIO) persistentes, abertos uma única vez em cada lado, e ByteBuffers diretos
+ * reutilizados em cada envio e recebimento: os fragmentos são escritos direto no buffer de envio e as mensagens
+ * de um único fragmento são decodificadas direto do buffer de recepção, sem cópias nem objetos por datagrama.
  */
 public class SincronizadorEstado extends Thread {
     // Constantes estáticas para a configuração da comunicação multicast.
     private static final String MULTICAST_ADDRESS = "230.0.0.0"; // Endereço IP padrão para multicast.
     private static final int PORT = 4446; // Porta utilizada para a comunicação.
     private static final int MAX_PACKET_SIZE = 65507; // Tamanho máximo de um pacote UDP.
+    // Porta em que o primário recebe os pedidos de reenvio de fragmentos, configurável com -Dorquestrador.replicacao.porta.nack.
+    private static final int PORTA_NACK = Integer.getInteger("orquestrador.replicacao.porta.nack", 4447);
+    private static final int TAMANHO_BUFFER_RECEPCAO = 4 * 1024 * 1024; // Um snapshot chega como uma rajada de fragmentos.
+    private static final long INTERVALO_NACK_MS = 200; // Espera sem novos fragmentos antes de pedir os faltantes.
+    private static final int MAX_TENTATIVAS_NACK = 5; // Pedidos de reenvio antes de desistir de uma mensagem.
+    private static final int MAX_REMONTAGENS = 8; // Mensagens incompletas mantidas ao mesmo tempo pelo backup.
+    private static final int MENSAGENS_RETIDAS = 32; // Mensagens recentes guardadas pelo primário para reenvio.
+    // Interface de rede usada no multicast. Configurável com -Dorquestrador.replicacao.interface=<nome>.
+    private static final String INTERFACE_REPLICACAO = System.getProperty("orquestrador.replicacao.interface");
 
-    // Instância da biblioteca Gson para manipulação de JSON.
-    private final Gson gson = new Gson();
     // Referências para os mapas de estado que serão sincronizados.
     private final Map<String, Long> estadoWorkers;
-    private final Map<String, Tarefa> bancoDeTarefas;
+    private final RepositorioTarefas bancoDeTarefas;
     private final Map<String, String> sessoesAtivas;
 
     // Armazena o timestamp do último pacote de estado recebido, usado pelo backup para detectar falhas do primário.
     private volatile long ultimoEstadoRecebido = System.currentTimeMillis();
+    // Recepção: época do log do primário e número de sequência da última operação aplicada.
+    private long epocaRecebida = 0;
+    private long ultimaSequenciaAplicada = 0;
+    // Recepção: enquanto true, os lotes são descartados até a chegada de um snapshot (início ou lacuna detectada).
+    private boolean aguardandoSnapshot = true;
+    // Recepção: mensagens em remontagem (inclusive as perdidas por inteiro, ainda sem nenhum fragmento).
+    private final Map<Long, FragmentosReplicacao.Remontagem> remontagens = new LinkedHashMap<>();
+    // Recepção: ID da próxima mensagem a processar (-1 antes da primeira) e mensagens completas que chegaram depois
+    // de uma lacuna, à espera das anteriores.
+    private long proximaMensagem = -1;
+    private final TreeMap<Long, ByteBuffer> foraDeOrdem = new TreeMap<>();
+    // Recepção: endereço do primário e destino dos NACKs (o endereço do primário na PORTA_NACK).
+    private InetAddress enderecoPrimario;
+    private InetSocketAddress destinoNack;
+    // Transmissão: número de sequência da última operação transmitida, enviado nos pacotes sem operações.
+    private long ultimaSequenciaTransmitida = 0;
+    // Transmissão: canal de envio, grupo multicast (endereço e porta) e ID da próxima mensagem.
+    private DatagramChannel canalTransmissao;
+    private InetSocketAddress destinoGrupo;
+    private long proximoIdMensagem = System.currentTimeMillis() * 1000;
+    // Transmissão: buffer direto em que cada fragmento é escrito antes do envio (usado só pela thread de transmissão).
+    private final ByteBuffer bufferEnvio = ByteBuffer.allocateDirect(FragmentosReplicacao.TAMANHO_CABECALHO + FragmentosReplicacao.TAMANHO_FRAGMENTO);
+    // Transmissão: mensagens recentes já codificadas; os fragmentos pedidos pelo backup são reescritos a partir delas.
+    private final Map<Long, byte[]> mensagensRecentes = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> maisAntiga) {
+            return size() > MENSAGENS_RETIDAS;
+        }
+    };
     // Callbacks para interagir com a UI.
     private Consumer<String> logCallback;
     private Runnable syncCallback;
@@ -43,10 +106,10 @@ public class SincronizadorEstado extends Thread {
     /**
      * Construtor da classe.
      * @param estadoWorkers Referência para o mapa de workers. Se for null, atua apenas como transmissor.
-     * @param bancoDeTarefas Referência para o mapa de tarefas.
+     * @param bancoDeTarefas Referência para o repositório de tarefas.
      * @param sessoesAtivas Referência para o mapa de sessões ativas.
      */
-    public SincronizadorEstado(Map<String, Long> estadoWorkers, Map<String, Tarefa> bancoDeTarefas, Map<String, String> sessoesAtivas) {
+    public SincronizadorEstado(Map<String, Long> estadoWorkers, RepositorioTarefas bancoDeTarefas, Map<String, String> sessoesAtivas) {
         this.estadoWorkers = estadoWorkers;
         this.bancoDeTarefas = bancoDeTarefas;
         this.sessoesAtivas = sessoesAtivas;
@@ -72,17 +135,31 @@ public class SincronizadorEstado extends Thread {
      * Este é o modo de operação do orquestrador de backup.
      */
     private void executarModoRecepcao() {
-        // O try-with-resources garante que o socket será fechado automaticamente.
-        try (MulticastSocket socket = new MulticastSocket(PORT)) {
-            InetAddress group = InetAddress.getByName(MULTICAST_ADDRESS);
-            socket.joinGroup(group); // Entra no grupo multicast para receber os pacotes.
+        // O try-with-resources garante que o canal e o seletor serão fechados automaticamente.
+        try (DatagramChannel canal = DatagramChannel.open(StandardProtocolFamily.INET);
+             Selector seletor = Selector.open()) {
+            canal.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            canal.setOption(StandardSocketOptions.SO_RCVBUF, TAMANHO_BUFFER_RECEPCAO);
+            canal.bind(new InetSocketAddress(PORT));
+            canal.join(InetAddress.getByName(MULTICAST_ADDRESS), escolherInterface()); // Entra no grupo multicast.
+            canal.configureBlocking(false);
+            canal.register(seletor, SelectionKey.OP_READ);
             log("📡 Sincronizador em modo RECEPÇÃO iniciado. Escutando...");
-            byte[] buffer = new byte[MAX_PACKET_SIZE];
-            // Loop que bloqueia na chamada socket.receive() até que um pacote chegue.
+            // Buffers diretos reutilizados em todos os datagramas recebidos e em todos os NACKs enviados.
+            ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+            ByteBuffer bufferNack = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
             while (!isInterrupted()) {
-                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
-                socket.receive(packet); // Espera por um pacote.
-                processarPacoteRecebido(packet); // Processa o pacote recebido.
+                // A espera limitada permite pedir os fragmentos faltantes mesmo quando nada mais chega.
+                seletor.select(INTERVALO_NACK_MS);
+                seletor.selectedKeys().clear();
+                SocketAddress origem;
+                // Consome todos os datagramas disponíveis antes de voltar a esperar.
+                while ((origem = canal.receive(buffer.clear())) != null) {
+                    // Após o failover este nó passa a transmitir; um pacote recebido depois da interrupção não é aplicado.
+                    if (isInterrupted()) return;
+                    processarFragmento(buffer.flip(), (InetSocketAddress) origem); // Processa o fragmento recebido.
+                }
+                pedirFragmentosFaltantes(canal, bufferNack);
             }
         } catch (Exception e) {
             // Se um erro ocorrer e a thread não tiver sido interrompida, registra o erro.
@@ -93,44 +170,160 @@ public class SincronizadorEstado extends Thread {
     }
 
     /**
-     * Desserializa o pacote UDP recebido (JSON) e atualiza os mapas de estado locais.
-     * @param packet O pacote de dados recebido.
+     * Verifica um fragmento recebido e o junta à remontagem da sua mensagem; quando a mensagem fica completa, processa-a.
+     * Fragmentos corrompidos são descartados e voltam a ser pedidos como faltantes.
+     * @param datagrama O datagrama recebido (válido apenas até o próximo recebimento).
+     * @param origem O endereço de quem enviou o datagrama.
      */
-    private void processarPacoteRecebido(DatagramPacket packet) {
-        try {
-            // Converte o array de bytes do pacote para uma string JSON.
-            String dadosRecebidos = new String(packet.getData(), 0, packet.getLength());
-            // Define o tipo de objeto que o Gson deve esperar ao desserializar o JSON.
-            Type tipo = new TypeToken<EstadoSincronizado>() {}.getType();
-            // Converte a string JSON para um objeto Java `EstadoSincronizado`.
-            EstadoSincronizado estadoRecebido = gson.fromJson(dadosRecebidos, tipo);
-
-            // Atualiza os mapas de estado locais com os dados recebidos.
-            // Os blocos `synchronized` garantem que a atualização seja atômica e segura entre threads.
-            if (estadoWorkers != null && estadoRecebido.workers != null) {
-                synchronized (estadoWorkers) {
-                    estadoWorkers.clear();
-                    estadoWorkers.putAll(estadoRecebido.workers);
-                }
+    void processarFragmento(ByteBuffer datagrama, InetSocketAddress origem) {
+        if (!datagrama.hasRemaining() || datagrama.get() != FragmentosReplicacao.TIPO_FRAGMENTO) return;
+        FragmentosReplicacao.Fragmento fragmento = FragmentosReplicacao.lerFragmento(datagrama);
+        if (fragmento == null) return;
+        long idMensagem = fragmento.idMensagem;
+        if (!origem.getAddress().equals(enderecoPrimario)) {
+            enderecoPrimario = origem.getAddress();
+            destinoNack = new InetSocketAddress(enderecoPrimario, PORTA_NACK);
+            recomecarNumeracao(idMensagem);
+        } else if (idMensagem - proximaMensagem >= MENSAGENS_RETIDAS) {
+            // Um salto maior do que o primário guarda (ex: o primário foi reiniciado): as mensagens puladas não
+            // podem mais ser pedidas, e a numeração de sequência das operações revela o que se perdeu.
+            recomecarNumeracao(idMensagem);
+        }
+        // Já processada, ou já completa à espera das anteriores (fragmento reenviado em duplicidade).
+        if (idMensagem < proximaMensagem || foraDeOrdem.containsKey(idMensagem)) return;
+        // Os IDs pulados são de mensagens perdidas por inteiro: passam a ser pedidas como qualquer remontagem.
+        for (long pulada = proximaMensagem; pulada < idMensagem; pulada++) {
+            if (pulada >= proximaMensagem && !remontagens.containsKey(pulada) && !foraDeOrdem.containsKey(pulada)) {
+                iniciarRemontagem(new FragmentosReplicacao.Remontagem(pulada));
             }
-            if (bancoDeTarefas != null && estadoRecebido.tarefas != null) {
-                synchronized (bancoDeTarefas) {
-                    bancoDeTarefas.clear();
-                    bancoDeTarefas.putAll(estadoRecebido.tarefas);
-                }
+        }
+
+        // Mensagens de um único fragmento (a maioria dos lotes) não passam pela remontagem: na ordem, são
+        // decodificadas direto do buffer de recepção.
+        if (fragmento.total == 1) {
+            remontagens.remove(idMensagem);
+            entregar(idMensagem, fragmento.conteudo);
+            return;
+        }
+        FragmentosReplicacao.Remontagem remontagem = remontagens.get(idMensagem);
+        if (remontagem == null) {
+            remontagem = new FragmentosReplicacao.Remontagem(idMensagem, fragmento.total);
+            iniciarRemontagem(remontagem);
+        }
+        remontagem.adicionar(fragmento);
+        if (remontagem.isCompleta()) {
+            remontagens.remove(idMensagem);
+            entregar(idMensagem, remontagem.juntar());
+        }
+    }
+
+    /**
+     * Passa a contar os IDs a partir da mensagem informada, descartando as remontagens e as mensagens em espera.
+     */
+    private void recomecarNumeracao(long idMensagem) {
+        remontagens.clear();
+        foraDeOrdem.clear();
+        proximaMensagem = idMensagem;
+    }
+
+    /**
+     * Registra uma remontagem, abandonando a mais antiga se houver mais de MAX_REMONTAGENS.
+     */
+    private void iniciarRemontagem(FragmentosReplicacao.Remontagem remontagem) {
+        remontagens.put(remontagem.idMensagem, remontagem);
+        if (remontagens.size() > MAX_REMONTAGENS) {
+            // Descarta a remontagem mais antiga; a numeração das operações revela o que ela trazia.
+            Iterator<Long> maisAntiga = remontagens.keySet().iterator();
+            maisAntiga.next();
+            maisAntiga.remove();
+            processarEmOrdem();
+        }
+    }
+
+    /**
+     * Processa uma mensagem completa se for a próxima; senão, guarda uma cópia até as anteriores chegarem.
+     * @param conteudo A mensagem (pode ser uma visão do buffer de recepção, válida só até o próximo datagrama).
+     */
+    private void entregar(long idMensagem, ByteBuffer conteudo) {
+        if (idMensagem != proximaMensagem) {
+            ByteBuffer copia = ByteBuffer.allocate(conteudo.remaining());
+            foraDeOrdem.put(idMensagem, copia.put(conteudo).flip());
+            return;
+        }
+        processarMensagem(conteudo);
+        proximaMensagem++;
+        processarEmOrdem();
+    }
+
+    /**
+     * Processa as mensagens em espera que já estão na vez. Uma mensagem que falta e não está mais em remontagem
+     * foi abandonada: é pulada, e a lacuna, se houver, aparece na numeração das operações.
+     */
+    private void processarEmOrdem() {
+        while (!foraDeOrdem.isEmpty()) {
+            ByteBuffer pronta = foraDeOrdem.remove(proximaMensagem);
+            if (pronta != null) {
+                processarMensagem(pronta);
+            } else if (remontagens.containsKey(proximaMensagem)) {
+                return; // Ainda à espera do reenvio.
             }
-            if (sessoesAtivas != null && estadoRecebido.sessoes != null) {
-                synchronized (sessoesAtivas) {
-                    sessoesAtivas.clear();
-                    sessoesAtivas.putAll(estadoRecebido.sessoes);
-                }
+            proximaMensagem++;
+        }
+    }
+
+    /**
+     * Envia ao primário um NACK para cada mensagem que está sem receber fragmentos há mais de INTERVALO_NACK_MS
+     * (sem índices, se nenhum fragmento dela chegou). Após MAX_TENTATIVAS_NACK pedidos sem sucesso a mensagem é
+     * abandonada e as que esperavam por ela são processadas.
+     * @param canal O canal de recepção, também usado para enviar os NACKs.
+     * @param bufferNack O buffer reutilizado para escrever cada NACK.
+     */
+    void pedirFragmentosFaltantes(DatagramChannel canal, ByteBuffer bufferNack) {
+        if (remontagens.isEmpty() || destinoNack == null) return;
+        long agora = System.currentTimeMillis();
+        boolean abandonou = false;
+        Iterator<FragmentosReplicacao.Remontagem> iterador = remontagens.values().iterator();
+        while (iterador.hasNext()) {
+            FragmentosReplicacao.Remontagem remontagem = iterador.next();
+            if (agora - remontagem.ultimaAtividade < INTERVALO_NACK_MS) continue;
+            if (remontagem.tentativas >= MAX_TENTATIVAS_NACK) {
+                iterador.remove();
+                abandonou = true;
+                log("⚠️ Mensagem de replicação " + remontagem.idMensagem + " abandonada: fragmentos não recebidos após " + MAX_TENTATIVAS_NACK + " pedidos.");
+                continue;
+            }
+            FragmentosReplicacao.escreverNack(bufferNack, remontagem.idMensagem, remontagem.faltantes());
+            try {
+                canal.send(bufferNack, destinoNack);
+            } catch (IOException e) {
+                // O pedido é repetido no próximo intervalo.
+            }
+            remontagem.tentativas++;
+            remontagem.ultimaAtividade = agora;
+        }
+        if (abandonou) {
+            processarEmOrdem();
+        }
+    }
+
+    /**
+     * Decodifica uma mensagem remontada (protobuf) e aplica o snapshot ou o lote de operações ao estado local.
+     * @param conteudo A mensagem (pode ser uma visão do buffer de recepção, lida sem cópia).
+     */
+    private void processarMensagem(ByteBuffer conteudo) {
+        try {
+            PacoteReplicacao pacote = CodecReplicacao.decodificar(conteudo);
+
+            if (pacote.getSnapshot()) {
+                aplicarSnapshot(pacote);
+            } else {
+                aplicarLote(pacote);
             }
-            // Atualiza o timestamp do último estado recebido.
+            // Qualquer pacote válido indica que o primário está vivo.
             ultimoEstadoRecebido = System.currentTimeMillis();
 
             // Dispara os callbacks para notificar a UI sobre a sincronização bem-sucedida.
             if(syncCallback != null) syncCallback.run();
-            log("Estado sincronizado recebido do Orquestrador Primário.");
 
         } catch (Exception e) {
             log("⚠️ Erro ao processar pacote de sincronização: " + e.getMessage());
@@ -138,30 +331,284 @@ public class SincronizadorEstado extends Thread {
     }
 
     /**
-     * Serializa o estado atual do sistema para JSON e o transmite via UDP multicast.
-     * Este é o modo de operação do orquestrador primário.
+     * Substitui o estado local pelo snapshot recebido e retoma a aplicação das operações a partir dele.
+     */
+    private void aplicarSnapshot(PacoteReplicacao pacote) {
+        // Um snapshot que chega atrasado (ex: remontado após reenvios) não pode desfazer operações já aplicadas.
+        if (!aguardandoSnapshot && pacote.getEpoca() == epocaRecebida && pacote.getSequencia() <= ultimaSequenciaAplicada) return;
+        aplicarEstado(pacote, estadoWorkers, bancoDeTarefas, sessoesAtivas);
+        if (aguardandoSnapshot) {
+            log("Snapshot recebido do Orquestrador Primário (sequência " + pacote.getSequencia() + ").");
+        }
+        epocaRecebida = pacote.getEpoca();
+        ultimaSequenciaAplicada = pacote.getSequencia();
+        aguardandoSnapshot = false;
+    }
+
+    /**
+     * Aplica, em ordem, as operações ainda não aplicadas de um lote. Uma lacuna na numeração indica pacotes
+     * perdidos: as operações seguintes são descartadas até o próximo snapshot.
      */
-    public void transmitirEstado(Map<String, Long> currentWorkers, Map<String, Tarefa> currentTarefas, Map<String, String> currentSessoes) {
-        try (MulticastSocket socket = new MulticastSocket()) {
-            InetAddress group = InetAddress.getByName(MULTICAST_ADDRESS);
-            // Cria um objeto DTO (Data Transfer Object) para encapsular o estado a ser transmitido.
-            EstadoSincronizado estadoAtual = new EstadoSincronizado();
-            estadoAtual.workers = new ConcurrentHashMap<>(currentWorkers);
-            estadoAtual.tarefas = new ConcurrentHashMap<>(currentTarefas);
-            estadoAtual.sessoes = new ConcurrentHashMap<>(currentSessoes);
+    private void aplicarLote(PacoteReplicacao pacote) {
+        if (aguardandoSnapshot) return;
+        if (pacote.getEpoca() != epocaRecebida) {
+            // O primário foi reiniciado (ou outro assumiu): a numeração recomeçou.
+            marcarLacuna("o log do primário mudou de época");
+            return;
+        }
+        for (OperacaoReplicacao operacao : pacote.getOperacoesList()) {
+            if (operacao.getSequencia() <= ultimaSequenciaAplicada) continue; // Já aplicada (ex: contida no snapshot).
+            if (operacao.getSequencia() != ultimaSequenciaAplicada + 1) {
+                marcarLacuna("esperada a sequência " + (ultimaSequenciaAplicada + 1) + ", recebida " + operacao.getSequencia());
+                return;
+            }
+            if (!aplicarOperacao(operacao, pacote.getDicionarioMap())) {
+                marcarLacuna("operação " + operacao.getSequencia() + " sobre a tarefa desconhecida " + operacao.getTarefa().getId());
+                return;
+            }
+            ultimaSequenciaAplicada = operacao.getSequencia();
+        }
+        // Um pacote sem operações informa a última sequência transmitida, revelando lotes perdidos.
+        if (pacote.getSequencia() > ultimaSequenciaAplicada) {
+            marcarLacuna("o primário já transmitiu até a sequência " + pacote.getSequencia());
+        }
+    }
 
-            // Converte o objeto de estado para uma string JSON.
-            String jsonEstado = gson.toJson(estadoAtual);
-            byte[] dados = jsonEstado.getBytes();
+    /**
+     * Aplica uma operação do log ao estado local.
+     * @param dicionario O dicionário da mensagem, que resolve os códigos de usuário e de worker das tarefas.
+     * @return false se a operação não pôde ser aplicada (estado local divergente).
+     */
+    private boolean aplicarOperacao(OperacaoReplicacao operacao, Map<Integer, String> dicionario) {
+        switch (operacao.getTipo()) {
+            case TAREFA_CRIADA:
+                if (bancoDeTarefas != null) {
+                    bancoDeTarefas.adicionar(CodecReplicacao.deProto(operacao.getTarefa(), dicionario));
+                }
+                return true;
+            case STATUS_ALTERADO:
+                if (bancoDeTarefas != null) {
+                    Tarefa tarefa = bancoDeTarefas.obter(operacao.getTarefa().getId());
+                    if (tarefa == null) return false;
+                    bancoDeTarefas.transicionar(tarefa, CodecReplicacao.deProto(operacao.getTarefa().getStatus()),
+                            CodecReplicacao.workerDe(operacao.getTarefa(), dicionario));
+                }
+                return true;
+            case TAREFA_ARQUIVADA:
+                // O histórico em disco é do primário; aqui a tarefa apenas sai da memória.
+                if (bancoDeTarefas != null) {
+                    bancoDeTarefas.arquivar(operacao.getTarefa().getId());
+                }
+                return true;
+            case WORKER_ENTROU:
+                if (estadoWorkers != null) estadoWorkers.put(operacao.getWorkerId(), operacao.getTimestamp());
+                return true;
+            case WORKER_SAIU:
+                if (estadoWorkers != null) estadoWorkers.remove(operacao.getWorkerId());
+                return true;
+            case SESSAO_ADICIONADA:
+                if (sessoesAtivas != null) sessoesAtivas.put(operacao.getTokenSessao(), operacao.getUsuarioId());
+                return true;
+            default:
+                return true;
+        }
+    }
 
-            // Cria e envia o pacote UDP multicast.
-            DatagramPacket packet = new DatagramPacket(dados, dados.length, group, PORT);
-            socket.send(packet);
+    /**
+     * Semeia o estado local com o snapshot mais recente gravado em disco por um primário (o diretório do journal,
+     * ou uma cópia dele), antes de a recepção começar. Os lotes só passam a ser aplicados depois do primeiro
+     * snapshot recebido do primário, que reconcilia apenas as diferenças.
+     * @return true se um snapshot foi carregado.
+     */
+    public boolean semearComSnapshotLocal(Path diretorio) {
+        try {
+            SnapshotEstado.Carregado carregado = SnapshotEstado.carregarUltimo(diretorio);
+            if (carregado == null) return false;
+            aplicarEstado(carregado.pacote, estadoWorkers, bancoDeTarefas, sessoesAtivas);
+            log("Estado semeado com o snapshot local (" + carregado.pacote.getTarefasCount() + " tarefas).");
+            return true;
+        } catch (IOException e) {
+            log("⚠️ Snapshot local não carregado: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Aplica um snapshot ao estado informado (cada parte pode ser null). O snapshot é aplicado no lugar, apenas com
+     * as diferenças: os mapas são concorrentes e as leituras (ou uma promoção a primário no meio da aplicação)
+     * nunca os encontram vazios ou bloqueados.
+     */
+    static void aplicarEstado(PacoteReplicacao pacote, Map<String, Long> workers, RepositorioTarefas bancoDeTarefas, Map<String, String> sessoes) {
+        if (workers != null) {
+            reconciliar(workers, pacote.getWorkersMap());
+        }
+        if (bancoDeTarefas != null) {
+            Map<String, Tarefa> tarefas = new HashMap<>(pacote.getTarefasCount() * 2);
+            Map<Integer, String> dicionario = pacote.getDicionarioMap();
+            pacote.getTarefasList().forEach(replicada -> tarefas.put(replicada.getId(), CodecReplicacao.deProto(replicada, dicionario)));
+            // A reconciliação mantém os índices secundários e o feed de alterações do repositório.
+            bancoDeTarefas.reconciliar(tarefas);
+        }
+        if (sessoes != null) {
+            reconciliar(sessoes, pacote.getSessoesMap());
+        }
+    }
+
+    /**
+     * Torna um mapa local igual ao recebido sem esvaziá-lo: grava as entradas recebidas e só depois remove as ausentes.
+     */
+    static <V> void reconciliar(Map<String, V> local, Map<String, V> recebido) {
+        local.putAll(recebido);
+        local.keySet().retainAll(recebido.keySet());
+    }
+
+    private void marcarLacuna(String motivo) {
+        aguardandoSnapshot = true;
+        log("⚠️ Lacuna na replicação (" + motivo + "). Aguardando o próximo snapshot.");
+    }
+
+    /**
+     * Prepara o modo de transmissão: abre o canal de envio, que permanece aberto, e inicia a thread que atende
+     * os pedidos de reenvio (NACKs) do backup. Este é o modo de operação do orquestrador primário.
+     */
+    public void iniciarTransmissor() {
+        try {
+            canalTransmissao = DatagramChannel.open(StandardProtocolFamily.INET);
+            canalTransmissao.setOption(StandardSocketOptions.IP_MULTICAST_IF, escolherInterface());
+            destinoGrupo = new InetSocketAddress(InetAddress.getByName(MULTICAST_ADDRESS), PORT);
+        } catch (IOException e) {
+            log("💥 Erro ao abrir o canal de transmissão: " + e.getMessage());
+            return;
+        }
+        Thread atendente = new Thread(this::atenderPedidosDeReenvio, "SincronizadorEstado-Nack-Thread");
+        atendente.setDaemon(true);
+        atendente.start();
+    }
+
+    /**
+     * Recebe os NACKs do backup e reenvia os fragmentos pedidos, se a mensagem ainda estiver guardada.
+     */
+    private void atenderPedidosDeReenvio() {
+        try (DatagramChannel canal = DatagramChannel.open(StandardProtocolFamily.INET)) {
+            canal.bind(new InetSocketAddress(PORTA_NACK));
+            // Buffers diretos desta thread: um para os NACKs recebidos e outro para os fragmentos reenviados.
+            ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+            ByteBuffer bufferReenvio = ByteBuffer.allocateDirect(FragmentosReplicacao.TAMANHO_CABECALHO + FragmentosReplicacao.TAMANHO_FRAGMENTO);
+            while (!Thread.currentThread().isInterrupted()) {
+                canal.receive(buffer.clear());
+                buffer.flip();
+                if (!buffer.hasRemaining() || buffer.get() != FragmentosReplicacao.TIPO_NACK) continue;
+                FragmentosReplicacao.Nack nack = FragmentosReplicacao.lerNack(buffer);
+                if (nack == null) continue;
+                byte[] mensagem;
+                synchronized (mensagensRecentes) {
+                    mensagem = mensagensRecentes.get(nack.idMensagem);
+                }
+                if (mensagem == null) continue; // Mensagem antiga demais; o próximo snapshot ressincroniza o backup.
+                int total = FragmentosReplicacao.totalFragmentos(mensagem.length);
+                if (nack.indices.isEmpty()) {
+                    // A mensagem inteira se perdeu: reenvia todos os fragmentos.
+                    for (int indice = 0; indice < total; indice++) {
+                        FragmentosReplicacao.escreverFragmento(bufferReenvio, nack.idMensagem, mensagem, indice);
+                        enviarDatagrama(bufferReenvio);
+                    }
+                    continue;
+                }
+                for (int indice : nack.indices) {
+                    if (indice >= 0 && indice < total) {
+                        FragmentosReplicacao.escreverFragmento(bufferReenvio, nack.idMensagem, mensagem, indice);
+                        enviarDatagrama(bufferReenvio);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log("⚠️ Pedidos de reenvio desativados: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Transmite as operações registradas desde a última transmissão, numeradas em sequência.
+     * Sem operações pendentes, envia uma mensagem vazia que serve como sinal de vida e informa a última sequência.
+     */
+    public void transmitirAlteracoes(LogReplicacao logReplicacao) {
+        List<OperacaoReplicacao> operacoes = logReplicacao.retirarPendentes();
+        if (!operacoes.isEmpty()) {
+            ultimaSequenciaTransmitida = operacoes.get(operacoes.size() - 1).getSequencia();
+        }
+        enviarMensagem(CodecReplicacao.comDicionario(PacoteReplicacao.newBuilder()
+                .setEpoca(logReplicacao.getEpoca())
+                .setSequencia(ultimaSequenciaTransmitida)
+                .addAllOperacoes(operacoes))
+                .build());
+    }
+
+    /**
+     * Serializa o estado completo e o transmite como snapshot, ponto de ressincronização do backup.
+     */
+    public void transmitirSnapshot(LogReplicacao logReplicacao, Map<String, Long> currentWorkers, Collection<Tarefa> currentTarefas, Map<String, String> currentSessoes) {
+        // As operações pendentes já estão refletidas no estado copiado abaixo.
+        logReplicacao.retirarPendentes();
+        // A sequência é lida antes da cópia: o snapshot contém pelo menos todas as operações até ela.
+        long sequencia = logReplicacao.getUltimaSequencia();
+        // Monta a mensagem com o estado completo a ser transmitido.
+        PacoteReplicacao pacote = CodecReplicacao.snapshot(currentWorkers, currentTarefas, currentSessoes)
+                .setEpoca(logReplicacao.getEpoca())
+                .setSequencia(sequencia)
+                .build();
+        enviarMensagem(pacote);
+        ultimaSequenciaTransmitida = sequencia;
+    }
+
+    /**
+     * Codifica o pacote, divide-o em fragmentos e os envia via UDP multicast.
+     * A mensagem codificada fica guardada para reenvio enquanto estiver entre as MENSAGENS_RETIDAS mais recentes.
+     */
+    private void enviarMensagem(PacoteReplicacao pacote) {
+        long idMensagem = proximoIdMensagem++;
+        byte[] mensagem = CodecReplicacao.codificar(pacote);
+        synchronized (mensagensRecentes) {
+            mensagensRecentes.put(idMensagem, mensagem);
+        }
+        int total = FragmentosReplicacao.totalFragmentos(mensagem.length);
+        for (int indice = 0; indice < total; indice++) {
+            FragmentosReplicacao.escreverFragmento(bufferEnvio, idMensagem, mensagem, indice);
+            enviarDatagrama(bufferEnvio);
+        }
+    }
+
+    private void enviarDatagrama(ByteBuffer datagrama) {
+        if (canalTransmissao == null) return;
+        try {
+            canalTransmissao.send(datagrama, destinoGrupo);
         } catch (IOException e) {
             // Erros de transmissão UDP são geralmente ignorados em cenários de "dispare e esqueça" como este.
+            // O backup pede de volta os fragmentos que não recebeu.
         }
     }
 
+    /**
+     * Escolhe a interface de rede do multicast: a configurada em orquestrador.replicacao.interface, ou a primeira
+     * interface ativa com suporte a multicast, ou a de loopback (primário e backup na mesma máquina).
+     */
+    private static NetworkInterface escolherInterface() throws SocketException {
+        if (INTERFACE_REPLICACAO != null) {
+            NetworkInterface configurada = NetworkInterface.getByName(INTERFACE_REPLICACAO);
+            if (configurada == null) throw new SocketException("Interface de rede não encontrada: " + INTERFACE_REPLICACAO);
+            return configurada;
+        }
+        NetworkInterface loopback = null;
+        for (NetworkInterface candidata : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+            if (!candidata.isUp() || !candidata.inetAddresses().anyMatch(endereco -> endereco.getAddress().length == 4)) continue;
+            if (candidata.isLoopback()) {
+                loopback = candidata;
+            } else if (candidata.supportsMulticast()) {
+                return candidata;
+            }
+        }
+        if (loopback == null) throw new SocketException("Nenhuma interface de rede disponível para o multicast.");
+        return loopback;
+    }
+
     /**
      * Retorna o timestamp da última vez que um estado foi recebido com sucesso.
      */
@@ -182,13 +629,4 @@ public class SincronizadorEstado extends Thread {
             logCallback.accept(logMessage);
         }
     }
-
-    /**
-     * Classe interna privada que serve como um DTO (Data Transfer Object) para a serialização do estado do sistema.
-     */
-    private static class EstadoSincronizado {
-        public Map<String, Long> workers;
-        public Map<String, Tarefa> tarefas;
-        public Map<String, String> sessoes;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa a mensagem de replicação, reaproveitada como conteúdo do snapshot.
+import br.edu.ifba.saj.protocolo.PacoteReplicacao;
+
+// Importa classes do Java para manipulação de arquivos e verificação de integridade.
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshots em disco do estado completo do orquestrador (tarefas, workers e sessões), gravados junto ao journal.
+ * O arquivo snapshot-N contém o estado até o início do segmento N do journal: ao reiniciar, basta carregar o
+ * snapshot mais recente e reproduzir os segmentos a partir de N, e os segmentos anteriores podem ser apagados.
+ * O conteúdo é o mesmo PacoteReplicacao enviado ao backup (codificado pelo CodecReplicacao, com compressão),
+ * de modo que o arquivo também serve para semear um backup novo.
+ *
+ * Formato do arquivo: [crc32: int][tamanho: int][mensagem codificada]. O arquivo é gravado com outro nome,
+ * sincronizado com o disco e só então renomeado, para que um snapshot incompleto nunca seja encontrado.
+ */
+final class SnapshotEstado {
+
+    private static final String PREFIXO = "snapshot-";
+    private static final String EXTENSAO = ".snap";
+    private static final String EXTENSAO_TEMPORARIA = ".tmp";
+
+    private SnapshotEstado() {}
+
+    /**
+     * Snapshot lido do disco e o segmento do journal a partir do qual a reprodução continua.
+     */
+    static final class Carregado {
+        final long segmento;
+        final PacoteReplicacao pacote;
+
+        private Carregado(long segmento, PacoteReplicacao pacote) {
+            this.segmento = segmento;
+            this.pacote = pacote;
+        }
+    }
+
+    /**
+     * Grava o snapshot que cobre o estado até o início do segmento informado.
+     * @throws IOException Se o arquivo não puder ser gravado.
+     */
+    static void gravar(Path diretorio, long segmento, PacoteReplicacao pacote) throws IOException {
+        byte[] mensagem = CodecReplicacao.codificar(pacote);
+        CRC32 crc = new CRC32();
+        crc.update(mensagem);
+        ByteBuffer conteudo = ByteBuffer.allocate(8 + mensagem.length)
+                .putInt((int) crc.getValue())
+                .putInt(mensagem.length)
+                .put(mensagem)
+                .flip();
+        Path destino = diretorio.resolve(nomeDo(segmento));
+        Path temporario = diretorio.resolve(nomeDo(segmento) + EXTENSAO_TEMPORARIA);
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (conteudo.hasRemaining()) {
+                canal.write(conteudo);
+            }
+            canal.force(true);
+        }
+        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Carrega o snapshot válido mais recente do diretório.
+     * @return O snapshot, ou null se não houver nenhum válido.
+     * @throws IOException Se o diretório não puder ser lido.
+     */
+    static Carregado carregarUltimo(Path diretorio) throws IOException {
+        if (!Files.isDirectory(diretorio)) return null;
+        List<Path> snapshots = listar(diretorio);
+        // Do mais recente para o mais antigo: um snapshot corrompido dá lugar ao anterior.
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            PacoteReplicacao pacote = ler(snapshots.get(i));
+            if (pacote != null) {
+                return new Carregado(numeroDo(snapshots.get(i)), pacote);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Apaga os snapshots anteriores ao do segmento informado.
+     */
+    static void apagarAnteriores(Path diretorio, long segmento) throws IOException {
+        for (Path snapshot : listar(diretorio)) {
+            if (numeroDo(snapshot) < segmento) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    private static PacoteReplicacao ler(Path arquivo) {
+        try {
+            ByteBuffer conteudo = ByteBuffer.wrap(Files.readAllBytes(arquivo));
+            if (conteudo.remaining() < 8) return null;
+            int crcEsperado = conteudo.getInt();
+            int tamanho = conteudo.getInt();
+            if (tamanho != conteudo.remaining()) return null;
+            CRC32 crc = new CRC32();
+            crc.update(conteudo.duplicate());
+            if ((int) crc.getValue() != crcEsperado) return null;
+            return CodecReplicacao.decodificar(conteudo);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<Path> listar(Path diretorio) throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                    .filter(arquivo -> {
+                        String nome = arquivo.getFileName().toString();
+                        return nome.startsWith(PREFIXO) && nome.endsWith(EXTENSAO);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static String nomeDo(long segmento) {
+        return String.format("%s%020d%s", PREFIXO, segmento, EXTENSAO);
+    }
+
+    private static long numeroDo(Path snapshot) {
+        String nome = snapshot.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - EXTENSAO.length()));
+    }
+}
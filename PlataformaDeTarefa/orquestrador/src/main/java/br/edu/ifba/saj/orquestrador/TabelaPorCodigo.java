@@ -0,0 +1,56 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa classes de concorrência e utilitários do Java.
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Tabela de valores indexada pelos códigos do DicionarioIds (ex: contador ou conjunto de IDs por worker).
+ * Substitui um mapa com chave String: a busca é um acesso a vetor, sem hash nem comparação de texto.
+ * As leituras não bloqueiam; a criação de um valor (e o crescimento do vetor) é sincronizada.
+ */
+final class TabelaPorCodigo<T> {
+
+    // Cria o valor de um código na primeira vez em que ele é usado.
+    private final Supplier<T> fabrica;
+    // Valores por código (null para os códigos ainda não usados nesta tabela).
+    private volatile AtomicReferenceArray<T> valores = new AtomicReferenceArray<>(16);
+
+    TabelaPorCodigo(Supplier<T> fabrica) {
+        this.fabrica = fabrica;
+    }
+
+    /**
+     * Retorna o valor do código, ou null se ele não tiver valor (ou for DicionarioIds.NENHUM).
+     */
+    T obter(int codigo) {
+        AtomicReferenceArray<T> atuais = valores;
+        return codigo >= 0 && codigo < atuais.length() ? atuais.get(codigo) : null;
+    }
+
+    /**
+     * Retorna o valor do código, criando-o se ainda não existir.
+     */
+    T obterOuCriar(int codigo) {
+        T valor = obter(codigo);
+        return valor != null ? valor : criar(codigo);
+    }
+
+    private synchronized T criar(int codigo) {
+        AtomicReferenceArray<T> atuais = valores;
+        if (codigo >= atuais.length()) {
+            AtomicReferenceArray<T> maiores = new AtomicReferenceArray<>(Math.max(codigo + 1, atuais.length() * 2));
+            for (int i = 0; i < atuais.length(); i++) {
+                maiores.set(i, atuais.get(i));
+            }
+            valores = atuais = maiores;
+        }
+        T valor = atuais.get(codigo);
+        if (valor == null) {
+            valor = fabrica.get();
+            atuais.set(codigo, valor);
+        }
+        return valor;
+    }
+}
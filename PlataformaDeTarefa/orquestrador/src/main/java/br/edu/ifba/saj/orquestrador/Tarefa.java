@@ -10,9 +10,11 @@ public class Tarefa {
     // Atributos que definem o estado de uma tarefa.
     private final String id; // O identificador único da tarefa, gerado no momento da criação. É final, pois não muda.
     private final String dados; // O conteúdo ou descrição da tarefa a ser executada. É final.
-    private final String usuarioId; // O ID do usuário que submeteu a tarefa. É final.
+    // O usuário e o worker são guardados como códigos do DicionarioIds global: o texto de cada ID existe uma só vez
+    // no processo e as comparações são entre inteiros. O texto é resolvido apenas nos getters (borda da API).
+    private final int codigoUsuario; // O código do usuário que submeteu a tarefa. É final.
     private StatusTarefa status; // O status atual da tarefa (ex: AGUARDANDO, EXECUTANDO). Pode ser alterado.
-    private String workerIdAtual; // O ID do worker que está atualmente processando a tarefa. Pode ser alterado.
+    private int codigoWorker = DicionarioIds.NENHUM; // O código do worker que está processando a tarefa. Pode ser alterado.
 
     /**
      * Construtor da classe Tarefa.
@@ -21,32 +23,46 @@ public class Tarefa {
      * @param usuarioId O ID do usuário que criou a tarefa.
      */
     public Tarefa(String id, String dados, String usuarioId) {
+        this(id, dados, DicionarioIds.global().codigo(usuarioId));
+    }
+
+    /**
+     * Cria a tarefa a partir do código do usuário (ex: ao reconstruí-la de um registro compacto).
+     */
+    Tarefa(String id, String dados, int codigoUsuario) {
         this.id = id;
         this.dados = dados;
-        this.usuarioId = usuarioId;
+        this.codigoUsuario = codigoUsuario;
         // Toda nova tarefa começa com o status AGUARDANDO por padrão.
         this.status = StatusTarefa.AGUARDANDO;
     }
 
     // Seção de métodos Getters e Setters para acessar e modificar os atributos da classe.
+    // Os setters são restritos ao pacote: as transições passam por RepositorioTarefas, que mantém os índices.
     public String getId() { return id; }
     public String getDados() { return dados; }
-    public String getUsuarioId() { return usuarioId; }
+    public String getUsuarioId() { return DicionarioIds.global().nome(codigoUsuario); }
     public StatusTarefa getStatus() { return status; }
-    public void setStatus(StatusTarefa status) { this.status = status; }
-    public String getWorkerIdAtual() { return workerIdAtual; }
-    public void setWorkerIdAtual(String workerIdAtual) { this.workerIdAtual = workerIdAtual; }
+    void setStatus(StatusTarefa status) { this.status = status; }
+    public String getWorkerIdAtual() { return DicionarioIds.global().nome(codigoWorker); }
+    void setWorkerIdAtual(String workerIdAtual) { this.codigoWorker = DicionarioIds.global().codigo(workerIdAtual); }
+    // Códigos do usuário e do worker, para os índices, os contadores e a replicação.
+    int getCodigoUsuario() { return codigoUsuario; }
+    int getCodigoWorker() { return codigoWorker; }
+    void setCodigoWorker(int codigoWorker) { this.codigoWorker = codigoWorker; }
 
     /**
      * Extrai a prioridade da tarefa a partir da string de dados.
      * A convenção é que a prioridade esteja no início da string, entre colchetes (ex: "[ALTA]...").
-     * @return O enum Prioridade correspondente. Retorna Prioridade.NORMAL se nenhuma for encontrada ou se for inválida.
+     * @return O enum Prioridade correspondente. Retorna Prioridade.NORMAL se nenhuma for encontrada, se o colchete não
+     *         for fechado ou se for inválida.
      */
     public Prioridade getPrioridade() {
-        // Verifica se a string de dados não é nula e começa com "[".
-        if (dados != null && dados.startsWith("[")) {
+        // Verifica se a string de dados não é nula, começa com "[" e tem o colchete de fechamento.
+        int fechamento = dados != null && dados.startsWith("[") ? dados.indexOf(']') : -1;
+        if (fechamento > 0) {
             // Extrai a string entre os colchetes.
-            String prioridadeStr = dados.substring(1, dados.indexOf("]"));
+            String prioridadeStr = dados.substring(1, fechamento);
             try {
                 // Tenta converter a string extraída (em maiúsculas) para um valor do enum Prioridade.
                 return Prioridade.valueOf(prioridadeStr.toUpperCase());
@@ -69,8 +85,8 @@ public class Tarefa {
         return "Tarefa{" +
                 "id='" + id + '\'' +
                 ", status=" + status +
-                ", workerId='" + workerIdAtual + '\'' +
-                ", usuario='" + usuarioId + '\'' +
+                ", workerId='" + getWorkerIdAtual() + '\'' +
+                ", usuario='" + getUsuarioId() + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.balanceamento;
+
+// Importa o gerador de números aleatórios por thread do Java.
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Política "power of two choices": sorteia dois workers distintos e escolhe o menos carregado.
+ * Tem custo constante por seleção e evita que todos os despachos concorrentes escolham o mesmo worker.
+ */
+public class PoliticaDuasEscolhas implements PoliticaSelecaoWorker {
+
+    public static final String NOME = "duas-escolhas";
+
+    // Política usada quando nenhum dos dois workers sorteados possui crédito livre.
+    private static final PoliticaMenorCarga RESERVA = new PoliticaMenorCarga();
+
+    @Override
+    public String selecionar(TabelaCargaWorkers tabela) {
+        TabelaCargaWorkers.CargaWorker[] workers = tabela.getWorkers();
+        if (workers.length == 0) return null;
+        if (workers.length == 1) return workers[0].temCredito() ? workers[0].getWorkerId() : null;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int primeiro = random.nextInt(workers.length);
+        // Sorteia o segundo entre os demais, garantindo que sejam workers diferentes.
+        int segundo = (primeiro + 1 + random.nextInt(workers.length - 1)) % workers.length;
+
+        TabelaCargaWorkers.CargaWorker a = workers[primeiro];
+        TabelaCargaWorkers.CargaWorker b = workers[segundo];
+        if (!a.temCredito() && !b.temCredito()) {
+            // Nenhum dos sorteados tem crédito: recorre à varredura completa para não deixar a tarefa parada à toa.
+            return RESERVA.selecionar(tabela);
+        }
+        if (!a.temCredito()) return b.getWorkerId();
+        if (!b.temCredito()) return a.getWorkerId();
+        return (b.getEmExecucao() < a.getEmExecucao() ? b : a).getWorkerId();
+    }
+
+    @Override
+    public String getNome() {
+        return NOME;
+    }
+}
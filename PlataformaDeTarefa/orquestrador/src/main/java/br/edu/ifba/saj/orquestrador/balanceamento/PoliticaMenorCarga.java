@@ -0,0 +1,40 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.balanceamento;
+
+// Importa a classe de inteiro atômico do Java.
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Política de menor carga: escolhe, entre os workers com crédito livre, o que tem menos tarefas em execução.
+ * A varredura começa em uma posição rotativa para que os empates sejam distribuídos entre os workers.
+ */
+public class PoliticaMenorCarga implements PoliticaSelecaoWorker {
+
+    public static final String NOME = "menor-carga";
+
+    // Posição inicial da varredura, avançada a cada seleção para desempatar de forma circular.
+    private final AtomicInteger inicio = new AtomicInteger(0);
+
+    @Override
+    public String selecionar(TabelaCargaWorkers tabela) {
+        TabelaCargaWorkers.CargaWorker[] workers = tabela.getWorkers();
+        if (workers.length == 0) return null;
+
+        int deslocamento = Math.floorMod(inicio.getAndIncrement(), workers.length);
+        TabelaCargaWorkers.CargaWorker escolhido = null;
+        for (int i = 0; i < workers.length; i++) {
+            TabelaCargaWorkers.CargaWorker candidato = workers[(deslocamento + i) % workers.length];
+            // Workers sem crédito livre não são considerados.
+            if (!candidato.temCredito()) continue;
+            if (escolhido == null || candidato.getEmExecucao() < escolhido.getEmExecucao()) {
+                escolhido = candidato;
+            }
+        }
+        return escolhido != null ? escolhido.getWorkerId() : null;
+    }
+
+    @Override
+    public String getNome() {
+        return NOME;
+    }
+}
@@ -0,0 +1,37 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.balanceamento;
+
+// Importa a classe de inteiro atômico do Java.
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Política Round Robin: percorre os workers de forma circular, ignorando a carga de cada um.
+ */
+public class PoliticaRoundRobin implements PoliticaSelecaoWorker {
+
+    public static final String NOME = "round-robin";
+
+    // Contador atômico que indica a posição do próximo worker, garantindo a seleção circular thread-safe.
+    private final AtomicInteger proximoIndice = new AtomicInteger(0);
+
+    @Override
+    public String selecionar(TabelaCargaWorkers tabela) {
+        TabelaCargaWorkers.CargaWorker[] workers = tabela.getWorkers();
+        if (workers.length == 0) return null;
+        // floorMod evita índices negativos quando o contador ultrapassa Integer.MAX_VALUE.
+        int inicio = Math.floorMod(proximoIndice.getAndIncrement(), workers.length);
+        // A partir da posição da vez, escolhe o primeiro worker que ainda tenha crédito livre.
+        for (int i = 0; i < workers.length; i++) {
+            TabelaCargaWorkers.CargaWorker candidato = workers[(inicio + i) % workers.length];
+            if (candidato.temCredito()) {
+                return candidato.getWorkerId();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getNome() {
+        return NOME;
+    }
+}
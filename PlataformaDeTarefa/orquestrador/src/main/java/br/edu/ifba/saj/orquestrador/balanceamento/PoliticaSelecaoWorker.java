@@ -0,0 +1,41 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.balanceamento;
+
+/**
+ * Interface (SPI) das políticas de seleção de worker usadas na distribuição de tarefas.
+ * A política é escolhida na inicialização com -Dorquestrador.politica=round-robin|menor-carga|duas-escolhas.
+ */
+public interface PoliticaSelecaoWorker {
+
+    /**
+     * Escolhe o worker que receberá a próxima tarefa.
+     * A política deve considerar apenas workers com crédito livre (CargaWorker.temCredito()).
+     * @param tabela A tabela viva de carga dos workers.
+     * @return O ID do worker escolhido, ou null se não houver worker com capacidade disponível.
+     */
+    String selecionar(TabelaCargaWorkers tabela);
+
+    /**
+     * Retorna o nome da política, usado na configuração e nos logs.
+     */
+    String getNome();
+
+    /**
+     * Cria a política correspondente ao nome informado.
+     * @param nome O nome da política (ex: "menor-carga"). Nomes desconhecidos ou nulos resultam na política de menor carga.
+     * @return A instância da política.
+     */
+    static PoliticaSelecaoWorker porNome(String nome) {
+        if (nome == null) {
+            return new PoliticaMenorCarga();
+        }
+        switch (nome.trim().toLowerCase()) {
+            case PoliticaRoundRobin.NOME:
+                return new PoliticaRoundRobin();
+            case PoliticaDuasEscolhas.NOME:
+                return new PoliticaDuasEscolhas();
+            default:
+                return new PoliticaMenorCarga();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.balanceamento;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tabela viva de carga por worker, consultada pelas políticas de seleção.
+ * A carga é atualizada no heartbeat (valor informado pelo worker), no despacho e na conclusão de tarefas.
+ * Cada worker anuncia uma capacidade (número de slots); o orquestrador só despacha para um worker
+ * se conseguir reservar um crédito livre (capacidade menos tarefas em execução).
+ * Mantém também uma cópia imutável da lista de workers, refeita apenas quando um worker entra ou sai,
+ * para que a seleção não precise copiar o conjunto de workers a cada chamada.
+ */
+public class TabelaCargaWorkers {
+
+    // Capacidade assumida para workers que não anunciam slots (versões antigas do worker).
+    private static final int SEM_LIMITE = Integer.MAX_VALUE;
+
+    // Carga de cada worker, indexada pelo seu ID.
+    private final Map<String, CargaWorker> cargas = new ConcurrentHashMap<>();
+    // Cópia imutável dos workers registrados, usada pelas políticas para iterar sem alocar.
+    private volatile CargaWorker[] snapshot = new CargaWorker[0];
+
+    /**
+     * Registra um worker na tabela, caso ainda não esteja presente.
+     * @param workerId O ID do worker.
+     * @return A entrada de carga do worker.
+     */
+    public CargaWorker registrar(String workerId) {
+        CargaWorker existente = cargas.get(workerId);
+        if (existente != null) {
+            return existente;
+        }
+        CargaWorker carga = cargas.computeIfAbsent(workerId, CargaWorker::new);
+        reconstruirSnapshot();
+        return carga;
+    }
+
+    /**
+     * Remove um worker da tabela (ex: worker considerado inativo).
+     * @param workerId O ID do worker.
+     */
+    public void remover(String workerId) {
+        if (cargas.remove(workerId) != null) {
+            reconstruirSnapshot();
+        }
+    }
+
+    /**
+     * Atualiza a tabela com os dados informados pelo worker no heartbeat.
+     * Os créditos em uso passam a ser o maior valor entre as tarefas que o worker diz executar e as que o
+     * orquestrador atribuiu a ele: o primeiro cobre a tabela zerada após um failover; o segundo, as atribuições
+     * ainda a caminho do worker. Assim a contagem é corrigida nos dois sentidos e um crédito perdido (ou devolvido
+     * duas vezes) dura no máximo até o próximo heartbeat.
+     * @param capacidade O número de slots anunciado pelo worker (0 = não informado, sem limite).
+     * @param atribuidas O número de tarefas em execução no worker segundo o repositório do orquestrador.
+     */
+    public void atualizarPorHeartbeat(String workerId, int tarefasEmExecucao, int capacidade, int atribuidas) {
+        CargaWorker carga = registrar(workerId);
+        carga.capacidade = capacidade > 0 ? capacidade : SEM_LIMITE;
+        carga.emExecucao.set(Math.max(0, Math.max(tarefasEmExecucao, atribuidas)));
+    }
+
+    /**
+     * Tenta reservar um crédito (slot livre) no worker para uma nova tarefa.
+     * @param workerId O ID do worker escolhido pela política.
+     * @return true se o crédito foi reservado, false se o worker não está registrado ou está sem créditos.
+     */
+    public boolean reservarCredito(String workerId) {
+        CargaWorker carga = cargas.get(workerId);
+        if (carga == null) {
+            return false;
+        }
+        // Laço CAS: incrementa a carga somente se ainda houver crédito livre.
+        while (true) {
+            int atual = carga.emExecucao.get();
+            if (atual >= carga.capacidade) {
+                return false;
+            }
+            if (carga.emExecucao.compareAndSet(atual, atual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Marca o worker como sem créditos livres, alinhando a contagem local à do worker.
+     * Usado quando o worker recusa uma tarefa por estar com todos os slots ocupados.
+     */
+    public void esgotarCreditos(String workerId) {
+        CargaWorker carga = cargas.get(workerId);
+        if (carga != null && carga.capacidade != SEM_LIMITE) {
+            carga.emExecucao.accumulateAndGet(carga.capacidade, Math::max);
+        }
+    }
+
+    /**
+     * Desconta uma tarefa do worker e devolve o seu crédito (tarefa concluída ou envio que falhou).
+     */
+    public void registrarConclusao(String workerId) {
+        CargaWorker carga = cargas.get(workerId);
+        if (carga != null) {
+            carga.emExecucao.updateAndGet(atual -> Math.max(0, atual - 1));
+        }
+    }
+
+    /**
+     * Retorna a cópia imutável dos workers registrados. O array não deve ser modificado.
+     */
+    public CargaWorker[] getWorkers() {
+        return snapshot;
+    }
+
+    /**
+     * Retorna a carga atual de um worker, ou 0 se ele não estiver registrado.
+     */
+    public int getCarga(String workerId) {
+        CargaWorker carga = cargas.get(workerId);
+        return carga != null ? carga.getEmExecucao() : 0;
+    }
+
+    private synchronized void reconstruirSnapshot() {
+        snapshot = cargas.values().toArray(new CargaWorker[0]);
+    }
+
+    /**
+     * Entrada da tabela com a carga de um worker.
+     */
+    public static class CargaWorker {
+        private final String workerId;
+        // Número de tarefas em execução no worker, segundo a visão do orquestrador (créditos em uso).
+        private final AtomicInteger emExecucao = new AtomicInteger(0);
+        // Número de slots anunciado pelo worker.
+        private volatile int capacidade = SEM_LIMITE;
+
+        private CargaWorker(String workerId) {
+            this.workerId = workerId;
+        }
+
+        public String getWorkerId() { return workerId; }
+        public int getEmExecucao() { return emExecucao.get(); }
+        public int getCapacidade() { return capacidade; }
+
+        /**
+         * Indica se o worker possui ao menos um crédito livre.
+         */
+        public boolean temCredito() {
+            return emExecucao.get() < capacidade;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.concessao;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Controla as concessões (leases) das tarefas em execução.
+ * Cada tarefa com status EXECUTANDO recebe uma concessão com prazo, renovada pelos sinais do worker que a
+ * executa (heartbeat, progresso). Se o prazo vencer sem renovação, a concessão expira e a tarefa pode voltar
+ * à fila de prontas, sem varrer o banco de tarefas.
+ * A renovação apenas atualiza o prazo da concessão; quando a entrada na roda de temporização vence,
+ * a concessão renovada é reagendada pelo tempo que ainda lhe resta.
+ */
+public class GerenciadorConcessoes {
+
+    // Duração de cada tique da roda, em milissegundos.
+    private static final long DURACAO_TICK_MS = 100;
+    // Número de posições da roda (uma volta completa dura 51,2 segundos).
+    private static final int POSICOES_RODA = 512;
+
+    // Duração de cada concessão, em milissegundos.
+    private final long duracaoMs;
+    // Concessões ativas, indexadas pelo ID da tarefa.
+    private final Map<String, ConcessaoTarefa> concessoes = new ConcurrentHashMap<>();
+    // IDs das tarefas concedidas a cada worker, para renovar ou revogar todas de uma vez.
+    private final Map<String, Set<String>> tarefasPorWorker = new ConcurrentHashMap<>();
+    // Roda que controla os prazos.
+    private final RodaTemporizacao<ConcessaoTarefa> roda;
+    // Função chamada quando uma concessão expira.
+    private final Consumer<ConcessaoTarefa> aoExpirar;
+
+    /**
+     * Construtor da classe.
+     * @param duracaoMs A duração de cada concessão, em milissegundos.
+     * @param aoExpirar A função chamada (na thread da roda) com cada concessão expirada.
+     */
+    public GerenciadorConcessoes(long duracaoMs, Consumer<ConcessaoTarefa> aoExpirar) {
+        this.duracaoMs = duracaoMs;
+        this.aoExpirar = aoExpirar;
+        this.roda = new RodaTemporizacao<>(DURACAO_TICK_MS, POSICOES_RODA, this::verificarPrazo);
+    }
+
+    /**
+     * Inicia a roda de temporização.
+     */
+    public void iniciar() {
+        roda.iniciar();
+    }
+
+    /**
+     * Para a roda de temporização.
+     */
+    public void parar() {
+        roda.parar();
+    }
+
+    /**
+     * Concede a tarefa a um worker, substituindo uma concessão anterior da mesma tarefa.
+     * @param tarefaId O ID da tarefa.
+     * @param workerId O ID do worker que a executará.
+     */
+    public void conceder(String tarefaId, String workerId) {
+        ConcessaoTarefa concessao = new ConcessaoTarefa(tarefaId, workerId, System.currentTimeMillis() + duracaoMs);
+        // O prazo é agendado antes de a concessão ficar visível, para que liberar() sempre encontre a entrada.
+        concessao.entrada = roda.agendar(concessao, duracaoMs);
+        ConcessaoTarefa anterior = concessoes.put(tarefaId, concessao);
+        if (anterior != null) {
+            anterior.entrada.cancelar();
+            desvincular(anterior);
+        }
+        tarefasPorWorker.computeIfAbsent(workerId, id -> ConcurrentHashMap.newKeySet()).add(tarefaId);
+    }
+
+    /**
+     * Renova as concessões das tarefas informadas, desde que continuem concedidas ao worker (ex: tarefas em execução
+     * informadas no heartbeat, ou progresso de uma tarefa). As demais concessões do worker não são tocadas e expiram
+     * se ele deixar de informá-las.
+     */
+    public void renovar(String workerId, Collection<String> tarefaIds) {
+        long expiraEm = System.currentTimeMillis() + duracaoMs;
+        for (String tarefaId : tarefaIds) {
+            ConcessaoTarefa concessao = concessoes.get(tarefaId);
+            if (concessao != null && concessao.workerId.equals(workerId)) {
+                concessao.expiraEm = expiraEm;
+            }
+        }
+    }
+
+    /**
+     * Renova todas as concessões de um worker. Usado apenas para workers que não informam as tarefas em execução
+     * no heartbeat (versões antigas).
+     */
+    public void renovarDoWorker(String workerId) {
+        Set<String> tarefas = tarefasPorWorker.get(workerId);
+        if (tarefas == null) return;
+        long expiraEm = System.currentTimeMillis() + duracaoMs;
+        for (String tarefaId : tarefas) {
+            ConcessaoTarefa concessao = concessoes.get(tarefaId);
+            if (concessao != null) {
+                concessao.expiraEm = expiraEm;
+            }
+        }
+    }
+
+    /**
+     * Libera a concessão de uma tarefa (tarefa concluída, recusada ou devolvida à fila).
+     */
+    public void liberar(String tarefaId) {
+        ConcessaoTarefa concessao = concessoes.remove(tarefaId);
+        if (concessao != null) {
+            concessao.entrada.cancelar();
+            desvincular(concessao);
+        }
+    }
+
+    /**
+     * Revoga todas as concessões de um worker removido.
+     * @return Os IDs das tarefas que estavam concedidas ao worker.
+     */
+    public List<String> revogarDoWorker(String workerId) {
+        Set<String> tarefas = tarefasPorWorker.remove(workerId);
+        if (tarefas == null) return Collections.emptyList();
+        List<String> revogadas = new ArrayList<>(tarefas);
+        for (String tarefaId : revogadas) {
+            ConcessaoTarefa concessao = concessoes.get(tarefaId);
+            if (concessao != null && workerId.equals(concessao.workerId) && concessoes.remove(tarefaId, concessao)) {
+                concessao.entrada.cancelar();
+            }
+        }
+        return revogadas;
+    }
+
+    /**
+     * Retorna o número de concessões ativas.
+     */
+    public int getTotalAtivas() {
+        return concessoes.size();
+    }
+
+    /**
+     * Chamado pela roda quando a entrada de uma concessão vence. Se a concessão foi renovada nesse meio tempo,
+     * é reagendada pelo tempo restante; caso contrário, expira.
+     */
+    private void verificarPrazo(ConcessaoTarefa concessao) {
+        // Ignora concessões já liberadas ou substituídas.
+        if (concessoes.get(concessao.tarefaId) != concessao) return;
+        long restante = concessao.expiraEm - System.currentTimeMillis();
+        if (restante > 0) {
+            concessao.entrada = roda.agendar(concessao, restante);
+            return;
+        }
+        if (concessoes.remove(concessao.tarefaId, concessao)) {
+            desvincular(concessao);
+            aoExpirar.accept(concessao);
+        }
+    }
+
+    private void desvincular(ConcessaoTarefa concessao) {
+        Set<String> tarefas = tarefasPorWorker.get(concessao.workerId);
+        if (tarefas != null) {
+            tarefas.remove(concessao.tarefaId);
+        }
+    }
+
+    /**
+     * Concessão de uma tarefa a um worker.
+     */
+    public static class ConcessaoTarefa {
+        private final String tarefaId;
+        private final String workerId;
+        // Instante (em milissegundos) em que a concessão expira se não for renovada.
+        private volatile long expiraEm;
+        // Entrada corrente na roda de temporização.
+        private volatile RodaTemporizacao.Entrada<ConcessaoTarefa> entrada;
+
+        private ConcessaoTarefa(String tarefaId, String workerId, long expiraEm) {
+            this.tarefaId = tarefaId;
+            this.workerId = workerId;
+            this.expiraEm = expiraEm;
+        }
+
+        public String getTarefaId() { return tarefaId; }
+        public String getWorkerId() { return workerId; }
+    }
+}
@@ -0,0 +1,139 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.concessao;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Roda de temporização com hashing (hashed timing wheel).
+ * Os prazos são distribuídos em um anel de posições, cada uma correspondente a um tique. A cada tique apenas
+ * a posição corrente é processada, de modo que agendar, cancelar e expirar custam O(1) por item,
+ * independentemente de quantos prazos estejam pendentes. Prazos maiores que uma volta completa do anel
+ * guardam o número de voltas que ainda faltam.
+ * @param <T> O tipo do item associado a cada prazo.
+ */
+public class RodaTemporizacao<T> {
+
+    // Duração de cada tique, em milissegundos (a precisão dos prazos).
+    private final long duracaoTickMs;
+    // Posições do anel; o tamanho é uma potência de 2 para que o índice seja calculado com uma máscara.
+    private final List<Entrada<T>>[] posicoes;
+    private final int mascara;
+    // Função chamada para cada item cujo prazo expirou.
+    private final Consumer<T> aoExpirar;
+    // Thread que avança a roda a cada tique.
+    private final ScheduledExecutorService relogio;
+    // Posição processada no último tique.
+    private int cursor = 0;
+
+    /**
+     * Construtor da classe.
+     * @param duracaoTickMs A duração de cada tique, em milissegundos.
+     * @param numeroPosicoes O número de posições do anel (arredondado para a próxima potência de 2).
+     * @param aoExpirar A função chamada (na thread da roda) para cada item expirado.
+     */
+    @SuppressWarnings("unchecked")
+    public RodaTemporizacao(long duracaoTickMs, int numeroPosicoes, Consumer<T> aoExpirar) {
+        int tamanho = Integer.highestOneBit(Math.max(2, numeroPosicoes - 1)) << 1;
+        this.duracaoTickMs = duracaoTickMs;
+        this.posicoes = new List[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            posicoes[i] = new ArrayList<>();
+        }
+        this.mascara = tamanho - 1;
+        this.aoExpirar = aoExpirar;
+        this.relogio = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "RodaTemporizacao-Thread");
+            thread.setDaemon(true); // Não impede o encerramento da JVM.
+            return thread;
+        });
+    }
+
+    /**
+     * Inicia o avanço periódico da roda.
+     */
+    public void iniciar() {
+        relogio.scheduleAtFixedRate(this::avancar, duracaoTickMs, duracaoTickMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Para a roda. Os prazos pendentes deixam de expirar.
+     */
+    public void parar() {
+        relogio.shutdownNow();
+    }
+
+    /**
+     * Agenda a expiração de um item.
+     * @param item O item a ser entregue à função de expiração.
+     * @param prazoMs O tempo até a expiração, em milissegundos.
+     * @return A entrada agendada, que pode ser cancelada.
+     */
+    public Entrada<T> agendar(T item, long prazoMs) {
+        long ticks = Math.max(1, (prazoMs + duracaoTickMs - 1) / duracaoTickMs);
+        Entrada<T> entrada = new Entrada<>(item);
+        synchronized (this) {
+            entrada.voltasRestantes = (ticks - 1) / posicoes.length;
+            posicoes[(int) ((cursor + ticks) & mascara)].add(entrada);
+        }
+        return entrada;
+    }
+
+    /**
+     * Processa a próxima posição do anel: entradas canceladas são descartadas, entradas com voltas restantes
+     * permanecem, e as demais expiram.
+     */
+    private void avancar() {
+        List<Entrada<T>> expiradas = new ArrayList<>();
+        synchronized (this) {
+            cursor = (cursor + 1) & mascara;
+            List<Entrada<T>> posicao = posicoes[cursor];
+            List<Entrada<T>> restantes = new ArrayList<>();
+            for (Entrada<T> entrada : posicao) {
+                if (entrada.cancelada) continue;
+                if (entrada.voltasRestantes > 0) {
+                    entrada.voltasRestantes--;
+                    restantes.add(entrada);
+                } else {
+                    expiradas.add(entrada);
+                }
+            }
+            posicoes[cursor] = restantes;
+        }
+        // A função de expiração é chamada fora do bloqueio, pois pode reagendar itens na própria roda.
+        for (Entrada<T> entrada : expiradas) {
+            try {
+                aoExpirar.accept(entrada.item);
+            } catch (Exception e) {
+                // Uma falha no tratamento de um item não deve parar a roda.
+            }
+        }
+    }
+
+    /**
+     * Prazo agendado na roda.
+     */
+    public static class Entrada<T> {
+        private final T item;
+        // Número de voltas completas do anel que ainda faltam até a expiração.
+        private long voltasRestantes;
+        // Entradas canceladas são descartadas quando a sua posição é processada.
+        private volatile boolean cancelada = false;
+
+        private Entrada(T item) {
+            this.item = item;
+        }
+
+        /**
+         * Cancela o prazo. O custo é O(1): a entrada só é retirada do anel quando a sua posição é processada.
+         */
+        public void cancelar() {
+            cancelada = true;
+        }
+    }
+}
@@ -27,7 +27,7 @@ public class OrquestradorService {
     private boolean servidorAtivo = false;
     // Mapas concorrentes para armazenar o estado do sistema (workers ativos e tarefas) de forma segura em um ambiente com múltiplas threads.
     private final Map<String, Long> workersAtivos;
-    private final Map<String, Tarefa> bancoDeTarefas;
+    private final RepositorioTarefas bancoDeTarefas;
     // Relógio de Lamport para manter uma ordem causal de eventos no orquestrador.
     private final AtomicLong lamportClock;
 
@@ -38,7 +38,7 @@ public class OrquestradorService {
      */
     public OrquestradorService() {
         this.workersAtivos = new ConcurrentHashMap<>();
-        this.bancoDeTarefas = new ConcurrentHashMap<>();
+        this.bancoDeTarefas = RepositorioTarefas.criar();
         this.lamportClock = new AtomicLong(0);
     }
 
@@ -46,10 +46,10 @@ public class OrquestradorService {
      * Construtor para o cenário de failover.
      * Usado quando uma instância de backup é promovida a primária, recebendo o estado que foi sincronizado.
      * @param workersHerdados O mapa de workers ativos herdado do nó primário anterior.
-     * @param tarefasHerdadas O mapa de tarefas herdado.
+     * @param tarefasHerdadas O repositório de tarefas herdado.
      * @param clockHerdado O valor do relógio de Lamport herdado.
      */
-    public OrquestradorService(Map<String, Long> workersHerdados, Map<String, Tarefa> tarefasHerdadas, AtomicLong clockHerdado) {
+    public OrquestradorService(Map<String, Long> workersHerdados, RepositorioTarefas tarefasHerdadas, AtomicLong clockHerdado) {
         this.workersAtivos = workersHerdados;
         this.bancoDeTarefas = tarefasHerdadas;
         this.lamportClock = clockHerdado;
@@ -143,7 +143,8 @@ public class OrquestradorService {
     }
 
     public int getTotalTarefas() {
-        return bancoDeTarefas.size();
+        // Inclui as tarefas finalizadas que a retenção moveu para o histórico em disco.
+        return bancoDeTarefas.getContadores().getTotalComHistorico();
     }
 
     public int getTotalUsuarios() {
@@ -167,15 +168,13 @@ public class OrquestradorService {
                     String workerId = entry.getKey();
                     long ultimoHeartbeat = entry.getValue();
 
-                    // Conta o número de tarefas (concluídas ou não) que foram atribuídas a este worker.
-                    long tarefasNoWorker = bancoDeTarefas.values().stream()
-                            .filter(t -> workerId.equals(t.getWorkerIdAtual()))
-                            .count();
+                    // Conta o número de tarefas (concluídas ou não) que foram atribuídas a este worker, pelo índice por worker.
+                    int tarefasNoWorker = bancoDeTarefas.contarDoWorker(workerId);
 
                     // Determina o status do worker com base no tempo desde o último heartbeat.
                     String status = (agora - ultimoHeartbeat < 15000) ? "ATIVO" : "INATIVO";
                     String ultimoHeartbeatStr = formatarTempo(ultimoHeartbeat);
-                    return new WorkerModel(workerId, status, (int) tarefasNoWorker, ultimoHeartbeatStr);
+                    return new WorkerModel(workerId, status, tarefasNoWorker, ultimoHeartbeatStr);
                 })
                 .collect(Collectors.toList());
     }
@@ -185,7 +184,7 @@ public class OrquestradorService {
      * @return Uma lista de TarefaModel, ordenada do mais recente para o mais antigo.
      */
     public List<TarefaModel> getTarefas() {
-        return bancoDeTarefas.values().stream()
+        return bancoDeTarefas.todas().stream()
                 .map(t -> new TarefaModel(
                         t.getId(),
                         formatarDescricaoTarefa(t.getDados()),
@@ -193,7 +192,7 @@ public class OrquestradorService {
                         t.getWorkerIdAtual() != null ? t.getWorkerIdAtual() : "N/A",
                         t.getUsuarioId()
                 ))
-                .sorted(Comparator.comparing(TarefaModel::getId).reversed()) // Ordena as tarefas.
+                .sorted(Comparator.comparing(TarefaModel::getId).reversed()) // Os IDs são ordenados pelo tempo de criação (GeradorIds).
                 .collect(Collectors.toList());
     }
 
@@ -214,11 +213,9 @@ public class OrquestradorService {
     public List<UsuarioModel> getUsuarios() {
         return OrquestradorServidor.AutenticacaoImpl.usuariosDb.keySet().stream()
                 .map(usuario -> {
-                    // Para cada usuário, conta o número total de tarefas que ele submeteu.
-                    long totalTarefas = bancoDeTarefas.values().stream()
-                            .filter(t -> usuario.equals(t.getUsuarioId()))
-                            .count();
-                    return new UsuarioModel(usuario, "REGISTRADO", (int) totalTarefas);
+                    // Para cada usuário, conta o número total de tarefas que ele submeteu (em memória e no histórico).
+                    int totalTarefas = bancoDeTarefas.getContadores().getDoUsuarioComHistorico(usuario);
+                    return new UsuarioModel(usuario, "REGISTRADO", totalTarefas);
                 })
                 .collect(Collectors.toList());
     }
@@ -234,11 +231,9 @@ public class OrquestradorService {
         statusCount.put("EXECUTANDO", 0);
         statusCount.put("CONCLUIDA", 0);
         statusCount.put("FALHA", 0);
-        // Itera sobre as tarefas e incrementa a contagem para o status correspondente.
-        bancoDeTarefas.values().forEach(tarefa -> {
-            String status = tarefa.getStatus().toString();
-            statusCount.merge(status, 1, Integer::sum);
-        });
+        // Lê a contagem de cada status dos contadores incrementais (em memória e no histórico), sem percorrer as tarefas.
+        bancoDeTarefas.getContadores().getContagemPorStatusComHistorico()
+                .forEach((status, total) -> statusCount.put(status.toString(), total));
         return statusCount;
     }
 
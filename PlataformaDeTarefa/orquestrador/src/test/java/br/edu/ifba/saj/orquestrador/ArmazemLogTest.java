@@ -0,0 +1,170 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Importa classes de E/S, coleções e concorrência do Java.
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do armazenamento chave-valor estruturado em log usado pelo motor em arquivo.
+ */
+class ArmazemLogTest {
+
+    // Tamanho do cabeçalho de cada registro (tamanho e CRC32).
+    private static final int TAMANHO_CABECALHO = 8;
+
+    @TempDir
+    Path diretorio;
+
+    private static byte[] valor(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] valor(int tamanho, int semente) {
+        byte[] bytes = new byte[tamanho];
+        Arrays.fill(bytes, (byte) semente);
+        return bytes;
+    }
+
+    @Test
+    void leOsValoresDoBufferEDoArquivo() throws IOException {
+        try (ArmazemLog armazem = new ArmazemLog(diretorio.resolve("log"), Long.MAX_VALUE)) {
+            armazem.gravar("a", valor("primeiro"));
+            // Ainda no buffer de gravação.
+            assertArrayEquals(valor("primeiro"), armazem.ler("a"));
+
+            // Gravações suficientes para esvaziar o buffer no arquivo.
+            for (int i = 0; i < 100; i++) {
+                armazem.gravar("k" + i, valor(1000, i));
+            }
+            assertTrue(Files.size(diretorio.resolve("log")) > 0);
+            assertArrayEquals(valor("primeiro"), armazem.ler("a"));
+            assertArrayEquals(valor(1000, 42), armazem.ler("k42"));
+            assertNull(armazem.ler("inexistente"));
+        }
+    }
+
+    @Test
+    void substituicaoEApagamento() throws IOException {
+        try (ArmazemLog armazem = new ArmazemLog(diretorio.resolve("log"), Long.MAX_VALUE)) {
+            armazem.gravar("a", valor("v1"));
+            armazem.gravar("a", valor("v2"));
+            armazem.gravar("b", valor("b"));
+            assertArrayEquals(valor("v2"), armazem.ler("a"));
+            assertEquals(Set.of("a", "b"), armazem.chaves());
+
+            assertTrue(armazem.apagar("a"));
+            assertFalse(armazem.apagar("a"));
+            assertNull(armazem.ler("a"));
+            assertEquals(Set.of("b"), armazem.chaves());
+        }
+    }
+
+    @Test
+    void registroMaiorQueOBufferVaiDiretoParaOArquivo() throws IOException {
+        try (ArmazemLog armazem = new ArmazemLog(diretorio.resolve("log"), Long.MAX_VALUE)) {
+            armazem.gravar("pequeno", valor("antes"));
+            armazem.gravar("grande", valor(200 * 1024, 7));
+            armazem.gravar("depois", valor("depois"));
+            assertArrayEquals(valor("antes"), armazem.ler("pequeno"));
+            assertArrayEquals(valor(200 * 1024, 7), armazem.ler("grande"));
+            assertArrayEquals(valor("depois"), armazem.ler("depois"));
+        }
+    }
+
+    @Test
+    void compactacaoRecuperaOLixoEMantemOsValoresMaisRecentes() throws IOException {
+        Path arquivo = diretorio.resolve("log");
+        try (ArmazemLog armazem = new ArmazemLog(arquivo, 4096)) {
+            for (int rodada = 0; rodada < 50; rodada++) {
+                for (int i = 0; i < 20; i++) {
+                    armazem.gravar("k" + i, valor(500, rodada));
+                }
+            }
+            armazem.gravar("grande", valor(100 * 1024, 3));
+            for (int i = 0; i < 10; i++) {
+                armazem.apagar("k" + i);
+                armazem.gravar("grande", valor(100 * 1024, 4 + i));
+            }
+
+            // Sem compactação, seriam mais de 1,5 MB de registros; vivos restam cerca de 105 KB.
+            assertTrue(armazem.getTamanho() < 4 * 105 * 1024, "tamanho: " + armazem.getTamanho());
+            for (int i = 10; i < 20; i++) {
+                assertArrayEquals(valor(500, 49), armazem.ler("k" + i));
+            }
+            assertNull(armazem.ler("k0"));
+            assertArrayEquals(valor(100 * 1024, 13), armazem.ler("grande"));
+            assertFalse(Files.exists(diretorio.resolve("log.compactando")));
+        }
+        // Ao fechar, o arquivo temporário do motor é apagado.
+        assertFalse(Files.exists(arquivo));
+    }
+
+    @Test
+    void registroCorrompidoNoArquivoEDetectado() throws IOException {
+        Path arquivo = diretorio.resolve("log");
+        try (ArmazemLog armazem = new ArmazemLog(arquivo, Long.MAX_VALUE)) {
+            armazem.gravar("a", valor("conteúdo original"));
+            // Esvazia o buffer para que o registro de "a" esteja no arquivo.
+            armazem.gravar("grande", valor(100 * 1024, 1));
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+                canal.write(ByteBuffer.wrap(new byte[]{'X'}), TAMANHO_CABECALHO + 1);
+            }
+            assertThrows(IOException.class, () -> armazem.ler("a"));
+            assertArrayEquals(valor(100 * 1024, 1), armazem.ler("grande"));
+        }
+    }
+
+    @Test
+    void leiturasConcorrentesAcompanhamAsCompactacoes() throws Exception {
+        try (ArmazemLog armazem = new ArmazemLog(diretorio.resolve("log"), 1024)) {
+            for (int i = 0; i < 10; i++) {
+                armazem.gravar("k" + i, valor(300, 0));
+            }
+            AtomicBoolean parar = new AtomicBoolean();
+            AtomicReference<Throwable> falha = new AtomicReference<>();
+            Thread leitor = new Thread(() -> {
+                try {
+                    while (!parar.get()) {
+                        for (int i = 0; i < 10; i++) {
+                            byte[] lido = armazem.ler("k" + i);
+                            // Cada valor é uniforme: uma leitura que mistura registros aparece como bytes diferentes.
+                            for (byte b : lido) {
+                                if (b != lido[0]) throw new AssertionError("valor misturado na chave k" + i);
+                            }
+                        }
+                    }
+                } catch (Throwable t) {
+                    falha.set(t);
+                }
+            });
+            leitor.start();
+            for (int rodada = 1; rodada <= 500; rodada++) {
+                armazem.gravar("k" + (rodada % 10), valor(300, rodada));
+            }
+            parar.set(true);
+            leitor.join();
+            assertNull(falha.get());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as mensagens de replicação geradas a partir do proto.
+import br.edu.ifba.saj.protocolo.OperacaoReplicacao;
+import br.edu.ifba.saj.protocolo.PacoteReplicacao;
+import br.edu.ifba.saj.protocolo.TipoOperacaoReplicacao;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes do Java para manipulação de bytes e coleções.
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testes de ida e volta das mensagens de replicação, com e sem compressão.
+ */
+class CodecReplicacaoTest {
+
+    private static Tarefa tarefa(String id, String usuario, StatusTarefa status, String worker) {
+        Tarefa tarefa = new Tarefa(id, "dados da tarefa " + id, usuario);
+        tarefa.setStatus(status);
+        tarefa.setWorkerIdAtual(worker);
+        return tarefa;
+    }
+
+    private static PacoteReplicacao idaEVolta(PacoteReplicacao pacote) throws IOException {
+        return CodecReplicacao.decodificar(ByteBuffer.wrap(CodecReplicacao.codificar(pacote)));
+    }
+
+    @Test
+    void mensagemPequenaSegueSemCompressao() throws IOException {
+        PacoteReplicacao pacote = CodecReplicacao.comDicionario(PacoteReplicacao.newBuilder()
+                .setEpoca(3)
+                .setSequencia(42)
+                .addOperacoes(CodecReplicacao.tarefaCriada(tarefa("t1", "user1", StatusTarefa.AGUARDANDO, null), true))
+                .addOperacoes(OperacaoReplicacao.newBuilder()
+                        .setTipo(TipoOperacaoReplicacao.WORKER_ENTROU)
+                        .setWorkerId("localhost:50051")
+                        .setTimestamp(1000)))
+                .build();
+
+        byte[] codificada = CodecReplicacao.codificar(pacote);
+        assertEquals(0, codificada[0]);
+        assertEquals(pacote, CodecReplicacao.decodificar(ByteBuffer.wrap(codificada)));
+    }
+
+    @Test
+    void snapshotGrandeEComprimidoEReconstroiAsTarefas() throws IOException {
+        List<Tarefa> tarefas = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            tarefas.add(tarefa("t" + i, "user" + (i % 3), i % 2 == 0 ? StatusTarefa.EXECUTANDO : StatusTarefa.CONCLUIDA,
+                    i % 2 == 0 ? "localhost:5005" + (i % 4) : null));
+        }
+        PacoteReplicacao pacote = CodecReplicacao.snapshot(Map.of("localhost:50050", 7L), tarefas, Map.of("token", "user1"))
+                .setEpoca(1)
+                .build();
+
+        byte[] codificada = CodecReplicacao.codificar(pacote);
+        assertEquals(1, codificada[0]);
+        // Um buffer direto é lido sem cópia intermediária.
+        ByteBuffer direto = ByteBuffer.allocateDirect(codificada.length);
+        direto.put(codificada).flip();
+        PacoteReplicacao recebido = CodecReplicacao.decodificar(direto);
+        assertEquals(pacote, recebido);
+
+        // Os códigos de usuário e de worker se resolvem pelo dicionário da própria mensagem.
+        for (int i = 0; i < tarefas.size(); i++) {
+            Tarefa original = tarefas.get(i);
+            Tarefa reconstruida = CodecReplicacao.deProto(recebido.getTarefas(i), recebido.getDicionarioMap());
+            assertEquals(original.getId(), reconstruida.getId());
+            assertEquals(original.getDados(), reconstruida.getDados());
+            assertEquals(original.getUsuarioId(), reconstruida.getUsuarioId());
+            assertEquals(original.getStatus(), reconstruida.getStatus());
+            assertEquals(original.getWorkerIdAtual(), reconstruida.getWorkerIdAtual());
+        }
+    }
+
+    @Test
+    void formaSemDicionarioIdaEVolta() {
+        Tarefa original = tarefa("t1", "user2", StatusTarefa.FALHA, null);
+        Tarefa reconstruida = CodecReplicacao.deProto(CodecReplicacao.paraProto(original));
+        assertEquals("user2", reconstruida.getUsuarioId());
+        assertEquals(StatusTarefa.FALHA, reconstruida.getStatus());
+        assertNull(reconstruida.getWorkerIdAtual());
+    }
+
+    @Test
+    void codigoAusenteDoDicionarioERecusado() {
+        Tarefa original = tarefa("t1", "user1", StatusTarefa.AGUARDANDO, null);
+        assertThrows(IllegalArgumentException.class,
+                () -> CodecReplicacao.deProto(CodecReplicacao.paraProtoCompacto(original), Map.of()));
+    }
+
+    @Test
+    void mensagemMalformadaERecusada() throws IOException {
+        PacoteReplicacao grande = CodecReplicacao.snapshot(Map.of(), List.of(), Map.of())
+                .putSessoes("token", "x".repeat(4096))
+                .build();
+        byte[] comprimida = CodecReplicacao.codificar(grande);
+        byte[] truncada = Arrays.copyOf(comprimida, comprimida.length / 2);
+
+        assertThrows(IOException.class, () -> CodecReplicacao.decodificar(ByteBuffer.allocate(0)));
+        assertThrows(IOException.class, () -> CodecReplicacao.decodificar(ByteBuffer.wrap(new byte[]{9, 1, 2})));
+        assertThrows(IOException.class, () -> CodecReplicacao.decodificar(ByteBuffer.wrap(truncada)));
+        assertEquals(grande, idaEVolta(grande));
+    }
+}
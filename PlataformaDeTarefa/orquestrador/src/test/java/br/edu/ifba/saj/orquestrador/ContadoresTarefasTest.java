@@ -0,0 +1,120 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testes dos contadores incrementais mantidos pelo repositório para o dashboard.
+ */
+class ContadoresTarefasTest {
+
+    private final RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+    private final ContadoresTarefas contadores = repositorio.getContadores();
+
+    @Test
+    void contadoresAcompanhamInclusoesETransicoes() {
+        repositorio.adicionar(new Tarefa("t1", "primeira", "cont-user1"));
+        repositorio.adicionar(new Tarefa("t2", "segunda", "cont-user1"));
+        repositorio.adicionar(new Tarefa("t3", "terceira", "cont-user2"));
+        assertEquals(3, contadores.getTotal());
+        assertEquals(2, contadores.getDoUsuario("cont-user1"));
+        assertEquals(1, contadores.getDoUsuario("cont-user2"));
+        assertEquals(3, contadores.getComStatus(StatusTarefa.AGUARDANDO));
+
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.EXECUTANDO, "cont-w1");
+        repositorio.transicionar(repositorio.obter("t2"), StatusTarefa.EXECUTANDO, "cont-w1");
+        assertEquals(2, contadores.getEmExecucaoNoWorker("cont-w1"));
+        assertEquals(2, contadores.getDoWorker("cont-w1"));
+
+        // A tarefa concluída deixa de estar em execução, mas continua contada no worker que a executou.
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.CONCLUIDA, "cont-w1");
+        repositorio.transicionar(repositorio.obter("t2"), StatusTarefa.FALHA, "cont-w1");
+        assertEquals(0, contadores.getEmExecucaoNoWorker("cont-w1"));
+        assertEquals(2, contadores.getDoWorker("cont-w1"));
+        assertEquals(Map.of(StatusTarefa.AGUARDANDO, 1, StatusTarefa.EXECUTANDO, 0, StatusTarefa.CONCLUIDA, 1, StatusTarefa.FALHA, 1),
+                contadores.getContagemPorStatus());
+        assertEquals(3, contadores.getTotal());
+    }
+
+    @Test
+    void tarefaDevolvidaAFilaDeixaDeContarNoWorker() {
+        repositorio.adicionar(new Tarefa("t1", "primeira", "cont-user1"));
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.EXECUTANDO, "cont-w1");
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.AGUARDANDO, null);
+        assertEquals(0, contadores.getDoWorker("cont-w1"));
+        assertEquals(0, contadores.getEmExecucaoNoWorker("cont-w1"));
+        assertEquals(1, contadores.getComStatus(StatusTarefa.AGUARDANDO));
+    }
+
+    @Test
+    void remocaoDescontaATarefa() {
+        repositorio.adicionar(new Tarefa("t1", "primeira", "cont-user1"));
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.EXECUTANDO, "cont-w1");
+        repositorio.remover("t1");
+        assertEquals(0, contadores.getTotal());
+        assertEquals(0, contadores.getDoUsuario("cont-user1"));
+        assertEquals(0, contadores.getDoWorker("cont-w1"));
+        assertEquals(0, contadores.getComStatus(StatusTarefa.EXECUTANDO));
+    }
+
+    @Test
+    void usuarioOuWorkerDesconhecidoTemContagemZero() {
+        assertEquals(0, contadores.getDoUsuario("cont-nunca-visto"));
+        assertEquals(0, contadores.getDoWorker("cont-nunca-visto"));
+        assertEquals(0, contadores.getEmExecucaoNoWorker("cont-nunca-visto"));
+        // Sem histórico, as leituras "ComHistorico" são iguais às comuns.
+        assertEquals(contadores.getTotal(), contadores.getTotalComHistorico());
+    }
+
+    @Test
+    void transicoesConcorrentesMantemOsContadoresExatos() throws Exception {
+        int threads = 8;
+        int porThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> resultados = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                resultados.add(executor.submit(() -> {
+                    for (int i = 0; i < porThread; i++) {
+                        Tarefa tarefa = new Tarefa("c" + thread + "-" + i, "tarefa", "cont-user" + (i % 3));
+                        repositorio.adicionar(tarefa);
+                        repositorio.transicionar(tarefa, StatusTarefa.EXECUTANDO, "cont-w" + thread);
+                        if (i % 2 == 0) {
+                            repositorio.transicionar(tarefa, StatusTarefa.CONCLUIDA, "cont-w" + thread);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> resultado : resultados) {
+                resultado.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(threads * porThread, contadores.getTotal());
+        assertEquals(threads * porThread / 2, contadores.getComStatus(StatusTarefa.CONCLUIDA));
+        assertEquals(threads * porThread / 2, contadores.getComStatus(StatusTarefa.EXECUTANDO));
+        for (int t = 0; t < threads; t++) {
+            assertEquals(porThread, contadores.getDoWorker("cont-w" + t));
+            assertEquals(porThread / 2, contadores.getEmExecucaoNoWorker("cont-w" + t));
+        }
+        int porUsuario = 0;
+        for (int u = 0; u < 3; u++) {
+            porUsuario += contadores.getDoUsuario("cont-user" + u);
+        }
+        assertEquals(threads * porThread, porUsuario);
+    }
+}
@@ -0,0 +1,70 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes de coleções do Java.
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testes do cursor da consulta paginada e da paginação por usuário que ele conduz.
+ */
+class CursorConsultaTest {
+
+    @Test
+    void cursorIdaEVolta() {
+        CursorConsulta completo = CursorConsulta.decodificar(new CursorConsulta(1700000000000000L, "0AbC:z9").codificar());
+        assertEquals(1700000000000000L, completo.versao);
+        assertEquals(0, completo.ultimaAlteracao);
+        assertEquals("0AbC:z9", completo.ultimoId);
+
+        CursorConsulta incremental = CursorConsulta.decodificar(new CursorConsulta(10, 25, "").codificar());
+        assertEquals(10, incremental.versao);
+        assertEquals(25, incremental.ultimaAlteracao);
+        assertEquals("", incremental.ultimoId);
+    }
+
+    @Test
+    void cursorVazioIniciaAConsulta() {
+        assertNull(CursorConsulta.decodificar(null));
+        assertNull(CursorConsulta.decodificar(""));
+    }
+
+    @Test
+    void cursorMalformadoERecusado() {
+        assertThrows(IllegalArgumentException.class, () -> CursorConsulta.decodificar("não é base64"));
+        assertThrows(IllegalArgumentException.class, () -> CursorConsulta.decodificar("YWJj")); // "abc"
+    }
+
+    @Test
+    void paginasPercorremAsTarefasDoUsuarioEmOrdemSemRepetir() {
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+        GeradorIds gerador = new GeradorIds(3);
+        List<String> esperadas = new ArrayList<>();
+        for (int i = 0; i < 47; i++) {
+            Tarefa tarefa = new Tarefa(gerador.proximo(), "tarefa " + i, i % 2 == 0 ? "pagina-a" : "pagina-b");
+            repositorio.adicionar(tarefa);
+            if (i % 2 == 0) {
+                esperadas.add(tarefa.getId());
+            }
+        }
+
+        // Cada página devolve o cursor da seguinte, como a consulta do servidor.
+        List<String> lidas = new ArrayList<>();
+        String cursor = "";
+        do {
+            CursorConsulta atual = CursorConsulta.decodificar(cursor);
+            List<Tarefa> pagina = repositorio.paginaDoUsuario("pagina-a", atual != null ? atual.ultimoId : null, 5, tarefa -> true);
+            pagina.forEach(tarefa -> lidas.add(tarefa.getId()));
+            cursor = pagina.size() == 5 ? new CursorConsulta(1, pagina.get(4).getId()).codificar() : "";
+        } while (!cursor.isEmpty());
+
+        assertEquals(esperadas, lidas);
+    }
+}
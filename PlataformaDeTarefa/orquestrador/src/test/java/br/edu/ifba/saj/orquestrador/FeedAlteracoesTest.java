@@ -0,0 +1,93 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes de coleções do Java.
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do feed versionado de alterações: deltas por versão, retomada e descarte das alterações antigas.
+ */
+class FeedAlteracoesTest {
+
+    // Limite de itens do feed nos testes (-Dorquestrador.feed.max, definido no pom).
+    private static final int MAX_ITENS = Integer.getInteger("orquestrador.feed.max", 100000);
+
+    private static List<String> ids(FeedAlteracoes feed, long desde) {
+        return feed.alteradosDesde(desde).stream().map(FeedAlteracoes.Alteracao::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void deltaTrazCadaItemUmaVezNaVersaoMaisRecente() {
+        FeedAlteracoes feed = new FeedAlteracoes();
+        long inicio = feed.getVersaoAtual();
+        feed.registrar(FeedAlteracoes.TipoItem.TAREFA, "t1");
+        long depoisDeT1 = feed.registrar(FeedAlteracoes.TipoItem.TAREFA, "t2");
+        feed.registrar(FeedAlteracoes.TipoItem.WORKER, "w1");
+        long ultima = feed.registrar(FeedAlteracoes.TipoItem.TAREFA, "t1");
+
+        assertEquals(List.of("t2", "w1", "t1"), ids(feed, inicio));
+        assertEquals(List.of("w1", "t1"), ids(feed, depoisDeT1));
+        assertTrue(ids(feed, ultima).isEmpty());
+        assertEquals(ultima, feed.alteradosDesde(depoisDeT1).stream().filter(a -> a.getId().equals("t1")).findFirst().get().getVersao());
+    }
+
+    @Test
+    void tarefaEWorkerComOMesmoIdSaoItensDiferentes() {
+        FeedAlteracoes feed = new FeedAlteracoes();
+        long inicio = feed.getVersaoAtual();
+        feed.registrar(FeedAlteracoes.TipoItem.TAREFA, "x");
+        feed.registrar(FeedAlteracoes.TipoItem.WORKER, "x");
+        assertEquals(2, feed.alteradosDesde(inicio).size());
+    }
+
+    @Test
+    void soVersoesDesteFeedPodemSerRetomadas() {
+        FeedAlteracoes feed = new FeedAlteracoes();
+        long inicio = feed.getVersaoAtual();
+        long versao = feed.registrar(FeedAlteracoes.TipoItem.TAREFA, "t1");
+        assertTrue(feed.podeRetomar(inicio));
+        assertTrue(feed.podeRetomar(versao));
+        // Uma versão à frente da atual ou anterior ao feed (ex: de outro orquestrador, antes do failover) não é retomável.
+        assertFalse(feed.podeRetomar(versao + 1));
+        assertFalse(feed.podeRetomar(inicio - 1));
+        assertFalse(feed.podeRetomar(0));
+    }
+
+    @Test
+    void alteracoesAntigasSaoDescartadasAcimaDoLimite() {
+        FeedAlteracoes feed = new FeedAlteracoes();
+        long inicio = feed.getVersaoAtual();
+        long[] versoes = new long[MAX_ITENS + 10];
+        for (int i = 0; i < versoes.length; i++) {
+            versoes[i] = feed.registrar(FeedAlteracoes.TipoItem.TAREFA, "t" + i);
+        }
+
+        assertEquals(MAX_ITENS, feed.alteradosDesde(inicio).size());
+        // Quem viu uma versão anterior às descartadas precisa receber o estado completo.
+        assertFalse(feed.podeRetomar(inicio));
+        assertFalse(feed.podeRetomar(versoes[8]));
+        // A partir da última versão descartada, os deltas ainda estão completos.
+        assertTrue(feed.podeRetomar(versoes[9]));
+        assertEquals("t10", ids(feed, versoes[9]).get(0));
+        assertEquals(versoes.length - 10, ids(feed, versoes[9]).size());
+    }
+
+    @Test
+    void alterarOMesmoItemNaoOcupaMaisEspaco() {
+        FeedAlteracoes feed = new FeedAlteracoes();
+        long inicio = feed.getVersaoAtual();
+        for (int i = 0; i < MAX_ITENS * 3; i++) {
+            feed.registrar(FeedAlteracoes.TipoItem.TAREFA, "t" + (i % 5));
+        }
+        assertEquals(5, feed.alteradosDesde(inicio).size());
+        assertTrue(feed.podeRetomar(inicio));
+    }
+}
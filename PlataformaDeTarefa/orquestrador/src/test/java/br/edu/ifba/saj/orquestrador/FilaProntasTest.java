@@ -0,0 +1,76 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da ordem de retirada da fila de prontas.
+ */
+class FilaProntasTest {
+
+    private static Tarefa tarefa(String id, String dados) {
+        return new Tarefa(id, dados, "user1");
+    }
+
+    @Test
+    void retiraPelaPrioridadeEDepoisPelaOrdemDeChegada() throws InterruptedException {
+        FilaProntas fila = new FilaProntas();
+        fila.adicionar(tarefa("a", "sem prioridade"));
+        fila.adicionar(tarefa("b", "[BAIXA] b"));
+        fila.adicionar(tarefa("c", "[URGENTE] c"));
+        fila.adicionar(tarefa("d", "[ALTA] d"));
+        fila.adicionar(tarefa("e", "[URGENTE] e"));
+        fila.adicionar(tarefa("f", "[NORMAL] f"));
+
+        StringBuilder ordem = new StringBuilder();
+        while (fila.tamanho() > 0) {
+            ordem.append(fila.retirar().getId());
+        }
+        assertEquals("cedafb", ordem.toString());
+    }
+
+    @Test
+    void devolverColocaATarefaNaFrenteDoSeuNivel() throws InterruptedException {
+        FilaProntas fila = new FilaProntas();
+        fila.adicionar(tarefa("a", "[ALTA] a"));
+        fila.adicionar(tarefa("b", "[ALTA] b"));
+        Tarefa retirada = fila.retirar();
+        fila.adicionar(tarefa("c", "[ALTA] c"));
+        fila.devolver(retirada);
+
+        assertEquals("a", fila.retirar().getId());
+        assertEquals("b", fila.retirar().getId());
+        assertEquals("c", fila.retirar().getId());
+    }
+
+    @Test
+    void ignoraATarefaJaEnfileirada() throws InterruptedException {
+        FilaProntas fila = new FilaProntas();
+        Tarefa a = tarefa("a", "a");
+        assertTrue(fila.adicionar(a));
+        assertFalse(fila.adicionar(a));
+        assertFalse(fila.devolver(a));
+        assertEquals(1, fila.tamanho());
+
+        // Depois de retirada, a tarefa pode voltar à fila.
+        fila.retirar();
+        assertTrue(fila.adicionar(a));
+    }
+
+    @Test
+    void prioridadeMalformadaUsaONivelNormal() throws InterruptedException {
+        FilaProntas fila = new FilaProntas();
+        fila.adicionar(tarefa("a", "[ALTA sem fechamento"));
+        fila.adicionar(tarefa("b", "[BAIXA] b"));
+        fila.adicionar(tarefa("c", "[ALTA] c"));
+
+        assertEquals("c", fila.retirar().getId());
+        assertEquals("a", fila.retirar().getId());
+        assertEquals("b", fila.retirar().getId());
+    }
+}
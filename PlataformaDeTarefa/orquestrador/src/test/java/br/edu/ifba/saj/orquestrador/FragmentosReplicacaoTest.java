@@ -0,0 +1,148 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes do Java para manipulação de bytes e coleções.
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da fragmentação das mensagens de replicação: CRC32, remontagem fora de ordem e NACKs.
+ */
+class FragmentosReplicacaoTest {
+
+    private static byte[] mensagem(int tamanho) {
+        byte[] bytes = new byte[tamanho];
+        new Random(tamanho).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Escreve o fragmento informado e o lê de volta, como faria o destino ao receber o datagrama.
+     */
+    private static FragmentosReplicacao.Fragmento transmitir(long idMensagem, byte[] mensagem, int indice) {
+        ByteBuffer datagrama = ByteBuffer.allocate(FragmentosReplicacao.TAMANHO_CABECALHO + FragmentosReplicacao.TAMANHO_FRAGMENTO);
+        FragmentosReplicacao.escreverFragmento(datagrama, idMensagem, mensagem, indice);
+        assertEquals(FragmentosReplicacao.TIPO_FRAGMENTO, datagrama.get());
+        return FragmentosReplicacao.lerFragmento(datagrama);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    void totalDeFragmentosArredondaParaCima() {
+        assertEquals(1, FragmentosReplicacao.totalFragmentos(0));
+        assertEquals(1, FragmentosReplicacao.totalFragmentos(FragmentosReplicacao.TAMANHO_FRAGMENTO));
+        assertEquals(2, FragmentosReplicacao.totalFragmentos(FragmentosReplicacao.TAMANHO_FRAGMENTO + 1));
+    }
+
+    @Test
+    void mensagemERemontadaComOsFragmentosEmQualquerOrdem() {
+        byte[] original = mensagem(FragmentosReplicacao.TAMANHO_FRAGMENTO * 2 + 100);
+        FragmentosReplicacao.Remontagem remontagem = new FragmentosReplicacao.Remontagem(7, 3);
+        for (int indice : new int[]{2, 0}) {
+            FragmentosReplicacao.Fragmento fragmento = transmitir(7, original, indice);
+            assertNotNull(fragmento);
+            assertEquals(7, fragmento.idMensagem);
+            assertEquals(3, fragmento.total);
+            remontagem.adicionar(fragmento);
+        }
+        assertFalse(remontagem.isCompleta());
+        assertEquals(List.of(1), remontagem.faltantes());
+
+        // Um fragmento repetido não altera a remontagem.
+        remontagem.adicionar(transmitir(7, original, 2));
+        remontagem.adicionar(transmitir(7, original, 1));
+        assertTrue(remontagem.isCompleta());
+        assertArrayEquals(original, bytes(remontagem.juntar()));
+    }
+
+    @Test
+    void fragmentoCorrompidoEDescartado() {
+        byte[] original = mensagem(500);
+        ByteBuffer datagrama = ByteBuffer.allocate(FragmentosReplicacao.TAMANHO_CABECALHO + FragmentosReplicacao.TAMANHO_FRAGMENTO);
+        FragmentosReplicacao.escreverFragmento(datagrama, 1, original, 0);
+        int posicao = FragmentosReplicacao.TAMANHO_CABECALHO + 10;
+        datagrama.put(posicao, (byte) (datagrama.get(posicao) ^ 0x01));
+        datagrama.get();
+        assertNull(FragmentosReplicacao.lerFragmento(datagrama));
+    }
+
+    @Test
+    void fragmentoMalformadoEDescartado() {
+        byte[] original = mensagem(500);
+        ByteBuffer datagrama = ByteBuffer.allocate(FragmentosReplicacao.TAMANHO_CABECALHO + FragmentosReplicacao.TAMANHO_FRAGMENTO);
+
+        // Datagrama truncado: o tamanho declarado não confere com o conteúdo recebido.
+        FragmentosReplicacao.escreverFragmento(datagrama, 1, original, 0);
+        datagrama.limit(datagrama.limit() - 1).get();
+        assertNull(FragmentosReplicacao.lerFragmento(datagrama));
+
+        // Índice fora do total.
+        FragmentosReplicacao.escreverFragmento(datagrama, 1, original, 0);
+        datagrama.putInt(1 + 8, 5);
+        datagrama.get();
+        assertNull(FragmentosReplicacao.lerFragmento(datagrama));
+
+        // Cabeçalho incompleto.
+        assertNull(FragmentosReplicacao.lerFragmento(ByteBuffer.allocate(10)));
+    }
+
+    @Test
+    void remontagemDeMensagemPuladaDescobreOTotalNoPrimeiroFragmento() {
+        byte[] original = mensagem(FragmentosReplicacao.TAMANHO_FRAGMENTO + 1);
+        FragmentosReplicacao.Remontagem remontagem = new FragmentosReplicacao.Remontagem(9);
+        // Nenhum fragmento chegou: a mensagem inteira falta, e o NACK segue sem índices.
+        assertFalse(remontagem.isCompleta());
+        assertTrue(remontagem.faltantes().isEmpty());
+
+        remontagem.adicionar(transmitir(9, original, 1));
+        assertEquals(List.of(0), remontagem.faltantes());
+        remontagem.adicionar(transmitir(9, original, 0));
+        assertTrue(remontagem.isCompleta());
+        assertArrayEquals(original, bytes(remontagem.juntar()));
+    }
+
+    @Test
+    void nackIdaEVolta() {
+        ByteBuffer datagrama = ByteBuffer.allocate(64 * 1024);
+        FragmentosReplicacao.escreverNack(datagrama, 42, List.of(1, 3, 4));
+        assertEquals(FragmentosReplicacao.TIPO_NACK, datagrama.get());
+        FragmentosReplicacao.Nack nack = FragmentosReplicacao.lerNack(datagrama);
+        assertEquals(42, nack.idMensagem);
+        assertEquals(List.of(1, 3, 4), nack.indices);
+
+        // Um NACK com índices demais é limitado para caber em um datagrama.
+        List<Integer> muitos = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            muitos.add(i);
+        }
+        FragmentosReplicacao.escreverNack(datagrama, 43, muitos);
+        datagrama.get();
+        assertEquals(4096, FragmentosReplicacao.lerNack(datagrama).indices.size());
+    }
+
+    @Test
+    void nackMalformadoEDescartado() {
+        ByteBuffer datagrama = ByteBuffer.allocate(64);
+        FragmentosReplicacao.escreverNack(datagrama, 42, List.of(1, 2));
+        datagrama.limit(datagrama.limit() - 2).get();
+        assertNull(FragmentosReplicacao.lerNack(datagrama));
+        assertNull(FragmentosReplicacao.lerNack(ByteBuffer.allocate(4)));
+    }
+}
@@ -0,0 +1,125 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes de coleções do Java.
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da ordem e da forma textual dos IDs gerados.
+ */
+class GeradorIdsTest {
+
+    @Test
+    void idsSaoEstritamenteCrescentesNoNumeroENoTexto() {
+        GeradorIds gerador = new GeradorIds(7);
+        long anterior = gerador.proximoNumero();
+        String anteriorTexto = GeradorIds.formatar(anterior);
+        // Mais IDs do que cabem em um milissegundo, para passar pelo esgotamento da sequência.
+        for (int i = 0; i < 20000; i++) {
+            long atual = gerador.proximoNumero();
+            String atualTexto = GeradorIds.formatar(atual);
+            assertTrue(atual > anterior);
+            assertTrue(atualTexto.compareTo(anteriorTexto) > 0);
+            anterior = atual;
+            anteriorTexto = atualTexto;
+        }
+    }
+
+    @Test
+    void formaTextualIdaEVolta() {
+        for (long id : new long[]{0, 1, 61, 62, 1234567890123L, Long.MAX_VALUE}) {
+            String texto = GeradorIds.formatar(id);
+            assertEquals(11, texto.length());
+            assertEquals(id, GeradorIds.interpretar(texto));
+        }
+    }
+
+    @Test
+    void textoForaDoFormatoNaoEInterpretado() {
+        assertEquals(-1, GeradorIds.interpretar("123e4567-e89b-12d3-a456-426614174000"));
+        assertEquals(-1, GeradorIds.interpretar("0000000000-"));
+        assertEquals(-1, GeradorIds.interpretar("zzzzzzzzzzz")); // Não cabe em 63 bits.
+    }
+
+    @Test
+    void noForaDoIntervaloERecusado() {
+        assertThrows(IllegalArgumentException.class, () -> new GeradorIds(-1));
+        assertThrows(IllegalArgumentException.class, () -> new GeradorIds(1024));
+    }
+
+    @Test
+    void backupTrocaDeNoAoObservarOMesmoNoDoPrimario() {
+        GeradorIds primario = new GeradorIds(5);
+        GeradorIds backup = new GeradorIds(5);
+        String herdado = primario.proximo();
+
+        backup.observar(herdado);
+        assertNotEquals(5, backup.getNo());
+
+        // Um ID do seu nó que não passa do último gerado é tratado como próprio.
+        backup.proximo();
+        long no = backup.getNo();
+        backup.observar(GeradorIds.formatar(GeradorIds.interpretar(herdado) | (no << 12)));
+        assertEquals(no, backup.getNo());
+    }
+
+    @Test
+    void idsGeradosFicamAcimaDosObservados() {
+        GeradorIds gerador = new GeradorIds(1);
+        // Um ID de outro nó criado dez segundos à frente do relógio local.
+        long instante = System.currentTimeMillis() - 1704067200000L + 10000;
+        String futuro = GeradorIds.formatar((instante << 22) | (2L << 12) | 4095);
+
+        gerador.observar(futuro);
+        assertTrue(gerador.proximo().compareTo(futuro) > 0);
+    }
+
+    @Test
+    void idsFicamAcimaDeUmObservadoDeNoMaiorNoMesmoMilissegundo() {
+        GeradorIds gerador = new GeradorIds(1);
+        long instante = System.currentTimeMillis() - 1704067200000L + 10000;
+        String futuro = GeradorIds.formatar((instante << 22) | (900L << 12));
+
+        gerador.observar(futuro);
+        assertTrue(gerador.proximo().compareTo(futuro) > 0);
+    }
+
+    @Test
+    void trocaDeNoTambemDepoisDeGerar() {
+        GeradorIds gerador = new GeradorIds(5);
+        String proprio = gerador.proximo();
+        // Outro processo com o mesmo nó gera um ID depois do último deste gerador.
+        long instante = System.currentTimeMillis() - 1704067200000L + 10000;
+        String alheio = GeradorIds.formatar((instante << 22) | (5L << 12) | 7);
+
+        gerador.observar(alheio);
+        assertNotEquals(5, gerador.getNo());
+        String seguinte = gerador.proximo();
+        assertTrue(seguinte.compareTo(alheio) > 0);
+        assertTrue(seguinte.compareTo(proprio) > 0);
+    }
+
+    @Test
+    void idsPropriosNaoTrocamONo() {
+        GeradorIds gerador = new GeradorIds(1023);
+        List<String> gerados = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            gerados.add(gerador.proximo());
+        }
+        // O repositório apresenta as tarefas fora da ordem de criação (várias threads criam tarefas).
+        Collections.reverse(gerados);
+        gerados.forEach(gerador::observar);
+        assertEquals(1023, gerador.getNo());
+        assertTrue(gerador.proximo().compareTo(gerados.get(0)) > 0);
+    }
+}
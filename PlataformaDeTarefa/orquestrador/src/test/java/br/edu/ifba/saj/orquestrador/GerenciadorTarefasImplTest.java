@@ -0,0 +1,369 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes geradas pelo gRPC para comunicação (protocolo).
+import br.edu.ifba.saj.protocolo.FinalizarTarefaRequest;
+import br.edu.ifba.saj.protocolo.FinalizarTarefaResponse;
+import br.edu.ifba.saj.protocolo.FinalizarTarefasRequest;
+import br.edu.ifba.saj.protocolo.HeartbeatRequest;
+import br.edu.ifba.saj.protocolo.HeartbeatResponse;
+import br.edu.ifba.saj.protocolo.MensagemOrquestrador;
+import br.edu.ifba.saj.protocolo.MensagemWorker;
+import br.edu.ifba.saj.protocolo.ProgressoTarefa;
+import br.edu.ifba.saj.protocolo.RegistroWorker;
+// Importa a tabela de carga e a política padrão de seleção de worker.
+import br.edu.ifba.saj.orquestrador.balanceamento.PoliticaMenorCarga;
+import br.edu.ifba.saj.orquestrador.balanceamento.TabelaCargaWorkers;
+// Importa o status e as interfaces de callbacks do gRPC.
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+// Importa classes de coleções, concorrência e utilitários do Java.
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do ciclo de vida das sessões dos workers e da distribuição de tarefas por elas.
+ */
+class GerenciadorTarefasImplTest {
+
+    private final Map<String, Long> workersAtivos = new ConcurrentHashMap<>();
+    private final RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+    private final TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+    private final OrquestradorServidor.GerenciadorTarefasImpl servico =
+            new OrquestradorServidor.GerenciadorTarefasImpl(workersAtivos, repositorio, new AtomicLong(), tabela, new PoliticaMenorCarga());
+
+    @AfterEach
+    void parar() {
+        servico.pararDespachante();
+    }
+
+    /**
+     * Lado de envio de um stream que apenas guarda o que recebeu.
+     */
+    static class SaidaGravada<T> implements StreamObserver<T> {
+        final List<T> mensagens = new CopyOnWriteArrayList<>();
+        volatile Throwable erro;
+        volatile int erros;
+        volatile int encerramentos;
+
+        @Override
+        public void onNext(T mensagem) {
+            mensagens.add(mensagem);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            erro = t;
+            erros++;
+        }
+
+        @Override
+        public void onCompleted() {
+            encerramentos++;
+        }
+    }
+
+    /**
+     * Lado de envio de uma sessão cujo transporte só aceita mensagens quando o teste libera.
+     */
+    static class SaidaControlada extends ServerCallStreamObserver<MensagemOrquestrador> {
+        final SaidaGravada<MensagemOrquestrador> gravada = new SaidaGravada<>();
+        volatile boolean pronta;
+        volatile Runnable aoFicarPronta;
+
+        void liberar() {
+            pronta = true;
+            aoFicarPronta.run();
+        }
+
+        @Override public boolean isReady() { return pronta; }
+        @Override public void setOnReadyHandler(Runnable handler) { aoFicarPronta = handler; }
+        @Override public boolean isCancelled() { return false; }
+        @Override public void setOnCancelHandler(Runnable handler) { }
+        @Override public void setCompression(String compression) { }
+        @Override public void disableAutoInboundFlowControl() { }
+        @Override public void request(int count) { }
+        @Override public void setMessageCompression(boolean enable) { }
+        @Override public void onNext(MensagemOrquestrador mensagem) { gravada.onNext(mensagem); }
+        @Override public void onError(Throwable t) { gravada.onError(t); }
+        @Override public void onCompleted() { gravada.onCompleted(); }
+    }
+
+    /**
+     * Aguarda até que a condição seja verdadeira ou o prazo termine.
+     */
+    static boolean aguardar(BooleanSupplier condicao, long prazoMs) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(prazoMs);
+        while (System.nanoTime() < limite) {
+            if (condicao.getAsBoolean()) return true;
+            Thread.sleep(10);
+        }
+        return condicao.getAsBoolean();
+    }
+
+    private static MensagemWorker registro(String workerId, int capacidade) {
+        return MensagemWorker.newBuilder()
+                .setRegistro(RegistroWorker.newBuilder().setWorkerId(workerId).setCapacidade(capacidade))
+                .build();
+    }
+
+    private Tarefa novaTarefa(String id) {
+        Tarefa tarefa = new Tarefa(id, "tarefa " + id, "user1");
+        repositorio.adicionar(tarefa);
+        servico.enfileirar(tarefa);
+        return tarefa;
+    }
+
+    @Test
+    void workerSemSessaoNaoEEscolhido() throws InterruptedException {
+        SaidaGravada<HeartbeatResponse> resposta = new SaidaGravada<>();
+        servico.enviarHeartbeat(HeartbeatRequest.newBuilder().setWorkerId("w-unario").setCapacidade(4).build(), resposta);
+        assertEquals(1, resposta.mensagens.size());
+        assertTrue(workersAtivos.containsKey("w-unario"));
+        assertEquals(0, tabela.getWorkers().length);
+
+        Tarefa tarefa = novaTarefa("t1");
+        Thread.sleep(300);
+        assertEquals(StatusTarefa.AGUARDANDO, tarefa.getStatus());
+        assertNull(tarefa.getWorkerIdAtual());
+    }
+
+    @Test
+    void tarefaSegueParaOWorkerQueAbriuASessao() throws InterruptedException {
+        SaidaGravada<HeartbeatResponse> resposta = new SaidaGravada<>();
+        servico.enviarHeartbeat(HeartbeatRequest.newBuilder().setWorkerId("w-unario").setCapacidade(4).build(), resposta);
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        servico.sessaoWorker(saida).onNext(registro("w1", 2));
+        assertEquals(1, tabela.getWorkers().length);
+
+        Tarefa tarefa = novaTarefa("t1");
+        assertTrue(aguardar(() -> saida.mensagens.size() == 1, 3000));
+        assertEquals("t1", saida.mensagens.get(0).getAtribuicao().getTarefaId());
+        assertEquals(StatusTarefa.EXECUTANDO, tarefa.getStatus());
+        assertEquals("w1", tarefa.getWorkerIdAtual());
+        assertEquals(1, tabela.getCarga("w1"));
+    }
+
+    private void finalizar(String tarefaId, String workerId) {
+        servico.finalizarTarefa(FinalizarTarefaRequest.newBuilder().setTarefaId(tarefaId).setWorkerId(workerId).build(),
+                new SaidaGravada<FinalizarTarefaResponse>());
+    }
+
+    @Test
+    void capacidadeLimitaAsAtribuicoesEAConclusaoLiberaOCredito() throws InterruptedException {
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        servico.sessaoWorker(saida).onNext(registro("w1", 1));
+        Tarefa t1 = novaTarefa("t1");
+        Tarefa t2 = novaTarefa("t2");
+
+        assertTrue(aguardar(() -> saida.mensagens.size() == 1, 3000));
+        Thread.sleep(200);
+        assertEquals(1, saida.mensagens.size());
+        Tarefa primeira = saida.mensagens.get(0).getAtribuicao().getTarefaId().equals("t1") ? t1 : t2;
+        Tarefa segunda = primeira == t1 ? t2 : t1;
+        assertEquals(StatusTarefa.AGUARDANDO, segunda.getStatus());
+
+        finalizar(primeira.getId(), "w1");
+        assertEquals(StatusTarefa.CONCLUIDA, primeira.getStatus());
+        assertTrue(aguardar(() -> saida.mensagens.size() == 2, 3000));
+        assertEquals(segunda.getId(), saida.mensagens.get(1).getAtribuicao().getTarefaId());
+    }
+
+    @Test
+    void soOWorkerQueDetemATarefaPodeConcluiLa() throws InterruptedException {
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        servico.sessaoWorker(saida).onNext(registro("w1", 2));
+        Tarefa tarefa = novaTarefa("t1");
+        assertTrue(aguardar(() -> tarefa.getStatus() == StatusTarefa.EXECUTANDO, 3000));
+
+        finalizar("t1", "w-outro");
+        assertEquals(StatusTarefa.EXECUTANDO, tarefa.getStatus());
+        assertEquals(1, tabela.getCarga("w1"));
+
+        // Uma conclusão repetida não devolve o crédito duas vezes.
+        finalizar("t1", "w1");
+        finalizar("t1", "w1");
+        assertEquals(StatusTarefa.CONCLUIDA, tarefa.getStatus());
+        assertEquals(0, tabela.getCarga("w1"));
+    }
+
+    @Test
+    void loteDeConclusoesPelaSessaoDevolveOsCreditosDeUmaVez() throws InterruptedException {
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        StreamObserver<MensagemWorker> entrada = servico.sessaoWorker(saida);
+        entrada.onNext(registro("w1", 3));
+        Tarefa t1 = novaTarefa("t1");
+        Tarefa t2 = novaTarefa("t2");
+        Tarefa t3 = novaTarefa("t3");
+        assertTrue(aguardar(() -> tabela.getCarga("w1") == 3, 3000));
+        Tarefa t4 = novaTarefa("t4");
+
+        // IDs desconhecidos ou repetidos no lote são ignorados sem afetar os demais.
+        entrada.onNext(MensagemWorker.newBuilder()
+                .setConclusoes(FinalizarTarefasRequest.newBuilder().setWorkerId("w1")
+                        .addTarefaIds("t1").addTarefaIds("t-desconhecida").addTarefaIds("t2").addTarefaIds("t1"))
+                .build());
+        assertEquals(StatusTarefa.CONCLUIDA, t1.getStatus());
+        assertEquals(StatusTarefa.CONCLUIDA, t2.getStatus());
+        assertEquals(StatusTarefa.EXECUTANDO, t3.getStatus());
+        assertTrue(aguardar(() -> t4.getStatus() == StatusTarefa.EXECUTANDO, 3000));
+        assertEquals(2, tabela.getCarga("w1"));
+    }
+
+    @Test
+    void loteUnarioDeConclusoesIgnoraAsTarefasDeOutroWorker() throws InterruptedException {
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        servico.sessaoWorker(saida).onNext(registro("w1", 2));
+        Tarefa t1 = novaTarefa("t1");
+        Tarefa t2 = novaTarefa("t2");
+        assertTrue(aguardar(() -> tabela.getCarga("w1") == 2, 3000));
+
+        SaidaGravada<FinalizarTarefaResponse> resposta = new SaidaGravada<>();
+        servico.finalizarTarefas(FinalizarTarefasRequest.newBuilder().setWorkerId("w-outro")
+                .addTarefaIds("t1").addTarefaIds("t2").build(), resposta);
+        assertTrue(resposta.mensagens.get(0).getSucesso());
+        assertEquals(StatusTarefa.EXECUTANDO, t1.getStatus());
+        assertEquals(2, tabela.getCarga("w1"));
+
+        servico.finalizarTarefas(FinalizarTarefasRequest.newBuilder().setWorkerId("w1")
+                .addTarefaIds("t1").addTarefaIds("t2").build(), new SaidaGravada<>());
+        assertEquals(StatusTarefa.CONCLUIDA, t1.getStatus());
+        assertEquals(StatusTarefa.CONCLUIDA, t2.getStatus());
+        assertEquals(0, tabela.getCarga("w1"));
+    }
+
+    @Test
+    void conclusoesNoHeartbeatSaoAplicadasAntesDaCargaInformada() throws InterruptedException {
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        StreamObserver<MensagemWorker> entrada = servico.sessaoWorker(saida);
+        entrada.onNext(registro("w1", 2));
+        Tarefa t1 = novaTarefa("t1");
+        Tarefa t2 = novaTarefa("t2");
+        assertTrue(aguardar(() -> tabela.getCarga("w1") == 2, 3000));
+
+        // O worker informa uma tarefa em execução já descontando a que concluiu: a carga fica em 1, não em 0.
+        entrada.onNext(MensagemWorker.newBuilder()
+                .setHeartbeat(HeartbeatRequest.newBuilder().setWorkerId("w1").setCapacidade(2)
+                        .setTarefasEmExecucao(1).addTarefasConcluidas("t1"))
+                .build());
+        assertEquals(StatusTarefa.CONCLUIDA, t1.getStatus());
+        assertEquals(StatusTarefa.EXECUTANDO, t2.getStatus());
+        assertEquals(1, tabela.getCarga("w1"));
+    }
+
+    @Test
+    void quedaDaSessaoTiraOWorkerDaSelecaoEDevolveAsTarefas() throws InterruptedException {
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        StreamObserver<MensagemWorker> entrada = servico.sessaoWorker(saida);
+        entrada.onNext(registro("w1", 1));
+        Tarefa tarefa = novaTarefa("t1");
+        assertTrue(aguardar(() -> tarefa.getStatus() == StatusTarefa.EXECUTANDO, 3000));
+
+        entrada.onError(Status.UNAVAILABLE.asRuntimeException());
+        assertFalse(servico.possuiSessao("w1"));
+        assertFalse(workersAtivos.containsKey("w1"));
+        assertEquals(0, tabela.getWorkers().length);
+        assertTrue(aguardar(() -> tarefa.getStatus() == StatusTarefa.AGUARDANDO, 3000));
+
+        // Ao reabrir a sessão, o worker volta a ser escolhido e recebe a tarefa devolvida.
+        SaidaGravada<MensagemOrquestrador> novaSaida = new SaidaGravada<>();
+        servico.sessaoWorker(novaSaida).onNext(registro("w1", 1));
+        assertTrue(aguardar(() -> novaSaida.mensagens.size() == 1, 3000));
+        assertEquals("t1", novaSaida.mensagens.get(0).getAtribuicao().getTarefaId());
+    }
+
+    @Test
+    void fimDoStreamPeloWorkerFechaASessaoUmaVez() throws InterruptedException {
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        StreamObserver<MensagemWorker> entrada = servico.sessaoWorker(saida);
+        entrada.onNext(registro("w1", 1));
+        // Um segundo registro no mesmo stream não substitui (nem fecha) a sessão.
+        entrada.onNext(registro("w1", 1));
+        assertEquals(0, saida.encerramentos);
+
+        entrada.onCompleted();
+        assertEquals(1, saida.encerramentos);
+        assertFalse(servico.possuiSessao("w1"));
+        assertFalse(workersAtivos.containsKey("w1"));
+
+        // A sessão encerrada não recebe mais atribuições.
+        novaTarefa("t1");
+        Thread.sleep(300);
+        assertTrue(saida.mensagens.isEmpty());
+        assertEquals(1, saida.encerramentos);
+        assertNull(saida.erro);
+    }
+
+    @Test
+    void mensagemAntesDoRegistroEncerraOStreamUmaVez() {
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        StreamObserver<MensagemWorker> entrada = servico.sessaoWorker(saida);
+        MensagemWorker progresso = MensagemWorker.newBuilder()
+                .setProgresso(ProgressoTarefa.newBuilder().setTarefaId("t1"))
+                .build();
+        entrada.onNext(progresso);
+        entrada.onNext(progresso);
+        entrada.onNext(registro("w1", 1));
+        entrada.onCompleted();
+
+        assertEquals(1, saida.erros);
+        assertEquals(Status.Code.FAILED_PRECONDITION, Status.fromThrowable(saida.erro).getCode());
+        assertEquals(0, saida.encerramentos);
+        assertFalse(servico.possuiSessao("w1"));
+    }
+
+    @Test
+    void fimDoStreamSemRegistroCompletaOStream() {
+        SaidaGravada<MensagemOrquestrador> saida = new SaidaGravada<>();
+        StreamObserver<MensagemWorker> entrada = servico.sessaoWorker(saida);
+        entrada.onCompleted();
+        entrada.onCompleted();
+        assertEquals(1, saida.encerramentos);
+        assertEquals(0, saida.erros);
+    }
+
+    @Test
+    void atribuicaoAguardaOStreamFicarPronto() throws InterruptedException {
+        SaidaControlada saida = new SaidaControlada();
+        servico.sessaoWorker(saida).onNext(registro("w1", 1));
+        novaTarefa("t1");
+
+        Thread.sleep(200);
+        assertTrue(saida.gravada.mensagens.isEmpty());
+        saida.liberar();
+        assertTrue(aguardar(() -> saida.gravada.mensagens.size() == 1, 3000));
+        assertTrue(servico.possuiSessao("w1"));
+        assertNull(saida.gravada.erro);
+    }
+
+    @Test
+    void streamQueNaoFicaProntoEncerraASessao() throws InterruptedException {
+        SaidaControlada saida = new SaidaControlada();
+        servico.sessaoWorker(saida).onNext(registro("w1", 1));
+        Tarefa tarefa = novaTarefa("t1");
+
+        // Passado o prazo de envio (500 ms nos testes), a sessão é encerrada com erro e a tarefa volta a aguardar.
+        assertTrue(aguardar(() -> saida.gravada.erro != null, 3000));
+        assertEquals(Status.Code.UNAVAILABLE, Status.fromThrowable(saida.gravada.erro).getCode());
+        assertTrue(saida.gravada.mensagens.isEmpty());
+        assertTrue(aguardar(() -> !servico.possuiSessao("w1"), 3000));
+        assertEquals(StatusTarefa.AGUARDANDO, tarefa.getStatus());
+        assertEquals(0, tabela.getWorkers().length);
+    }
+}
@@ -0,0 +1,131 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Importa classes de E/S e coleções do Java.
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testes do histórico em disco das tarefas finalizadas: páginas por usuário, regravações, totais e recuperação.
+ */
+class HistoricoTarefasTest {
+
+    @TempDir
+    Path diretorio;
+
+    private static Tarefa finalizada(String id, String usuarioId, StatusTarefa status) {
+        Tarefa tarefa = new Tarefa(id, "dados " + id, usuarioId);
+        tarefa.setStatus(status);
+        tarefa.setWorkerIdAtual("w1");
+        return tarefa;
+    }
+
+    private static List<String> ids(List<Tarefa> tarefas) {
+        return tarefas.stream().map(Tarefa::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Retorna o arquivo de histórico do único usuário gravado no diretório.
+     */
+    private Path arquivoDoUsuario() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            List<Path> historicos = arquivos.filter(arquivo -> arquivo.toString().endsWith(".hist")).collect(Collectors.toList());
+            assertEquals(1, historicos.size());
+            return historicos.get(0);
+        }
+    }
+
+    @Test
+    void paginasSeguemAOrdemDosIdsEmQualquerOrdemDeArquivamento() throws IOException {
+        HistoricoTarefas historico = new HistoricoTarefas(diretorio);
+        historico.gravar(List.of(finalizada("t4", "user1", StatusTarefa.CONCLUIDA), finalizada("t1", "user1", StatusTarefa.FALHA)));
+        historico.gravar(List.of(finalizada("t3", "user1", StatusTarefa.CONCLUIDA), finalizada("t2", "user1", StatusTarefa.CONCLUIDA),
+                finalizada("x1", "user2", StatusTarefa.CONCLUIDA)));
+
+        assertEquals(List.of("t1", "t2"), ids(historico.paginaDoUsuario("user1", null, 2, tarefa -> true)));
+        assertEquals(List.of("t3", "t4"), ids(historico.paginaDoUsuario("user1", "t2", 2, tarefa -> true)));
+        assertEquals(List.of("t2", "t3", "t4"), ids(historico.paginaDoUsuario("user1", null, 10,
+                tarefa -> tarefa.getStatus() == StatusTarefa.CONCLUIDA)));
+        assertEquals(List.of("x1"), ids(historico.paginaDoUsuario("user2", null, 10, tarefa -> true)));
+        assertEquals("dados t3", historico.obter("user1", "t3").getDados());
+        assertNull(historico.obter("user2", "t3"));
+        assertNull(historico.obter("user3", "t1"));
+    }
+
+    @Test
+    void tarefaGravadaDeNovoContaUmaVezComOStatusMaisRecente() throws IOException {
+        HistoricoTarefas historico = new HistoricoTarefas(diretorio);
+        historico.gravar(List.of(finalizada("t1", "user1", StatusTarefa.CONCLUIDA)));
+        // Repetição após uma queda entre a gravação e a saída da memória: nada muda.
+        historico.gravar(List.of(finalizada("t1", "user1", StatusTarefa.CONCLUIDA)));
+        assertEquals(1, historico.getTotal());
+
+        // A tarefa voltou a andar e terminou com outro status.
+        historico.gravar(List.of(finalizada("t1", "user1", StatusTarefa.FALHA)));
+        assertEquals(1, historico.getTotal());
+        assertEquals(1, historico.getDoUsuario("user1"));
+        assertEquals(0, historico.getComStatus(StatusTarefa.CONCLUIDA));
+        assertEquals(1, historico.getComStatus(StatusTarefa.FALHA));
+        assertEquals(StatusTarefa.FALHA, historico.obter("user1", "t1").getStatus());
+        assertEquals(List.of("t1"), ids(historico.paginaDoUsuario("user1", null, 10, tarefa -> true)));
+    }
+
+    @Test
+    void totaisSobrevivemAReabertura() throws IOException {
+        HistoricoTarefas historico = new HistoricoTarefas(diretorio);
+        historico.gravar(List.of(finalizada("t1", "user1", StatusTarefa.CONCLUIDA), finalizada("t2", "user1", StatusTarefa.FALHA),
+                finalizada("x1", "user2", StatusTarefa.CONCLUIDA)));
+
+        HistoricoTarefas reaberto = new HistoricoTarefas(diretorio);
+        assertEquals(3, reaberto.getTotal());
+        assertEquals(2, reaberto.getDoUsuario("user1"));
+        assertEquals(2, reaberto.getComStatus(StatusTarefa.CONCLUIDA));
+        assertEquals(1, reaberto.getComStatus(StatusTarefa.FALHA));
+    }
+
+    @Test
+    void registroIncompletoEDescartadoEOsTotaisSaoRecontados() throws IOException {
+        HistoricoTarefas historico = new HistoricoTarefas(diretorio);
+        historico.gravar(List.of(finalizada("t1", "user1", StatusTarefa.CONCLUIDA), finalizada("t2", "user1", StatusTarefa.CONCLUIDA)));
+        // Queda no meio da gravação de um lote: sobra um registro pela metade no fim do arquivo.
+        Files.write(arquivoDoUsuario(), new byte[]{0, 0, 0, 50, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        HistoricoTarefas reaberto = new HistoricoTarefas(diretorio);
+        assertEquals(2, reaberto.getDoUsuario("user1"));
+        assertEquals(List.of("t1", "t2"), ids(reaberto.paginaDoUsuario("user1", null, 10, tarefa -> true)));
+
+        // A próxima gravação sobrescreve o final inválido.
+        reaberto.gravar(List.of(finalizada("t3", "user1", StatusTarefa.FALHA)));
+        assertEquals(List.of("t1", "t2", "t3"), ids(new HistoricoTarefas(diretorio).paginaDoUsuario("user1", null, 10, tarefa -> true)));
+        assertEquals(3, new HistoricoTarefas(diretorio).getDoUsuario("user1"));
+    }
+
+    @Test
+    void totaisSaoRecontadosQuandoOArquivoDeTotaisSePerde() throws IOException {
+        HistoricoTarefas historico = new HistoricoTarefas(diretorio);
+        List<Tarefa> tarefas = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tarefas.add(finalizada(String.format("t%02d", i), "user" + (i % 3), i % 5 == 0 ? StatusTarefa.FALHA : StatusTarefa.CONCLUIDA));
+        }
+        historico.gravar(tarefas);
+        Files.delete(diretorio.resolve("totais.dat"));
+
+        HistoricoTarefas reaberto = new HistoricoTarefas(diretorio);
+        assertEquals(50, reaberto.getTotal());
+        assertEquals(10, reaberto.getComStatus(StatusTarefa.FALHA));
+        assertEquals(17, reaberto.getDoUsuario("user0"));
+    }
+}
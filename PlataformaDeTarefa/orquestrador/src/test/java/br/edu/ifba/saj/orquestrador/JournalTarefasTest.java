@@ -0,0 +1,178 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as mensagens de replicação geradas a partir do proto.
+import br.edu.ifba.saj.protocolo.OperacaoReplicacao;
+import br.edu.ifba.saj.protocolo.TipoOperacaoReplicacao;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Importa classes de E/S e coleções do Java.
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testes da reprodução do journal, inclusive sobre registros corrompidos ou gravados pela metade.
+ */
+class JournalTarefasTest {
+
+    // Tamanho do cabeçalho de cada registro (tamanho e CRC32).
+    private static final int TAMANHO_CABECALHO = 8;
+
+    @TempDir
+    Path diretorio;
+
+    /**
+     * Grava cinco registros: a criação de t1 e de t2, a atribuição de t1 ao worker w1, a criação de t3 e a entrada
+     * do worker w1.
+     */
+    private void gravarJournal() throws IOException {
+        JournalTarefas journal = new JournalTarefas(diretorio);
+        journal.iniciar();
+        Tarefa t1 = new Tarefa("t1", "[ALTA] primeira", "user1");
+        journal.tarefaAdicionada(t1);
+        journal.tarefaAdicionada(new Tarefa("t2", "segunda", "user1"));
+        t1.setStatus(StatusTarefa.EXECUTANDO);
+        t1.setWorkerIdAtual("w1");
+        journal.tarefaTransicionada(t1);
+        journal.tarefaAdicionada(new Tarefa("t3", "terceira", "user2"));
+        journal.registrarOperacao(OperacaoReplicacao.newBuilder()
+                .setTipo(TipoOperacaoReplicacao.WORKER_ENTROU)
+                .setWorkerId("w1")
+                .setTimestamp(1000)
+                .build());
+        journal.aguardarDurabilidade();
+        journal.fechar();
+    }
+
+    private Path segmento() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            List<Path> segmentos = arquivos.filter(arquivo -> arquivo.toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+            assertEquals(1, segmentos.size());
+            return segmentos.get(0);
+        }
+    }
+
+    /**
+     * Retorna a posição do início (cabeçalho) do registro informado no segmento.
+     */
+    private long posicaoDoRegistro(Path segmento, int indice) throws IOException {
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ)) {
+            long posicao = 0;
+            ByteBuffer tamanho = ByteBuffer.allocate(4);
+            for (int i = 0; i < indice; i++) {
+                tamanho.clear();
+                canal.read(tamanho, posicao);
+                posicao += TAMANHO_CABECALHO + tamanho.flip().getInt();
+            }
+            return posicao;
+        }
+    }
+
+    private void sobrescrever(Path segmento, long posicao, ByteBuffer conteudo) throws IOException {
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.write(conteudo, posicao);
+        }
+    }
+
+    private int reproduzir(RepositorioTarefas repositorio, Map<String, Long> workers) throws IOException {
+        JournalTarefas journal = new JournalTarefas(diretorio);
+        try {
+            return journal.reproduzir(repositorio, workers, new HashMap<>(), 0);
+        } finally {
+            journal.fechar();
+        }
+    }
+
+    @Test
+    void reproduzOsRegistrosEmOrdem() throws IOException {
+        gravarJournal();
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+        Map<String, Long> workers = new HashMap<>();
+
+        assertEquals(5, reproduzir(repositorio, workers));
+        assertEquals(3, repositorio.tamanho());
+        assertEquals(StatusTarefa.EXECUTANDO, repositorio.obter("t1").getStatus());
+        assertEquals("w1", repositorio.obter("t1").getWorkerIdAtual());
+        assertEquals(Prioridade.ALTA, repositorio.obter("t1").getPrioridade());
+        assertEquals(StatusTarefa.AGUARDANDO, repositorio.obter("t2").getStatus());
+        assertEquals("user2", repositorio.obter("t3").getUsuarioId());
+        assertEquals(Map.of("w1", 1000L), workers);
+    }
+
+    @Test
+    void registroCorrompidoEncerraALeituraDoSegmento() throws IOException {
+        gravarJournal();
+        Path segmento = segmento();
+        // Altera um byte do conteúdo do terceiro registro (a atribuição de t1): o CRC deixa de conferir.
+        long posicao = posicaoDoRegistro(segmento, 2) + TAMANHO_CABECALHO + 1;
+        sobrescrever(segmento, posicao, ByteBuffer.wrap(new byte[]{(byte) 0xFF}));
+
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+        Map<String, Long> workers = new HashMap<>();
+        assertEquals(2, reproduzir(repositorio, workers));
+        assertEquals(StatusTarefa.AGUARDANDO, repositorio.obter("t1").getStatus());
+        assertNull(repositorio.obter("t3"));
+        assertEquals(Map.of(), workers);
+    }
+
+    @Test
+    void registroGravadoPelaMetadeEIgnorado() throws IOException {
+        gravarJournal();
+        Path segmento = segmento();
+        // Simula uma queda durante a gravação do quarto registro: o cabeçalho foi gravado, o conteúdo não.
+        long posicao = posicaoDoRegistro(segmento, 3);
+        ByteBuffer cabecalho = ByteBuffer.allocate(4);
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ)) {
+            canal.read(cabecalho, posicao);
+        }
+        sobrescrever(segmento, posicao + TAMANHO_CABECALHO, ByteBuffer.allocate(cabecalho.flip().getInt()));
+
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+        assertEquals(3, reproduzir(repositorio, new HashMap<>()));
+        assertEquals(StatusTarefa.EXECUTANDO, repositorio.obter("t1").getStatus());
+        assertNull(repositorio.obter("t3"));
+    }
+
+    @Test
+    void tamanhoInvalidoNoCabecalhoEIgnorado() throws IOException {
+        gravarJournal();
+        Path segmento = segmento();
+        // Um tamanho que passa do fim do segmento (cabeçalho gravado só em parte).
+        sobrescrever(segmento, posicaoDoRegistro(segmento, 1), ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE));
+
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+        assertEquals(1, reproduzir(repositorio, new HashMap<>()));
+        assertEquals(1, repositorio.tamanho());
+    }
+
+    @Test
+    void diretorioTemUmUnicoJournalPorVez() throws IOException {
+        JournalTarefas dono = new JournalTarefas(diretorio);
+        dono.iniciar();
+        assertThrows(IOException.class, () -> new JournalTarefas(diretorio));
+
+        // Ao fechar, o dono libera o diretório, que pode ser assumido e reproduzido por outro journal.
+        dono.tarefaAdicionada(new Tarefa("t1", "primeira", "user1"));
+        dono.aguardarDurabilidade();
+        dono.fechar();
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+        assertEquals(1, reproduzir(repositorio, new HashMap<>()));
+        assertEquals("primeira", repositorio.obter("t1").getDados());
+    }
+}
@@ -0,0 +1,122 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes de coleções e utilitários do Java.
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testes do motor compacto: IDs em cada formato, tabela hash, reuso dos registros e compactação dos conteúdos.
+ */
+class RepositorioTarefasCompactoTest {
+
+    private final RepositorioTarefas repositorio = RepositorioTarefas.porNome(RepositorioTarefasCompacto.NOME);
+
+    private static String dados(String id, int tamanho) {
+        StringBuilder dados = new StringBuilder("dados de ").append(id).append(' ');
+        while (dados.length() < tamanho) {
+            dados.append('ç');
+        }
+        return dados.toString();
+    }
+
+    private static Set<String> ids(List<Tarefa> tarefas) {
+        return tarefas.stream().map(Tarefa::getId).collect(Collectors.toSet());
+    }
+
+    @Test
+    void idsDeCadaFormatoSaoReconstruidosDosRegistros() {
+        String gerado = GeradorIds.global().proximo();
+        String uuid = UUID.randomUUID().toString();
+        // Fora da forma canônica: guardado pelo texto, não pelos bits.
+        String uuidMaiusculo = UUID.randomUUID().toString().toUpperCase();
+        String texto = "tarefa-ação-" + "x".repeat(200);
+        List<String> todos = List.of(gerado, uuid, uuidMaiusculo, texto, "t1");
+        for (String id : todos) {
+            Tarefa tarefa = new Tarefa(id, dados(id, 50), "user1");
+            tarefa.setStatus(StatusTarefa.CONCLUIDA);
+            repositorio.adicionar(tarefa);
+        }
+
+        assertEquals(new HashSet<>(todos), repositorio.todas().stream().map(Tarefa::getId).collect(Collectors.toSet()));
+        for (String id : todos) {
+            assertEquals(id, repositorio.obter(id).getId());
+            assertEquals(dados(id, 50), repositorio.obter(id).getDados());
+            assertEquals("user1", repositorio.obter(id).getUsuarioId());
+        }
+        assertNull(repositorio.obter(uuidMaiusculo.toLowerCase()));
+        assertNull(repositorio.obter(texto + "y"));
+        assertEquals(new HashSet<>(todos), ids(repositorio.paginaDoUsuario("user1", null, 10, tarefa -> true)));
+    }
+
+    @Test
+    void tabelaCresceERegistrosLiberadosSaoReusados() {
+        int total = 5000;
+        for (int i = 0; i < total; i++) {
+            repositorio.adicionar(new Tarefa("t" + i, dados("t" + i, 20), "user" + (i % 7)));
+        }
+        // Exclusões intercaladas: deslocam entradas da tabela e desligam registros no meio das listas dos usuários.
+        for (int i = 0; i < total; i += 2) {
+            repositorio.remover("t" + i);
+        }
+        for (int i = 0; i < total / 2; i++) {
+            repositorio.adicionar(new Tarefa("novo" + i, dados("novo" + i, 20), "user0"));
+        }
+
+        assertEquals(total, repositorio.tamanho());
+        for (int i = 0; i < total; i++) {
+            if (i % 2 == 0) {
+                assertNull(repositorio.obter("t" + i));
+            } else {
+                assertEquals(dados("t" + i, 20), repositorio.obter("t" + i).getDados());
+            }
+            if (i < total / 2) {
+                assertEquals(dados("novo" + i, 20), repositorio.obter("novo" + i).getDados());
+            }
+        }
+        List<Tarefa> doUsuario = new ArrayList<>();
+        String apos = null;
+        List<Tarefa> pagina;
+        while (!(pagina = repositorio.paginaDoUsuario("user1", apos, 100, tarefa -> true)).isEmpty()) {
+            doUsuario.addAll(pagina);
+            apos = pagina.get(pagina.size() - 1).getId();
+        }
+        Set<String> esperados = new HashSet<>();
+        for (int i = 1; i < total; i += 2) {
+            if (i % 7 == 1) {
+                esperados.add("t" + i);
+            }
+        }
+        assertEquals(esperados, ids(doUsuario));
+        assertEquals(esperados.size(), doUsuario.size());
+    }
+
+    @Test
+    void conteudosSubstituidosSaoCompactadosSemPerderOsVivos() {
+        // Com o limiar de 1 MB definido no pom, as substituições forçam várias compactações.
+        for (int rodada = 0; rodada < 40; rodada++) {
+            for (int i = 0; i < 20; i++) {
+                Tarefa tarefa = new Tarefa("t" + i, dados("t" + i + " rodada " + rodada, 50 * 1024), "user1");
+                tarefa.setStatus(StatusTarefa.CONCLUIDA);
+                repositorio.adicionar(tarefa);
+            }
+        }
+        repositorio.adicionar(new Tarefa("grande", dados("grande", 2 * 1024 * 1024), "user2"));
+
+        assertEquals(21, repositorio.tamanho());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(dados("t" + i + " rodada 39", 50 * 1024), repositorio.obter("t" + i).getDados());
+        }
+        assertEquals(dados("grande", 2 * 1024 * 1024), repositorio.obter("grande").getDados());
+    }
+}
@@ -0,0 +1,142 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+// Importa classes de coleções e utilitários do Java.
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes dos índices secundários do repositório de tarefas (por usuário, por status e por worker), em cada motor.
+ */
+class RepositorioTarefasTest {
+
+    private static Set<String> ids(Collection<Tarefa> tarefas) {
+        return tarefas.stream().map(Tarefa::getId).collect(Collectors.toSet());
+    }
+
+    private static List<String> idsEmOrdem(List<Tarefa> tarefas) {
+        return tarefas.stream().map(Tarefa::getId).collect(Collectors.toList());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "arquivo", "compacto"})
+    void indicesAcompanhamAsTransicoes(String motor) {
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(motor);
+        repositorio.adicionar(new Tarefa("t1", "primeira", "user1"));
+        repositorio.adicionar(new Tarefa("t2", "segunda", "user1"));
+        repositorio.adicionar(new Tarefa("t3", "terceira", "user2"));
+        assertEquals(Set.of("t1", "t2", "t3"), ids(repositorio.comStatus(StatusTarefa.AGUARDANDO)));
+
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.EXECUTANDO, "w1");
+        repositorio.transicionar(repositorio.obter("t2"), StatusTarefa.EXECUTANDO, "w1");
+        repositorio.transicionar(repositorio.obter("t3"), StatusTarefa.EXECUTANDO, "w2");
+        assertEquals(Set.of("t1", "t2"), ids(repositorio.emExecucaoNoWorker("w1")));
+        assertEquals(Set.of("t3"), ids(repositorio.emExecucaoNoWorker("w2")));
+        assertTrue(repositorio.comStatus(StatusTarefa.AGUARDANDO).isEmpty());
+
+        // Ao concluir, a tarefa sai das em execução do worker e passa para o índice do novo status.
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.CONCLUIDA, "w1");
+        // Ao voltar para a fila, perde o worker.
+        repositorio.transicionar(repositorio.obter("t3"), StatusTarefa.AGUARDANDO, null);
+        assertEquals(Set.of("t2"), ids(repositorio.emExecucaoNoWorker("w1")));
+        assertTrue(repositorio.emExecucaoNoWorker("w2").isEmpty());
+        assertEquals(Set.of("t1"), ids(repositorio.comStatus(StatusTarefa.CONCLUIDA)));
+        assertEquals(Set.of("t2"), ids(repositorio.comStatus(StatusTarefa.EXECUTANDO)));
+        assertEquals(Set.of("t3"), ids(repositorio.comStatus(StatusTarefa.AGUARDANDO)));
+        assertNull(repositorio.obter("t3").getWorkerIdAtual());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "arquivo", "compacto"})
+    void transicaoCondicionalRecusadaNaoAlteraOsIndices(String motor) {
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(motor);
+        repositorio.adicionar(new Tarefa("t1", "primeira", "user1"));
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.EXECUTANDO, "w1");
+
+        assertFalse(repositorio.transicionarSe(repositorio.obter("t1"), StatusTarefa.AGUARDANDO, null, StatusTarefa.EXECUTANDO, "w2"));
+        assertFalse(repositorio.transicionarSe(repositorio.obter("t1"), StatusTarefa.EXECUTANDO, "w2", StatusTarefa.CONCLUIDA, "w2"));
+        assertEquals(Set.of("t1"), ids(repositorio.emExecucaoNoWorker("w1")));
+        assertTrue(repositorio.emExecucaoNoWorker("w2").isEmpty());
+
+        assertTrue(repositorio.transicionarSe(repositorio.obter("t1"), StatusTarefa.EXECUTANDO, "w1", StatusTarefa.CONCLUIDA, "w1"));
+        assertTrue(repositorio.emExecucaoNoWorker("w1").isEmpty());
+        assertEquals(StatusTarefa.CONCLUIDA, repositorio.obter("t1").getStatus());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "arquivo", "compacto"})
+    void remocaoTiraATarefaDeTodosOsIndices(String motor) {
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(motor);
+        repositorio.adicionar(new Tarefa("t1", "primeira", "user1"));
+        repositorio.adicionar(new Tarefa("t2", "segunda", "user1"));
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.EXECUTANDO, "w1");
+
+        assertEquals("t1", repositorio.remover("t1").getId());
+        assertNull(repositorio.remover("t1"));
+        assertNull(repositorio.obter("t1"));
+        assertTrue(repositorio.emExecucaoNoWorker("w1").isEmpty());
+        assertTrue(repositorio.comStatus(StatusTarefa.EXECUTANDO).isEmpty());
+        assertEquals(List.of("t2"), idsEmOrdem(repositorio.paginaDoUsuario("user1", null, 10, tarefa -> true)));
+        assertEquals(1, repositorio.tamanho());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "arquivo", "compacto"})
+    void paginaDoUsuarioSegueAOrdemDosIds(String motor) {
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(motor);
+        // Inseridas fora de ordem e intercaladas com as de outro usuário.
+        for (String id : List.of("t5", "t1", "t4", "t2", "t3")) {
+            repositorio.adicionar(new Tarefa(id, "tarefa " + id, "user1"));
+            repositorio.adicionar(new Tarefa("x" + id, "tarefa x" + id, "user2"));
+        }
+        repositorio.transicionar(repositorio.obter("t2"), StatusTarefa.EXECUTANDO, "w1");
+
+        assertEquals(List.of("t1", "t2", "t3"), idsEmOrdem(repositorio.paginaDoUsuario("user1", null, 3, tarefa -> true)));
+        assertEquals(List.of("t4", "t5"), idsEmOrdem(repositorio.paginaDoUsuario("user1", "t3", 3, tarefa -> true)));
+        // O filtro é aplicado antes do limite: a página continua cheia quando há tarefas suficientes.
+        assertEquals(List.of("t1", "t3"), idsEmOrdem(repositorio.paginaDoUsuario("user1", null, 2,
+                tarefa -> tarefa.getStatus() == StatusTarefa.AGUARDANDO)));
+        assertTrue(repositorio.paginaDoUsuario("user3", null, 10, tarefa -> true).isEmpty());
+        assertNull(repositorio.obterDoUsuario("user2", "t1"));
+        assertEquals("tarefa t1", repositorio.obterDoUsuario("user1", "t1").getDados());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memoria", "arquivo", "compacto"})
+    void reconciliarAplicaApenasAsDiferencas(String motor) {
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(motor);
+        repositorio.adicionar(new Tarefa("t1", "primeira", "user1"));
+        repositorio.adicionar(new Tarefa("t2", "segunda", "user1"));
+        repositorio.adicionar(new Tarefa("t3", "terceira", "user1"));
+
+        Map<String, Tarefa> recebidas = new HashMap<>();
+        recebidas.put("t1", new Tarefa("t1", "primeira", "user1"));
+        Tarefa t2 = new Tarefa("t2", "segunda", "user1");
+        t2.setStatus(StatusTarefa.EXECUTANDO);
+        t2.setWorkerIdAtual("w1");
+        recebidas.put("t2", t2);
+        recebidas.put("t4", new Tarefa("t4", "quarta", "user2"));
+
+        // t2 alterada, t3 removida e t4 adicionada; t1 não muda.
+        assertEquals(3, repositorio.reconciliar(recebidas));
+        assertEquals(3, repositorio.tamanho());
+        assertNull(repositorio.obter("t3"));
+        assertEquals(Set.of("t2"), ids(repositorio.emExecucaoNoWorker("w1")));
+        assertEquals(Set.of("t1", "t4"), ids(repositorio.comStatus(StatusTarefa.AGUARDANDO)));
+        assertEquals(List.of("t4"), idsEmOrdem(repositorio.paginaDoUsuario("user2", null, 10, tarefa -> true)));
+        assertEquals(0, repositorio.reconciliar(recebidas));
+    }
+}
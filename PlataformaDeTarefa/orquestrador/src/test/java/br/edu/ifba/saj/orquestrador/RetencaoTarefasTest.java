@@ -0,0 +1,118 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Importa classes de E/S e coleções do Java.
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testes da retenção das tarefas finalizadas e da leitura conjunta da memória e do histórico.
+ */
+class RetencaoTarefasTest {
+
+    // Máximo de tarefas finalizadas em memória nos testes (-Dorquestrador.retencao.max, definido no pom).
+    private static final int MAX_FINALIZADAS = Integer.getInteger("orquestrador.retencao.max", 10000);
+
+    @TempDir
+    Path diretorio;
+
+    private final RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+    private HistoricoTarefas historico;
+    private RetencaoTarefas retencao;
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        // A mesma ligação feita pelo núcleo ao ativar a retenção.
+        historico = new HistoricoTarefas(diretorio);
+        repositorio.setHistorico(historico);
+        retencao = new RetencaoTarefas(repositorio, historico);
+        repositorio.adicionarOuvinte(retencao);
+    }
+
+    private void finalizar(String id, StatusTarefa status) {
+        Tarefa tarefa = repositorio.obter(id);
+        repositorio.transicionar(tarefa, StatusTarefa.EXECUTANDO, "w1");
+        repositorio.transicionar(tarefa, status, "w1");
+    }
+
+    private static List<String> ids(List<Tarefa> tarefas) {
+        return tarefas.stream().map(Tarefa::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void finalizadasExcedentesVaoParaOHistoricoNaOrdemDeFinalizacao() throws IOException {
+        int total = MAX_FINALIZADAS + 3;
+        for (int i = 0; i < total; i++) {
+            repositorio.adicionar(new Tarefa(String.format("t%02d", i), "dados " + i, "user1"));
+        }
+        // Finalizadas de trás para frente: as primeiras a sair são as de IDs maiores.
+        for (int i = total - 1; i >= 0; i--) {
+            finalizar(String.format("t%02d", i), i % 2 == 0 ? StatusTarefa.CONCLUIDA : StatusTarefa.FALHA);
+        }
+
+        assertEquals(3, retencao.arquivarVencidas());
+        assertEquals(0, retencao.arquivarVencidas());
+        assertEquals(MAX_FINALIZADAS, repositorio.tamanho());
+        for (int i = total - 3; i < total; i++) {
+            String id = String.format("t%02d", i);
+            assertNull(repositorio.obter(id));
+            assertNotNull(historico.obter("user1", id));
+        }
+
+        // As listagens, as buscas e os totais do dashboard continuam vendo as duas camadas.
+        List<Tarefa> todas = repositorio.paginaDoUsuario("user1", null, 100, tarefa -> true);
+        assertEquals(total, todas.size());
+        assertEquals("t00", todas.get(0).getId());
+        assertEquals(String.format("t%02d", total - 1), todas.get(total - 1).getId());
+        assertEquals("dados " + (total - 1), repositorio.obterDoUsuario("user1", String.format("t%02d", total - 1)).getDados());
+        ContadoresTarefas contadores = repositorio.getContadores();
+        assertEquals(total, contadores.getTotalComHistorico());
+        assertEquals(total, contadores.getDoUsuarioComHistorico("user1"));
+    }
+
+    @Test
+    void tarefasEmAndamentoOuQueVoltaramAAndarFicamEmMemoria() throws IOException {
+        for (int i = 0; i < MAX_FINALIZADAS + 2; i++) {
+            repositorio.adicionar(new Tarefa(String.format("t%02d", i), "dados " + i, "user1"));
+            finalizar(String.format("t%02d", i), StatusTarefa.CONCLUIDA);
+        }
+        repositorio.adicionar(new Tarefa("em-execucao", "dados", "user1"));
+        repositorio.transicionar(repositorio.obter("em-execucao"), StatusTarefa.EXECUTANDO, "w1");
+        // A mais antiga volta para a fila antes da retenção: a sua entrada é ignorada e a seguinte sai no lugar.
+        repositorio.transicionar(repositorio.obter("t00"), StatusTarefa.AGUARDANDO, null);
+
+        assertEquals(1, retencao.arquivarVencidas());
+        assertNotNull(repositorio.obter("t00"));
+        assertNull(repositorio.obter("t01"));
+        assertNotNull(repositorio.obter("em-execucao"));
+        assertEquals(List.of("t01"), ids(historico.paginaDoUsuario("user1", null, 10, tarefa -> true)));
+    }
+
+    @Test
+    void finalizadasJaPresentesSaoRegistradasNaAtivacao() throws IOException {
+        RepositorioTarefas herdado = RepositorioTarefas.porNome(null);
+        for (int i = 0; i < MAX_FINALIZADAS + 4; i++) {
+            Tarefa tarefa = new Tarefa(String.format("t%02d", i), "dados " + i, "user1");
+            tarefa.setStatus(StatusTarefa.CONCLUIDA);
+            herdado.adicionar(tarefa);
+        }
+        RetencaoTarefas retencaoHerdada = new RetencaoTarefas(herdado, historico);
+        herdado.adicionarOuvinte(retencaoHerdada);
+        assertEquals(0, retencaoHerdada.arquivarVencidas());
+
+        retencaoHerdada.registrarExistentes();
+        assertEquals(4, retencaoHerdada.arquivarVencidas());
+        assertEquals(MAX_FINALIZADAS, herdado.tamanho());
+    }
+}
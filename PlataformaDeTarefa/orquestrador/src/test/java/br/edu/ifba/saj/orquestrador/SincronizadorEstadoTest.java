@@ -0,0 +1,267 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as mensagens de replicação geradas a partir do proto.
+import br.edu.ifba.saj.protocolo.PacoteReplicacao;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes do Java para manipulação de bytes, rede e coleções.
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da recepção da replicação no backup: ordem das mensagens, pedidos de reenvio e lacunas.
+ */
+class SincronizadorEstadoTest {
+
+    // Endereço de origem dos datagramas (o primário).
+    private static final InetSocketAddress PRIMARIO = new InetSocketAddress(InetAddress.getLoopbackAddress(), 4446);
+    // Porta dos NACKs nos testes (configurada no pom).
+    private static final int PORTA_NACK = Integer.getInteger("orquestrador.replicacao.porta.nack", 4447);
+
+    private final Map<String, Long> workers = new ConcurrentHashMap<>();
+    private final RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+    private final SincronizadorEstado backup = new SincronizadorEstado(workers, repositorio, new ConcurrentHashMap<>());
+    // Buffer direto reutilizado em todos os datagramas recebidos, como no transporte do backup.
+    private final ByteBuffer datagrama = ByteBuffer.allocateDirect(FragmentosReplicacao.TAMANHO_CABECALHO + FragmentosReplicacao.TAMANHO_FRAGMENTO);
+
+    private static Tarefa tarefa(String id) {
+        return new Tarefa(id, "dados " + id, "user1");
+    }
+
+    private static PacoteReplicacao snapshot(long sequencia, Tarefa... tarefas) {
+        return CodecReplicacao.snapshot(new HashMap<>(), List.of(tarefas), new HashMap<>())
+                .setEpoca(1)
+                .setSequencia(sequencia)
+                .build();
+    }
+
+    /**
+     * Lote com a criação de uma tarefa como operação de número sequencia.
+     */
+    private static PacoteReplicacao lote(long sequencia, String tarefaId) {
+        return CodecReplicacao.comDicionario(PacoteReplicacao.newBuilder()
+                .setEpoca(1)
+                .setSequencia(sequencia)
+                .addOperacoes(CodecReplicacao.tarefaCriada(tarefa(tarefaId), true).setSequencia(sequencia)))
+                .build();
+    }
+
+    private void receber(long idMensagem, PacoteReplicacao pacote) {
+        receber(idMensagem, CodecReplicacao.codificar(pacote), 0);
+    }
+
+    /**
+     * Entrega ao backup os fragmentos informados de uma mensagem já codificada.
+     */
+    private void receber(long idMensagem, byte[] mensagem, int... indices) {
+        for (int indice : indices) {
+            FragmentosReplicacao.escreverFragmento(datagrama, idMensagem, mensagem, indice);
+            backup.processarFragmento(datagrama, PRIMARIO);
+        }
+    }
+
+    /**
+     * Pede os fragmentos faltantes e retorna o NACK que o primário receberia.
+     */
+    private FragmentosReplicacao.Nack nackEnviado() throws Exception {
+        try (DatagramSocket primario = new DatagramSocket(PORTA_NACK, InetAddress.getLoopbackAddress());
+             DatagramChannel canal = DatagramChannel.open()) {
+            primario.setSoTimeout(2000);
+            Thread.sleep(250);
+            backup.pedirFragmentosFaltantes(canal, ByteBuffer.allocate(1024));
+
+            DatagramPacket pacote = new DatagramPacket(new byte[1024], 1024);
+            primario.receive(pacote);
+            ByteBuffer nack = ByteBuffer.wrap(pacote.getData(), 0, pacote.getLength());
+            assertEquals(FragmentosReplicacao.TIPO_NACK, nack.get());
+            FragmentosReplicacao.Nack lido = FragmentosReplicacao.lerNack(nack);
+            assertNotNull(lido);
+            return lido;
+        }
+    }
+
+    @Test
+    void mensagemPerdidaPorInteiroEPedidaEAsSeguintesEsperamPorEla() throws Exception {
+        receber(100, snapshot(0));
+        // A mensagem 101 (operação 1) se perde; a 102 (operação 2) chega e espera por ela.
+        receber(102, lote(2, "t2"));
+        assertNull(repositorio.obter("t2"));
+
+        FragmentosReplicacao.Nack nack = nackEnviado();
+        assertEquals(101, nack.idMensagem);
+        assertEquals(List.of(), nack.indices); // Sem índices: a mensagem inteira.
+
+        // O reenvio chega: as duas operações são aplicadas em ordem, sem lacuna.
+        receber(101, lote(1, "t1"));
+        assertNotNull(repositorio.obter("t1"));
+        assertNotNull(repositorio.obter("t2"));
+        receber(103, lote(3, "t3"));
+        assertNotNull(repositorio.obter("t3"));
+        // Um reenvio duplicado é ignorado.
+        receber(101, lote(1, "t1"));
+        assertEquals(3, repositorio.tamanho());
+    }
+
+    @Test
+    void mensagemAdiantadaSobreviveAoReusoDoBufferDeRecepcao() {
+        receber(100, snapshot(0));
+        // A 102 chega antes da 101 e é guardada; o buffer de recepção é sobrescrito pela 101 e pela 103.
+        receber(102, lote(2, "t2"));
+        receber(101, lote(1, "t1"));
+        receber(103, lote(3, "t3"));
+        assertEquals(3, repositorio.tamanho());
+        assertEquals("dados t1", repositorio.obter("t1").getDados());
+        assertEquals("dados t2", repositorio.obter("t2").getDados());
+        assertEquals("dados t3", repositorio.obter("t3").getDados());
+    }
+
+    @Test
+    void fragmentoPerdidoEPedidoPeloIndice() throws Exception {
+        // Um snapshot com dados pouco compressíveis ocupa vários fragmentos.
+        Random aleatorio = new Random(1);
+        Tarefa[] tarefas = new Tarefa[20];
+        for (int i = 0; i < tarefas.length; i++) {
+            byte[] dados = new byte[1500];
+            aleatorio.nextBytes(dados);
+            tarefas[i] = new Tarefa("t" + i, Base64.getEncoder().encodeToString(dados), "user1");
+        }
+        byte[] mensagem = CodecReplicacao.codificar(snapshot(0, tarefas));
+        int total = FragmentosReplicacao.totalFragmentos(mensagem.length);
+        assertTrue(total >= 3);
+
+        // Chegam todos os fragmentos, fora de ordem, menos o de índice 1.
+        for (int indice = total - 1; indice >= 0; indice--) {
+            if (indice != 1) receber(100, mensagem, indice);
+        }
+        assertEquals(0, repositorio.tamanho());
+
+        FragmentosReplicacao.Nack nack = nackEnviado();
+        assertEquals(100, nack.idMensagem);
+        assertEquals(List.of(1), nack.indices);
+
+        receber(100, mensagem, 1);
+        assertEquals(tarefas.length, repositorio.tamanho());
+        assertEquals(tarefas[7].getDados(), repositorio.obter("t7").getDados());
+    }
+
+    @Test
+    void mensagemAbandonadaLiberaAsSeguintesEOSnapshotRessincroniza() throws Exception {
+        receber(100, snapshot(0));
+        receber(102, lote(2, "t2"));
+
+        try (DatagramChannel canal = DatagramChannel.open()) {
+            // Após MAX_TENTATIVAS_NACK pedidos sem resposta, a mensagem 101 é abandonada.
+            for (int i = 0; i < 6; i++) {
+                Thread.sleep(210);
+                backup.pedirFragmentosFaltantes(canal, ByteBuffer.allocate(1024));
+            }
+        }
+        // A 102 foi processada, mas revelou a lacuna na sequência e foi descartada.
+        assertNull(repositorio.obter("t2"));
+        receber(103, lote(3, "t3"));
+        assertNull(repositorio.obter("t3"));
+
+        receber(104, snapshot(3, tarefa("t1"), tarefa("t2"), tarefa("t3")));
+        receber(105, lote(4, "t4"));
+        assertEquals(4, repositorio.tamanho());
+    }
+
+    @Test
+    void saltoMaiorQueAsMensagensRetidasRecomecaANumeracao() {
+        receber(100, snapshot(0));
+        receber(101, lote(1, "t1"));
+        // O primário foi reiniciado: os IDs saltam e a época muda. A mensagem é processada na hora.
+        PacoteReplicacao novoSnapshot = CodecReplicacao.snapshot(new HashMap<>(), List.of(tarefa("t9")), new HashMap<>())
+                .setEpoca(2)
+                .build();
+        receber(5_000_000, novoSnapshot);
+        assertNotNull(repositorio.obter("t9"));
+        assertNull(repositorio.obter("t1"));
+    }
+
+    @Test
+    void reconciliarMapaAtualizaNoLugar() {
+        Map<String, String> local = new ConcurrentHashMap<>(Map.of("a", "1", "b", "2", "c", "3"));
+        SincronizadorEstado.reconciliar(local, Map.of("a", "1", "b", "20", "d", "4"));
+        assertEquals(Map.of("a", "1", "b", "20", "d", "4"), local);
+    }
+
+    @Test
+    void snapshotEAplicadoApenasComAsDiferencas() {
+        Map<String, String> sessoes = new ConcurrentHashMap<>(Map.of("token-antigo", "user9"));
+        workers.put("w-antigo", 1L);
+        SincronizadorEstado.aplicarEstado(snapshot(0, tarefa("t1"), tarefa("t2")), workers, repositorio, sessoes);
+        Tarefa t1 = repositorio.obter("t1");
+
+        Tarefa t2 = tarefa("t2");
+        t2.setStatus(StatusTarefa.EXECUTANDO);
+        t2.setWorkerIdAtual("w1");
+        Map<String, Long> workersRecebidos = new HashMap<>(Map.of("w1", 500L));
+        PacoteReplicacao pacote = CodecReplicacao.snapshot(workersRecebidos, List.of(tarefa("t1"), t2, tarefa("t3")), Map.of("token1", "user1"))
+                .setEpoca(1)
+                .build();
+        SincronizadorEstado.aplicarEstado(pacote, workers, repositorio, sessoes);
+
+        // A tarefa que não mudou continua sendo a mesma instância; a alterada é transicionada no lugar.
+        assertSame(t1, repositorio.obter("t1"));
+        assertEquals(StatusTarefa.EXECUTANDO, repositorio.obter("t2").getStatus());
+        assertEquals(1, repositorio.emExecucaoNoWorker("w1").size());
+        assertEquals("t2", repositorio.emExecucaoNoWorker("w1").get(0).getId());
+        assertNotNull(repositorio.obter("t3"));
+        assertEquals(Map.of("w1", 500L), workers);
+        assertEquals(Map.of("token1", "user1"), sessoes);
+    }
+
+    @Test
+    void leiturasDuranteASincronizacaoNuncaVeemOEstadoVazio() throws InterruptedException {
+        Tarefa[] tarefas = new Tarefa[2000];
+        for (int i = 0; i < tarefas.length; i++) {
+            tarefas[i] = tarefa("t" + i);
+        }
+        PacoteReplicacao completo = snapshot(0, tarefas);
+        PacoteReplicacao parcial = snapshot(0, Arrays.copyOf(tarefas, 1000));
+        SincronizadorEstado.aplicarEstado(completo, workers, repositorio, null);
+
+        AtomicBoolean viuVazio = new AtomicBoolean();
+        AtomicBoolean parar = new AtomicBoolean();
+        Thread leitor = new Thread(() -> {
+            while (!parar.get()) {
+                if (repositorio.obter("t0") == null || repositorio.tamanho() < 1000) {
+                    viuVazio.set(true);
+                }
+            }
+        });
+        leitor.start();
+        for (int i = 0; i < 20; i++) {
+            SincronizadorEstado.aplicarEstado(i % 2 == 0 ? parcial : completo, workers, repositorio, null);
+        }
+        parar.set(true);
+        leitor.join();
+
+        assertFalse(viuVazio.get());
+        assertEquals(2000, repositorio.tamanho());
+    }
+}
@@ -0,0 +1,143 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as mensagens de replicação geradas a partir do proto.
+import br.edu.ifba.saj.protocolo.PacoteReplicacao;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Importa classes de E/S e coleções do Java.
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes dos snapshots do estado em disco e da compactação do journal que eles permitem.
+ */
+class SnapshotEstadoTest {
+
+    @TempDir
+    Path diretorio;
+
+    private static PacoteReplicacao estado(String... tarefaIds) {
+        List<Tarefa> tarefas = Stream.of(tarefaIds).map(id -> new Tarefa(id, "dados " + id, "user1")).collect(Collectors.toList());
+        return CodecReplicacao.snapshot(Map.of("w1", 1000L), tarefas, Map.of("token1", "user1")).build();
+    }
+
+    private List<String> arquivos(String extensao) throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.map(arquivo -> arquivo.getFileName().toString())
+                    .filter(nome -> nome.endsWith(extensao))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void snapshotGravadoECarregadoDeVolta() throws IOException {
+        SnapshotEstado.gravar(diretorio, 5, estado("t1", "t2"));
+
+        SnapshotEstado.Carregado carregado = SnapshotEstado.carregarUltimo(diretorio);
+        assertNotNull(carregado);
+        assertEquals(5, carregado.segmento);
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+        Map<String, Long> workers = new HashMap<>();
+        Map<String, String> sessoes = new HashMap<>();
+        SincronizadorEstado.aplicarEstado(carregado.pacote, workers, repositorio, sessoes);
+        assertEquals(2, repositorio.tamanho());
+        assertEquals("dados t2", repositorio.obter("t2").getDados());
+        assertEquals(Map.of("w1", 1000L), workers);
+        assertEquals(Map.of("token1", "user1"), sessoes);
+        // Nenhum arquivo temporário fica para trás.
+        assertTrue(arquivos(".tmp").isEmpty());
+    }
+
+    @Test
+    void snapshotCorrompidoDaLugarAoAnterior() throws IOException {
+        SnapshotEstado.gravar(diretorio, 3, estado("t1"));
+        SnapshotEstado.gravar(diretorio, 7, estado("t1", "t2"));
+        Path maisRecente = diretorio.resolve(arquivos(".snap").get(1));
+        try (FileChannel canal = FileChannel.open(maisRecente, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[]{0x55}), 12);
+        }
+
+        SnapshotEstado.Carregado carregado = SnapshotEstado.carregarUltimo(diretorio);
+        assertEquals(3, carregado.segmento);
+        assertEquals(1, carregado.pacote.getTarefasCount());
+    }
+
+    @Test
+    void semSnapshotValidoNadaECarregado() throws IOException {
+        assertNull(SnapshotEstado.carregarUltimo(diretorio.resolve("inexistente")));
+        assertNull(SnapshotEstado.carregarUltimo(diretorio));
+        // Um snapshot interrompido antes de ser renomeado não é considerado.
+        Files.write(diretorio.resolve("snapshot-00000000000000000009.snap.tmp"), new byte[]{1, 2, 3});
+        assertNull(SnapshotEstado.carregarUltimo(diretorio));
+    }
+
+    @Test
+    void apagaSoOsSnapshotsAnteriores() throws IOException {
+        SnapshotEstado.gravar(diretorio, 1, estado("t1"));
+        SnapshotEstado.gravar(diretorio, 2, estado("t1"));
+        SnapshotEstado.gravar(diretorio, 3, estado("t1"));
+        SnapshotEstado.apagarAnteriores(diretorio, 3);
+        assertEquals(List.of("snapshot-00000000000000000003.snap"), arquivos(".snap"));
+    }
+
+    @Test
+    void snapshotCompactaOJournalSemPerderAlteracoes() throws Exception {
+        RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+        JournalTarefas journal = new JournalTarefas(diretorio);
+        long primeiroSegmento = journal.iniciar();
+        repositorio.adicionarOuvinte(journal);
+        repositorio.adicionar(new Tarefa("t1", "primeira", "user1"));
+        repositorio.adicionar(new Tarefa("t2", "segunda", "user1"));
+
+        // Como no núcleo: troca de segmento, copia o estado e apaga o que o snapshot cobre.
+        long segmento = journal.rodarSegmento().get(10, TimeUnit.SECONDS);
+        SnapshotEstado.gravar(diretorio, segmento, CodecReplicacao.snapshot(new HashMap<>(), repositorio.todas(), new HashMap<>()).build());
+        assertTrue(segmento > primeiroSegmento);
+        assertEquals(1, journal.apagarSegmentosAnteriores(segmento));
+        SnapshotEstado.apagarAnteriores(diretorio, segmento);
+
+        // Alterações posteriores ao snapshot ficam só no segmento novo.
+        repositorio.transicionar(repositorio.obter("t1"), StatusTarefa.EXECUTANDO, "w1");
+        repositorio.adicionar(new Tarefa("t3", "terceira", "user2"));
+        journal.aguardarDurabilidade();
+        journal.fechar();
+        assertEquals(1, arquivos(".seg").size());
+
+        // Recuperação: o snapshot mais os segmentos a partir dele reconstroem o estado completo.
+        RepositorioTarefas recuperado = RepositorioTarefas.porNome(null);
+        SnapshotEstado.Carregado carregado = SnapshotEstado.carregarUltimo(diretorio);
+        assertEquals(segmento, carregado.segmento);
+        SincronizadorEstado.aplicarEstado(carregado.pacote, new HashMap<>(), recuperado, new HashMap<>());
+        JournalTarefas reaberto = new JournalTarefas(diretorio);
+        try {
+            assertEquals(2, reaberto.reproduzir(recuperado, new HashMap<>(), new HashMap<>(), carregado.segmento));
+        } finally {
+            reaberto.fechar();
+        }
+        assertEquals(3, recuperado.tamanho());
+        assertEquals(StatusTarefa.EXECUTANDO, recuperado.obter("t1").getStatus());
+        assertEquals("w1", recuperado.obter("t1").getWorkerIdAtual());
+        assertEquals("segunda", recuperado.obter("t2").getDados());
+        assertEquals("user2", recuperado.obter("t3").getUsuarioId());
+    }
+}
@@ -0,0 +1,155 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador;
+
+// Importa as classes geradas pelo gRPC para comunicação (protocolo).
+import br.edu.ifba.saj.protocolo.ResultadoItemLote;
+import br.edu.ifba.saj.protocolo.SubmeterTarefasEmLoteRequest;
+import br.edu.ifba.saj.protocolo.SubmeterTarefasEmLoteResponse;
+// Importa a tabela de carga e a política padrão de seleção de worker.
+import br.edu.ifba.saj.orquestrador.balanceamento.PoliticaMenorCarga;
+import br.edu.ifba.saj.orquestrador.balanceamento.TabelaCargaWorkers;
+// Importa o status e a interface de callbacks do gRPC.
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// Importa classes de coleções e concorrência do Java.
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da submissão de tarefas em lote e em stream de blocos.
+ */
+class SubmissaoEmLoteTest {
+
+    private static final String TOKEN = "token-lote";
+    private static final String USUARIO = "usuario-lote";
+
+    private final RepositorioTarefas repositorio = RepositorioTarefas.porNome(null);
+    private final AtomicLong relogio = new AtomicLong();
+    private final OrquestradorServidor.GerenciadorTarefasImpl servico = new OrquestradorServidor.GerenciadorTarefasImpl(
+            new ConcurrentHashMap<>(), repositorio, relogio, new TabelaCargaWorkers(), new PoliticaMenorCarga());
+
+    @BeforeEach
+    void autenticar() {
+        OrquestradorServidor.AutenticacaoImpl.sessoesAtivas.put(TOKEN, USUARIO);
+    }
+
+    @AfterEach
+    void parar() {
+        OrquestradorServidor.AutenticacaoImpl.sessoesAtivas.remove(TOKEN);
+        servico.pararDespachante();
+    }
+
+    private static SubmeterTarefasEmLoteRequest bloco(String token, long timestamp, String... dados) {
+        return SubmeterTarefasEmLoteRequest.newBuilder()
+                .setTokenSessao(token)
+                .setLamportTimestamp(timestamp)
+                .addAllDadosTarefas(List.of(dados))
+                .build();
+    }
+
+    private List<Tarefa> tarefasDoUsuario() {
+        return repositorio.paginaDoUsuario(USUARIO, null, 100, tarefa -> true);
+    }
+
+    @Test
+    void loteRegistraCadaItemERecusaOsVazios() {
+        GerenciadorTarefasImplTest.SaidaGravada<SubmeterTarefasEmLoteResponse> saida = new GerenciadorTarefasImplTest.SaidaGravada<>();
+        servico.submeterTarefasEmLote(bloco(TOKEN, 40, "primeira", "", "  ", "segunda"), saida);
+
+        assertEquals(1, saida.mensagens.size());
+        assertEquals(1, saida.encerramentos);
+        SubmeterTarefasEmLoteResponse resposta = saida.mensagens.get(0);
+        assertEquals(2, resposta.getTotalAceitas());
+        assertEquals(2, resposta.getTotalRecusadas());
+        // No lote unário, todos os itens aparecem nos resultados, na ordem do pedido.
+        assertEquals(4, resposta.getResultadosCount());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, resposta.getResultados(i).getIndice());
+        }
+        assertTrue(resposta.getResultados(0).getAceita());
+        assertFalse(resposta.getResultados(1).getAceita());
+        assertFalse(resposta.getResultados(2).getAceita());
+        assertTrue(resposta.getResultados(3).getAceita());
+
+        // As tarefas aceitas estão no repositório, em nome do usuário do token, com os IDs devolvidos.
+        List<Tarefa> tarefas = tarefasDoUsuario();
+        assertEquals(2, tarefas.size());
+        assertEquals("primeira", repositorio.obter(resposta.getResultados(0).getTarefaId()).getDados());
+        assertEquals("segunda", repositorio.obter(resposta.getResultados(3).getTarefaId()).getDados());
+        tarefas.forEach(tarefa -> assertEquals(StatusTarefa.AGUARDANDO, tarefa.getStatus()));
+        // Uma única atualização do relógio de Lamport para o lote inteiro.
+        assertEquals(41, relogio.get());
+    }
+
+    @Test
+    void loteComTokenInvalidoNaoRegistraNada() {
+        GerenciadorTarefasImplTest.SaidaGravada<SubmeterTarefasEmLoteResponse> saida = new GerenciadorTarefasImplTest.SaidaGravada<>();
+        servico.submeterTarefasEmLote(bloco("token-desconhecido", 1, "primeira"), saida);
+
+        assertEquals(Status.Code.UNAUTHENTICATED, Status.fromThrowable(saida.erro).getCode());
+        assertTrue(saida.mensagens.isEmpty());
+        assertEquals(0, repositorio.tamanho());
+    }
+
+    @Test
+    void streamNumeraOsItensPeloStreamInteiroEListaSoAsRecusas() {
+        GerenciadorTarefasImplTest.SaidaGravada<SubmeterTarefasEmLoteResponse> saida = new GerenciadorTarefasImplTest.SaidaGravada<>();
+        StreamObserver<SubmeterTarefasEmLoteRequest> entrada = servico.submeterTarefasEmStream(saida);
+        entrada.onNext(bloco(TOKEN, 5, "a", "b", "c"));
+        // O token só é validado no primeiro bloco.
+        entrada.onNext(bloco("", 9, "d", ""));
+        entrada.onNext(bloco("", 2, "e"));
+        assertTrue(saida.mensagens.isEmpty());
+        entrada.onCompleted();
+
+        assertEquals(1, saida.mensagens.size());
+        assertEquals(1, saida.encerramentos);
+        SubmeterTarefasEmLoteResponse resposta = saida.mensagens.get(0);
+        assertEquals(5, resposta.getTotalAceitas());
+        assertEquals(1, resposta.getTotalRecusadas());
+        assertEquals(1, resposta.getResultadosCount());
+        ResultadoItemLote recusado = resposta.getResultados(0);
+        assertEquals(4, recusado.getIndice());
+        assertFalse(recusado.getAceita());
+        assertEquals(5, tarefasDoUsuario().size());
+        assertEquals(11, relogio.get());
+    }
+
+    @Test
+    void streamComTokenInvalidoFalhaUmaVezEIgnoraOsBlocosSeguintes() {
+        GerenciadorTarefasImplTest.SaidaGravada<SubmeterTarefasEmLoteResponse> saida = new GerenciadorTarefasImplTest.SaidaGravada<>();
+        StreamObserver<SubmeterTarefasEmLoteRequest> entrada = servico.submeterTarefasEmStream(saida);
+        entrada.onNext(bloco("token-desconhecido", 1, "a"));
+        entrada.onNext(bloco(TOKEN, 2, "b"));
+        entrada.onCompleted();
+
+        assertEquals(1, saida.erros);
+        assertEquals(Status.Code.UNAUTHENTICATED, Status.fromThrowable(saida.erro).getCode());
+        assertEquals(0, saida.encerramentos);
+        assertTrue(saida.mensagens.isEmpty());
+        assertEquals(0, repositorio.tamanho());
+    }
+
+    @Test
+    void streamCanceladoMantemAsTarefasJaRecebidas() {
+        GerenciadorTarefasImplTest.SaidaGravada<SubmeterTarefasEmLoteResponse> saida = new GerenciadorTarefasImplTest.SaidaGravada<>();
+        StreamObserver<SubmeterTarefasEmLoteRequest> entrada = servico.submeterTarefasEmStream(saida);
+        entrada.onNext(bloco(TOKEN, 1, "a", "b"));
+        entrada.onError(Status.CANCELLED.asRuntimeException());
+
+        assertTrue(saida.mensagens.isEmpty());
+        assertEquals(0, saida.encerramentos);
+        assertEquals(2, tarefasDoUsuario().size());
+    }
+}
@@ -0,0 +1,132 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.balanceamento;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes de coleções do Java.
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes das políticas de seleção de worker e da lista de workers da tabela de carga.
+ */
+class PoliticaSelecaoWorkerTest {
+
+    /**
+     * Cria uma tabela com os workers informados, cada um com a carga e a capacidade dadas em pares.
+     */
+    private static TabelaCargaWorkers tabela(Object... workerCargaCapacidade) {
+        TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+        for (int i = 0; i < workerCargaCapacidade.length; i += 3) {
+            tabela.atualizarPorHeartbeat((String) workerCargaCapacidade[i], (Integer) workerCargaCapacidade[i + 1],
+                    (Integer) workerCargaCapacidade[i + 2], 0);
+        }
+        return tabela;
+    }
+
+    @Test
+    void porNomeEscolheAPoliticaEUsaMenorCargaComoPadrao() {
+        assertInstanceOf(PoliticaRoundRobin.class, PoliticaSelecaoWorker.porNome(" Round-Robin "));
+        assertInstanceOf(PoliticaDuasEscolhas.class, PoliticaSelecaoWorker.porNome("duas-escolhas"));
+        assertInstanceOf(PoliticaMenorCarga.class, PoliticaSelecaoWorker.porNome("menor-carga"));
+        assertInstanceOf(PoliticaMenorCarga.class, PoliticaSelecaoWorker.porNome("desconhecida"));
+        assertInstanceOf(PoliticaMenorCarga.class, PoliticaSelecaoWorker.porNome(null));
+    }
+
+    @Test
+    void tabelaVaziaNaoTemEscolha() {
+        TabelaCargaWorkers vazia = new TabelaCargaWorkers();
+        for (String nome : List.of("round-robin", "menor-carga", "duas-escolhas")) {
+            assertNull(PoliticaSelecaoWorker.porNome(nome).selecionar(vazia), nome);
+        }
+    }
+
+    @Test
+    void nenhumaPoliticaEscolheWorkerSemCredito() {
+        TabelaCargaWorkers tabela = tabela("w1", 2, 2, "w2", 0, 1, "w3", 4, 4);
+        for (String nome : List.of("round-robin", "menor-carga", "duas-escolhas")) {
+            PoliticaSelecaoWorker politica = PoliticaSelecaoWorker.porNome(nome);
+            for (int i = 0; i < 50; i++) {
+                assertEquals("w2", politica.selecionar(tabela), nome);
+            }
+        }
+        TabelaCargaWorkers cheia = tabela("w1", 2, 2, "w2", 1, 1);
+        for (String nome : List.of("round-robin", "menor-carga", "duas-escolhas")) {
+            assertNull(PoliticaSelecaoWorker.porNome(nome).selecionar(cheia), nome);
+        }
+    }
+
+    @Test
+    void roundRobinPercorreTodosOsWorkersEmCirculo() {
+        TabelaCargaWorkers tabela = tabela("w1", 5, 10, "w2", 0, 10, "w3", 9, 10);
+        PoliticaRoundRobin politica = new PoliticaRoundRobin();
+        List<String> escolhidos = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            escolhidos.add(politica.selecionar(tabela));
+        }
+        // A carga é ignorada: cada worker aparece uma vez a cada volta, sempre na mesma ordem.
+        assertEquals(Set.of("w1", "w2", "w3"), new HashSet<>(escolhidos.subList(0, 3)));
+        assertEquals(escolhidos.subList(0, 3), escolhidos.subList(3, 6));
+    }
+
+    @Test
+    void menorCargaEscolheOMenosCarregadoEDesempataEmCirculo() {
+        assertEquals("w2", new PoliticaMenorCarga().selecionar(tabela("w1", 3, 10, "w2", 1, 10, "w3", 2, 10)));
+
+        TabelaCargaWorkers empatados = tabela("w1", 1, 10, "w2", 1, 10, "w3", 1, 10);
+        PoliticaMenorCarga politica = new PoliticaMenorCarga();
+        Set<String> escolhidos = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            escolhidos.add(politica.selecionar(empatados));
+        }
+        assertEquals(Set.of("w1", "w2", "w3"), escolhidos);
+    }
+
+    @Test
+    void duasEscolhasNuncaEscolheOMaisCarregado() {
+        TabelaCargaWorkers tabela = tabela("w1", 0, 10, "w2", 5, 10, "w3", 9, 10);
+        PoliticaDuasEscolhas politica = new PoliticaDuasEscolhas();
+        Map<String, Integer> contagem = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            contagem.merge(politica.selecionar(tabela), 1, Integer::sum);
+        }
+        // Entre dois sorteados distintos, o de carga 9 sempre perde; o de carga 0 sempre ganha quando sorteado.
+        assertNull(contagem.get("w3"));
+        assertTrue(contagem.get("w1") > contagem.getOrDefault("w2", 0));
+    }
+
+    @Test
+    void listaDeWorkersSoMudaQuandoUmWorkerEntraOuSai() {
+        TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+        TabelaCargaWorkers.CargaWorker w1 = tabela.registrar("w1");
+        TabelaCargaWorkers.CargaWorker[] lista = tabela.getWorkers();
+        assertEquals(1, lista.length);
+
+        // Registrar de novo ou atualizar a carga não refaz a lista.
+        assertSame(w1, tabela.registrar("w1"));
+        tabela.atualizarPorHeartbeat("w1", 1, 4, 0);
+        assertSame(lista, tabela.getWorkers());
+
+        tabela.registrar("w2");
+        assertNotEquals(Arrays.asList(lista), Arrays.asList(tabela.getWorkers()));
+        assertEquals(2, tabela.getWorkers().length);
+        tabela.remover("w1");
+        assertEquals("w2", tabela.getWorkers()[0].getWorkerId());
+        assertEquals(0, tabela.getCarga("w1"));
+        tabela.remover("inexistente");
+        assertEquals(1, tabela.getWorkers().length);
+    }
+}
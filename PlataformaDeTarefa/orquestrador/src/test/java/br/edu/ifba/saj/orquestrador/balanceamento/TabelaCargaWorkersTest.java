@@ -0,0 +1,130 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.balanceamento;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.Test;
+
+// Importa classes de concorrência do Java.
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes dos créditos de cada worker na tabela de carga.
+ */
+class TabelaCargaWorkersTest {
+
+    @Test
+    void creditosSeEsgotamNaCapacidadeEVoltamNaConclusao() {
+        TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+        tabela.atualizarPorHeartbeat("w1", 0, 2, 0);
+
+        assertTrue(tabela.reservarCredito("w1"));
+        assertTrue(tabela.reservarCredito("w1"));
+        assertFalse(tabela.reservarCredito("w1"));
+        assertFalse(tabela.getWorkers()[0].temCredito());
+
+        tabela.registrarConclusao("w1");
+        assertEquals(1, tabela.getCarga("w1"));
+        assertTrue(tabela.reservarCredito("w1"));
+    }
+
+    @Test
+    void workerNaoRegistradoNaoTemCredito() {
+        TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+        assertFalse(tabela.reservarCredito("w1"));
+        // Conclusões e recusas de um worker desconhecido não o registram.
+        tabela.registrarConclusao("w1");
+        tabela.esgotarCreditos("w1");
+        assertEquals(0, tabela.getWorkers().length);
+    }
+
+    @Test
+    void conclusaoRepetidaNaoDeixaACargaNegativa() {
+        TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+        tabela.atualizarPorHeartbeat("w1", 0, 1, 0);
+        tabela.registrarConclusao("w1");
+        tabela.registrarConclusao("w1");
+        assertEquals(0, tabela.getCarga("w1"));
+        assertTrue(tabela.reservarCredito("w1"));
+        assertFalse(tabela.reservarCredito("w1"));
+    }
+
+    @Test
+    void capacidadeNaoInformadaNaoTemLimite() {
+        TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+        tabela.atualizarPorHeartbeat("w1", 0, 0, 0);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(tabela.reservarCredito("w1"));
+        }
+        // Sem capacidade anunciada, uma recusa não esgota os créditos.
+        tabela.esgotarCreditos("w1");
+        assertTrue(tabela.reservarCredito("w1"));
+    }
+
+    @Test
+    void recusaDoWorkerEsgotaOsCreditos() {
+        TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+        tabela.atualizarPorHeartbeat("w1", 0, 4, 0);
+        tabela.reservarCredito("w1");
+        tabela.esgotarCreditos("w1");
+        assertEquals(4, tabela.getCarga("w1"));
+        assertFalse(tabela.reservarCredito("w1"));
+    }
+
+    @Test
+    void heartbeatCorrigeACargaNosDoisSentidos() {
+        TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+        tabela.atualizarPorHeartbeat("w1", 0, 4, 0);
+        tabela.reservarCredito("w1");
+        tabela.reservarCredito("w1");
+        tabela.reservarCredito("w1");
+
+        // Um crédito perdido (a conclusão não chegou) é devolvido: o worker executa 1 e o repositório lhe atribui 1.
+        tabela.atualizarPorHeartbeat("w1", 1, 4, 1);
+        assertEquals(1, tabela.getCarga("w1"));
+        // Após um failover a tabela começa zerada e o worker informa o que executa.
+        tabela.atualizarPorHeartbeat("w1", 3, 4, 0);
+        assertEquals(3, tabela.getCarga("w1"));
+        // As atribuições ainda a caminho do worker contam, mesmo que ele ainda não as informe.
+        tabela.atualizarPorHeartbeat("w1", 0, 4, 2);
+        assertEquals(2, tabela.getCarga("w1"));
+        // A capacidade anunciada pode mudar a cada heartbeat.
+        tabela.atualizarPorHeartbeat("w1", 2, 2, 2);
+        assertFalse(tabela.reservarCredito("w1"));
+    }
+
+    @Test
+    void reservasConcorrentesNuncaPassamDaCapacidade() throws InterruptedException {
+        TabelaCargaWorkers tabela = new TabelaCargaWorkers();
+        tabela.atualizarPorHeartbeat("w1", 0, 50, 0);
+        AtomicInteger reservadas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            threads.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (tabela.reservarCredito("w1")) {
+                        reservadas.incrementAndGet();
+                    }
+                }
+            });
+        }
+        largada.countDown();
+        threads.shutdown();
+        assertTrue(threads.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(50, reservadas.get());
+        assertEquals(50, tabela.getCarga("w1"));
+    }
+}
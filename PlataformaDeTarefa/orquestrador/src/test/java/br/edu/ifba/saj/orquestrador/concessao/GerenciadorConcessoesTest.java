@@ -0,0 +1,130 @@
+// Define o pacote ao qual esta classe pertence.
+package br.edu.ifba.saj.orquestrador.concessao;
+
+// Importa as classes do JUnit.
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+// Importa classes de coleções, concorrência e utilitários do Java.
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes da expiração e da renovação das concessões.
+ */
+class GerenciadorConcessoesTest {
+
+    private static final long DURACAO_MS = 300;
+
+    private final List<String> expiradas = new CopyOnWriteArrayList<>();
+    private final GerenciadorConcessoes concessoes =
+            new GerenciadorConcessoes(DURACAO_MS, concessao -> expiradas.add(concessao.getTarefaId() + "@" + concessao.getWorkerId()));
+
+    @AfterEach
+    void parar() {
+        concessoes.parar();
+    }
+
+    /**
+     * Aguarda até que a condição seja verdadeira ou o prazo termine.
+     */
+    private static boolean aguardar(BooleanSupplier condicao, long prazoMs) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(prazoMs);
+        while (System.nanoTime() < limite) {
+            if (condicao.getAsBoolean()) return true;
+            Thread.sleep(20);
+        }
+        return condicao.getAsBoolean();
+    }
+
+    @Test
+    void concessaoNaoRenovadaExpira() throws InterruptedException {
+        concessoes.iniciar();
+        concessoes.conceder("t1", "w1");
+
+        assertTrue(aguardar(() -> !expiradas.isEmpty(), 3000));
+        assertEquals(List.of("t1@w1"), expiradas);
+        assertEquals(0, concessoes.getTotalAtivas());
+    }
+
+    @Test
+    void renovacaoDoWorkerAdiaAExpiracao() throws InterruptedException {
+        concessoes.iniciar();
+        concessoes.conceder("t1", "w1");
+        concessoes.conceder("t2", "w1");
+
+        // Renova apenas t1 por mais que a duração da concessão: t2 expira e t1 continua ativa.
+        long fim = System.currentTimeMillis() + DURACAO_MS * 3;
+        while (System.currentTimeMillis() < fim) {
+            concessoes.renovar("w1", Collections.singletonList("t1"));
+            Thread.sleep(50);
+        }
+        assertEquals(List.of("t2@w1"), expiradas);
+        assertEquals(1, concessoes.getTotalAtivas());
+
+        // Sem novas renovações, t1 também expira.
+        assertTrue(aguardar(() -> expiradas.size() == 2, 3000));
+        assertEquals("t1@w1", expiradas.get(1));
+    }
+
+    @Test
+    void outroWorkerNaoRenovaAConcessao() throws InterruptedException {
+        concessoes.iniciar();
+        concessoes.conceder("t1", "w1");
+
+        long fim = System.currentTimeMillis() + DURACAO_MS * 2;
+        while (System.currentTimeMillis() < fim && expiradas.isEmpty()) {
+            concessoes.renovar("w2", Collections.singletonList("t1"));
+            Thread.sleep(50);
+        }
+        assertTrue(aguardar(() -> !expiradas.isEmpty(), 3000));
+        assertEquals(List.of("t1@w1"), expiradas);
+    }
+
+    @Test
+    void renovacaoDeTodasAsConcessoesDoWorker() throws InterruptedException {
+        concessoes.iniciar();
+        concessoes.conceder("t1", "w1");
+        concessoes.conceder("t2", "w1");
+        concessoes.conceder("t3", "w2");
+
+        long fim = System.currentTimeMillis() + DURACAO_MS * 3;
+        while (System.currentTimeMillis() < fim) {
+            concessoes.renovarDoWorker("w1");
+            Thread.sleep(50);
+        }
+        assertEquals(List.of("t3@w2"), expiradas);
+        assertEquals(2, concessoes.getTotalAtivas());
+    }
+
+    @Test
+    void concessaoLiberadaOuRevogadaNaoExpira() throws InterruptedException {
+        concessoes.iniciar();
+        concessoes.conceder("t1", "w1");
+        concessoes.conceder("t2", "w2");
+        concessoes.conceder("t3", "w2");
+        concessoes.liberar("t1");
+        assertEquals(List.of("t2", "t3"), concessoes.revogarDoWorker("w2").stream().sorted().toList());
+
+        Thread.sleep(DURACAO_MS * 3);
+        assertTrue(expiradas.isEmpty());
+        assertEquals(0, concessoes.getTotalAtivas());
+    }
+
+    @Test
+    void novaConcessaoSubstituiAAnterior() throws InterruptedException {
+        concessoes.iniciar();
+        concessoes.conceder("t1", "w1");
+        concessoes.conceder("t1", "w2");
+
+        assertTrue(aguardar(() -> !expiradas.isEmpty(), 3000));
+        Thread.sleep(DURACAO_MS);
+        assertEquals(List.of("t1@w2"), expiradas);
+    }
+}
@@ -4,17 +4,24 @@ package br.edu.ifba.saj.worker;
 // Importa as classes geradas pelo gRPC para comunicação (protocolo) e a classe de log.
 import br.edu.ifba.saj.protocolo.*;
 import br.edu.ifba.saj.comum.util.SimpleLogger;
-// Importa as classes do gRPC para gerenciamento de canais de comunicação, servidor e tratamento de erros.
+// Importa as classes do gRPC para gerenciamento de canais de comunicação e tratamento de erros.
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
-import io.grpc.Server;
-import io.grpc.ServerBuilder;
-import io.grpc.StatusRuntimeException;
+import io.grpc.Status;
 // Importa a classe base para a implementação de callbacks assíncronos (streams).
 import io.grpc.stub.StreamObserver;
 // Importa classes do Java para manipulação de I/O, concorrência e agendamento de tarefas.
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -22,149 +29,321 @@ import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Classe que representa um nó de processamento (Worker).
- * Cada Worker é um processo independente que se conecta ao Orquestrador,
- * recebe tarefas para executar, e reporta seu status e a conclusão das tarefas.
+ * Cada Worker é um processo independente que abre uma sessão (stream bidirecional) com o Orquestrador.
+ * Pela sessão o worker se registra, recebe as tarefas, confirma ou recusa cada atribuição, e reporta
+ * progresso, conclusões e a sua carga. O worker não abre nenhuma porta: toda a comunicação parte dele.
  */
 public class WorkerNode {
 
+    // Quantidade de conclusões acumuladas que dispara o envio imediato do lote.
+    private static final int LIMITE_LOTE_CONCLUSOES = 32;
+    // Tempo máximo, em milissegundos, que uma conclusão espera no buffer antes de ser enviada.
+    private static final long INTERVALO_ENVIO_CONCLUSOES_MS = 200;
+
     // Atributos finais que definem a identidade e configuração do Worker.
     private final String workerId; // Identificador único do worker (ex: "localhost:50051").
-    private final int port; // A porta em que este worker irá escutar por tarefas do orquestrador.
     private final String orquestradorTarget; // O endereço e porta do orquestrador ao qual se conectar.
+    private final int slots; // Número de tarefas que o worker executa simultaneamente (anunciado ao orquestrador).
+    private final ExecutorService executorTarefas; // Pool de threads de tamanho fixo que executa as tarefas.
     // Atributos para gerenciar a comunicação e o estado do Worker.
     private ManagedChannel orquestradorChannel; // O canal de comunicação gRPC com o orquestrador.
-    private GerenciadorTarefasGrpc.GerenciadorTarefasBlockingStub orquestradorStub; // Stub síncrono para enviar mensagens ao orquestrador.
-    private Server server; // O servidor gRPC que este worker executa para receber tarefas.
+    private StreamObserver<MensagemWorker> sessao; // Lado de envio da sessão com o orquestrador (null se desconectado).
+    private long geracaoSessao = 0; // Incrementada a cada reconexão, para ignorar o encerramento tardio de sessões antigas.
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(); // Agenda heartbeats e reconexões.
     private final AtomicLong lamportClock = new AtomicLong(0); // Relógio de Lamport para este worker.
     private final AtomicInteger tarefasEmExecucao = new AtomicInteger(0); // Contador atômico para o número de tarefas sendo processadas.
-    private final ConclusaoCallback callbackDeConclusao; // Callback para notificar a conclusão de uma tarefa.
+    private final Set<String> tarefasAtivas = ConcurrentHashMap.newKeySet(); // IDs das tarefas em execução, informados no heartbeat para renovar as suas concessões.
+    private final Queue<String> conclusoesPendentes = new ConcurrentLinkedQueue<>(); // Conclusões ainda não enviadas (buffer do lote ou sessão caída).
+    private final AtomicInteger totalPendentes = new AtomicInteger(0); // Tamanho do buffer (o size() da fila concorrente é O(n)).
+    private final CountDownLatch encerrado = new CountDownLatch(1); // Liberado quando o worker é finalizado.
 
     /**
      * Construtor da classe WorkerNode.
      * @param host O endereço de host deste worker.
-     * @param port A porta em que este worker irá operar.
+     * @param port A porta que compõe a identidade deste worker.
      * @param orquestradorTarget O endereço do orquestrador.
+     * @param slots O número de tarefas simultâneas que o worker aceita.
      */
-    public WorkerNode(String host, int port, String orquestradorTarget) {
-        this.port = port;
+    public WorkerNode(String host, int port, String orquestradorTarget, int slots) {
         this.workerId = host + ":" + port;
         this.orquestradorTarget = orquestradorTarget;
-        // Define o método `avisarConclusao` como a implementação do callback de conclusão.
-        this.callbackDeConclusao = this::avisarConclusao;
-        // Estabelece a conexão inicial com o orquestrador.
-        conectarAoOrquestrador();
+        this.slots = slots;
+        this.executorTarefas = Executors.newFixedThreadPool(slots);
     }
 
     /**
-     * Centraliza a lógica de criação e recriação do canal de comunicação gRPC com o orquestrador.
+     * Centraliza a lógica de criação e recriação da sessão com o orquestrador.
      * Esta função é chave para a resiliência do worker em caso de falha (failover) do orquestrador.
      */
-    private void conectarAoOrquestrador() {
+    private synchronized void conectarAoOrquestrador() {
         SimpleLogger.workerInfo(workerId, "Tentando conectar ao orquestrador em " + orquestradorTarget + "...");
         // Se já existe um canal, desliga-o antes de criar um novo.
         if (this.orquestradorChannel != null && !this.orquestradorChannel.isShutdown()) {
             this.orquestradorChannel.shutdownNow();
         }
-        // Constrói um novo canal gRPC e um novo stub associado a ele.
-        this.orquestradorChannel = ManagedChannelBuilder.forTarget(orquestradorTarget).usePlaintext().build();
-        this.orquestradorStub = GerenciadorTarefasGrpc.newBlockingStub(orquestradorChannel);
-        SimpleLogger.workerSuccess(workerId, "Canal de comunicação com orquestrador (re)criado.");
+        // Constrói um novo canal gRPC com keepalive, para que uma conexão morta derrube a sessão rapidamente.
+        this.orquestradorChannel = ManagedChannelBuilder.forTarget(orquestradorTarget)
+                .usePlaintext()
+                .keepAliveTime(10, TimeUnit.SECONDS)
+                .keepAliveTimeout(5, TimeUnit.SECONDS)
+                .keepAliveWithoutCalls(true)
+                .build();
+        // Abre a sessão; as mensagens do orquestrador chegam no observador abaixo.
+        final long geracao = ++geracaoSessao;
+        this.sessao = GerenciadorTarefasGrpc.newStub(orquestradorChannel).sessaoWorker(new StreamObserver<MensagemOrquestrador>() {
+            @Override
+            public void onNext(MensagemOrquestrador mensagem) {
+                lamportClock.updateAndGet(current -> Math.max(current, mensagem.getLamportTimestamp()) + 1);
+                if (mensagem.getConteudoCase() == MensagemOrquestrador.ConteudoCase.ATRIBUICAO) {
+                    receberTarefa(mensagem.getAtribuicao());
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                SimpleLogger.workerError(workerId, "Sessão com o orquestrador interrompida: " + Status.fromThrowable(t).getCode());
+                sessaoEncerrada(geracao);
+            }
+
+            @Override
+            public void onCompleted() {
+                SimpleLogger.workerWarning(workerId, "Sessão encerrada pelo orquestrador.");
+                sessaoEncerrada(geracao);
+            }
+        });
+
+        // A primeira mensagem da sessão é sempre o registro do worker.
+        enviar(MensagemWorker.newBuilder().setRegistro(RegistroWorker.newBuilder()
+                .setWorkerId(workerId)
+                .setCapacidade(slots)));
+        SimpleLogger.workerSuccess(workerId, "Sessão com o orquestrador (re)aberta.");
+        // Reenvia as conclusões que ficaram pendentes enquanto a sessão estava caída.
+        enviarConclusoes();
+    }
+
+    /**
+     * Descarta a sessão atual. A reconexão é feita pelo próximo ciclo de heartbeat.
+     */
+    private synchronized void sessaoEncerrada(long geracao) {
+        if (geracao != geracaoSessao || sessao == null) return;
+        sessao = null;
+        SimpleLogger.workerWarning(workerId, "Orquestrador possivelmente offline. Tentando reconectar...");
     }
 
     /**
-     * Inicia o servidor gRPC do worker e a tarefa de envio de heartbeats.
-     * @throws IOException Se a porta especificada já estiver em uso.
+     * Envia uma mensagem ao orquestrador pela sessão. O StreamObserver do gRPC não é thread-safe,
+     * por isso os envios (threads do pool, do agendador e do gRPC) são serializados aqui.
+     * @param mensagem A mensagem a ser enviada (o timestamp de Lamport é preenchido aqui).
+     * @return true se a mensagem foi entregue ao stream, false se não há sessão aberta.
      */
-    public void start() throws IOException {
-        // Constrói e inicia o servidor gRPC que irá escutar por requisições do orquestrador.
-        server = ServerBuilder.forPort(port)
-                .addService(new GerenciadorTarefasImpl(workerId, lamportClock, tarefasEmExecucao, this.callbackDeConclusao))
-                .build()
-                .start();
+    private synchronized boolean enviar(MensagemWorker.Builder mensagem) {
+        if (sessao == null) {
+            return false;
+        }
+        try {
+            sessao.onNext(mensagem.setLamportTimestamp(lamportClock.incrementAndGet()).build());
+            return true;
+        } catch (Exception e) {
+            SimpleLogger.workerError(workerId, "Falha ao enviar mensagem na sessão: " + e.getMessage());
+            sessao = null;
+            return false;
+        }
+    }
 
-        SimpleLogger.workerSuccess(workerId, "Iniciado e aguardando tarefas na porta " + port);
-        // Inicia a tarefa agendada para enviar heartbeats periodicamente.
+    /**
+     * Inicia a sessão com o orquestrador e a tarefa de envio de heartbeats.
+     */
+    public void start() {
+        SimpleLogger.workerSuccess(workerId, "Iniciado e aguardando tarefas (" + slots + " slots)");
+        // Inicia a tarefa agendada que envia heartbeats e, se necessário, (re)abre a sessão.
         startHeartbeat();
         // Registra um "shutdown hook" para garantir que o método stop() seja chamado ao encerrar a JVM.
         Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
     }
 
     /**
-     * Encerra de forma limpa os recursos do worker (servidor gRPC e canal de comunicação).
+     * Encerra de forma limpa os recursos do worker (sessão, pool de tarefas e canal de comunicação).
      */
     public void stop() {
         SimpleLogger.workerInfo(workerId, "Finalizando worker...");
-        if (server != null) server.shutdown();
+        agendador.shutdownNow();
+        executorTarefas.shutdownNow();
+        synchronized (this) {
+            if (sessao != null) {
+                try {
+                    sessao.onCompleted();
+                } catch (Exception e) {
+                    // A sessão já pode ter sido encerrada pelo transporte.
+                }
+                sessao = null;
+            }
+        }
         if (orquestradorChannel != null) orquestradorChannel.shutdown();
         SimpleLogger.workerSuccess(workerId, "Worker finalizado");
+        encerrado.countDown();
     }
 
     /**
-     * Bloqueia a thread principal, aguardando o encerramento do servidor.
+     * Bloqueia a thread principal até o worker ser finalizado.
      * Permite que o worker continue em execução indefinidamente.
      */
     private void awaitTermination() throws InterruptedException {
-        if (server != null) server.awaitTermination();
+        encerrado.await();
     }
 
     /**
      * Configura e inicia a tarefa agendada para enviar heartbeats para o orquestrador.
      */
     public void startHeartbeat() {
-        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
         // Agenda o método enviarHeartbeat para ser executado a cada 5 segundos, começando imediatamente.
-        scheduler.scheduleAtFixedRate(this::enviarHeartbeat, 0, 5, TimeUnit.SECONDS);
+        agendador.scheduleAtFixedRate(this::enviarHeartbeat, 0, 5, TimeUnit.SECONDS);
+        // Agenda o envio periódico das conclusões acumuladas (limite de tempo do lote).
+        agendador.scheduleWithFixedDelay(this::enviarConclusoes, INTERVALO_ENVIO_CONCLUSOES_MS, INTERVALO_ENVIO_CONCLUSOES_MS, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Constrói e envia uma mensagem de heartbeat para o orquestrador.
-     * Contém a lógica de tratamento de erro para tentar reconectar em caso de falha.
+     * Envia um heartbeat pela sessão, informando a carga atual do worker.
+     * A vivacidade do worker é dada pelo próprio stream; o heartbeat mantém a tabela de carga do orquestrador atualizada.
+     * Se não houver sessão aberta, tenta reconectar ao orquestrador.
      */
     private void enviarHeartbeat() {
         try {
-            long timestamp = lamportClock.incrementAndGet(); // Incrementa o relógio de Lamport.
-            // Constrói a requisição de heartbeat com o ID do worker e o número de tarefas em execução.
-            HeartbeatRequest request = HeartbeatRequest.newBuilder()
+            // As conclusões acumuladas seguem junto com o heartbeat, sem uma mensagem própria.
+            List<String> concluidas = retirarConclusoes();
+            boolean enviado = enviar(MensagemWorker.newBuilder().setHeartbeat(HeartbeatRequest.newBuilder()
                     .setWorkerId(workerId)
                     .setTarefasEmExecucao(tarefasEmExecucao.get())
-                    .setLamportTimestamp(timestamp)
-                    .build();
-            // Envia o heartbeat com um timeout de 3 segundos.
-            orquestradorStub.withDeadlineAfter(3, TimeUnit.SECONDS).enviarHeartbeat(request);
-        } catch (StatusRuntimeException e) {
-            // Se a comunicação falhar, loga o erro e tenta reconectar ao orquestrador.
-            SimpleLogger.workerError(workerId, "Falha no heartbeat: " + e.getStatus().getDescription());
-            SimpleLogger.workerWarning(workerId, "Orquestrador possivelmente offline. Tentando reconectar...");
-            conectarAoOrquestrador();
+                    .addAllTarefasEmExecucaoIds(tarefasAtivas)
+                    .setCapacidade(slots)
+                    .addAllTarefasConcluidas(concluidas)));
+            if (!enviado) {
+                devolverConclusoes(concluidas);
+                conectarAoOrquestrador();
+            }
         } catch (Exception e) {
             SimpleLogger.workerError(workerId, "Erro inesperado no heartbeat: " + e.getMessage());
         }
     }
 
     /**
-     * Constrói e envia uma mensagem ao orquestrador para notificá-lo de que uma tarefa foi concluída.
+     * Trata uma tarefa atribuída pelo orquestrador: ocupa um slot e confirma a atribuição,
+     * ou a recusa se todos os slots estiverem ocupados, para que o orquestrador a mantenha na fila.
+     */
+    private void receberTarefa(AtribuicaoTarefa atribuicao) {
+        String tarefaId = atribuicao.getTarefaId();
+        String dadosTarefa = atribuicao.getDadosTarefa();
+        String tituloTarefa = extrairTitulo(dadosTarefa);
+
+        // Ocupa um slot; se todos estiverem ocupados, recusa a tarefa.
+        if (tarefasEmExecucao.incrementAndGet() > slots) {
+            tarefasEmExecucao.decrementAndGet();
+            SimpleLogger.workerWarning(workerId, String.format("Tarefa %s recusada: todos os %d slots ocupados.",
+                    tarefaId, slots));
+            enviar(MensagemWorker.newBuilder().setAck(AckTarefa.newBuilder()
+                    .setTarefaId(tarefaId)
+                    .setAceita(false)
+                    .setMotivo("Worker sem slots livres.")));
+            return;
+        }
+        tarefasAtivas.add(tarefaId);
+        SimpleLogger.workerInfo(workerId, String.format("Nova tarefa recebida: %s | ID: %s",
+                tituloTarefa, tarefaId));
+        enviar(MensagemWorker.newBuilder().setAck(AckTarefa.newBuilder().setTarefaId(tarefaId).setAceita(true)));
+
+        // Entrega a tarefa ao pool de slots, liberando a thread do gRPC para receber novas mensagens.
+        executorTarefas.execute(() -> {
+            try {
+                // Simula o tempo de processamento da tarefa com um atraso aleatório.
+                int tempoProcessamento = 3000 + (int)(Math.random() * 7000);
+                SimpleLogger.workerInfo(workerId, String.format("Processando '%s' por %dms", tituloTarefa, tempoProcessamento));
+                Thread.sleep(tempoProcessamento / 2);
+                // Reporta o progresso na metade do processamento.
+                enviar(MensagemWorker.newBuilder().setProgresso(ProgressoTarefa.newBuilder().setTarefaId(tarefaId).setPercentual(50)));
+                Thread.sleep(tempoProcessamento - tempoProcessamento / 2);
+                SimpleLogger.workerSuccess(workerId, String.format("Processamento de '%s' concluído.", tituloTarefa));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                SimpleLogger.workerError(workerId, String.format("Processamento de '%s' interrompido.", tituloTarefa));
+            } finally {
+                // Decrementa o contador de tarefas em execução e notifica o orquestrador.
+                tarefasAtivas.remove(tarefaId);
+                tarefasEmExecucao.decrementAndGet();
+                avisarConclusao(tarefaId);
+            }
+        });
+    }
+
+    /**
+     * Registra a conclusão de uma tarefa no buffer de conclusões. O envio ao orquestrador é feito em lote:
+     * ao atingir LIMITE_LOTE_CONCLUSOES, a cada INTERVALO_ENVIO_CONCLUSOES_MS ou junto com o próximo heartbeat.
+     * Assim a thread da tarefa não fica presa à comunicação com o orquestrador.
      * @param tarefaId O ID da tarefa que foi finalizada.
      */
     private void avisarConclusao(String tarefaId) {
-        try {
-            long timestamp = lamportClock.incrementAndGet();
-            // Constrói a requisição de finalização da tarefa.
-            FinalizarTarefaRequest request = FinalizarTarefaRequest.newBuilder()
-                    .setTarefaId(tarefaId)
-                    .setWorkerId(workerId)
-                    .setLamportTimestamp(timestamp)
-                    .build();
+        conclusoesPendentes.add(tarefaId);
+        if (totalPendentes.incrementAndGet() >= LIMITE_LOTE_CONCLUSOES) {
+            try {
+                agendador.execute(this::enviarConclusoes);
+            } catch (RejectedExecutionException e) {
+                // O worker está sendo finalizado; não há mais para onde enviar.
+            }
+        }
+    }
 
-            // Envia a notificação com um timeout de 10 segundos.
-            orquestradorStub.withDeadlineAfter(10, TimeUnit.SECONDS).finalizarTarefa(request);
-            SimpleLogger.workerSuccess(workerId, String.format("Notificação de conclusão da tarefa %s enviada.", tarefaId.substring(0, 8)));
+    /**
+     * Envia em uma única mensagem todas as conclusões acumuladas no buffer.
+     * Se não houver sessão aberta, as conclusões voltam ao buffer e são enviadas na reconexão.
+     */
+    private void enviarConclusoes() {
+        List<String> concluidas = retirarConclusoes();
+        if (concluidas.isEmpty()) {
+            return;
+        }
+        boolean enviado = enviar(MensagemWorker.newBuilder().setConclusoes(FinalizarTarefasRequest.newBuilder()
+                .setWorkerId(workerId)
+                .addAllTarefaIds(concluidas)));
+        if (enviado) {
+            SimpleLogger.workerSuccess(workerId, String.format("Notificação de conclusão de %d tarefa(s) enviada.", concluidas.size()));
+        } else {
+            SimpleLogger.workerWarning(workerId, "Sem sessão com o orquestrador. " + concluidas.size() + " conclusão(ões) serão enviadas na reconexão.");
+            devolverConclusoes(concluidas);
+        }
+    }
 
-        } catch (StatusRuntimeException e) {
-            // Se a notificação falhar, loga o erro e tenta reconectar.
-            SimpleLogger.workerError(workerId, "Falha ao finalizar tarefa " + tarefaId + ": " + e.getMessage());
-            SimpleLogger.workerWarning(workerId, "A tarefa será finalizada no orquestrador no próximo heartbeat.");
-            conectarAoOrquestrador();
+    /**
+     * Esvazia o buffer de conclusões, retornando o seu conteúdo.
+     */
+    private List<String> retirarConclusoes() {
+        List<String> concluidas = new ArrayList<>();
+        String tarefaId;
+        while ((tarefaId = conclusoesPendentes.poll()) != null) {
+            concluidas.add(tarefaId);
         }
+        totalPendentes.addAndGet(-concluidas.size());
+        return concluidas;
+    }
+
+    /**
+     * Devolve ao buffer conclusões que não puderam ser enviadas.
+     */
+    private void devolverConclusoes(List<String> concluidas) {
+        conclusoesPendentes.addAll(concluidas);
+        totalPendentes.addAndGet(concluidas.size());
+    }
+
+    /**
+     * Método utilitário para extrair um título curto da string de dados da tarefa para fins de log.
+     */
+    private static String extrairTitulo(String dadosTarefa) {
+        if (dadosTarefa.contains(":")) {
+            String[] partes = dadosTarefa.split(":", 2);
+            String titulo = partes[0].trim();
+            if (titulo.startsWith("[") && titulo.contains("]")) {
+                titulo = titulo.substring(titulo.indexOf("]") + 1).trim();
+            }
+            return titulo.length() > 30 ? titulo.substring(0, 27) + "..." : titulo;
+        }
+        return dadosTarefa.length() > 30 ? dadosTarefa.substring(0, 27) + "..." : dadosTarefa;
     }
 
     /**
@@ -186,10 +365,21 @@ public class WorkerNode {
             }
         }
 
+        // Permite configurar o número de slots via -Dworker.slots; por padrão, um slot por núcleo de CPU.
+        int slots = Runtime.getRuntime().availableProcessors();
+        String slotsConfigurados = System.getProperty("worker.slots");
+        if (slotsConfigurados != null) {
+            try {
+                slots = Math.max(1, Integer.parseInt(slotsConfigurados.trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("Número de slots inválido. Usando " + slots + " (núcleos disponíveis).");
+            }
+        }
+
         // Define o alvo do orquestrador.
         String orquestradorTarget = "localhost:50050";
         // Cria a instância do WorkerNode.
-        final WorkerNode worker = new WorkerNode("localhost", port, orquestradorTarget);
+        final WorkerNode worker = new WorkerNode("localhost", port, orquestradorTarget, slots);
 
         SimpleLogger.workerInfo("localhost:" + port, "Iniciando worker...");
         // Inicia o worker.
@@ -197,86 +387,4 @@ public class WorkerNode {
         // Bloqueia a thread para manter o worker em execução.
         worker.awaitTermination();
     }
-
-    /**
-     * Interface funcional para definir o contrato do callback de conclusão de tarefa.
-     */
-    @FunctionalInterface
-    interface ConclusaoCallback {
-        void onConcluido(String tarefaId);
-    }
-
-    /**
-     * Classe interna que implementa o serviço gRPC `GerenciadorTarefas` do ponto de vista do Worker.
-     * É responsável por receber e processar as tarefas enviadas pelo orquestrador.
-     */
-    private static class GerenciadorTarefasImpl extends GerenciadorTarefasGrpc.GerenciadorTarefasImplBase {
-        private final String workerId;
-        private final AtomicLong workerClock;
-        private final AtomicInteger tarefasEmExecucao;
-        private final ConclusaoCallback callback;
-
-        public GerenciadorTarefasImpl(String workerId, AtomicLong clock, AtomicInteger tarefasEmExecucao, ConclusaoCallback callback) {
-            this.workerId = workerId;
-            this.workerClock = clock;
-            this.tarefasEmExecucao = tarefasEmExecucao;
-            this.callback = callback;
-        }
-
-        /**
-         * Método chamado pelo orquestrador para entregar uma nova tarefa a este worker.
-         */
-        @Override
-        public void submeterTarefa(SubmeterTarefaRequest request, StreamObserver<SubmeterTarefaResponse> responseObserver) {
-            // Atualiza o relógio de Lamport local com base no timestamp recebido do orquestrador.
-            long receivedTimestamp = request.getLamportTimestamp();
-            workerClock.updateAndGet(current -> Math.max(current, receivedTimestamp) + 1);
-
-            String tarefaId = request.getTarefaId();
-            String dadosTarefa = request.getDadosTarefa();
-            String tituloTarefa = extrairTitulo(dadosTarefa);
-
-            // Incrementa o contador de tarefas em execução.
-            tarefasEmExecucao.incrementAndGet();
-            SimpleLogger.workerInfo(workerId, String.format("Nova tarefa recebida: %s | ID: %s...",
-                    tituloTarefa, tarefaId.substring(0, 8)));
-
-            // Inicia uma nova thread para processar a tarefa, liberando a thread do gRPC para receber novas requisições.
-            new Thread(() -> {
-                try {
-                    // Simula o tempo de processamento da tarefa com um atraso aleatório.
-                    int tempoProcessamento = 3000 + (int)(Math.random() * 7000);
-                    SimpleLogger.workerInfo(workerId, String.format("Processando '%s' por %dms", tituloTarefa, tempoProcessamento));
-                    Thread.sleep(tempoProcessamento);
-                    SimpleLogger.workerSuccess(workerId, String.format("Processamento de '%s' concluído.", tituloTarefa));
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    SimpleLogger.workerError(workerId, String.format("Processamento de '%s' interrompido.", tituloTarefa));
-                } finally {
-                    // Decrementa o contador de tarefas em execução e chama o callback para notificar o orquestrador.
-                    tarefasEmExecucao.decrementAndGet();
-                    callback.onConcluido(tarefaId);
-                }
-            }).start();
-
-            // Envia uma resposta imediata ao orquestrador confirmando o recebimento da tarefa.
-            responseObserver.onNext(SubmeterTarefaResponse.newBuilder().build());
-            responseObserver.onCompleted();
-        }
-
-        /**
-         * Método utilitário para extrair um título curto da string de dados da tarefa para fins de log.
-         */
-        private String extrairTitulo(String dadosTarefa) {
-            if (dadosTarefa.contains(":")) {
-                String[] partes = dadosTarefa.split(":", 2);
-                String titulo = partes[0].trim();
-                if (titulo.startsWith("[") && titulo.contains("]")) {
-                    titulo = titulo.substring(titulo.indexOf("]") + 1).trim();
-                }
-                return titulo.length() > 30 ? titulo.substring(0, 27) + "..." : titulo;
-            }
-            return dadosTarefa.length() > 30 ? dadosTarefa.substring(0, 27) + "..." : dadosTarefa;
-        }
-    }
 }
\ No newline at end of file